@@ -0,0 +1,115 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.ais.message.AisMessage;
+import dk.dma.ais.sentence.Vdm;
+import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
+
+/**
+ * Throughput of decoding single sentence VDM messages of a given message type, and of decoding and applying them in
+ * {@linkplain AisHandlerCommon#receive}. The difference between the two is the cost of the message handler
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AisDecodeBenchmark {
+
+    /** Position reports in the Kattegat and western Baltic, four targets per message type */
+    private static final String[][] SENTENCES = {
+            // Message #1, class A position report
+            { "!AIVDM,1,1,,A,13@ndh001pPd;:fPB6F3Q2lt0000,0*3E", "!AIVDM,1,1,,A,13@ndh@01pPqGQNOSoc3Q2lt0000,0*16",
+                    "!AIVDM,1,1,,A,13@ndhP01pPvbIdPTHBkQ2lt0000,0*50", "!AIVDM,1,1,,A,13@ndhh01pPwQslPTQOkQ2lt0000,0*7C" },
+            // Message #4, base station report
+            { "!AIVDM,1,1,,A,4025bd1upn:N?PiWT>Ob4;A00000,0*65", "!AIVDM,1,1,,A,4025bdAupn:N?Phtf@O>huA00000,0*35",
+                    "!AIVDM,1,1,,A,4025bdQupn:N?PghPLOi>hi00000,0*38", "!AIVDM,1,1,,A,4025bdiupn:N?Q6=hRP6hfi00000,0*3B" },
+            // Message #9, SAR aircraft position report
+            { "!AIVDM,1,1,,A,91b4A>1;2<Pv4edPLhd727P20000,0*50", "!AIVDM,1,1,,A,91b4A>A;2<PrM6rPC?p727P20000,0*54",
+                    "!AIVDM,1,1,,A,91b4A>Q;2<PlfopPm0j727P20000,0*11", "!AIVDM,1,1,,A,91b4A>i;2<PraUTOmKtW27P20000,0*34" },
+            // Message #18, class B position report
+            { "!AIVDM,1,1,,A,B3@tkH00@H;N0J8;Mp>`j7?5h000,0*28", "!AIVDM,1,1,,A,B3@tkH@0@H>rhF7q15V`j7?5h000,0*21",
+                    "!AIVDM,1,1,,A,B3@tkHP0@H;RCIWmPWv`j7?5h000,0*6F", "!AIVDM,1,1,,A,B3@tkHh0@H?7W7`9gR2`j7?5h000,0*49" },
+            // Message #27, long-range position report
+            { "!AIVDM,1,1,,A,K3A2r000Fcl5IV2l,0*52", "!AIVDM,1,1,,A,K3A2r0@0FFl:nV2l,0*2F",
+                    "!AIVDM,1,1,,A,K3A2r0P0NhD;HV2l,0*16", "!AIVDM,1,1,,A,K3A2r0h0NHT;UV2l,0*03" } };
+
+    private static final int[] MSG_IDS = { 1, 4, 9, 18, 27 };
+
+    @Param({ "1", "4", "9", "18", "27" })
+    public int msgId;
+
+    private AisHandlerCommon aisHandler;
+    private String[] sentences;
+    private int index;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchSupport.init();
+        aisHandler = new AisHandlerBenchmark.BenchAisHandler();
+        aisHandler.findAndInit(new BenchIntendedRouteHandler());
+
+        for (int i = 0; i < MSG_IDS.length; i++) {
+            if (MSG_IDS[i] == msgId) {
+                sentences = SENTENCES[i];
+            }
+        }
+        if (sentences == null) {
+            throw new IllegalArgumentException("No sentences for message type " + msgId);
+        }
+
+        // Verify that the sentences decode to the expected message type
+        for (String sentence : sentences) {
+            if (decode(sentence).getMsgId() != msgId) {
+                throw new IllegalStateException("Sentence is not of message type " + msgId + ": " + sentence);
+            }
+        }
+    }
+
+    @Benchmark
+    public AisMessage decode() throws Exception {
+        index = (index + 1) & (sentences.length - 1);
+        return decode(sentences[index]);
+    }
+
+    @Benchmark
+    public AisHandlerCommon decodeAndApply() throws Exception {
+        index = (index + 1) & (sentences.length - 1);
+        aisHandler.receive(decode(sentences[index]));
+        return aisHandler;
+    }
+
+    private static AisMessage decode(String sentence) throws Exception {
+        Vdm vdm = new Vdm();
+        vdm.parse(sentence);
+        return AisMessage.getInstance(vdm);
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.ais.message.AisMessage3;
+import dk.dma.ais.message.AisPosition;
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
+import dk.dma.epd.common.prototype.settings.AisSettings;
+import dk.dma.epd.common.util.Calculator;
+
+/**
+ * Benchmark of the ingestion of AIS position reports in {@linkplain AisHandlerCommon#receive}, including the past track
+ * bookkeeping, for a traffic picture of a given number of vessels
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AisHandlerBenchmark {
+
+    /** Number of reports per vessel */
+    private static final int REPORTS = 64;
+
+    @Param({ "100", "1000" })
+    public int vessels;
+
+    private AisHandlerCommon aisHandler;
+    private AisMessage3[] messages;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        BenchSupport.init();
+        aisHandler = new BenchAisHandler();
+        aisHandler.findAndInit(new BenchIntendedRouteHandler());
+
+        // Each vessel sails a straight track, and the reports are interleaved like on a live feed
+        Random random = new Random(BenchSupport.SEED);
+        Position[] starts = BenchSupport.randomPositions(vessels);
+        messages = new AisMessage3[vessels * REPORTS];
+        for (int v = 0; v < vessels; v++) {
+            int cog = random.nextInt(360);
+            int sog = 50 + random.nextInt(150);
+            for (int r = 0; r < REPORTS; r++) {
+                AisMessage3 msg = new AisMessage3();
+                msg.setUserId(219000000 + v);
+                msg.setPos(new AisPosition(Calculator.findPosition(starts[v], cog, r * sog)));
+                msg.setSog(sog);
+                msg.setCog(cog * 10);
+                msg.setTrueHeading(cog);
+                messages[r * vessels + v] = msg;
+            }
+        }
+    }
+
+    @Benchmark
+    public AisHandlerCommon receivePositionReport() {
+        aisHandler.receive(messages[index]);
+        index = (index + 1) % messages.length;
+        return aisHandler;
+    }
+
+    /**
+     * AIS handler accepting all targets
+     */
+    static final class BenchAisHandler extends AisHandlerCommon {
+
+        BenchAisHandler() {
+            super(new AisSettings());
+        }
+
+        @Override
+        protected boolean isWithinRange(Position pos) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import net.maritimecloud.core.id.MaritimeId;
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.gui.MainFrameCommon;
+
+/**
+ * Minimal headless {@linkplain EPD} instance, needed by components that look up the EPD system during class initialization
+ */
+final class BenchEPD extends EPD {
+
+    @Override
+    public EPDType getType() {
+        return EPDType.SHIP;
+    }
+
+    @Override
+    public Path getHomePath() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), ".epd-bench");
+    }
+
+    @Override
+    protected String getPropertyFileName() {
+        return "epd-bench.properties";
+    }
+
+    @Override
+    protected void propertyLoadError(String msg, IOException e) {
+    }
+
+    @Override
+    protected void startSensors() {
+    }
+
+    @Override
+    protected void stopSensors() {
+    }
+
+    @Override
+    public MainFrameCommon getMainFrame() {
+        return null;
+    }
+
+    @Override
+    public Position getPosition() {
+        return null;
+    }
+
+    @Override
+    public Long getMmsi() {
+        return null;
+    }
+
+    @Override
+    public MaritimeId getMaritimeId() {
+        return null;
+    }
+
+    @Override
+    public String[] getDefaultMouseModeServiceList() {
+        return new String[0];
+    }
+
+    @Override
+    public void closeApp(boolean restart) {
+    }
+
+    @Override
+    public void settingsChanged(Type type) {
+    }
+}
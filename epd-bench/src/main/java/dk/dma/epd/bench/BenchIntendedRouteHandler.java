@@ -0,0 +1,67 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import dk.dma.epd.common.prototype.model.intendedroute.FilteredIntendedRoute;
+import dk.dma.epd.common.prototype.model.route.IntendedRoute;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.service.IntendedRouteHandlerCommon;
+
+/**
+ * Intended route handler without filtering or notifications, which exposes the TCPA calculation
+ */
+final class BenchIntendedRouteHandler extends IntendedRouteHandlerCommon {
+
+    private final Map<Route, Long> mmsis = new IdentityHashMap<>();
+
+    BenchIntendedRouteHandler() {
+        ENC_DISTANCE_EPSILON = 1852 / 2;
+        FILTER_DISTANCE_EPSILON = 0.5;
+        ALERT_DISTANCE_EPSILON = 0.5;
+    }
+
+    /**
+     * Registers the MMSI of a route that is not an {@linkplain IntendedRoute}
+     */
+    void setMmsi(Route route, long mmsi) {
+        mmsis.put(route, mmsi);
+    }
+
+    @Override
+    public Long getMmsi(Route route) {
+        Long mmsi = mmsis.get(route);
+        return mmsi != null ? mmsi : super.getMmsi(route);
+    }
+
+    FilteredIntendedRoute tcpa(Route route1, Route route2) {
+        return findTCPA(route1, route2);
+    }
+
+    @Override
+    protected void updateFilter() {
+    }
+
+    @Override
+    protected void applyFilter(IntendedRoute route) {
+    }
+
+    @Override
+    protected String formatNotificationDescription(FilteredIntendedRoute filteredIntendedRoute) {
+        return "";
+    }
+}
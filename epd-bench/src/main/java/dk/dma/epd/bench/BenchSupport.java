@@ -0,0 +1,118 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.Date;
+import java.util.Random;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.Heading;
+import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.route.RouteLeg;
+import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
+import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+import dk.dma.epd.common.util.Calculator;
+import dk.dma.epd.common.util.Converter;
+
+/**
+ * Shared set-up for the benchmarks. All data is generated from fixed seeds, so runs on different commits are comparable
+ */
+final class BenchSupport {
+
+    static final long SEED = 42;
+
+    private BenchSupport() {
+    }
+
+    /**
+     * Creates the headless EPD instance and the PNT time source used by the AIS and route code
+     */
+    static synchronized void init() {
+        if (EPD.getInstance() == null) {
+            new BenchEPD();
+        }
+        PntTime.init(false);
+    }
+
+    /**
+     * Returns random positions in the Kattegat and western Baltic
+     */
+    static Position[] randomPositions(int count) {
+        Random random = new Random(SEED);
+        Position[] positions = new Position[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = Position.create(54.5 + random.nextDouble() * 3.0, 9.5 + random.nextDouble() * 6.0);
+        }
+        return positions;
+    }
+
+    /**
+     * Creates a zig-zag route with alternating rhumb line and great circle legs
+     *
+     * @param start
+     *            the position of the first way point
+     * @param waypoints
+     *            the number of way points
+     * @param bearing
+     *            the general bearing of the route
+     * @param legLength
+     *            the length of each leg in nautical miles
+     * @param speed
+     *            the speed on each leg in knots
+     * @param starttime
+     *            the start time of the route
+     * @return the route
+     */
+    static Route createRoute(Position start, int waypoints, double bearing, double legLength, double speed, Date starttime) {
+        Route route = new Route();
+        route.setName("Benchmark route");
+
+        Position pos = start;
+        RouteLeg lastLeg = null;
+        for (int i = 0; i < waypoints; i++) {
+            RouteWaypoint wp = new RouteWaypoint();
+            RouteLeg outLeg = new RouteLeg();
+            wp.setInLeg(lastLeg);
+            wp.setOutLeg(outLeg);
+            outLeg.setStartWp(wp);
+            if (lastLeg != null) {
+                lastLeg.setEndWp(wp);
+            }
+
+            wp.setName("WP_" + (i + 1));
+            wp.setPos(pos);
+            wp.setSpeed(speed);
+            wp.setTurnRad(0.5);
+            outLeg.setSpeed(speed);
+            outLeg.setXtdPort(0.1);
+            outLeg.setXtdStarboard(0.1);
+            outLeg.setHeading(i % 2 == 0 ? Heading.RL : Heading.GC);
+
+            if (i == waypoints - 1) {
+                wp.setOutLeg(null);
+            }
+            route.getWaypoints().add(wp);
+            lastLeg = outLeg;
+
+            double legBearing = bearing + (i % 2 == 0 ? 20 : -20);
+            pos = Calculator.findPosition(pos, legBearing, Converter.nmToMeters(legLength));
+        }
+
+        route.setStarttime(starttime);
+        route.calcValues(true);
+        return route;
+    }
+}
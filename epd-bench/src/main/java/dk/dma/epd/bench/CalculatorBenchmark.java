@@ -0,0 +1,102 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.enav.model.geometry.CoordinateSystem;
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.Heading;
+import dk.dma.epd.common.util.Calculator;
+
+/**
+ * Benchmarks of the geodesic primitives in {@linkplain Calculator}.
+ * <p>
+ * Each invocation uses the next pair from a fixed set of random positions, so the JIT cannot fold the calculations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    private Position[] positions;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        positions = BenchSupport.randomPositions(POSITIONS);
+    }
+
+    private Position next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+    @Benchmark
+    public double rangeRhumbLine() {
+        return Calculator.range(next(), next(), Heading.RL);
+    }
+
+    @Benchmark
+    public double rangeGreatCircle() {
+        return Calculator.range(next(), next(), Heading.GC);
+    }
+
+    @Benchmark
+    public double bearingRhumbLine() {
+        return Calculator.bearing(next(), next(), Heading.RL);
+    }
+
+    @Benchmark
+    public double bearingGreatCircle() {
+        return Calculator.bearing(next(), next(), Heading.GC);
+    }
+
+    @Benchmark
+    public Position findPositionBearing() {
+        return Calculator.findPosition(next(), index * 0.35, 10000);
+    }
+
+    @Benchmark
+    public Position findPositionBetween() {
+        return Calculator.findPosition(next(), next(), 10000);
+    }
+
+    @Benchmark
+    public double crossTrackDistance() {
+        return Calculator.crossTrackDistance(next(), next(), next());
+    }
+
+    @Benchmark
+    public double cartesianDistance() {
+        return next().distanceTo(next(), CoordinateSystem.CARTESIAN);
+    }
+}
@@ -0,0 +1,61 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.epd.common.prototype.metrics.Counter;
+import dk.dma.epd.common.prototype.metrics.LatencyHistogram;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
+
+/**
+ * Overhead of the metrics recorded on the hot paths, with four threads updating the same metrics
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricsBenchmark {
+
+    private final Counter counter = MetricsRegistry.getInstance().counter("bench.counter");
+    private final LatencyHistogram histogram = MetricsRegistry.getInstance().histogram("bench.latency");
+
+    @Benchmark
+    public Counter incrementCounter() {
+        counter.inc();
+        return counter;
+    }
+
+    @Benchmark
+    public LatencyHistogram recordLatency() {
+        long start = System.nanoTime();
+        histogram.recordSince(start);
+        return histogram;
+    }
+}
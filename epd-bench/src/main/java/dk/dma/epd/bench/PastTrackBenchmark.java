@@ -0,0 +1,87 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.ais.PastTrackSortedSet;
+import dk.dma.epd.common.util.Calculator;
+
+/**
+ * Benchmarks of {@linkplain PastTrackSortedSet#addPosition(Position, int)}, both for positions that are added and for
+ * positions that are rejected by the minimum distance
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PastTrackBenchmark {
+
+    private static final int MIN_DIST = 50;
+    private static final int TRACK_POINTS = 1024;
+
+    private Position[] track;
+    private Position[] jitter;
+    private PastTrackSortedSet pastTrack;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        // A straight track with 100 m steps, and positions within a few meters of the start
+        track = new Position[TRACK_POINTS];
+        jitter = new Position[TRACK_POINTS];
+        Position start = Position.create(55.5, 11.0);
+        for (int i = 0; i < TRACK_POINTS; i++) {
+            track[i] = Calculator.findPosition(start, 60, 100.0 * i);
+            jitter[i] = Calculator.findPosition(start, i * 7 % 360, i % 10);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        pastTrack = new PastTrackSortedSet();
+        pastTrack.addPosition(track[0], MIN_DIST);
+        index = 0;
+    }
+
+    @Benchmark
+    public PastTrackSortedSet addMovingPosition() {
+        index = (index + 1) & (TRACK_POINTS - 1);
+        pastTrack.addPosition(track[index], MIN_DIST);
+        return pastTrack;
+    }
+
+    @Benchmark
+    public PastTrackSortedSet addStationaryPosition() {
+        index = (index + 1) & (TRACK_POINTS - 1);
+        pastTrack.addPosition(jitter[index], MIN_DIST);
+        return pastTrack;
+    }
+}
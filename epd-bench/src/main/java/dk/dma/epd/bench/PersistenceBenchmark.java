@@ -0,0 +1,131 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.util.JournaledStore;
+
+/**
+ * Benchmark of saving and loading the stored routes after a single route has been edited, using a single
+ * {@code ObjectOutputStream} as earlier versions did, and using a {@linkplain JournaledStore}. The journaled save includes
+ * waiting for the background write.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int routes;
+
+    private Path dir;
+    private Path serializedFile;
+    private JournaledStore store;
+    private List<Route> routeList;
+    private int edits;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchSupport.init();
+        routeList = new ArrayList<>(routes);
+        Position[] starts = BenchSupport.randomPositions(routes);
+        for (int i = 0; i < routes; i++) {
+            Route route = BenchSupport.createRoute(starts[i], 50, i % 360, 2.0, 12.0, new Date(1400000000000L));
+            route.setName("Route " + i);
+            routeList.add(route);
+        }
+
+        dir = Files.createTempDirectory("epd-bench");
+        serializedFile = dir.resolve(".routes");
+        store = new JournaledStore(dir.resolve(".routes.db"), null);
+
+        serializedSave();
+        store.save(routeList);
+        store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.flush();
+        for (Path file : Files.newDirectoryStream(dir)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private void editRoute() {
+        routeList.get(edits++ % routes).setName("Edit " + edits);
+    }
+
+    @Benchmark
+    public void serializedSave() throws IOException {
+        editRoute();
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
+                serializedFile.toFile())))) {
+            out.writeObject(routeList);
+        }
+    }
+
+    @Benchmark
+    public void journaledSave() throws IOException {
+        editRoute();
+        store.save(routeList);
+        store.flush();
+    }
+
+    @Benchmark
+    public Object serializedLoad() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
+                serializedFile.toFile())))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public List<Object> journaledLoad() throws IOException, ClassNotFoundException {
+        return store.load();
+    }
+}
@@ -0,0 +1,162 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.route.RouteLoadException;
+import dk.dma.epd.common.prototype.model.route.RouteLoader;
+import dk.dma.epd.common.prototype.model.voct.SARISStreamParser;
+import dk.dma.epd.common.prototype.model.voct.SARISXMLParser;
+import dk.dma.epd.common.prototype.model.voct.SarisReportWriter;
+import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointDataSARIS;
+import dk.dma.epd.common.prototype.settings.NavSettings;
+
+/**
+ * Compares the streaming route and SARIS parsers with the DOM based ones on generated inputs. The number of SARIS wind
+ * entries is a fiftieth of the number of route waypoints. Run with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteImportBenchmark {
+
+    @Param({ "1000", "50000" })
+    public int waypoints;
+
+    private final NavSettings navSettings = new NavSettings();
+    private File rt3;
+    private File kml;
+    private File saris;
+
+    @Setup
+    public void setUp() throws IOException {
+        rt3 = File.createTempFile("bench", ".rt3");
+        kml = File.createTempFile("bench", ".kml");
+        saris = File.createTempFile("bench", ".xml");
+        writeRt3(rt3, waypoints);
+        writeKml(kml, waypoints);
+        try (PrintWriter out = new PrintWriter(saris, "UTF-8")) {
+            int windEntries = Math.max(1, waypoints / 50);
+            SarisReportWriter.write(out, windEntries, Math.max(1, windEntries / 5));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        rt3.delete();
+        kml.delete();
+        saris.delete();
+    }
+
+    @Benchmark
+    public Route rt3Dom() throws RouteLoadException {
+        return RouteLoader.loadRt3Dom(rt3, navSettings);
+    }
+
+    @Benchmark
+    public Route rt3Stax() throws RouteLoadException {
+        return RouteLoader.loadRt3(rt3, navSettings);
+    }
+
+    @Benchmark
+    public Route kmlJaxb() throws RouteLoadException {
+        return RouteLoader.loadKmlDom(kml, navSettings);
+    }
+
+    @Benchmark
+    public Route kmlStax() throws RouteLoadException {
+        return RouteLoader.loadKml(kml, navSettings);
+    }
+
+    @Benchmark
+    public SARISXMLParser sarisXPath() throws Exception {
+        return new SARISXMLParser(saris.getAbsolutePath());
+    }
+
+    @Benchmark
+    public DatumPointDataSARIS sarisStax() throws IOException, XMLStreamException {
+        return new SARISStreamParser().parse(saris);
+    }
+
+    private static void writeRt3(File file, int waypoints) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+            out.println("<TSH_Route RtVersion=\"3\" RtName=\"Benchmark\">");
+            out.println("  <WayPoints WPCount=\"" + waypoints + "\">");
+            for (int i = 0; i < waypoints; i++) {
+                out.println(String.format(Locale.US,
+                        "    <WayPoint WPName=\"WP%d\" LegType=\"%d\" Lat=\"%.5f\" Lon=\"%.5f\" TurnRadius=\"0.300000\" />", i,
+                        i % 2, 3300.0 + i * 0.01, 600.0 + i * 0.01));
+            }
+            out.println("  </WayPoints>");
+            out.println("  <Calculations CalcCount=\"1\">");
+            out.println("    <Calculation CalcName=\"NTProCalc\" CalcDone=\"0\">");
+            out.println("      <WayPointExs>");
+            for (int i = 0; i < waypoints; i++) {
+                out.println("        <WayPointEx ETA=\"0\" ETD=\"0\" Speed=\"" + (6 + i % 10) + ".500000\" />");
+            }
+            out.println("      </WayPointExs>");
+            out.println("    </Calculation>");
+            out.println("  </Calculations>");
+            out.println("</TSH_Route>");
+        }
+    }
+
+    private static void writeKml(File file, int waypoints) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            out.println("<kml xmlns=\"http://www.opengis.net/kml/2.2\">");
+            out.println("<Document>");
+            out.println("  <name>Benchmark</name>");
+            out.println("  <Folder>");
+            out.println("    <name>Waypoints</name>");
+            for (int i = 0; i < waypoints; i++) {
+                out.println("    <Placemark>");
+                out.println("      <name>" + (i + 1) + "</name>");
+                out.println("      <styleUrl>#waypoint</styleUrl>");
+                out.println(String.format(Locale.US, "      <Point><coordinates>%.6f,%.6f,0</coordinates></Point>",
+                        10.0 + i * 0.0001, 55.0 + i * 0.0001));
+                out.println("    </Placemark>");
+            }
+            out.println("  </Folder>");
+            out.println("</Document>");
+            out.println("</kml>");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.model.intendedroute.FilteredIntendedRoute;
+import dk.dma.epd.common.prototype.model.route.ActiveRoute;
+
+/**
+ * Benchmark of the TCPA calculation between two intended routes, as performed for every pair of routes when the intended
+ * route filter is updated
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TcpaBenchmark {
+
+    @Param({ "10", "50" })
+    public int waypoints;
+
+    private BenchIntendedRouteHandler handler;
+    private ActiveRoute route1;
+    private ActiveRoute route2;
+
+    @Setup
+    public void setUp() {
+        BenchSupport.init();
+        handler = new BenchIntendedRouteHandler();
+
+        // Two routes heading east and north that cross each other along the way
+        Date starttime = new Date(1400000000000L);
+        route1 = new ActiveRoute(BenchSupport.createRoute(Position.create(55.5, 10.5), waypoints, 90, 3.0, 12.0, starttime),
+                null);
+        route2 = new ActiveRoute(BenchSupport.createRoute(Position.create(55.0, 11.5), waypoints, 0, 3.0, 12.0, starttime),
+                null);
+        handler.setMmsi(route1, 219000001L);
+        handler.setMmsi(route2, 219000002L);
+    }
+
+    @Benchmark
+    public FilteredIntendedRoute findTcpa() {
+        return handler.tcpa(route1, route2);
+    }
+}
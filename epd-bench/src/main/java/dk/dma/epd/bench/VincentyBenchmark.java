@@ -0,0 +1,81 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.util.Calculator;
+import dk.dma.epd.common.util.Ellipsoid;
+
+/**
+ * Benchmarks of the Vincenty direct solution in {@linkplain Calculator#calculateEndingGlobalCoordinates} on different
+ * {@linkplain Ellipsoid}s, and of the geodesic distance used by great circle legs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VincentyBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({ "WGS84", "SPHERE" })
+    public String ellipsoidName;
+
+    /** Distance travelled in meters */
+    @Param({ "1000", "500000" })
+    public double distance;
+
+    private Ellipsoid ellipsoid;
+    private Position[] positions;
+    private final double[] endBearing = new double[1];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        ellipsoid = "SPHERE".equals(ellipsoidName) ? Ellipsoid.SPHERE : Ellipsoid.WGS84;
+        positions = BenchSupport.randomPositions(POSITIONS);
+    }
+
+    private Position next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+    @Benchmark
+    public Position direct() {
+        return Calculator.calculateEndingGlobalCoordinates(ellipsoid, next(), index * 0.35, distance, endBearing);
+    }
+
+    @Benchmark
+    public double inverse() {
+        return next().geodesicDistanceTo(next());
+    }
+}
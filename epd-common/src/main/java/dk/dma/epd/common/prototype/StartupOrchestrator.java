@@ -0,0 +1,340 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Initializes the components of an EPD instance, running the components that do not depend on each other in parallel.
+ * <p>
+ * Components are declared with the names of the components they depend on, which must have been declared before, so the
+ * dependencies can not form cycles. A component is started once all its dependencies have completed. If a component
+ * fails, the components depending on it are skipped and {@linkplain #run()} throws once the running components are done.
+ * <p>
+ * The time of each component is logged when all components are done.
+ */
+@ThreadSafe
+public class StartupOrchestrator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupOrchestrator.class);
+
+    private final int threads;
+
+    @GuardedBy("this")
+    private final Map<String, Component> components = new LinkedHashMap<>();
+    @GuardedBy("this")
+    private final List<String> completionOrder = new ArrayList<>();
+    @GuardedBy("this")
+    private final List<String> startOrder = new ArrayList<>();
+    @GuardedBy("this")
+    private Throwable failure;
+    @GuardedBy("this")
+    private int running;
+    @GuardedBy("this")
+    private int maxRunning;
+
+    private long startTime;
+    private long totalTime;
+
+    /**
+     * Constructor
+     * 
+     * @param threads
+     *            the number of threads to initialize the components with. With a single thread the components are
+     *            initialized one after another in the order they were declared
+     */
+    public StartupOrchestrator(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Constructor using a thread per available processor, and at least two
+     */
+    public StartupOrchestrator() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Declares a component
+     * 
+     * @param name
+     *            the unique name of the component
+     * @param task
+     *            initializes the component
+     * @param dependencies
+     *            the names of the already declared components that must complete first
+     */
+    public synchronized void add(String name, Runnable task, String... dependencies) {
+        if (components.containsKey(name)) {
+            throw new IllegalArgumentException("Component already declared: " + name);
+        }
+        Component component = new Component(name, task);
+        for (String dependency : dependencies) {
+            Component parent = components.get(dependency);
+            if (parent == null) {
+                throw new IllegalArgumentException("Unknown dependency of " + name + ": " + dependency);
+            }
+            parent.dependents.add(component);
+            component.pending++;
+        }
+        components.put(name, component);
+    }
+
+    /**
+     * Initializes all declared components and waits for them to complete
+     * 
+     * @throws IllegalStateException
+     *             if a component failed
+     */
+    public void run() {
+        List<Component> all;
+        synchronized (this) {
+            all = new ArrayList<>(components.values());
+        }
+        startTime = System.currentTimeMillis();
+
+        if (threads == 1) {
+            for (Component component : all) {
+                if (component.skipped) {
+                    continue;
+                }
+                execute(component, null);
+            }
+        } else {
+            final CountDownLatch done = new CountDownLatch(all.size());
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Startup-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            try {
+                // Find the components without dependencies before submitting any, as a completed component submits
+                // the dependents it makes ready
+                List<Component> ready = new ArrayList<>();
+                synchronized (this) {
+                    for (Component component : all) {
+                        if (component.pending == 0) {
+                            ready.add(component);
+                        }
+                    }
+                }
+                for (Component component : ready) {
+                    submit(executor, component, done);
+                }
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during startup", e);
+            } finally {
+                executor.shutdown();
+            }
+        }
+        totalTime = System.currentTimeMillis() - startTime;
+
+        logTimings(all);
+        synchronized (this) {
+            if (failure != null) {
+                throw new IllegalStateException("Startup failed", failure);
+            }
+        }
+    }
+
+    private void submit(final ExecutorService executor, final Component component, final CountDownLatch done) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(component, done);
+                for (Component ready : complete(component, done)) {
+                    submit(executor, ready, done);
+                }
+            }
+        });
+    }
+
+    private void execute(Component component, CountDownLatch done) {
+        synchronized (this) {
+            startOrder.add(component.name);
+            maxRunning = Math.max(maxRunning, ++running);
+        }
+        component.started = System.currentTimeMillis() - startTime;
+        try {
+            component.task.run();
+        } catch (RuntimeException | Error e) {
+            LOG.error("Failed to initialize " + component.name, e);
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+                component.failed = true;
+            }
+        }
+        component.duration = System.currentTimeMillis() - startTime - component.started;
+        if (done == null) {
+            complete(component, null);
+        }
+    }
+
+    /**
+     * Records the completion of a component and returns the dependents that are now ready to run
+     */
+    private synchronized List<Component> complete(Component component, CountDownLatch done) {
+        running--;
+        completionOrder.add(component.name);
+        if (done != null) {
+            done.countDown();
+        }
+        List<Component> ready = new ArrayList<>();
+        for (Component dependent : component.dependents) {
+            if (component.failed) {
+                skip(dependent, done);
+            } else if (--dependent.pending == 0 && !dependent.skipped) {
+                ready.add(dependent);
+            }
+        }
+        return ready;
+    }
+
+    private void skip(Component component, CountDownLatch done) {
+        if (component.skipped) {
+            return;
+        }
+        component.skipped = true;
+        LOG.warn("Skipping " + component.name + " as a dependency failed");
+        if (done != null) {
+            done.countDown();
+        }
+        for (Component dependent : component.dependents) {
+            skip(dependent, done);
+        }
+    }
+
+    private void logTimings(List<Component> all) {
+        StringBuilder sb = new StringBuilder();
+        long sum = 0;
+        for (Component component : all) {
+            if (component.skipped) {
+                sb.append(String.format("%n  %-30s skipped", component.name));
+                continue;
+            }
+            sum += component.duration;
+            sb.append(String.format("%n  %-30s %6d ms (started at %d ms)%s", component.name, component.duration,
+                    component.started, component.failed ? " FAILED" : ""));
+        }
+        LOG.info(String.format("Initialized %d components in %d ms (%d ms if sequential):%s", all.size(), totalTime, sum,
+                sb));
+    }
+
+    /**
+     * Returns the time it took to initialize the named component
+     * 
+     * @param name
+     *            the name of the component
+     * @return the initialization time in milliseconds
+     */
+    public synchronized long getDuration(String name) {
+        return components.get(name).duration;
+    }
+
+    /**
+     * Returns the time the named component was started, relative to the start of {@linkplain #run()}
+     * 
+     * @param name
+     *            the name of the component
+     * @return the start time in milliseconds
+     */
+    public synchronized long getStartTime(String name) {
+        return components.get(name).started;
+    }
+
+    /**
+     * Returns the total time of {@linkplain #run()}
+     * 
+     * @return the total time in milliseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Returns the names of the completed components in the order they completed
+     * 
+     * @return the names of the completed components
+     */
+    public synchronized List<String> getCompletionOrder() {
+        return Collections.unmodifiableList(new ArrayList<>(completionOrder));
+    }
+
+    /**
+     * Returns the names of the started components in the order they were started
+     * 
+     * @return the names of the started components
+     */
+    public synchronized List<String> getStartOrder() {
+        return Collections.unmodifiableList(new ArrayList<>(startOrder));
+    }
+
+    /**
+     * Returns the largest number of components that were initializing at the same time
+     * 
+     * @return the largest number of components initializing at the same time
+     */
+    public synchronized int getMaxConcurrency() {
+        return maxRunning;
+    }
+
+    /**
+     * A declared component
+     */
+    private static final class Component {
+
+        final String name;
+        final Runnable task;
+        final List<Component> dependents = new ArrayList<>();
+
+        int pending;
+        boolean skipped;
+        boolean failed;
+        volatile long started;
+        volatile long duration;
+
+        Component(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+}
@@ -42,10 +42,15 @@ import dk.dma.ais.message.AisMessage;
 import dk.dma.ais.message.AisMessage18;
 import dk.dma.ais.message.AisMessage21;
 import dk.dma.ais.message.AisMessage24;
+import dk.dma.ais.message.AisMessage27;
+import dk.dma.ais.message.AisMessage4;
 import dk.dma.ais.message.AisMessage5;
+import dk.dma.ais.message.AisMessage9;
 import dk.dma.ais.message.AisPositionMessage;
 import dk.dma.enav.model.geometry.Position;
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.metrics.LatencyHistogram;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
 import dk.dma.epd.common.prototype.sensor.nmea.IAisSensorListener;
 import dk.dma.epd.common.prototype.sensor.pnt.PntData;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
@@ -61,6 +66,8 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
 
     private static final Logger LOG = LoggerFactory.getLogger(AisHandlerCommon.class);
 
+    private static final LatencyHistogram RECEIVE_LATENCY = MetricsRegistry.getInstance().histogram("ais.receive");
+
     protected static final String AIS_VIEW_FILE = EPD.getInstance().getHomePath().resolve(".aisview").toString();
 
     // How long targets are saved without reports
@@ -69,6 +76,8 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
     protected ConcurrentHashMap<Integer, AtoNTarget> atonTargets = new ConcurrentHashMap<>();
     protected ConcurrentHashMap<Long, VesselTarget> vesselTargets = new ConcurrentHashMap<>();
     protected ConcurrentHashMap<Long, SarTarget> sarTargets = new ConcurrentHashMap<>();
+    protected ConcurrentHashMap<Long, SarAircraftTarget> sarAircraftTargets = new ConcurrentHashMap<>();
+    protected ConcurrentHashMap<Long, BaseStationTarget> baseStationTargets = new ConcurrentHashMap<>();
 
     protected CopyOnWriteArrayList<IAisTargetListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -80,6 +89,11 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
     protected final int pastTrackDisplayTime; // NB: In minutes
     protected final int pastTrackMinDist; // NB: In meters
 
+    /**
+     * Dispatches received messages to the handlers of their message id. Sub-classes may register additional handlers
+     */
+    protected final AisMessageDispatcher dispatcher = new AisMessageDispatcher();
+
     private IntendedRouteHandlerCommon intendedRouteHandlerCommon;
 
     /**
@@ -94,6 +108,111 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         this.pastTrackMaxTime = aisSettings.getPastTrackMaxTime();
         this.pastTrackDisplayTime = aisSettings.getPastTrackDisplayTime();
         this.pastTrackMinDist = aisSettings.getPastTrackMinDist();
+        registerHandlers();
+    }
+
+    /**
+     * Registers the handlers of the supported message types
+     */
+    private void registerHandlers() {
+        // Position reports class A
+        dispatcher.register(new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                AisPositionMessage aisPositionMessage = (AisPositionMessage) aisMessage;
+                // Create PositionData
+                VesselPositionData vesselPositionData = new VesselPositionData(aisPositionMessage);
+                // Update or create entry
+                if (vesselPositionData.hasPos()) {
+                    updatePos(aisPositionMessage.getUserId(), vesselPositionData, VesselTarget.AisClass.A);
+                }
+            }
+        }, 1, 2, 3);
+
+        // Base station report
+        dispatcher.register(4, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                updateBaseStation((AisMessage4) aisMessage);
+            }
+        });
+
+        // Static and voyage related data
+        dispatcher.register(5, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                AisMessage5 msg5 = (AisMessage5) aisMessage;
+                VesselStaticData staticData = new VesselStaticData(msg5);
+                updateStatics(msg5.getUserId(), staticData);
+            }
+        });
+
+        // SAR aircraft position report
+        dispatcher.register(9, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                AisMessage9 msg9 = (AisMessage9) aisMessage;
+                Position pos = msg9.getPos().getGeoLocation();
+                if (pos != null && isWithinRange(pos)) {
+                    updateSarAircraftPos(msg9.getUserId(), new VesselPositionData(pos, msg9));
+                }
+            }
+        });
+
+        // Position report class B
+        dispatcher.register(18, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                AisMessage18 posMessage = (AisMessage18) aisMessage;
+                VesselPositionData vesselPositionData = new VesselPositionData(posMessage);
+                // Update or create entry
+                if (vesselPositionData.hasPos()) {
+                    updatePos(posMessage.getUserId(), vesselPositionData, VesselTarget.AisClass.B);
+                }
+            }
+        });
+
+        // AtoN report
+        dispatcher.register(21, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                updateAton((AisMessage21) aisMessage);
+            }
+        });
+
+        // Class B static data
+        dispatcher.register(24, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                updateClassBStatics((AisMessage24) aisMessage);
+            }
+        });
+
+        // Long-range position report. Satellite feeds are dominated by these, and most are out of range, so the range is
+        // checked before anything else is read from the message
+        dispatcher.register(27, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                AisMessage27 msg27 = (AisMessage27) aisMessage;
+                Position pos = msg27.getPos().getGeoLocation();
+                if (pos != null && isWithinRange(pos)) {
+                    updateLongRangePos(msg27.getUserId(), new VesselPositionData(pos, msg27));
+                }
+            }
+        });
+    }
+
+    /**
+     * Registers the handler of a message id, e.g. for binary messages handled by other components. The handler is called
+     * on the thread receiving the AIS messages, so it must return quickly
+     * 
+     * @param msgId
+     *            the message id
+     * @param handler
+     *            the handler, or null to ignore the message id
+     */
+    public void registerMessageHandler(int msgId, AisMessageHandler handler) {
+        dispatcher.register(msgId, handler);
     }
 
     /**
@@ -104,32 +223,9 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         // Mark successful reception
         aisStatus.markAisReception();
 
-        if (aisMessage instanceof AisPositionMessage) {
-            AisPositionMessage aisPositionMessage = (AisPositionMessage) aisMessage;
-            // Create PositionData
-            VesselPositionData vesselPositionData = new VesselPositionData(aisPositionMessage);
-            // Update or create entry
-            if (vesselPositionData.hasPos()) {
-                updatePos(aisPositionMessage.getUserId(), vesselPositionData, VesselTarget.AisClass.A);
-            }
-        } else if (aisMessage instanceof AisMessage18) {
-            AisMessage18 posMessage = (AisMessage18) aisMessage;
-            VesselPositionData vesselPositionData = new VesselPositionData(posMessage);
-            // Update or create entry
-            if (vesselPositionData.hasPos()) {
-                updatePos(posMessage.getUserId(), vesselPositionData, VesselTarget.AisClass.B);
-            }
-        } else if (aisMessage instanceof AisMessage21) {
-            AisMessage21 msg21 = (AisMessage21) aisMessage;
-            updateAton(msg21);
-        } else if (aisMessage instanceof AisMessage5) {
-            AisMessage5 msg5 = (AisMessage5) aisMessage;
-            VesselStaticData staticData = new VesselStaticData(msg5);
-            updateStatics(msg5.getUserId(), staticData);
-        } else if (aisMessage instanceof AisMessage24) {
-            AisMessage24 msg24 = (AisMessage24) aisMessage;
-            updateClassBStatics(msg24);
-        }
+        long start = System.nanoTime();
+        dispatcher.dispatch(aisMessage);
+        RECEIVE_LATENCY.recordSince(start);
     }
 
     /**
@@ -139,6 +235,8 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         atonTargets.clear();
         vesselTargets.clear();
         sarTargets.clear();
+        sarAircraftTargets.clear();
+        baseStationTargets.clear();
         publishAll();
     }
 
@@ -174,6 +272,30 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         publishUpdate(atonTarget);
     }
 
+    /**
+     * Update base station target
+     * 
+     * @param msg4
+     */
+    protected void updateBaseStation(AisMessage4 msg4) {
+        Position pos = msg4.getPos().getGeoLocation();
+        if (pos == null || !isWithinRange(pos)) {
+            return;
+        }
+
+        long mmsi = msg4.getUserId();
+        BaseStationTarget baseStationTarget = baseStationTargets.get(mmsi);
+        if (baseStationTarget == null) {
+            baseStationTarget = new BaseStationTarget();
+            baseStationTarget.setMmsi(mmsi);
+            baseStationTargets.put(mmsi, baseStationTarget);
+        }
+        baseStationTarget.update(msg4);
+        baseStationTarget.setLastReceived(PntTime.getDate());
+        baseStationTarget.setStatus(AisTarget.Status.OK);
+        publishUpdate(baseStationTarget);
+    }
+
     /**
      * Update vessel target statics
      * 
@@ -283,6 +405,44 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
             return;
         }
 
+        VesselTarget vesselTarget = getOrCreateVesselTarget(mmsi);
+        // Update class
+        vesselTarget.setAisClass(aisClass);
+        vesselTarget.setLongRange(false);
+        // Update target from position data
+        updateMobileTargetPos(vesselTarget, positionData);
+    }
+
+    /**
+     * Update vessel target position data from a long-range message. The range must already have been checked. The AIS class
+     * of an existing target is kept, since message #27 does not tell it
+     * 
+     * @param mmsi
+     * @param positionData
+     */
+    protected void updateLongRangePos(long mmsi, VesselPositionData positionData) {
+        // Determine if this is SART
+        if (isSarTarget(mmsi)) {
+            updateSartPos(mmsi, positionData);
+            return;
+        }
+
+        VesselTarget vesselTarget = getOrCreateVesselTarget(mmsi);
+        if (vesselTarget.getAisClass() == null) {
+            vesselTarget.setAisClass(VesselTarget.AisClass.A);
+        }
+        vesselTarget.setLongRange(true);
+        // Update target from position data
+        updateMobileTargetPos(vesselTarget, positionData);
+    }
+
+    /**
+     * Returns the vessel target with the given MMSI, creating it if it does not exist
+     * 
+     * @param mmsi
+     * @return the vessel target
+     */
+    private VesselTarget getOrCreateVesselTarget(long mmsi) {
         // Try to find exiting target
         VesselTarget vesselTarget = vesselTargets.get(mmsi);
         // If not exists, create and insert
@@ -296,10 +456,7 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
 
             vesselTargets.put(mmsi, vesselTarget);
         }
-        // Update class
-        vesselTarget.setAisClass(aisClass);
-        // Update target from position data
-        updateMobileTargetPos(vesselTarget, positionData);
+        return vesselTarget;
     }
 
     /**
@@ -326,6 +483,27 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         updateMobileTargetPos(sarTarget, positionData);
     }
 
+    /**
+     * Update SAR aircraft position data. The range must already have been checked
+     * 
+     * @param mmsi
+     * @param positionData
+     */
+    protected void updateSarAircraftPos(long mmsi, VesselPositionData positionData) {
+        // Try to find target
+        SarAircraftTarget sarAircraftTarget = sarAircraftTargets.get(mmsi);
+        // If not exists, create and insert
+        if (sarAircraftTarget == null) {
+            sarAircraftTarget = new SarAircraftTarget();
+            sarAircraftTarget.setMmsi(mmsi);
+            sarAircraftTarget.getSettings().setPastTrackDisplayTime(pastTrackDisplayTime);
+            sarAircraftTarget.getSettings().setPastTrackMinDist(pastTrackMinDist);
+            sarAircraftTargets.put(mmsi, sarAircraftTarget);
+        }
+        // Update target from position data
+        updateMobileTargetPos(sarAircraftTarget, positionData);
+    }
+
     /**
      * Should be implemented by specialized versions of the AisHandlerCommon class
      * 
@@ -356,6 +534,13 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
                 publishUpdate(sarTarget);
             }
         }
+        for (SarAircraftTarget sarAircraftTarget : sarAircraftTargets.values()) {
+            VesselTargetSettings settings = sarAircraftTarget.getSettings();
+            if (show != settings.isShowPastTrack()) {
+                settings.setShowPastTrack(show);
+                publishUpdate(sarAircraftTarget);
+            }
+        }
     }
 
     /**
@@ -391,7 +576,7 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
     }
 
     /**
-     * Returns the list of mobile (vessel + sar) targets. Optionally specify a required status.
+     * Returns the list of mobile (vessel + sar + sar aircraft) targets. Optionally specify a required status.
      * 
      * @param status
      *            if not null, the targets must have this status
@@ -399,7 +584,7 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
      */
     public final List<MobileTarget> getMobileTargets(AisTarget.Status status) {
 
-        List<MobileTarget> mobileTargets = new ArrayList<>(vesselTargets.size() + sarTargets.size());
+        List<MobileTarget> mobileTargets = new ArrayList<>(vesselTargets.size() + sarTargets.size() + sarAircraftTargets.size());
         for (VesselTarget vesselTarget : vesselTargets.values()) {
             if (status == null || status == vesselTarget.status) {
                 mobileTargets.add(vesselTarget);
@@ -410,6 +595,11 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
                 mobileTargets.add(sarTarget);
             }
         }
+        for (SarAircraftTarget sarAircraftTarget : sarAircraftTargets.values()) {
+            if (status == null || status == sarAircraftTarget.status) {
+                mobileTargets.add(sarAircraftTarget);
+            }
+        }
         return mobileTargets;
     }
 
@@ -444,8 +634,12 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
             return new VesselTarget(vesselTargets.get(mmsi));
         } else if (sarTargets.containsKey(mmsi)) {
             return new SarTarget(sarTargets.get(mmsi));
+        } else if (sarAircraftTargets.containsKey(mmsi)) {
+            return new SarAircraftTarget(sarAircraftTargets.get(mmsi));
         } else if (atonTargets.containsKey((int) mmsi)) {
             return new AtoNTarget(atonTargets.get((int) mmsi));
+        } else if (baseStationTargets.containsKey(mmsi)) {
+            return new BaseStationTarget(baseStationTargets.get(mmsi));
         }
         return null;
     }
@@ -466,6 +660,12 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         // Go through all sart targets
         updateStatus(sarTargets, deadTargets, now, false);
 
+        // Go through all sar aircraft targets
+        updateStatus(sarAircraftTargets, deadTargets, now, false);
+
+        // Go through all base station targets
+        updateStatus(baseStationTargets, deadTargets, now, false);
+
         // Allow sub-classes to perform a periodic update
         updatePeriodic();
     }
@@ -591,6 +791,8 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         publishAll(vesselTargets.values());
         publishAll(atonTargets.values());
         publishAll(sarTargets.values());
+        publishAll(sarAircraftTargets.values());
+        publishAll(baseStationTargets.values());
     }
 
     protected final void publishAll(Collection<? extends AisTarget> targets) {
@@ -672,8 +874,11 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         if (aisStore.getSarTargets() != null) {
             sarTargets = new ConcurrentHashMap<>(aisStore.getSarTargets());
         }
+        if (aisStore.getSarAircraftTargets() != null) {
+            sarAircraftTargets = new ConcurrentHashMap<>(aisStore.getSarAircraftTargets());
+        }
 
-        LOG.info("AIS handler loaded total targets: " + (vesselTargets.size() + atonTargets.size() + sarTargets.size()));
+        LOG.info("AIS handler loaded total targets: " + (vesselTargets.size() + atonTargets.size() + sarTargets.size() + sarAircraftTargets.size()));
 
         // Update status to update old and gone (twice for old and gone)
         updateStatus();
@@ -689,6 +894,7 @@ public abstract class AisHandlerCommon extends MapHandlerChild implements Runnab
         aisStore.setVesselTargets(vesselTargets);
         aisStore.setAtonTargets(atonTargets);
         aisStore.setSarTargets(sarTargets);
+        aisStore.setSarAircraftTargets(sarAircraftTargets);
 
         try (FileOutputStream fileOut = new FileOutputStream(AIS_VIEW_FILE);
                 ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
@@ -0,0 +1,82 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.ais;
+
+import java.util.Arrays;
+
+import net.jcip.annotations.ThreadSafe;
+import dk.dma.ais.message.AisMessage;
+
+/**
+ * Dispatches AIS messages to handlers through a table indexed by message id, replacing a chain of {@code instanceof}
+ * checks on every received message
+ */
+@ThreadSafe
+public class AisMessageDispatcher {
+
+    /** The highest message id defined by ITU-R M.1371 */
+    public static final int MAX_MSG_ID = 27;
+
+    // Replaced on registration, so dispatching needs a single volatile read
+    private volatile AisMessageHandler[] handlers = new AisMessageHandler[MAX_MSG_ID + 1];
+
+    /**
+     * Registers the handler of a message id, replacing any previous handler
+     * 
+     * @param msgId
+     *            the message id
+     * @param handler
+     *            the handler, or null to ignore the message id
+     */
+    public synchronized void register(int msgId, AisMessageHandler handler) {
+        if (msgId < 0 || msgId > MAX_MSG_ID) {
+            throw new IllegalArgumentException("Invalid AIS message id " + msgId);
+        }
+        AisMessageHandler[] copy = Arrays.copyOf(handlers, handlers.length);
+        copy[msgId] = handler;
+        handlers = copy;
+    }
+
+    /**
+     * Registers a handler for several message ids
+     * 
+     * @param handler
+     *            the handler
+     * @param msgIds
+     *            the message ids
+     */
+    public void register(AisMessageHandler handler, int... msgIds) {
+        for (int msgId : msgIds) {
+            register(msgId, handler);
+        }
+    }
+
+    /**
+     * Passes the message to the handler of its message id
+     * 
+     * @param aisMessage
+     *            the message
+     * @return if the message had a handler
+     */
+    public boolean dispatch(AisMessage aisMessage) {
+        int msgId = aisMessage.getMsgId();
+        AisMessageHandler[] table = handlers;
+        if (msgId < 0 || msgId >= table.length || table[msgId] == null) {
+            return false;
+        }
+        table[msgId].handle(aisMessage);
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.ais;
+
+import dk.dma.ais.message.AisMessage;
+
+/**
+ * Handles the AIS messages of the message id it is registered for with an {@link AisMessageDispatcher}
+ */
+public interface AisMessageHandler {
+
+    /**
+     * Handles a message. Only called with messages of the registered message id
+     * 
+     * @param aisMessage
+     *            the message
+     */
+    void handle(AisMessage aisMessage);
+}
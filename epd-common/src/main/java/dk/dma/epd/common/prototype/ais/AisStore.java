@@ -28,6 +28,7 @@ public class AisStore implements Serializable {
     private Map<Integer, AtoNTarget> atonTargets;
     private Map<Long, VesselTarget> vesselTargets;
     private Map<Long, SarTarget> sarTargets;
+    private Map<Long, SarAircraftTarget> sarAircraftTargets;
     private VesselTarget ownShip;
     
     public AisStore() {
@@ -57,6 +58,14 @@ public class AisStore implements Serializable {
     public void setSarTargets(Map<Long, SarTarget> sarTargets) {
         this.sarTargets = sarTargets;
     }
+
+    public Map<Long, SarAircraftTarget> getSarAircraftTargets() {
+        return sarAircraftTargets;
+    }
+
+    public void setSarAircraftTargets(Map<Long, SarAircraftTarget> sarAircraftTargets) {
+        this.sarAircraftTargets = sarAircraftTargets;
+    }
     
     public void setOwnShip(VesselTarget ownShip) {
         this.ownShip = ownShip;
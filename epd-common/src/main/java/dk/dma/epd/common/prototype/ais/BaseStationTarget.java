@@ -18,6 +18,7 @@ import java.util.Date;
 
 import net.jcip.annotations.ThreadSafe;
 import dk.dma.ais.message.AisMessage4;
+import dk.dma.enav.model.geometry.Position;
 
 /**
  * Class representing a base station target
@@ -27,18 +28,29 @@ public class BaseStationTarget extends AisTarget {
     
     private static final long serialVersionUID = 1L;
     
-    // TODO
+    private Position pos;
+    private int posAcc;
+    private Date utcDate;
     
     public BaseStationTarget() {
         super();    
     }
     
     public BaseStationTarget(BaseStationTarget bsTarget) {
-        // TODO
+        super(bsTarget);
+        pos = bsTarget.pos;
+        posAcc = bsTarget.posAcc;
+        utcDate = bsTarget.utcDate;
     }
         
+    /**
+     * Update base station target given AIS message #4
+     * @param msg4
+     */
     public synchronized void update(AisMessage4 msg4) {
-        // TODO
+        pos = msg4.getPos().getGeoLocation();
+        posAcc = msg4.getPosAcc();
+        utcDate = msg4.getDate();
     }
     
     @Override
@@ -49,4 +61,19 @@ public class BaseStationTarget extends AisTarget {
         return elapsed > tol;
     }
 
+    public synchronized Position getPos() {
+        return pos;
+    }
+
+    public synchronized int getPosAcc() {
+        return posAcc;
+    }
+
+    /**
+     * @return the UTC time reported by the base station, or null if not available
+     */
+    public synchronized Date getUtcDate() {
+        return utcDate;
+    }
+
 }
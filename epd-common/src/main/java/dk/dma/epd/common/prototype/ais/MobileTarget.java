@@ -20,8 +20,8 @@ import net.jcip.annotations.ThreadSafe;
 
 
 /**
- * Abstract base class for mobile AIS targets, i.e. {@link VesselTarget} and 
- * {@link SarTarget}.
+ * Abstract base class for mobile AIS targets, i.e. {@link VesselTarget}, 
+ * {@link SarTarget} and {@link SarAircraftTarget}.
  * <p>
  * Keeps track of position, statistics and past-track data
  */
@@ -0,0 +1,58 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.ais;
+
+import java.util.Date;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Class representing a SAR aircraft reporting its position with AIS message #9.
+ * <p>
+ * Unlike a {@link SarTarget}, which is a SART distress beacon, a SAR aircraft takes part in the search.
+ */
+@ThreadSafe
+public class SarAircraftTarget extends MobileTarget {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Copy constructor
+     * @param sarAircraftTarget
+     */
+    public SarAircraftTarget(SarAircraftTarget sarAircraftTarget) {
+        super(sarAircraftTarget);
+    }
+
+    /**
+     * Empty constructor
+     */
+    public SarAircraftTarget() {
+        super();
+    }
+
+    /**
+     * Determines if the target should be considered gone
+     * @return if the target has gone
+     */
+    @Override
+    public synchronized boolean hasGone(Date now, boolean strict) {
+        long elapsed = (now.getTime() - lastReceived.getTime()) / 1000;
+        // SAR aircraft report every 10 seconds (ITU-R Rec M1371-4 4.2.1). Use the same tolerances as for vessels
+        long tol = strict ? 120 : 600;
+        return elapsed > tol;
+    }
+
+}
@@ -18,6 +18,8 @@ import java.io.Serializable;
 
 import net.jcip.annotations.ThreadSafe;
 import dk.dma.ais.message.AisMessage18;
+import dk.dma.ais.message.AisMessage27;
+import dk.dma.ais.message.AisMessage9;
 import dk.dma.ais.message.AisPositionMessage;
 import dk.dma.enav.model.geometry.Position;
 import dk.dma.enav.model.voyage.NavigationalStatus;
@@ -94,6 +96,41 @@ public class VesselPositionData implements Serializable {
         validate();
     }
     
+    /**
+     * Constructor given AIS message #9 from a SAR aircraft. Speeds above 100 knots are kept, and there is no heading
+     * 
+     * @param pos
+     *            the already decoded position of the message
+     * @param msg9
+     */
+    public VesselPositionData(Position pos, AisMessage9 msg9) {
+        this.pos = pos;
+        // 1023 is not available, 1022 is 1022 knots or more
+        sog = msg9.getSog() == 1023 ? 0 : msg9.getSog();
+        posAcc = msg9.getPosAcc();
+        cog = msg9.getCog() >= 3600 ? 0 : msg9.getCog() / (float) 10.0;
+        trueHeading = 511;
+    }
+
+    /**
+     * Constructor given long-range AIS message #27. Only carries speed and course in whole knots and degrees, and has no
+     * rate of turn or heading
+     * 
+     * @param pos
+     *            the already decoded position of the message
+     * @param msg27
+     */
+    public VesselPositionData(Position pos, AisMessage27 msg27) {
+        this.pos = pos;
+        navStatus = msg27.getNavStatus();
+        navEnumStatus = NavigationalStatus.fromAIS(msg27.getNavStatus());
+        // 63 knots and 511 degrees are not available
+        sog = msg27.getSog() == 63 ? 0 : msg27.getSog();
+        posAcc = msg27.getPosAcc();
+        cog = msg27.getCog() >= 360 ? 0 : msg27.getCog();
+        trueHeading = 511;
+    }
+
     /**
      * Validate the current position data
      */    
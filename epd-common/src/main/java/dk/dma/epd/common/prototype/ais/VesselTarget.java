@@ -32,9 +32,16 @@ public class VesselTarget extends MobileTarget {
      */
     public enum AisClass {A, B};
     
+    /**
+     * Tolerance for targets last reported by long-range message #27, which is broadcast every 3 minutes
+     */
+    private static final long LONG_RANGE_TOL = 360;
+    
     // NB: We do not want to persist intended route data
     private transient AisClass aisClass; 
     
+    private transient boolean longRange;
+    
     private boolean showIntendedRoute;
 
     /**
@@ -44,6 +51,7 @@ public class VesselTarget extends MobileTarget {
     public VesselTarget(VesselTarget vesselTarget) {
         super(vesselTarget);
         this.aisClass = vesselTarget.aisClass;
+        this.longRange = vesselTarget.longRange;
     }
 
     /**
@@ -65,6 +73,17 @@ public class VesselTarget extends MobileTarget {
     public synchronized void setAisClass(AisClass aisClass) {
         this.aisClass = aisClass;
     }
+
+    /**
+     * @return if the latest position was received in a long-range message #27
+     */
+    public synchronized boolean isLongRange() {
+        return longRange;
+    }
+
+    public synchronized void setLongRange(boolean longRange) {
+        this.longRange = longRange;
+    }
     
     /**
      * Determine if the target has gone.
@@ -113,6 +132,10 @@ public class VesselTarget extends MobileTarget {
             tol = 600; // 10 minutes
         }
         
+        if (longRange) {
+            tol = Math.max(tol, LONG_RANGE_TOL);
+        }
+        
         return elapsed > tol;
     }
     
@@ -0,0 +1,348 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import net.jcip.annotations.Immutable;
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.areanotice.AreaNoticeSubArea.Shape;
+import dk.dma.epd.common.util.Calculator;
+
+/**
+ * An IMO 289 area notice (DAC 1, FI 22) from a given station.
+ * <p>
+ * A notice with more sub-areas than fit in one message is transmitted as several messages with the same message linkage
+ * id, and each message is kept as a fragment of the notice. Fragments that are re-broadcast are refreshed, and fragments
+ * that have not been received for {@value #FRAGMENT_TTL} ms are dropped, so a notice with changed geometry replaces the old
+ * one within that time.
+ * <p>
+ * The positions of polylines and polygons, and the outline used for the spatial index, are resolved on creation.
+ */
+@Immutable
+public final class AreaNotice {
+
+    /** Transmitted duration when the duration is not defined */
+    public static final int UNDEFINED_DURATION = 262143;
+
+    /** Time a notice without a defined duration is kept after it was last received */
+    public static final long UNDEFINED_DURATION_TTL = 30 * 60 * 1000;
+
+    /** Time a fragment is kept after it was last received, when other fragments of the notice are received */
+    public static final long FRAGMENT_TTL = 15 * 60 * 1000;
+
+    private final long mmsi;
+    private final int linkageId;
+    private final int noticeType;
+    private final Date start;
+    private final int duration;
+    private final List<Fragment> fragments;
+    private final Date lastReceived;
+
+    private final List<AreaNoticeSubArea> subAreas;
+    private final List<List<Position>> polyPoints;
+    private final double[] outline;
+
+    private AreaNotice(long mmsi, int linkageId, int noticeType, Date start, int duration, List<Fragment> fragments,
+            Date lastReceived) {
+        this.mmsi = mmsi;
+        this.linkageId = linkageId;
+        this.noticeType = noticeType;
+        this.start = start;
+        this.duration = duration;
+        this.fragments = Collections.unmodifiableList(fragments);
+        this.lastReceived = lastReceived;
+
+        List<AreaNoticeSubArea> all = new ArrayList<>();
+        for (Fragment fragment : fragments) {
+            all.addAll(fragment.subAreas);
+        }
+        this.subAreas = Collections.unmodifiableList(all);
+        this.polyPoints = resolvePolyPoints(subAreas);
+        this.outline = createOutline(subAreas, polyPoints);
+    }
+
+    /**
+     * Creates a notice from a single received message
+     * 
+     * @param mmsi
+     *            the MMSI of the transmitting station
+     * @param linkageId
+     *            the message linkage id
+     * @param noticeType
+     *            the notice description code
+     * @param start
+     *            the start time
+     * @param duration
+     *            the duration in minutes, 0 to cancel the notice or {@value #UNDEFINED_DURATION} if not defined
+     * @param subAreas
+     *            the sub-areas of the message
+     * @param received
+     *            the time of reception
+     * @return the notice
+     */
+    public static AreaNotice create(long mmsi, int linkageId, int noticeType, Date start, int duration,
+            List<AreaNoticeSubArea> subAreas, Date received) {
+        List<Fragment> fragments = new ArrayList<>(1);
+        fragments.add(new Fragment(subAreas, received));
+        return new AreaNotice(mmsi, linkageId, noticeType, start, duration, fragments, received);
+    }
+
+    /**
+     * Returns the key identifying the notices of a station and message linkage id
+     */
+    public static long key(long mmsi, int linkageId) {
+        return mmsi << 10 | linkageId;
+    }
+
+    /**
+     * @return the key identifying the notice
+     */
+    public long getKey() {
+        return key(mmsi, linkageId);
+    }
+
+    /**
+     * Returns if the other notice has the same notice type, start time and duration, i.e. if it is part of the same notice
+     */
+    public boolean hasSameHeader(AreaNotice other) {
+        return noticeType == other.noticeType && duration == other.duration && start.equals(other.start);
+    }
+
+    /**
+     * Returns a notice with the fragment of a received single message notice of the same header added, or refreshed if
+     * it is a re-broadcast. Fragments that have expired at the time of reception are dropped
+     * 
+     * @param received
+     *            the received notice
+     * @return the merged notice
+     */
+    public AreaNotice merge(AreaNotice received) {
+        Fragment receivedFragment = received.fragments.get(0);
+        Date time = received.lastReceived;
+
+        List<Fragment> merged = new ArrayList<>(fragments.size() + 1);
+        boolean found = false;
+        for (Fragment fragment : fragments) {
+            if (fragment.subAreas.equals(receivedFragment.subAreas)) {
+                merged.add(receivedFragment);
+                found = true;
+            } else if (time.getTime() - fragment.lastReceived.getTime() <= FRAGMENT_TTL) {
+                merged.add(fragment);
+            }
+        }
+        if (!found) {
+            merged.add(receivedFragment);
+        }
+        return new AreaNotice(mmsi, linkageId, noticeType, start, duration, merged, time);
+    }
+
+    /**
+     * @return if the notice cancels the previous notice of the same station and message linkage id
+     */
+    public boolean isCancellation() {
+        return duration == 0;
+    }
+
+    /**
+     * @return the time the notice expires
+     */
+    public Date getExpiry() {
+        if (duration == UNDEFINED_DURATION) {
+            return new Date(lastReceived.getTime() + UNDEFINED_DURATION_TTL);
+        }
+        return new Date(start.getTime() + duration * 60000L);
+    }
+
+    /**
+     * @return the outline of the notice as lat/lon pairs, or null if it has no positioned sub-areas
+     */
+    public double[] getOutline() {
+        return outline;
+    }
+
+    /**
+     * Returns the points of a polyline or polygon sub-area, starting with the position of the preceding sub-area
+     * 
+     * @param index
+     *            the index of the sub-area
+     * @return the points, or an empty list if the start is unknown or the sub-area is not a polyline or polygon
+     */
+    public List<Position> getPolyPoints(int index) {
+        List<Position> points = polyPoints.get(index);
+        return points == null ? Collections.<Position> emptyList() : points;
+    }
+
+    /**
+     * @return the free text of the notice, or null if there is none
+     */
+    public String getText() {
+        StringBuilder text = null;
+        for (AreaNoticeSubArea subArea : subAreas) {
+            if (subArea.getShape() == Shape.TEXT && !subArea.getText().isEmpty()) {
+                text = text == null ? new StringBuilder() : text.append(' ');
+                text.append(subArea.getText());
+            }
+        }
+        return text == null ? null : text.toString();
+    }
+
+    /**
+     * @return the position of the first positioned sub-area, or null if there is none
+     */
+    public Position getPos() {
+        for (AreaNoticeSubArea subArea : subAreas) {
+            if (subArea.getPos() != null) {
+                return subArea.getPos();
+            }
+        }
+        return null;
+    }
+
+    public long getMmsi() {
+        return mmsi;
+    }
+
+    public int getLinkageId() {
+        return linkageId;
+    }
+
+    public int getNoticeType() {
+        return noticeType;
+    }
+
+    public Date getStart() {
+        return start;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public Date getLastReceived() {
+        return lastReceived;
+    }
+
+    /**
+     * @return the sub-areas of all fragments, in the order the fragments were first received
+     */
+    public List<AreaNoticeSubArea> getSubAreas() {
+        return subAreas;
+    }
+
+    /**
+     * @return the number of fragments
+     */
+    public int getFragmentCount() {
+        return fragments.size();
+    }
+
+    private static List<List<Position>> resolvePolyPoints(List<AreaNoticeSubArea> subAreas) {
+        List<List<Position>> result = new ArrayList<>(subAreas.size());
+        Position last = null;
+        for (AreaNoticeSubArea subArea : subAreas) {
+            if (subArea.getShape() != Shape.POLYLINE && subArea.getShape() != Shape.POLYGON) {
+                result.add(null);
+                if (subArea.getPos() != null) {
+                    last = subArea.getPos();
+                }
+                continue;
+            }
+            if (last == null) {
+                result.add(null);
+                continue;
+            }
+
+            // Each point is given relative to the previous one, and consecutive parts continue the same line
+            List<Position> points = new ArrayList<>(AreaNoticeSubArea.POLY_POINTS + 1);
+            points.add(last);
+            for (int i = 0; i < AreaNoticeSubArea.POLY_POINTS && subArea.getDistance(i) > 0; i++) {
+                last = Calculator.findPosition(last, subArea.getAngle(i), subArea.toMeters(subArea.getDistance(i)));
+                points.add(last);
+            }
+            result.add(Collections.unmodifiableList(points));
+        }
+        return result;
+    }
+
+    private static double[] createOutline(List<AreaNoticeSubArea> subAreas, List<List<Position>> polyPoints) {
+        List<Position> points = new ArrayList<>();
+        for (int i = 0; i < subAreas.size(); i++) {
+            AreaNoticeSubArea subArea = subAreas.get(i);
+            Position pos = subArea.getPos();
+            switch (subArea.getShape()) {
+            case CIRCLE_OR_POINT:
+            case SECTOR:
+                points.add(pos);
+                if (subArea.getRadius() > 0) {
+                    double radius = subArea.toMeters(subArea.getRadius());
+                    for (int bearing = 0; bearing < 360; bearing += 90) {
+                        points.add(Calculator.findPosition(pos, bearing, radius));
+                    }
+                }
+                break;
+            case RECTANGLE:
+                double east = subArea.toMeters(subArea.getEDimension());
+                double north = subArea.toMeters(subArea.getNDimension());
+                Position corner = Calculator.findPosition(pos, subArea.getOrientation() + 90, east);
+                points.add(pos);
+                points.add(corner);
+                points.add(Calculator.findPosition(corner, subArea.getOrientation(), north));
+                points.add(Calculator.findPosition(pos, subArea.getOrientation(), north));
+                break;
+            case POLYLINE:
+            case POLYGON:
+                if (polyPoints.get(i) != null) {
+                    points.addAll(polyPoints.get(i));
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        if (points.isEmpty()) {
+            return null;
+        }
+        double[] result = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            result[2 * i] = points.get(i).getLatitude();
+            result[2 * i + 1] = points.get(i).getLongitude();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AreaNotice [mmsi=" + mmsi + ", linkageId=" + linkageId + ", noticeType=" + noticeType + ", start=" + start
+                + ", duration=" + duration + ", subAreas=" + subAreas.size() + "]";
+    }
+
+    /**
+     * The sub-areas of one message of the notice
+     */
+    private static final class Fragment {
+
+        final List<AreaNoticeSubArea> subAreas;
+        final Date lastReceived;
+
+        Fragment(List<AreaNoticeSubArea> subAreas, Date lastReceived) {
+            this.subAreas = Collections.unmodifiableList(new ArrayList<>(subAreas));
+            this.lastReceived = lastReceived;
+        }
+    }
+}
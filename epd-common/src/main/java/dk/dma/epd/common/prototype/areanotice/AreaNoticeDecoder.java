@@ -0,0 +1,217 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import dk.dma.ais.binary.BinArray;
+import dk.dma.ais.binary.SixbitException;
+import dk.dma.enav.model.geometry.Position;
+
+/**
+ * Decoder of the application data of IMO 289 area notices (DAC 1, FI 22), as carried in binary broadcast message #8.
+ * <p>
+ * The data is a 55 bit header followed by up to ten 87 bit sub-areas. Sub-areas with reserved shape codes or positions that
+ * are not available end the decoding.
+ */
+public final class AreaNoticeDecoder {
+
+    /** Designated area code of area notices */
+    public static final int DAC = 1;
+
+    /** Function identifier of broadcast area notices */
+    public static final int FI = 22;
+
+    static final int HEADER_BITS = 55;
+    static final int SUB_AREA_BITS = 87;
+
+    private static final int LON_NOT_AVAILABLE = 181 * 60000;
+    private static final int LAT_NOT_AVAILABLE = 91 * 60000;
+    private static final long HALF_YEAR = 183L * 24 * 60 * 60 * 1000;
+
+    private AreaNoticeDecoder() {
+    }
+
+    /**
+     * Decodes the application data of a binary message
+     * 
+     * @param mmsi
+     *            the MMSI of the transmitting station
+     * @param data
+     *            the application data, i.e. after the DAC and FI
+     * @param received
+     *            the time of reception, used for the year of the start time
+     * @return the notice, or null if the data does not hold a valid notice
+     * @throws SixbitException
+     */
+    public static AreaNotice decode(long mmsi, final BinArray data, Date received) throws SixbitException {
+        return decode(mmsi, new BitReader() {
+            private int read;
+
+            @Override
+            public int remaining() {
+                return data.getLength() - read;
+            }
+
+            @Override
+            public long getVal(int bits) throws SixbitException {
+                read += bits;
+                return data.getVal(bits);
+            }
+        }, received);
+    }
+
+    static AreaNotice decode(long mmsi, BitReader bits, Date received) throws SixbitException {
+        if (bits.remaining() < HEADER_BITS) {
+            return null;
+        }
+        int linkageId = (int) bits.getVal(10);
+        int noticeType = (int) bits.getVal(7);
+        int month = (int) bits.getVal(4);
+        int day = (int) bits.getVal(5);
+        int hour = (int) bits.getVal(5);
+        int minute = (int) bits.getVal(6);
+        int duration = (int) bits.getVal(18);
+        Date start = startTime(month, day, hour, minute, received);
+
+        List<AreaNoticeSubArea> subAreas = new ArrayList<>();
+        while (bits.remaining() >= SUB_AREA_BITS) {
+            AreaNoticeSubArea subArea = decodeSubArea(bits);
+            if (subArea == null) {
+                break;
+            }
+            subAreas.add(subArea);
+        }
+
+        // Only cancellations are meaningful without sub-areas
+        if (subAreas.isEmpty() && duration != 0) {
+            return null;
+        }
+        return AreaNotice.create(mmsi, linkageId, noticeType, start, duration, subAreas, received);
+    }
+
+    private static AreaNoticeSubArea decodeSubArea(BitReader bits) throws SixbitException {
+        AreaNoticeSubArea.Shape shape = AreaNoticeSubArea.Shape.fromCode((int) bits.getVal(3));
+        if (shape == null) {
+            return null;
+        }
+
+        if (shape == AreaNoticeSubArea.Shape.TEXT) {
+            return AreaNoticeSubArea.text(text(bits, 14));
+        }
+
+        int scaleFactor = (int) bits.getVal(2);
+        if (shape == AreaNoticeSubArea.Shape.POLYLINE || shape == AreaNoticeSubArea.Shape.POLYGON) {
+            int[] angles = new int[AreaNoticeSubArea.POLY_POINTS];
+            int[] distances = new int[AreaNoticeSubArea.POLY_POINTS];
+            for (int i = 0; i < AreaNoticeSubArea.POLY_POINTS; i++) {
+                angles[i] = (int) bits.getVal(10);
+                distances[i] = (int) bits.getVal(10);
+            }
+            bits.getVal(2);
+            return AreaNoticeSubArea.poly(shape == AreaNoticeSubArea.Shape.POLYGON, scaleFactor, angles, distances);
+        }
+
+        int lon = signed(bits.getVal(25), 25);
+        int lat = signed(bits.getVal(24), 24);
+        int precision = (int) bits.getVal(3);
+        // The shape specific fields are read before the position is checked, to keep the reader aligned
+        int[] fields = new int[3];
+        switch (shape) {
+        case CIRCLE_OR_POINT:
+            fields[0] = (int) bits.getVal(12);
+            bits.getVal(18);
+            break;
+        case RECTANGLE:
+            fields[0] = (int) bits.getVal(8);
+            fields[1] = (int) bits.getVal(8);
+            fields[2] = (int) bits.getVal(9);
+            bits.getVal(5);
+            break;
+        default:
+            fields[0] = (int) bits.getVal(12);
+            fields[1] = (int) bits.getVal(9);
+            fields[2] = (int) bits.getVal(9);
+            break;
+        }
+
+        if (Math.abs(lon) >= LON_NOT_AVAILABLE || Math.abs(lat) >= LAT_NOT_AVAILABLE) {
+            return null;
+        }
+        Position pos = Position.create(lat / 60000.0, lon / 60000.0);
+        switch (shape) {
+        case CIRCLE_OR_POINT:
+            return AreaNoticeSubArea.circle(scaleFactor, pos, precision, fields[0]);
+        case RECTANGLE:
+            return AreaNoticeSubArea.rectangle(scaleFactor, pos, precision, fields[0], fields[1], fields[2]);
+        default:
+            return AreaNoticeSubArea.sector(scaleFactor, pos, precision, fields[0], fields[1], fields[2]);
+        }
+    }
+
+    /**
+     * Returns the start time in UTC. The year is not transmitted, so it is the one placing the time closest to the time of
+     * reception. Values that are not available give the time of reception
+     */
+    static Date startTime(int month, int day, int hour, int minute, Date received) {
+        if (month < 1 || month > 12 || day < 1 || hour > 23 || minute > 59) {
+            return received;
+        }
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.setTime(received);
+        int year = cal.get(Calendar.YEAR);
+        cal.clear();
+        cal.set(year, month - 1, day, hour, minute);
+        long time = cal.getTimeInMillis();
+        if (time - received.getTime() > HALF_YEAR) {
+            cal.add(Calendar.YEAR, -1);
+        } else if (received.getTime() - time > HALF_YEAR) {
+            cal.add(Calendar.YEAR, 1);
+        }
+        return cal.getTime();
+    }
+
+    private static String text(BitReader bits, int chars) throws SixbitException {
+        StringBuilder text = new StringBuilder(chars);
+        for (int i = 0; i < chars; i++) {
+            int val = (int) bits.getVal(6);
+            text.append((char) (val < 32 ? val + 64 : val));
+        }
+        // '@' is padding
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '@' || text.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static int signed(long val, int bits) {
+        return (int) (val >= 1L << (bits - 1) ? val - (1L << bits) : val);
+    }
+
+    /**
+     * Sequential reader of the bits of the application data
+     */
+    interface BitReader {
+
+        int remaining();
+
+        long getVal(int bits) throws SixbitException;
+    }
+}
@@ -0,0 +1,207 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bbn.openmap.MapHandlerChild;
+
+import dk.dma.ais.binary.SixbitException;
+import dk.dma.ais.message.AisMessage;
+import dk.dma.ais.message.AisMessage8;
+import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
+import dk.dma.epd.common.prototype.ais.AisMessageHandler;
+import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+import dk.dma.epd.common.util.PolygonIndex;
+
+/**
+ * Ingests the area notices of binary broadcast messages #8 received by the {@linkplain AisHandlerCommon}.
+ * <p>
+ * On the AIS thread, messages are only filtered on DAC and FI and queued, so a busy feed of area notices does not delay
+ * the processing of position reports. When too many messages are pending, new ones are dropped. Decoding, reassembly and
+ * expiry are confined to a single area notice thread, which publishes an immutable list and spatial index of the notices.
+ * Bursts of changes are coalesced into one publication.
+ */
+@ThreadSafe
+public class AreaNoticeHandler extends MapHandlerChild {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AreaNoticeHandler.class);
+
+    private static final int MAX_PENDING = 1000;
+    private static final long EXPIRY_CHECK_INTERVAL = 60;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AreaNoticeHandler");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    // Confined to the executor thread
+    private final AreaNoticeStore store = new AreaNoticeStore();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+    private final CopyOnWriteArrayList<IAreaNoticeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<AreaNotice> notices = Collections.emptyList();
+    private volatile PolygonIndex<AreaNotice> index = store.createIndex();
+
+    private final AisMessageHandler messageHandler = new AisMessageHandler() {
+        @Override
+        public void handle(AisMessage aisMessage) {
+            AisMessage8 msg8 = (AisMessage8) aisMessage;
+            if (msg8.getDac() == AreaNoticeDecoder.DAC && msg8.getFi() == AreaNoticeDecoder.FI) {
+                submit(msg8, PntTime.getDate());
+            }
+        }
+    };
+
+    /**
+     * Constructor
+     */
+    public AreaNoticeHandler() {
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (store.removeExpired(PntTime.getDate())) {
+                    publish();
+                }
+            }
+        }, EXPIRY_CHECK_INTERVAL, EXPIRY_CHECK_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues an area notice message for decoding on the area notice thread
+     */
+    private void submit(final AisMessage8 msg8, final Date received) {
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            if (dropped.incrementAndGet() % MAX_PENDING == 1) {
+                LOG.warn("Area notice queue full, " + dropped.get() + " messages dropped");
+            }
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    receive(msg8, received);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void receive(AisMessage8 msg8, Date received) {
+        AreaNotice notice;
+        try {
+            notice = AreaNoticeDecoder.decode(msg8.getUserId(), msg8.getData(), received);
+        } catch (SixbitException e) {
+            LOG.info("Failed decoding area notice from " + msg8.getUserId() + ": " + e.getMessage());
+            return;
+        }
+        if (notice != null && store.update(notice)) {
+            publish();
+        }
+    }
+
+    /**
+     * Schedules publication of the notices after the messages already queued
+     */
+    private void publish() {
+        if (!publishPending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                publishPending.set(false);
+                index = store.createIndex();
+                notices = Collections.unmodifiableList(store.getNotices());
+                for (IAreaNoticeListener listener : listeners) {
+                    listener.areaNoticesChanged();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the current notices
+     */
+    public List<AreaNotice> getAreaNotices() {
+        return notices;
+    }
+
+    /**
+     * Returns the notices whose outline overlaps the given box
+     */
+    public List<AreaNotice> getAreaNotices(double minLat, double minLon, double maxLat, double maxLon) {
+        return index.query(minLat, minLon, maxLat, maxLon);
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full
+     */
+    public int getDroppedCount() {
+        return dropped.get();
+    }
+
+    public void addListener(IAreaNoticeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(IAreaNoticeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findAndInit(Object obj) {
+        if (obj instanceof AisHandlerCommon) {
+            ((AisHandlerCommon) obj).registerMessageHandler(8, messageHandler);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findAndUndo(Object obj) {
+        if (obj instanceof AisHandlerCommon) {
+            ((AisHandlerCommon) obj).registerMessageHandler(8, null);
+        }
+    }
+}
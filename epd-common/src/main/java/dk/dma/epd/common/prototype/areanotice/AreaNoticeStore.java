@@ -0,0 +1,142 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import net.jcip.annotations.NotThreadSafe;
+import dk.dma.epd.common.util.PolygonIndex;
+
+/**
+ * The current area notices, keyed by station and message linkage id.
+ * <p>
+ * Received messages are merged into the notice of their key, and notices are removed when they expire or are cancelled. The
+ * expiry times are kept in a priority queue, so removing expired notices only visits the notices that have expired. The
+ * queue may hold outdated entries for a key, which are skipped when they reach the head.
+ */
+@NotThreadSafe
+public class AreaNoticeStore {
+
+    private static final PolygonIndex.Outline<AreaNotice> OUTLINE = new PolygonIndex.Outline<AreaNotice>() {
+        @Override
+        public double[] getOutline(AreaNotice notice) {
+            return notice.getOutline();
+        }
+    };
+
+    private final Map<Long, AreaNotice> notices = new HashMap<>();
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(64, new Comparator<Expiry>() {
+        @Override
+        public int compare(Expiry e1, Expiry e2) {
+            return Long.compare(e1.time, e2.time);
+        }
+    });
+
+    /**
+     * Adds a notice decoded from a single message
+     * 
+     * @param received
+     *            the received notice
+     * @return if the set of notices or their sub-areas changed, i.e. false for re-broadcasts
+     */
+    public boolean update(AreaNotice received) {
+        Long key = received.getKey();
+        AreaNotice current = notices.get(key);
+
+        if (received.isCancellation()) {
+            return notices.remove(key) != null;
+        }
+
+        AreaNotice notice;
+        if (current != null && current.hasSameHeader(received)) {
+            notice = current.merge(received);
+        } else {
+            notice = received;
+        }
+        notices.put(key, notice);
+
+        long expiry = notice.getExpiry().getTime();
+        if (current == null || current.getExpiry().getTime() != expiry) {
+            expiries.add(new Expiry(key, expiry));
+        }
+        return current == null || !current.hasSameHeader(notice) || !current.getSubAreas().equals(notice.getSubAreas());
+    }
+
+    /**
+     * Removes the notices that have expired
+     * 
+     * @param now
+     *            the current time
+     * @return if any notices were removed
+     */
+    public boolean removeExpired(Date now) {
+        boolean removed = false;
+        while (!expiries.isEmpty() && expiries.peek().time <= now.getTime()) {
+            Expiry expiry = expiries.poll();
+            AreaNotice notice = notices.get(expiry.key);
+            // Later entries exist for notices whose expiry has been extended
+            if (notice != null && notice.getExpiry().getTime() <= now.getTime()) {
+                notices.remove(expiry.key);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the notice of a station and message linkage id
+     */
+    public AreaNotice get(long mmsi, int linkageId) {
+        return notices.get(AreaNotice.key(mmsi, linkageId));
+    }
+
+    /**
+     * @return a copy of the current notices
+     */
+    public List<AreaNotice> getNotices() {
+        return new ArrayList<>(notices.values());
+    }
+
+    /**
+     * @return a spatial index of the current notices
+     */
+    public PolygonIndex<AreaNotice> createIndex() {
+        return new PolygonIndex<>(getNotices(), OUTLINE);
+    }
+
+    public int size() {
+        return notices.size();
+    }
+
+    /**
+     * An entry of the expiry queue
+     */
+    private static final class Expiry {
+
+        final Long key;
+        final long time;
+
+        Expiry(Long key, long time) {
+            this.key = key;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import net.jcip.annotations.Immutable;
+import dk.dma.enav.model.geometry.Position;
+
+/**
+ * A sub-area of an IMO 289 area notice. Each sub-area is one shape, or a piece of free text, and the notice is the union of
+ * its sub-areas.
+ * <p>
+ * Distances are transmitted as values that must be multiplied by 10^scale factor to give meters. Polylines and polygons
+ * start at the position of the preceding sub-area, which is resolved by {@linkplain AreaNotice}.
+ */
+@Immutable
+public final class AreaNoticeSubArea {
+
+    /**
+     * The shape of a sub-area, in the order of the shape codes of the message
+     */
+    public enum Shape {
+        CIRCLE_OR_POINT, RECTANGLE, SECTOR, POLYLINE, POLYGON, TEXT;
+
+        /**
+         * Returns the shape of a shape code, or null for the reserved codes
+         */
+        public static Shape fromCode(int code) {
+            return code >= 0 && code < values().length ? values()[code] : null;
+        }
+    }
+
+    /** Number of points of a polyline or polygon sub-area */
+    public static final int POLY_POINTS = 4;
+
+    private final Shape shape;
+    private final int scaleFactor;
+    private final Position pos;
+    private final int precision;
+    private final int radius;
+    private final int eDimension;
+    private final int nDimension;
+    private final int orientation;
+    private final int leftBound;
+    private final int rightBound;
+    private final int[] angles;
+    private final int[] distances;
+    private final String text;
+
+    private AreaNoticeSubArea(Shape shape, int scaleFactor, Position pos, int precision, int radius, int eDimension,
+            int nDimension, int orientation, int leftBound, int rightBound, int[] angles, int[] distances, String text) {
+        this.shape = shape;
+        this.scaleFactor = scaleFactor;
+        this.pos = pos;
+        this.precision = precision;
+        this.radius = radius;
+        this.eDimension = eDimension;
+        this.nDimension = nDimension;
+        this.orientation = orientation;
+        this.leftBound = leftBound;
+        this.rightBound = rightBound;
+        this.angles = angles;
+        this.distances = distances;
+        this.text = text;
+    }
+
+    /**
+     * Creates a circle, or a point if the radius is 0
+     */
+    public static AreaNoticeSubArea circle(int scaleFactor, Position pos, int precision, int radius) {
+        return new AreaNoticeSubArea(Shape.CIRCLE_OR_POINT, scaleFactor, pos, precision, radius, 0, 0, 0, 0, 0, null, null,
+                null);
+    }
+
+    /**
+     * Creates a rectangle with the given south west corner, dimensions and orientation in degrees
+     */
+    public static AreaNoticeSubArea rectangle(int scaleFactor, Position pos, int precision, int eDimension, int nDimension,
+            int orientation) {
+        return new AreaNoticeSubArea(Shape.RECTANGLE, scaleFactor, pos, precision, 0, eDimension, nDimension, orientation, 0,
+                0, null, null, null);
+    }
+
+    /**
+     * Creates a sector between the given bounds, in degrees clockwise from true north
+     */
+    public static AreaNoticeSubArea sector(int scaleFactor, Position pos, int precision, int radius, int leftBound,
+            int rightBound) {
+        return new AreaNoticeSubArea(Shape.SECTOR, scaleFactor, pos, precision, radius, 0, 0, 0, leftBound, rightBound, null,
+                null, null);
+    }
+
+    /**
+     * Creates a polyline or polygon part
+     * 
+     * @param polygon
+     *            if the part is of a polygon
+     * @param angles
+     *            the bearings of the {@value #POLY_POINTS} points in half degrees
+     * @param distances
+     *            the distances of the points, 0 for unused points
+     */
+    public static AreaNoticeSubArea poly(boolean polygon, int scaleFactor, int[] angles, int[] distances) {
+        if (angles.length != POLY_POINTS || distances.length != POLY_POINTS) {
+            throw new IllegalArgumentException("A poly sub-area has " + POLY_POINTS + " points");
+        }
+        return new AreaNoticeSubArea(polygon ? Shape.POLYGON : Shape.POLYLINE, scaleFactor, null, 0, 0, 0, 0, 0, 0, 0,
+                angles.clone(), distances.clone(), null);
+    }
+
+    /**
+     * Creates a free text sub-area
+     */
+    public static AreaNoticeSubArea text(String text) {
+        return new AreaNoticeSubArea(Shape.TEXT, 0, null, 0, 0, 0, 0, 0, 0, 0, null, null, text);
+    }
+
+    /**
+     * Returns a transmitted distance in meters
+     * 
+     * @param value
+     *            the transmitted value
+     * @return the distance in meters
+     */
+    public double toMeters(int value) {
+        return value * Math.pow(10, scaleFactor);
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public int getScaleFactor() {
+        return scaleFactor;
+    }
+
+    /**
+     * @return the position of the shape, or null for polylines, polygons and text
+     */
+    public Position getPos() {
+        return pos;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public int getEDimension() {
+        return eDimension;
+    }
+
+    public int getNDimension() {
+        return nDimension;
+    }
+
+    public int getOrientation() {
+        return orientation;
+    }
+
+    public int getLeftBound() {
+        return leftBound;
+    }
+
+    public int getRightBound() {
+        return rightBound;
+    }
+
+    /**
+     * @return the bearing of a polyline or polygon point in degrees
+     */
+    public double getAngle(int point) {
+        return angles[point] / 2.0;
+    }
+
+    /**
+     * @return the transmitted distance of a polyline or polygon point, 0 if the point is not used
+     */
+    public int getDistance(int point) {
+        return distances[point];
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AreaNoticeSubArea)) {
+            return false;
+        }
+        AreaNoticeSubArea other = (AreaNoticeSubArea) obj;
+        return shape == other.shape && scaleFactor == other.scaleFactor && Objects.equals(pos, other.pos)
+                && precision == other.precision && radius == other.radius && eDimension == other.eDimension
+                && nDimension == other.nDimension && orientation == other.orientation && leftBound == other.leftBound
+                && rightBound == other.rightBound && Arrays.equals(angles, other.angles)
+                && Arrays.equals(distances, other.distances) && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(shape, scaleFactor, pos, radius, eDimension, nDimension, orientation, leftBound, rightBound,
+                Arrays.hashCode(angles), Arrays.hashCode(distances), text);
+    }
+
+    @Override
+    public String toString() {
+        return "AreaNoticeSubArea [shape=" + shape + ", scaleFactor=" + scaleFactor + ", pos=" + pos + "]";
+    }
+}
@@ -38,6 +38,7 @@ import javax.swing.Timer;
 
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.gui.settings.BaseSettingsPanel;
+import dk.dma.epd.common.prototype.settings.ObservedSettings;
 import dk.dma.epd.common.prototype.settings.Settings;
 
 /**
@@ -214,9 +215,24 @@ public class SetupDialogCommon extends JDialog implements ActionListener {
     public boolean saveSettings() {
         boolean changesWereMade = false;
         boolean restartRequired = false;
+
+        // Batch the observed settings so observers see a single change set
+        List<ObservedSettings<?>> observed = new ArrayList<>();
         for (BaseSettingsPanel baseSettingsPanel : settingsPanels) {
-            restartRequired |= baseSettingsPanel.needsRestart();
-            changesWereMade |= baseSettingsPanel.saveSettings();
+            observed.addAll(baseSettingsPanel.getObservedSettings());
+        }
+        for (ObservedSettings<?> observedSettings : observed) {
+            observedSettings.beginUpdate();
+        }
+        try {
+            for (BaseSettingsPanel baseSettingsPanel : settingsPanels) {
+                restartRequired |= baseSettingsPanel.needsRestart();
+                changesWereMade |= baseSettingsPanel.saveSettings();
+            }
+        } finally {
+            for (ObservedSettings<?> observedSettings : observed) {
+                observedSettings.commitUpdate();
+            }
         }
 
         if (changesWereMade) {
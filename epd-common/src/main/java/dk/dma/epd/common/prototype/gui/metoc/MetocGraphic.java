@@ -14,10 +14,13 @@
  */
 package dk.dma.epd.common.prototype.gui.metoc;
 
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import com.bbn.openmap.omGraphics.OMGraphicList;
+import com.bbn.openmap.proj.Projection;
 
 import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
@@ -26,55 +29,120 @@ import dk.frv.enav.common.xml.metoc.MetocForecast;
 import dk.frv.enav.common.xml.metoc.MetocForecastPoint;
 
 /**
- * Metoc graphic for route
+ * Metoc graphic for route.
+ * <p>
+ * The point graphics are created once per forecast. When the projection changes, {@linkplain #declutter(Projection)}
+ * selects the points to show, so that no two shown points are closer than {@link #MIN_POINT_DISTANCE} pixels on screen.
  */
 public class MetocGraphic extends OMGraphicList {
 
     private static final long serialVersionUID = 1L;
 
+    /** The minimum distance in pixels between two shown METOC points */
+    public static final double MIN_POINT_DISTANCE = 40.0;
+
     private Route route;
     private boolean activeRoute;
-    private int step = 1;
     private EnavSettings eNavSettings;
 
+    private MetocForecast paintedForecast;
+    private List<MetocPointGraphic> pointGraphics = new ArrayList<>();
+
+    // The projection and time of the last declutter
+    private double scale;
+    private Point2D center;
+    private int width;
+    private int height;
+    private long declutterMinute;
+
     public MetocGraphic(Route route, boolean activeRoute, EnavSettings eNavSettings) {
         this.route = route;
         this.activeRoute = activeRoute;
         this.eNavSettings = eNavSettings;
         paintMetoc();
     }
-    
-    public void paintMetoc(){
+
+    /**
+     * Shows all points of the current forecast, creating the point graphics if the forecast has changed
+     */
+    public void paintMetoc() {
+        createPointGraphics();
         clear();
-        MetocForecast metocForecast = route.getMetocForecast();
-        List<MetocForecastPoint> forecasts = metocForecast.getForecasts();
-        Date now = PntTime.getDate();
-        for (int i = 0; i < forecasts.size(); i += step) {
-            MetocForecastPoint metocPoint = forecasts.get(i);
-
-            // If active route, only show if 2 min in future or more
-            if (activeRoute) {
-                long fromNow = (metocPoint.getTime().getTime() - now.getTime()) / 1000 / 60;
-                if (fromNow < 2) {
-                    continue;
-                }
+        long now = PntTime.getDate().getTime();
+        for (MetocPointGraphic pointGraphic : pointGraphics) {
+            if (isShown(pointGraphic, now)) {
+                add(pointGraphic);
             }
+        }
+        center = null;
+    }
+
+    /**
+     * Selects the points to show for the given projection. Does nothing if neither the projection nor the forecast has
+     * changed since the last call
+     * 
+     * @param projection
+     *            the current projection
+     * @return if the shown points were updated
+     */
+    public boolean declutter(Projection projection) {
+        long now = PntTime.getDate().getTime();
+        long minute = activeRoute ? now / 60000L : 0L;
+        if (route.getMetocForecast() == paintedForecast && center != null && projection.getScale() == scale
+                && projection.getCenter().equals(center) && projection.getWidth() == width
+                && projection.getHeight() == height && minute == declutterMinute) {
+            return false;
+        }
+        createPointGraphics();
+        scale = projection.getScale();
+        center = projection.getCenter();
+        width = projection.getWidth();
+        height = projection.getHeight();
+        declutterMinute = minute;
 
-            MetocPointGraphic metocPointGraphic = new MetocPointGraphic(metocPoint, this, eNavSettings);
-            add(metocPointGraphic);
-            
+        clear();
+        double minDistSq = MIN_POINT_DISTANCE * MIN_POINT_DISTANCE;
+        Point2D last = null;
+        for (MetocPointGraphic pointGraphic : pointGraphics) {
+            if (!isShown(pointGraphic, now)) {
+                continue;
+            }
+            Point2D pt = projection.forward(pointGraphic.getLat(), pointGraphic.getLon());
+            if (last == null || pt.distanceSq(last) >= minDistSq) {
+                add(pointGraphic);
+                last = pt;
+            }
         }
+        return true;
     }
 
-    public Route getRoute() {
-        return route;
+    private void createPointGraphics() {
+        MetocForecast metocForecast = route.getMetocForecast();
+        if (metocForecast == paintedForecast) {
+            return;
+        }
+        paintedForecast = metocForecast;
+        pointGraphics = new ArrayList<>();
+        if (metocForecast == null) {
+            return;
+        }
+        for (MetocForecastPoint metocPoint : metocForecast.getForecasts()) {
+            pointGraphics.add(new MetocPointGraphic(metocPoint, this, eNavSettings));
+        }
     }
 
-    public void setStep(int step) {
-        this.step = step;
+    /**
+     * If active route, only show points 2 min in future or more
+     */
+    private boolean isShown(MetocPointGraphic pointGraphic, long now) {
+        if (!activeRoute) {
+            return true;
+        }
+        Date time = pointGraphic.getMetocPoint().getTime();
+        return (time.getTime() - now) / 1000 / 60 >= 2;
     }
-    
-    public int getStep() {
-        return step;
+
+    public Route getRoute() {
+        return route;
     }
 }
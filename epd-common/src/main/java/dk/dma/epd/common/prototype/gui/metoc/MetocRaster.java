@@ -45,18 +45,16 @@ public abstract class MetocRaster extends OMGraphicList {
      * @param lon
      *            Position of the raster's horizontal center
      * @param angle
-     *            Rotational angle in radians
+     *            Rotational angle in radians. The symbol is taken pre-rotated
+     *            from the {@linkplain MetocSymbolCache}
      */
     public void addRaster(String rasterURI, double lat, double lon, double angle) {
-        ImageIcon imageIcon = new ImageIcon(MetocRaster.class.getResource(rasterURI));
-        
+        ImageIcon imageIcon = MetocSymbolCache.getSymbol(rasterURI, angle);
+
         int imageWidth = imageIcon.getIconWidth();
         int imageHeight = imageIcon.getIconHeight();
         CenterRaster rasterMark = new CenterRaster(lat, lon, imageWidth,
                 imageHeight, imageIcon);
-        // rasterMark.setStroke(new BasicStroke());
-        // rasterMark.setSelected(true);
-        rasterMark.setRotationAngle(angle);
         add(rasterMark);
     }
 
@@ -0,0 +1,123 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.gui.metoc;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.ImageIcon;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Shared cache of pre-rendered METOC symbols.
+ * <p>
+ * The image of a symbol identifies its type (wind, current or wave) and magnitude bucket. Each image is rotated into
+ * buckets of {@code 360 / ROTATION_BUCKETS} degrees once, and the rotated symbols are shared by all METOC graphics, so
+ * they are neither loaded nor rotated per point and repaint.
+ */
+@ThreadSafe
+public final class MetocSymbolCache {
+
+    private static final int ROTATION_BUCKETS = 72;
+    private static final int MAX_SYMBOLS = 256;
+
+    private static final Map<String, ImageIcon> IMAGES = new ConcurrentHashMap<>();
+    private static final LinkedHashMap<String, ImageIcon> SYMBOLS = new LinkedHashMap<>(64, 0.75f, true);
+
+    private MetocSymbolCache() {
+    }
+
+    /**
+     * Returns the symbol for the given image rotated by the given angle. The symbol has uneven dimensions and is centered
+     * on the center of the image.
+     * 
+     * @param rasterURI
+     *            the location of the image
+     * @param angle
+     *            the rotation angle in radians
+     * @return the rotated symbol
+     */
+    public static ImageIcon getSymbol(String rasterURI, double angle) {
+        int bucket = rotationBucket(angle);
+        String key = rasterURI + "@" + bucket;
+        synchronized (SYMBOLS) {
+            ImageIcon symbol = SYMBOLS.get(key);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+
+        ImageIcon symbol = render(getImage(rasterURI), bucket * 2.0 * Math.PI / ROTATION_BUCKETS);
+        synchronized (SYMBOLS) {
+            SYMBOLS.put(key, symbol);
+            Iterator<String> it = SYMBOLS.keySet().iterator();
+            while (SYMBOLS.size() > MAX_SYMBOLS && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return symbol;
+    }
+
+    static int rotationBucket(double angle) {
+        double turns = angle / (2.0 * Math.PI);
+        int bucket = (int) Math.round((turns - Math.floor(turns)) * ROTATION_BUCKETS);
+        return bucket % ROTATION_BUCKETS;
+    }
+
+    private static ImageIcon getImage(String rasterURI) {
+        ImageIcon image = IMAGES.get(rasterURI);
+        if (image == null) {
+            image = new ImageIcon(MetocSymbolCache.class.getResource(rasterURI));
+            IMAGES.put(rasterURI, image);
+        }
+        return image;
+    }
+
+    /**
+     * Rotates the image around its center and crops the result to the smallest uneven square around the center that
+     * holds all visible pixels
+     */
+    private static ImageIcon render(ImageIcon image, double angle) {
+        int width = image.getIconWidth();
+        int height = image.getIconHeight();
+        int size = (int) Math.ceil(Math.hypot(width, height)) | 1;
+        int c = size / 2;
+
+        BufferedImage rotated = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = rotated.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.rotate(angle, c + 0.5, c + 0.5);
+        g.drawImage(image.getImage(), c - width / 2, c - height / 2, null);
+        g.dispose();
+
+        int radius = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if ((rotated.getRGB(x, y) >>> 24) != 0) {
+                    radius = Math.max(radius, Math.max(Math.abs(x - c), Math.abs(y - c)));
+                }
+            }
+        }
+        return new ImageIcon(rotated.getSubimage(c - radius, c - radius, 2 * radius + 1, 2 * radius + 1));
+    }
+}
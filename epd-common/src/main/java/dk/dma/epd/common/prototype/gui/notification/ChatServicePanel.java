@@ -37,6 +37,7 @@ import java.awt.event.ActionListener;
 import java.awt.geom.Area;
 import java.awt.geom.RoundRectangle2D;
 import java.util.Date;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
@@ -95,12 +96,16 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
     /** If the time between two messages is more than 5 minutes, print the date **/
     public static final long PRINT_DATE_INTERVAL = 1000L * 60L * 5L;
 
+    /** The number of messages displayed initially and added each time earlier messages are requested **/
+    public static final int PAGE_SIZE = 50;
+
     protected static final ImageIcon ICON_MESSAGE = EPD.res().getCachedImageIcon("images/notifications/balloon.png");
     protected static final ImageIcon ICON_ALERT = EPD.res().getCachedImageIcon("images/notifications/error.png");
     protected static final ImageIcon ICON_WARNING = EPD.res().getCachedImageIcon("images/notifications/warning.png");
 
     ChatServiceData chatData;
     Component noDataComponent;
+    int visibleMessageCount = PAGE_SIZE;
 
     JPanel messagesPanel = new JPanel();
     JScrollPane scrollPane = new JScrollPane(messagesPanel);
@@ -108,6 +113,7 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
 
     JTextComponent messageText;
     JButton sendBtn;
+    JButton earlierBtn = new JButton("Show earlier messages");
     JToggleButton messageTypeBtn, warningTypeBtn, alertTypeBtn;
 
     /**
@@ -182,6 +188,10 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
         sendBtn.setEnabled(false);
         messageText.setEditable(false);
         sendBtn.addActionListener(this);
+
+        earlierBtn.setFont(earlierBtn.getFont().deriveFont(9.0f).deriveFont(Font.PLAIN));
+        earlierBtn.setFocusable(false);
+        earlierBtn.addActionListener(this);
     }
 
     /**
@@ -216,6 +226,9 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
      *            the new updated chat service data
      */
     public void setChatServiceData(ChatServiceData chatData) {
+        if (chatData != this.chatData) {
+            visibleMessageCount = PAGE_SIZE;
+        }
         this.chatData = chatData;
         updateChatMessagePanel();
     }
@@ -267,9 +280,15 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
             int y = 0;
             messagesPanel.add(new JLabel(""), new GridBagConstraints(0, y++, 1, 1, 0.0, 1.0, NORTH, VERTICAL, insets, 0, 0));
 
+            // Only the latest page(s) of messages are displayed
+            List<EPDChatMessage> messages = chatData.getLatestMessages(visibleMessageCount);
+            if (messages.size() < chatData.getMessageCount()) {
+                messagesPanel.add(earlierBtn, new GridBagConstraints(0, y++, 1, 1, 0.0, 0.0, NORTH, NONE, insets2, 0, 0));
+            }
+
             // Add the messages
             long lastMessageTime = 0;
-            for (EPDChatMessage message : chatData.getMessages()) {
+            for (EPDChatMessage message : messages) {
 
                 // Check if we need to add a time label
                 if (message.getSendDate().getTime() - lastMessageTime > PRINT_DATE_INTERVAL) {
@@ -336,6 +355,9 @@ public class ChatServicePanel extends JPanel implements ActionListener, IChatSer
             sendBtn.setIcon(ICON_WARNING);
         } else if (ae.getSource() == alertTypeBtn) {
             sendBtn.setIcon(ICON_ALERT);
+        } else if (ae.getSource() == earlierBtn) {
+            visibleMessageCount += PAGE_SIZE;
+            updateChatMessagePanel();
         }
     }
 
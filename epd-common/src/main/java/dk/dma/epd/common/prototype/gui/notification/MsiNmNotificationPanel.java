@@ -206,6 +206,7 @@ public class MsiNmNotificationPanel extends NotificationPanel<MsiNmNotification>
 
             // NB: doUpdate() will automatically trigger a table refresh
             EPD.getInstance().getMsiNmHandler().doUpdate();
+            rescheduleAlerts(notification);
             selectFirstUnacknowledgedRow();
             notifyListeners();
         }
@@ -220,6 +221,7 @@ public class MsiNmNotificationPanel extends NotificationPanel<MsiNmNotification>
         if (notification != null) {
             // NB: deleteMsiNmMessage() will automatically trigger a table refresh
             EPD.getInstance().getMsiNmHandler().deleteMsiNmMessage(notification);
+            removeAlerts(notification);
             setSelectedRow(row - 1);
             notifyListeners();
         }
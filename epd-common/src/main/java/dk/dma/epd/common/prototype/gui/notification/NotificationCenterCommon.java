@@ -24,6 +24,9 @@ import dk.dma.epd.common.prototype.notification.MsiNmNotification;
 import dk.dma.epd.common.prototype.notification.Notification;
 import dk.dma.epd.common.prototype.notification.NotificationAlert;
 import dk.dma.epd.common.prototype.notification.NotificationAlert.AlertType;
+import dk.dma.epd.common.prototype.notification.NotificationAlertScheduler;
+import dk.dma.epd.common.prototype.notification.NotificationAlertScheduler.AlertHandler;
+import dk.dma.epd.common.prototype.notification.NotificationAlertScheduler.ScheduledAlert;
 import dk.dma.epd.common.prototype.notification.NotificationType;
 import dk.dma.epd.common.prototype.service.ChatServiceHandlerCommon;
 import dk.dma.epd.common.prototype.service.ChatServiceHandlerCommon.IChatServiceListener;
@@ -40,7 +43,6 @@ import org.slf4j.LoggerFactory;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.WindowConstants;
 import java.awt.BorderLayout;
@@ -51,8 +53,6 @@ import java.awt.Insets;
 import java.awt.Rectangle;
 import java.awt.TrayIcon.MessageType;
 import java.awt.Window;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -72,12 +72,18 @@ import static java.awt.GridBagConstraints.WEST;
  * <li>MSI: A maritime safety information panel.</li>
  * </ul>
  */
-public abstract class NotificationCenterCommon extends ComponentDialog implements ActionListener, IMsiNmServiceListener,
+public abstract class NotificationCenterCommon extends ComponentDialog implements IMsiNmServiceListener,
         IChatServiceListener, StrategicRouteListener, RouteSuggestionListener {
     private static final long serialVersionUID = 1L;
     private static final Logger LOG = LoggerFactory.getLogger(NotificationCenterCommon.class);
 
-    protected Timer alertTimer = new Timer(3 * 1000, this); // Every 3 seconds
+    protected NotificationAlertScheduler<NotificationPanel<?>> alertScheduler = new NotificationAlertScheduler<>(
+            new AlertHandler<NotificationPanel<?>>() {
+                @Override
+                public void alertsDue(List<ScheduledAlert<NotificationPanel<?>>> alerts) {
+                    triggerAlerts(alerts);
+                }
+            });
 
     protected MsiNmServiceHandlerCommon msiNmHandler;
     protected ChatServiceHandlerCommon chatServiceHandler;
@@ -135,9 +141,7 @@ public abstract class NotificationCenterCommon extends ComponentDialog implement
         msiNmPanel.refreshMsiNmServices();
         msiNmPanel.refreshNotifications();
 
-        alertTimer.setCoalesce(true);
-        alertTimer.setRepeats(true);
-        alertTimer.start();
+        alertScheduler.start();
     }
 
     /**
@@ -150,22 +154,39 @@ public abstract class NotificationCenterCommon extends ComponentDialog implement
     }
 
     /**
-     * Called periodically by the alert timer
+     * Returns the scheduler of the notification alerts
      * 
-     * @param ae
-     *            the action event
+     * @return the scheduler of the notification alerts
      */
-    @Override
-    public void actionPerformed(ActionEvent ae) {
-        // Run through all alerts of all notifications of all panels
-        // and check if they should be triggered
-        for (NotificationPanel<?> panel : panels) {
-            for (Notification<?, ?> notification : panel.getNotifications()) {
-                for (NotificationAlert alert : notification.getAlerts()) {
-                    if (alert.shouldTrigger(notification)) {
-                        triggerAlert(panel, notification, alert);
-                    }
+    public NotificationAlertScheduler<NotificationPanel<?>> getAlertScheduler() {
+        return alertScheduler;
+    }
+
+    /**
+     * Called by the alert scheduler with the alerts that are due. Evaluates and triggers the alerts in the Swing event
+     * thread, which owns the notifications.
+     * 
+     * @param alerts
+     *            the due alerts
+     */
+    protected void triggerAlerts(final List<ScheduledAlert<NotificationPanel<?>>> alerts) {
+        // Ensure that we operate in the Swing event thread
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    triggerAlerts(alerts);
                 }
+            });
+            return;
+        }
+
+        for (ScheduledAlert<NotificationPanel<?>> alert : alerts) {
+            if (alert.getAlert().shouldTrigger(alert.getNotification())) {
+                triggerAlert(alert.getOwner(), alert.getNotification(), alert.getAlert());
+                alertScheduler.triggered(alert);
+            } else {
+                alertScheduler.skipped(alert);
             }
         }
     }
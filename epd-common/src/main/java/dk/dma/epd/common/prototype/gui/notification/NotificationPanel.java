@@ -336,6 +336,7 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
         if (notification != null) {
             if (!notification.isRead()) {
                 notification.setRead(true);
+                rescheduleAlerts(notification);
                 table.repaint();
                 notifyListeners();
                 
@@ -421,6 +422,7 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
         if (notification != null && !notification.isAcknowledged()) {
             notification.setAcknowledged(true);
             notification.setRead(true); // Implied by acknowledged
+            rescheduleAlerts(notification);
             table.repaint();
             updateButtonEnabledState();
             selectFirstUnacknowledgedRow();
@@ -445,6 +447,7 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
     public void deleteNotification(N notification) {
         if (notification != null) {
             tableModel.notifications.remove(notification);
+            removeAlerts(notification);
             tableModel.fireTableDataChanged();
             updateButtonEnabledState();
             notifyListeners();
@@ -513,6 +516,9 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
      */
     protected void doAddNotification(N notification) {
         tableModel.getNotifications().add(notification);
+        if (notificationCenter != null) {
+            notificationCenter.getAlertScheduler().add(this, notification);
+        }
         tableModel.fireTableDataChanged();
         notifyListeners();
     }
@@ -532,9 +538,17 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
     /**
      * This method will refresh the table data using
      * {@code DefaultTableModel.fireTableDataChanged()} but
-     * preserve the selection
+     * preserve the selection.
+     * <p>
+     * Also hands the reloaded notifications to the alert scheduler of the
+     * notification center, which schedules the alerts of new notifications
+     * and cancels those of removed notifications.
      */
     protected void refreshTableData() {
+        if (notificationCenter != null) {
+            notificationCenter.getAlertScheduler().update(this, tableModel.getNotifications());
+        }
+        
         // Store the currently selected notifications
         Set<Object> oldSelection = new HashSet<>();
         for (N notification : getSelectedNotifications()) {
@@ -614,7 +628,30 @@ public abstract class NotificationPanel<N extends Notification<?,?>> extends JPa
     }
     
     /**
-     * Notifies all listeners with the current statistics of the notifications
+     * Re-computes when the alerts of the given notification should trigger,
+     * e.g. after it has been read or acknowledged
+     * 
+     * @param notification the notification
+     */
+    protected void rescheduleAlerts(N notification) {
+        if (notificationCenter != null) {
+            notificationCenter.getAlertScheduler().reschedule(this, notification);
+        }
+    }
+    
+    /**
+     * Cancels the alerts of the given notification, e.g. after it has been deleted
+     * 
+     * @param notification the notification
+     */
+    protected void removeAlerts(N notification) {
+        if (notificationCenter != null) {
+            notificationCenter.getAlertScheduler().remove(this, notification);
+        }
+    }
+    
+    /**
+     * Notifies all listeners with the current statistics of the notifications.
      */
     protected void notifyListeners() {
         // Compute the statistics
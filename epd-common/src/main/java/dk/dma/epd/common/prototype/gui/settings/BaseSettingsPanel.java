@@ -14,6 +14,8 @@
  */
 package dk.dma.epd.common.prototype.gui.settings;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.ImageIcon;
@@ -23,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dk.dma.epd.common.prototype.gui.settings.ISettingsListener.Type;
+import dk.dma.epd.common.prototype.settings.ObservedSettings;
 import dk.dma.epd.common.prototype.settings.Settings;
 
 /**
@@ -157,6 +160,20 @@ public abstract class BaseSettingsPanel extends JPanel {
      */
     protected abstract void doSaveSettings();
 
+    /**
+     * Returns the observed settings that {@linkplain #doSaveSettings()} may update.
+     * <p>
+     * The setup dialog wraps the save of all panels in a single
+     * {@linkplain ObservedSettings#beginUpdate()}/{@linkplain ObservedSettings#commitUpdate()}
+     * pair, so that observers receive one change set per dialog apply.
+     * Sub-classes that update observed settings should override.
+     * 
+     * @return the observed settings updated by this panel
+     */
+    public List<? extends ObservedSettings<?>> getObservedSettings() {
+        return Collections.emptyList();
+    }
+
     /**
      * Notifies all listeners that the settings were changed
      */
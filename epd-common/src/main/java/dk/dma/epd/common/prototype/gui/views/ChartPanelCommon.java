@@ -20,7 +20,6 @@ import com.bbn.openmap.MapHandler;
 import com.bbn.openmap.MouseDelegator;
 import com.bbn.openmap.gui.OMComponentPanel;
 import com.bbn.openmap.layer.OMGraphicHandlerLayer;
-import com.bbn.openmap.layer.shape.MultiShapeLayer;
 import com.bbn.openmap.proj.Proj;
 import com.bbn.openmap.proj.ProjMath;
 import com.bbn.openmap.proj.Projection;
@@ -36,6 +35,7 @@ import dk.dma.epd.common.prototype.event.mouse.NoGoMouseModeCommon;
 import dk.dma.epd.common.prototype.gui.nogo.NogoDialogCommon;
 import dk.dma.epd.common.prototype.gui.util.DraggableLayerMapBean;
 import dk.dma.epd.common.prototype.layers.ais.AisLayerCommon;
+import dk.dma.epd.common.prototype.layers.background.TiledShapeLayer;
 import dk.dma.epd.common.prototype.layers.intendedroute.IntendedRouteCPALayer;
 import dk.dma.epd.common.prototype.layers.intendedroute.IntendedRouteLayerCommon;
 import dk.dma.epd.common.prototype.layers.msi.MsiNmLayerCommon;
@@ -78,7 +78,7 @@ public abstract class ChartPanelCommon extends OMComponentPanel {
     protected LayerHandler layerHandler;
     protected DraggableLayerMapBean map;
     protected OMGraphicHandlerLayer encLayer;
-    protected MultiShapeLayer bgLayer;
+    protected TiledShapeLayer bgLayer;
     protected WMSLayer wmsLayer;
     protected AisLayerCommon<?> aisLayer;
     protected RouteLayerCommon routeLayer;
@@ -402,7 +402,7 @@ public abstract class ChartPanelCommon extends OMComponentPanel {
         return mapHandler;
     }
 
-    public MultiShapeLayer getBgLayer() {
+    public TiledShapeLayer getBgLayer() {
         return bgLayer;
     }
 
@@ -20,11 +20,16 @@ import java.awt.Component;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 
 import javax.swing.JDialog;
 
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
 import dk.dma.epd.common.prototype.status.AisStatus;
 import dk.dma.epd.common.prototype.status.CloudStatus;
 import dk.dma.epd.common.prototype.status.ComponentStatus;
@@ -37,6 +42,9 @@ import javax.swing.JButton;
 import javax.swing.Timer;
 import javax.swing.WindowConstants;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
 import javax.swing.border.TitledBorder;
 
 import java.awt.GridLayout;
@@ -65,6 +73,8 @@ public class CommonBottomPanelStatusDialog extends JDialog implements ActionList
     private JLabel lblAisLastReceptionStatus;
     private JLabel lblAisLastSendStatus;
     private JButton btnClose;
+    private JButton btnExportMetrics;
+    private MetricsTableModel metricsTableModel;
     
     
     /**
@@ -239,6 +249,29 @@ public class CommonBottomPanelStatusDialog extends JDialog implements ActionList
         this.lblLastSendStatus.setFont(PLAIN_FONT);
         this.lblLastSendStatus.setBounds(121, 105, 165, 16);
         maritimeStatuspanel.add(this.lblLastSendStatus);        
+        
+        // Metrics of the hot paths
+        JPanel metricsPanel = new JPanel();
+        metricsPanel.setBorder(
+                new TitledBorder(null, "Metrics", TitledBorder.LEADING, TitledBorder.TOP, TITLE_FONT));
+        metricsPanel.setLayout(new BorderLayout());
+        this.add(metricsPanel);
+        
+        this.metricsTableModel = new MetricsTableModel();
+        JTable metricsTable = new JTable(this.metricsTableModel);
+        metricsTable.setFont(PLAIN_FONT);
+        metricsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        metricsTable.getColumnModel().getColumn(0).setPreferredWidth(150);
+        for (int i = 1; i < this.metricsTableModel.getColumnCount(); i++) {
+            metricsTable.getColumnModel().getColumn(i).setPreferredWidth(55);
+        }
+        metricsPanel.add(new JScrollPane(metricsTable), BorderLayout.CENTER);
+        
+        this.btnExportMetrics = new JButton("Export");
+        this.btnExportMetrics.addActionListener(this);
+        JPanel metricsBtnPanel = new JPanel();
+        metricsBtnPanel.add(this.btnExportMetrics);
+        metricsPanel.add(metricsBtnPanel, BorderLayout.SOUTH);
     }
     
     /**
@@ -281,6 +314,25 @@ public class CommonBottomPanelStatusDialog extends JDialog implements ActionList
                 this.colorStatusLabel(this.lblSendingStatus);
             }
         }
+        
+        if (this.metricsTableModel != null) {
+            this.metricsTableModel.setMetrics(MetricsRegistry.getInstance().snapshot());
+        }
+    }
+    
+    /**
+     * Exports the metrics to a time stamped file in the home folder
+     */
+    protected void exportMetrics() {
+        String fileName = "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+        Path file = EPD.getInstance().getHomePath().resolve(fileName);
+        try {
+            MetricsRegistry.getInstance().export(file);
+            JOptionPane.showMessageDialog(this, "Metrics exported to " + file, "Metrics", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Failed to export metrics: " + e.getMessage(), "Metrics",
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
     
     /**
@@ -338,6 +390,10 @@ public class CommonBottomPanelStatusDialog extends JDialog implements ActionList
         } else if (e.getSource() == this.btnClose) {
             this.timer.stop();
             this.dispose();
+            
+        // If the source is the export button, write the metrics to a file.
+        } else if (e.getSource() == this.btnExportMetrics) {
+            this.exportMetrics();
         }
     }
     
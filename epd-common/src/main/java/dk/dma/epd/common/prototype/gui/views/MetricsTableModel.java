@@ -0,0 +1,98 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.gui.views;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.table.AbstractTableModel;
+
+import dk.dma.epd.common.prototype.metrics.MetricSnapshot;
+
+/**
+ * Table model of metric snapshots, used in the status dialog
+ */
+public class MetricsTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMN_NAMES = { "Metric", "Count", "Rate/s", "p50 ms", "p99 ms", "Max ms" };
+
+    private List<MetricSnapshot> metrics = new ArrayList<>();
+
+    /**
+     * Sets the metrics and updates the table
+     * 
+     * @param metrics
+     *            the metrics
+     */
+    public void setMetrics(List<MetricSnapshot> metrics) {
+        this.metrics = metrics;
+        fireTableDataChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRowCount() {
+        return metrics.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumnName(int columnIndex) {
+        return COLUMN_NAMES[columnIndex];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        MetricSnapshot metric = metrics.get(rowIndex);
+        switch (columnIndex) {
+        case 0:
+            return metric.getName();
+        case 1:
+            return metric.getCount();
+        case 2:
+            return String.format(Locale.US, "%.1f", metric.getRate());
+        case 3:
+            return formatLatency(metric.getP50());
+        case 4:
+            return formatLatency(metric.getP99());
+        case 5:
+            return formatLatency(metric.getMax());
+        default:
+            return null;
+        }
+    }
+
+    private static String formatLatency(double millis) {
+        return Double.isNaN(millis) ? "" : String.format(Locale.US, "%.2f", millis);
+    }
+}
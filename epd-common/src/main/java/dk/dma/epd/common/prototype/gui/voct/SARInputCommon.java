@@ -44,8 +44,9 @@ import javax.swing.event.DocumentListener;
 import org.joda.time.DateTime;
 
 import dk.dma.enav.model.geometry.Position;
-import dk.dma.epd.common.prototype.model.voct.SARISXMLParser;
+import dk.dma.epd.common.prototype.model.voct.SARISStreamParser;
 import dk.dma.epd.common.prototype.model.voct.SAR_TYPE;
+import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointDataSARIS;
 import dk.dma.epd.common.prototype.model.voct.sardata.SARWeatherData;
 import dk.dma.epd.common.prototype.voct.VOCTManagerCommon;
 import dk.dma.epd.common.prototype.voct.VOCTUpdateEvent;
@@ -317,10 +318,11 @@ public class SARInputCommon extends JDialog implements ActionListener,
 
                     // SARISXMLParser parser = new
                     // SARISXMLParser("E://Sarex 04 Juni.xml");
-                    SARISXMLParser parser = new SARISXMLParser(fileChoosen);
+                    SARISStreamParser parser = new SARISStreamParser();
+                    DatumPointDataSARIS sarisData = parser.parse(new File(fileChoosen));
 
                     voctManager.setSarType(SAR_TYPE.SARIS_DATUM_POINT);
-                    voctManager.setSarData(parser.getSarData());
+                    voctManager.setSarData(sarisData);
                     calculationsText.setText("SARIS PARSE SUCCESSFULL");
                     backButton.setEnabled(true);
                     nextButton.setText("Finish");
@@ -43,6 +43,8 @@ import dk.dma.epd.common.prototype.gui.MapMenuCommon;
 import dk.dma.epd.common.prototype.gui.util.InfoPanel;
 import dk.dma.epd.common.prototype.gui.util.InfoPanel.InfoPanelBinding;
 import dk.dma.epd.common.prototype.layers.util.LayerVisiblityListener;
+import dk.dma.epd.common.prototype.metrics.LatencyHistogram;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
 
 /**
  * Common EPD layer subclass that may be sub-classed by other layers.
@@ -68,6 +70,8 @@ public abstract class EPDLayerCommon extends OMGraphicHandlerLayer implements Ma
 
     protected OMGraphicList graphics = new AntialiasedGraphicList();
 
+    private transient LatencyHistogram projectLatency;
+
     protected InfoPanelBinding infoPanels = new InfoPanelBinding();
     protected List<Class<?>> mouseClickClasses = new CopyOnWriteArrayList<>();
     protected List<Class<?>> mapMenuClasses = new CopyOnWriteArrayList<>();
@@ -94,7 +98,12 @@ public abstract class EPDLayerCommon extends OMGraphicHandlerLayer implements Ma
         if (getProjection() == null) {
             return graphics;
         }
+        if (projectLatency == null) {
+            projectLatency = MetricsRegistry.getInstance().histogram("layer.project." + getClass().getSimpleName());
+        }
+        long start = System.nanoTime();
         graphics.project(getProjection(), true);
+        projectLatency.recordSince(start);
         return graphics;
     }
 
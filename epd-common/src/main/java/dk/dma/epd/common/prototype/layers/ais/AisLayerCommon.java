@@ -31,7 +31,9 @@ import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
 import dk.dma.epd.common.prototype.ais.AisTarget;
 import dk.dma.epd.common.prototype.ais.AtoNTarget;
+import dk.dma.epd.common.prototype.ais.BaseStationTarget;
 import dk.dma.epd.common.prototype.ais.IAisTargetListener;
+import dk.dma.epd.common.prototype.ais.SarAircraftTarget;
 import dk.dma.epd.common.prototype.ais.SarTarget;
 import dk.dma.epd.common.prototype.ais.VesselTarget;
 import dk.dma.epd.common.prototype.layers.LazyLayerCommon;
@@ -271,6 +273,9 @@ public abstract class AisLayerCommon<AISHANDLER extends AisHandlerCommon>
                 targetGraphic = new SarTargetGraphic();
             } else if (aisTarget instanceof AtoNTarget) {
                 targetGraphic = new AtonTargetGraphic();
+            } else if (aisTarget instanceof BaseStationTarget || aisTarget instanceof SarAircraftTarget) {
+                // Base stations and SAR aircraft are not displayed
+                return;
             } else {
                 LOG.error("Unknown target type");
                 return;
@@ -0,0 +1,609 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.background;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Quadtree of pre-clipped and pre-simplified shapefile polygons, stored in a local binary cache file.
+ * <p>
+ * Level {@code z} divides the world into 2<sup>z</sup> by 2<sup>z</sup> tiles. The polygons of each tile are clipped to the
+ * tile and simplified with a tolerance of 1/{@value #TILE_PIXELS} of the tile width, so a tile drawn at its own level is at
+ * most {@value #TILE_PIXELS} pixels wide and holds no detail below a pixel. The finest level, {@value #MAX_LEVEL}, keeps the
+ * full resolution. Tiles completely covered by a single polygon are stored once as "full" and not subdivided further.
+ * <p>
+ * The cache file is built from the shapefile on first use and rebuilt if the shapefile size or modification time changes.
+ * Only the tile index is read up front; the tiles themselves are read on demand and kept in a bounded LRU cache.
+ */
+@ThreadSafe
+public class ShapeTiles implements Closeable {
+
+    /** The finest level of the quadtree */
+    public static final int MAX_LEVEL = 10;
+
+    /** The width in pixels of a tile drawn at its own level */
+    public static final int TILE_PIXELS = 512;
+
+    private static final int MAGIC = 0x45504454;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 24;
+    private static final int INDEX_ENTRY_LENGTH = 20;
+    private static final int MAX_CACHED_TILES = 512;
+
+    /** Tolerance when testing if a point lies on a tile border */
+    private static final double BORDER_EPSILON = 1e-4;
+
+    private final FileChannel channel;
+    private final Map<Long, long[]> index;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<Long, float[][]> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private ShapeTiles(Path cacheFile, Map<Long, long[]> index) throws IOException {
+        this.channel = FileChannel.open(cacheFile, StandardOpenOption.READ);
+        this.index = index;
+    }
+
+    /**
+     * Opens the tile cache of a shapefile, building it first if it is missing or out of date
+     *
+     * @param source
+     *            the shapefile
+     * @param cacheFile
+     *            the tile cache file
+     * @return the tiles
+     */
+    public static ShapeTiles open(URL source, Path cacheFile) throws IOException {
+        URLConnection connection = source.openConnection();
+        long sourceLength = connection.getContentLengthLong();
+        long sourceModified = connection.getLastModified();
+
+        Map<Long, long[]> index = readIndex(cacheFile, sourceLength, sourceModified);
+        if (index == null) {
+            List<float[]> rings;
+            try (InputStream in = new BufferedInputStream(connection.getInputStream())) {
+                rings = ShapefileReader.readRings(in);
+            }
+            build(rings, sourceLength, sourceModified, cacheFile);
+            index = readIndex(cacheFile, sourceLength, sourceModified);
+            if (index == null) {
+                throw new IOException("Failed to build tile cache " + cacheFile);
+            }
+        }
+        return new ShapeTiles(cacheFile, index);
+    }
+
+    /**
+     * Builds the tile cache file for the given rings
+     *
+     * @param rings
+     *            the polygon rings as lat/lon pairs
+     * @param sourceLength
+     *            the size of the shapefile, stored to detect changes
+     * @param sourceModified
+     *            the modification time of the shapefile, stored to detect changes
+     * @param cacheFile
+     *            the tile cache file
+     */
+    static void build(List<float[]> rings, long sourceLength, long sourceModified, Path cacheFile) throws IOException {
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        Map<Long, long[]> index = new LinkedHashMap<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeLong(sourceModified);
+
+            List<float[]> root = clip(rings, bounds(key(0, 0, 0)));
+            if (!root.isEmpty()) {
+                buildTile(key(0, 0, 0), root, out, index);
+            }
+
+            long indexOffset = out.size();
+            out.writeInt(index.size());
+            for (Map.Entry<Long, long[]> entry : index.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeInt((int) entry.getValue()[1]);
+            }
+            out.writeLong(indexOffset);
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void buildTile(long key, List<float[]> rings, DataOutputStream out, Map<Long, long[]> index)
+            throws IOException {
+        int level = level(key);
+        double[] bounds = bounds(key);
+        if (isFull(rings, bounds)) {
+            index.put(key, new long[] { out.size(), 0 });
+            return;
+        }
+
+        List<float[]> simplified = rings;
+        if (level < MAX_LEVEL) {
+            simplified = new ArrayList<>(rings.size());
+            for (float[] ring : rings) {
+                float[] s = simplify(ring, tolerance(level));
+                if (s != null) {
+                    simplified.add(s);
+                }
+            }
+        }
+        if (!simplified.isEmpty()) {
+            long offset = out.size();
+            out.writeInt(simplified.size());
+            for (float[] ring : simplified) {
+                out.writeInt(ring.length / 2);
+                for (float value : ring) {
+                    out.writeFloat(value);
+                }
+            }
+            index.put(key, new long[] { offset, out.size() - offset });
+        }
+
+        if (level == MAX_LEVEL) {
+            return;
+        }
+        int x = tileX(key);
+        int y = tileY(key);
+        for (int child = 0; child < 4; child++) {
+            long childKey = key(level + 1, 2 * x + (child & 1), 2 * y + (child >> 1));
+            List<float[]> clipped = clip(rings, bounds(childKey));
+            if (!clipped.isEmpty()) {
+                buildTile(childKey, clipped, out, index);
+            }
+        }
+    }
+
+    /**
+     * Reads the tile index of the cache file, or returns null if it is missing, unreadable or built from another source
+     */
+    private static Map<Long, long[]> readIndex(Path cacheFile, long sourceLength, long sourceModified) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (FileChannel in = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_LENGTH + 12) {
+                return null;
+            }
+            ByteBuffer header = read(in, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != sourceLength
+                    || header.getLong() != sourceModified) {
+                return null;
+            }
+            long indexOffset = read(in, size - 8, 8).getLong();
+            if (indexOffset < HEADER_LENGTH || indexOffset > size - 12) {
+                return null;
+            }
+            int count = read(in, indexOffset, 4).getInt();
+            if (count < 0 || indexOffset + 4 + (long) count * INDEX_ENTRY_LENGTH != size - 8) {
+                return null;
+            }
+            ByteBuffer entries = read(in, indexOffset + 4, count * INDEX_ENTRY_LENGTH);
+            Map<Long, long[]> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                index.put(entries.getLong(), new long[] { entries.getLong(), entries.getInt() });
+            }
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of tile cache");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns the coarsest level whose simplification is below the given resolution
+     *
+     * @param degreesPerPixel
+     *            the longitude degrees per pixel of the view
+     * @return the level to draw
+     */
+    public static int levelFor(double degreesPerPixel) {
+        for (int level = 0; level < MAX_LEVEL; level++) {
+            if (tolerance(level) <= degreesPerPixel) {
+                return level;
+            }
+        }
+        return MAX_LEVEL;
+    }
+
+    /**
+     * Returns the simplification tolerance in degrees of a level
+     */
+    static double tolerance(int level) {
+        return 360.0 / (1 << level) / TILE_PIXELS;
+    }
+
+    /**
+     * Returns the tiles of the given level that overlap the box and have content.
+     * <p>
+     * Where a full tile of a coarser level covers part of the box, the key of the coarser tile is returned.
+     *
+     * @return the tile keys
+     */
+    public Set<Long> tilesIn(int level, double minLat, double minLon, double maxLat, double maxLon) {
+        Set<Long> result = new LinkedHashSet<>();
+        if (minLon > maxLon) {
+            // The box crosses the date line
+            tilesIn(level, minLat, minLon, maxLat, 180, result);
+            tilesIn(level, minLat, -180, maxLat, maxLon, result);
+        } else {
+            tilesIn(level, minLat, minLon, maxLat, maxLon, result);
+        }
+        return result;
+    }
+
+    private void tilesIn(int level, double minLat, double minLon, double maxLat, double maxLon, Set<Long> result) {
+        int n = 1 << level;
+        int x0 = tileIndex(minLon + 180, 360.0 / n, n);
+        int x1 = tileIndex(maxLon + 180, 360.0 / n, n);
+        int y0 = tileIndex(minLat + 90, 180.0 / n, n);
+        int y1 = tileIndex(maxLat + 90, 180.0 / n, n);
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                long key = key(level, x, y);
+                if (index.containsKey(key)) {
+                    result.add(key);
+                    continue;
+                }
+                // The nearest indexed ancestor decides: a full ancestor covers the tile, any other means it is empty
+                for (int ancestor = level - 1; ancestor >= 0; ancestor--) {
+                    int shift = level - ancestor;
+                    long ancestorKey = key(ancestor, x >> shift, y >> shift);
+                    long[] entry = index.get(ancestorKey);
+                    if (entry != null) {
+                        if (entry[1] == 0) {
+                            result.add(ancestorKey);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int tileIndex(double value, double size, int n) {
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(value / size)));
+    }
+
+    /**
+     * Returns the rings of a tile as lat/lon pairs
+     *
+     * @param key
+     *            the tile key
+     * @return the rings, or an empty array if the tile has no content
+     */
+    public synchronized float[][] getTile(long key) throws IOException {
+        float[][] tile = tiles.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        long[] entry = index.get(key);
+        if (entry == null) {
+            tile = new float[0][];
+        } else if (entry[1] == 0) {
+            double[] b = bounds(key);
+            tile = new float[][] { { (float) b[0], (float) b[1], (float) b[0], (float) b[3], (float) b[2], (float) b[3],
+                    (float) b[2], (float) b[1] } };
+        } else {
+            ByteBuffer buffer = read(channel, entry[0], (int) entry[1]);
+            tile = new float[buffer.getInt()][];
+            for (int i = 0; i < tile.length; i++) {
+                float[] ring = new float[buffer.getInt() * 2];
+                buffer.asFloatBuffer().get(ring);
+                buffer.position(buffer.position() + ring.length * 4);
+                tile[i] = ring;
+            }
+        }
+
+        tiles.put(key, tile);
+        if (tiles.size() > MAX_CACHED_TILES) {
+            Iterator<Long> it = tiles.keySet().iterator();
+            it.next();
+            it.remove();
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the number of tiles in the cache file
+     */
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns the key of a tile
+     */
+    public static long key(int level, int x, int y) {
+        return (long) level << 48 | (long) x << 24 | y;
+    }
+
+    public static int level(long key) {
+        return (int) (key >>> 48);
+    }
+
+    static int tileX(long key) {
+        return (int) (key >>> 24) & 0xFFFFFF;
+    }
+
+    static int tileY(long key) {
+        return (int) key & 0xFFFFFF;
+    }
+
+    /**
+     * Returns the bounds of a tile
+     *
+     * @return {@code minLat, minLon, maxLat, maxLon}
+     */
+    public static double[] bounds(long key) {
+        int n = 1 << level(key);
+        double width = 360.0 / n;
+        double height = 180.0 / n;
+        double minLat = -90 + tileY(key) * height;
+        double minLon = -180 + tileX(key) * width;
+        return new double[] { minLat, minLon, minLat + height, minLon + width };
+    }
+
+    /**
+     * Returns if the edge between the two points runs along the border of the tile, i.e. was introduced by clipping
+     */
+    public static boolean onBorder(double[] bounds, float lat1, float lon1, float lat2, float lon2) {
+        return near(lat1, bounds[0]) && near(lat2, bounds[0]) || near(lat1, bounds[2]) && near(lat2, bounds[2])
+                || near(lon1, bounds[1]) && near(lon2, bounds[1]) || near(lon1, bounds[3]) && near(lon2, bounds[3]);
+    }
+
+    private static boolean near(float value, double border) {
+        return Math.abs(value - border) < BORDER_EPSILON;
+    }
+
+    /**
+     * Returns if the rings consist of a single ring covering the whole tile
+     */
+    static boolean isFull(List<float[]> rings, double[] bounds) {
+        if (rings.size() != 1) {
+            return false;
+        }
+        double tileArea = (bounds[2] - bounds[0]) * (bounds[3] - bounds[1]);
+        return Math.abs(area(rings.get(0))) >= tileArea * (1 - 1e-6);
+    }
+
+    private static double area(float[] ring) {
+        int n = ring.length / 2;
+        double sum = 0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            sum += (double) ring[2 * j + 1] * ring[2 * i] - (double) ring[2 * i + 1] * ring[2 * j];
+        }
+        return sum / 2;
+    }
+
+    /**
+     * Clips the rings to the bounds with the Sutherland-Hodgman algorithm. Rings inside the bounds are returned as is
+     */
+    static List<float[]> clip(List<float[]> rings, double[] bounds) {
+        List<float[]> result = new ArrayList<>();
+        for (float[] ring : rings) {
+            float minLat = Float.POSITIVE_INFINITY;
+            float minLon = Float.POSITIVE_INFINITY;
+            float maxLat = Float.NEGATIVE_INFINITY;
+            float maxLon = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < ring.length; i += 2) {
+                minLat = Math.min(minLat, ring[i]);
+                maxLat = Math.max(maxLat, ring[i]);
+                minLon = Math.min(minLon, ring[i + 1]);
+                maxLon = Math.max(maxLon, ring[i + 1]);
+            }
+            if (maxLat < bounds[0] || minLat > bounds[2] || maxLon < bounds[1] || minLon > bounds[3]) {
+                continue;
+            }
+            if (minLat >= bounds[0] && maxLat <= bounds[2] && minLon >= bounds[1] && maxLon <= bounds[3]) {
+                result.add(ring);
+                continue;
+            }
+            float[] clipped = ring;
+            for (int edge = 0; edge < 4 && clipped != null; edge++) {
+                clipped = clipEdge(clipped, edge, bounds);
+            }
+            if (clipped != null) {
+                result.add(clipped);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clips a ring against one side of the bounds: 0 = south, 1 = west, 2 = north, 3 = east
+     */
+    private static float[] clipEdge(float[] ring, int edge, double[] bounds) {
+        int coord = edge % 2 == 0 ? 0 : 1;
+        float limit = (float) bounds[edge];
+        boolean keepAbove = edge < 2;
+
+        int n = ring.length / 2;
+        float[] out = new float[ring.length + 8];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + n - 1) % n;
+            float cur = ring[2 * i + coord];
+            float prev = ring[2 * j + coord];
+            boolean curIn = keepAbove ? cur >= limit : cur <= limit;
+            boolean prevIn = keepAbove ? prev >= limit : prev <= limit;
+            if (curIn != prevIn) {
+                float t = (limit - prev) / (cur - prev);
+                float other = ring[2 * j + 1 - coord] + t * (ring[2 * i + 1 - coord] - ring[2 * j + 1 - coord]);
+                if (size + 2 > out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                out[size + coord] = limit;
+                out[size + 1 - coord] = other;
+                size += 2;
+            }
+            if (curIn) {
+                if (size + 2 > out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                out[size] = ring[2 * i];
+                out[size + 1] = ring[2 * i + 1];
+                size += 2;
+            }
+        }
+        return size >= 6 ? Arrays.copyOf(out, size) : null;
+    }
+
+    /**
+     * Simplifies a ring with the Douglas-Peucker algorithm
+     *
+     * @return the simplified ring, or null if it collapses below the tolerance
+     */
+    static float[] simplify(float[] ring, double tolerance) {
+        int n = ring.length / 2;
+        float minLat = Float.POSITIVE_INFINITY;
+        float minLon = Float.POSITIVE_INFINITY;
+        float maxLat = Float.NEGATIVE_INFINITY;
+        float maxLon = Float.NEGATIVE_INFINITY;
+        int far = 0;
+        double farDist = -1;
+        for (int i = 0; i < n; i++) {
+            float lat = ring[2 * i];
+            float lon = ring[2 * i + 1];
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+            double dLat = lat - ring[0];
+            double dLon = lon - ring[1];
+            double dist = dLat * dLat + dLon * dLon;
+            if (dist > farDist) {
+                farDist = dist;
+                far = i;
+            }
+        }
+        if (maxLat - minLat < tolerance && maxLon - minLon < tolerance) {
+            return null;
+        }
+
+        // Split the closed ring at the first point and the point farthest from it
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[far] = true;
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[] { 0, far });
+        stack.push(new int[] { far, n });
+        double tolerance2 = tolerance * tolerance;
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int a = range[0];
+            int b = range[1];
+            if (b - a < 2) {
+                continue;
+            }
+            int bi = b % n;
+            int max = -1;
+            double maxDist = tolerance2;
+            for (int i = a + 1; i < b; i++) {
+                double dist = distance2(ring, i, a, bi);
+                if (dist > maxDist) {
+                    maxDist = dist;
+                    max = i;
+                }
+            }
+            if (max >= 0) {
+                keep[max] = true;
+                stack.push(new int[] { a, max });
+                stack.push(new int[] { max, b });
+            }
+        }
+
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        if (count < 3) {
+            return null;
+        }
+        float[] result = new float[count * 2];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result[j++] = ring[2 * i];
+                result[j++] = ring[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the squared distance from point p to the segment a-b
+     */
+    private static double distance2(float[] ring, int p, int a, int b) {
+        double px = ring[2 * p + 1];
+        double py = ring[2 * p];
+        double ax = ring[2 * a + 1];
+        double ay = ring[2 * a];
+        double dx = ring[2 * b + 1] - ax;
+        double dy = ring[2 * b] - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / len2));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,135 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.background;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal reader of the polygons of an ESRI shapefile (.shp).
+ * <p>
+ * Only the polygon shape types (plain, Z and M) are read, which is all the GSHHS background files contain. Every part of a
+ * polygon is returned as a separate ring, without the closing point repeated. Attribute (.dbf) and index (.shx) files are not
+ * used.
+ */
+public final class ShapefileReader {
+
+    private static final int FILE_CODE = 9994;
+    private static final int HEADER_LENGTH = 100;
+
+    private static final int NULL_SHAPE = 0;
+    private static final int POLYGON = 5;
+    private static final int POLYGON_Z = 15;
+    private static final int POLYGON_M = 25;
+
+    private ShapefileReader() {
+    }
+
+    /**
+     * Reads the polygon rings of a shapefile
+     *
+     * @param in
+     *            the shapefile contents
+     * @return the rings as lat/lon pairs, i.e. {@code lat0, lon0, lat1, lon1, ...}
+     */
+    public static List<float[]> readRings(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+
+        byte[] header = new byte[HEADER_LENGTH];
+        data.readFully(header);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        if (headerBuffer.getInt(0) != FILE_CODE) {
+            throw new IOException("Not a shapefile");
+        }
+        int shapeType = headerBuffer.order(ByteOrder.LITTLE_ENDIAN).getInt(32);
+        if (!isPolygon(shapeType)) {
+            throw new IOException("Unsupported shape type " + shapeType);
+        }
+
+        List<float[]> rings = new ArrayList<>();
+        byte[] content = new byte[0];
+        while (true) {
+            // Record headers are big endian, record contents little endian
+            try {
+                data.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            int length = data.readInt() * 2;
+            if (content.length < length) {
+                content = new byte[length];
+            }
+            data.readFully(content, 0, length);
+            readRecord(ByteBuffer.wrap(content, 0, length).order(ByteOrder.LITTLE_ENDIAN), rings);
+        }
+        return rings;
+    }
+
+    private static void readRecord(ByteBuffer record, List<float[]> rings) throws IOException {
+        int type = record.getInt();
+        if (type == NULL_SHAPE) {
+            return;
+        }
+        if (!isPolygon(type)) {
+            throw new IOException("Unsupported shape type " + type);
+        }
+
+        // Skip the bounding box
+        record.position(record.position() + 32);
+        int numParts = record.getInt();
+        int numPoints = record.getInt();
+        int[] parts = new int[numParts + 1];
+        for (int i = 0; i < numParts; i++) {
+            parts[i] = record.getInt();
+        }
+        parts[numParts] = numPoints;
+
+        int pointsStart = record.position();
+        for (int part = 0; part < numParts; part++) {
+            int start = parts[part];
+            int count = parts[part + 1] - start;
+            if (count > 1 && samePoint(record, pointsStart, start, start + count - 1)) {
+                count--;
+            }
+            if (count < 3) {
+                continue;
+            }
+            float[] ring = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                int offset = pointsStart + (start + i) * 16;
+                ring[2 * i] = (float) record.getDouble(offset + 8);
+                ring[2 * i + 1] = (float) record.getDouble(offset);
+            }
+            rings.add(ring);
+        }
+    }
+
+    private static boolean samePoint(ByteBuffer record, int pointsStart, int i, int j) {
+        int offsetI = pointsStart + i * 16;
+        int offsetJ = pointsStart + j * 16;
+        return record.getDouble(offsetI) == record.getDouble(offsetJ)
+                && record.getDouble(offsetI + 8) == record.getDouble(offsetJ + 8);
+    }
+
+    private static boolean isPolygon(int type) {
+        return type == POLYGON || type == POLYGON_Z || type == POLYGON_M;
+    }
+}
@@ -0,0 +1,483 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.background;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bbn.openmap.layer.OMGraphicHandlerLayer;
+import com.bbn.openmap.omGraphics.OMGraphicList;
+import com.bbn.openmap.proj.Projection;
+import com.bbn.openmap.proj.coords.LatLonPoint;
+
+import dk.dma.epd.common.prototype.EPD;
+
+/**
+ * Background layer drawing shapefile polygons from a {@linkplain ShapeTiles} cache.
+ * <p>
+ * Reads the same properties as the OpenMap {@code MultiShapeLayer}: a {@code shapeFileList} and, per entry, a
+ * {@code shapeFile}, {@code lineColor} and {@code fillColor}. Entries are drawn so that the first one in the list ends up
+ * on top. The tile caches are built in the {@code .shapecache} folder of the home directory the first time the layer is
+ * shown.
+ * <p>
+ * Only the tiles overlapping the view are read and projected, at the level matching the current zoom. Projected tiles
+ * are kept in a bounded cache for as long as the projection only pans, in which case they are reused with a translation.
+ * <p>
+ * The tile caches are shared by all layers drawing the same shapefile, e.g. the map windows of EPDShore.
+ */
+public class TiledShapeLayer extends OMGraphicHandlerLayer {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(TiledShapeLayer.class);
+
+    private static final String CACHE_FOLDER = ".shapecache";
+    private static final int MAX_PROJECTED_TILES = 1024;
+
+    /** The approximate pixels per meter used by the openmap projections */
+    private static final double PIXELS_PER_METER = 3272;
+
+    /** The tile caches, shared by all layers and opened once per shapefile */
+    private static final ConcurrentHashMap<String, FutureTask<ShapeTiles>> SHARED_TILES = new ConcurrentHashMap<>();
+
+    private final List<ShapeSource> sources = new ArrayList<>();
+
+    // Projected tiles of the current frame, i.e. projections that only differ by a translation
+    private final LinkedHashMap<TileId, ProjectedTile> projectedTiles = new LinkedHashMap<>(64, 0.75f, true);
+    private Class<?> frameProjection;
+    private float frameScale;
+    private Point2D frameOrigin;
+    private Point2D frameCheck;
+
+    private volatile Frame frame;
+
+    @Override
+    public void setProperties(String prefix, Properties props) {
+        super.setProperties(prefix, props);
+        List<ShapeSource> parsed = parseSources(prefix, props);
+
+        synchronized (this) {
+            sources.clear();
+            sources.addAll(parsed);
+            projectedTiles.clear();
+            frameOrigin = null;
+        }
+    }
+
+    /**
+     * Parses the shapefile entries of the properties, in drawing order
+     */
+    private static List<ShapeSource> parseSources(String prefix, Properties props) {
+        String realPrefix = prefix == null || prefix.isEmpty() ? "" : prefix + ".";
+        List<ShapeSource> parsed = new ArrayList<>();
+        String list = props.getProperty(realPrefix + "shapeFileList");
+        if (list != null) {
+            for (String name : list.trim().split("\\s+")) {
+                String shapeFile = props.getProperty(realPrefix + name + ".shapeFile");
+                if (shapeFile == null) {
+                    continue;
+                }
+                parsed.add(new ShapeSource(name, shapeFile.trim(), parseColor(props.getProperty(realPrefix + name
+                        + ".lineColor")), parseColor(props.getProperty(realPrefix + name + ".fillColor"))));
+            }
+        }
+        // The first entry of the list is drawn on top
+        Collections.reverse(parsed);
+        return parsed;
+    }
+
+    /**
+     * Opens the tile caches of the shapefiles in the properties and reads the tiles covering the given box, so a layer
+     * showing that box can draw without waiting for the disk. May be called from any thread.
+     *
+     * @param prefix
+     *            the property prefix of the layer
+     * @param props
+     *            the layer properties
+     * @param degreesPerPixel
+     *            the longitude degrees per pixel the box will be shown at
+     */
+    public static void warmUp(String prefix, Properties props, double minLat, double minLon, double maxLat, double maxLon,
+            double degreesPerPixel) {
+        int level = ShapeTiles.levelFor(degreesPerPixel);
+        for (ShapeSource source : parseSources(prefix, props)) {
+            ShapeTiles tiles = source.getTiles();
+            if (tiles == null) {
+                continue;
+            }
+            try {
+                for (long key : tiles.tilesIn(level, minLat, minLon, maxLat, maxLon)) {
+                    tiles.getTile(key);
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to read background tiles of " + source.name, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the tiles covering a map of the given size, center and scale. May be called from any thread.
+     *
+     * @param prefix
+     *            the property prefix of the layer
+     * @param props
+     *            the layer properties
+     * @param center
+     *            the center of the map
+     * @param scale
+     *            the scale of the map
+     * @param size
+     *            the size of the map in pixels
+     */
+    public static void warmUp(String prefix, Properties props, LatLonPoint center, float scale, Dimension size) {
+        double degreesPerPixel = scale / PIXELS_PER_METER / 111320.0;
+        double halfWidth = size.getWidth() / 2 * degreesPerPixel;
+        double halfHeight = size.getHeight() / 2 * degreesPerPixel * Math.cos(Math.toRadians(center.getY()));
+        warmUp(prefix, props, Math.max(-90, center.getY() - halfHeight), center.getX() - halfWidth,
+                Math.min(90, center.getY() + halfHeight), center.getX() + halfWidth, degreesPerPixel);
+    }
+
+    /**
+     * Returns the shared tile cache of a shapefile, opening or building it if needed
+     */
+    private static ShapeTiles sharedTiles(final String shapeFile) throws IOException {
+        FutureTask<ShapeTiles> task = SHARED_TILES.get(shapeFile);
+        if (task == null) {
+            FutureTask<ShapeTiles> newTask = new FutureTask<>(new Callable<ShapeTiles>() {
+                @Override
+                public ShapeTiles call() throws IOException {
+                    return openTiles(shapeFile);
+                }
+            });
+            task = SHARED_TILES.putIfAbsent(shapeFile, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening " + shapeFile);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to open " + shapeFile, e.getCause());
+        }
+    }
+
+    private static ShapeTiles openTiles(String shapeFile) throws IOException {
+        URL url = TiledShapeLayer.class.getClassLoader().getResource(shapeFile);
+        if (url == null) {
+            Path path = Paths.get(shapeFile);
+            if (!Files.exists(path)) {
+                throw new IOException("Shape file not found: " + shapeFile);
+            }
+            url = path.toUri().toURL();
+        }
+        Path folder = EPD.getInstance().getHomePath().resolve(CACHE_FOLDER);
+        Files.createDirectories(folder);
+        String fileName = Paths.get(shapeFile).getFileName().toString().replaceFirst("\\.shp$", "");
+        long start = System.currentTimeMillis();
+        ShapeTiles tiles = ShapeTiles.open(url, folder.resolve(fileName + ".tiles"));
+        LOG.info("Opened background tiles of " + shapeFile + " (" + tiles.size() + " tiles) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return tiles;
+    }
+
+    /**
+     * Parses a hex RGB or ARGB color
+     */
+    private static Color parseColor(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String hex = value.trim();
+            long argb = Long.parseLong(hex, 16);
+            return hex.length() > 6 ? new Color((int) argb, true) : new Color((int) argb);
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid color in background properties: " + value);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized OMGraphicList prepare() {
+        Projection proj = getProjection();
+        if (proj == null) {
+            return new OMGraphicList();
+        }
+
+        Point2D upperLeft = proj.getUpperLeft();
+        Point2D lowerRight = proj.getLowerRight();
+        double lonSpan = lowerRight.getX() - upperLeft.getX();
+        if (lonSpan <= 0) {
+            lonSpan += 360;
+        }
+        int level = ShapeTiles.levelFor(lonSpan / Math.max(1, proj.getWidth()));
+        Point2D offset = updateFrame(proj);
+
+        List<FrameEntry> entries = new ArrayList<>(sources.size());
+        for (ShapeSource source : sources) {
+            ShapeTiles tiles = source.getTiles();
+            if (tiles == null) {
+                continue;
+            }
+            List<ProjectedTile> projected = new ArrayList<>();
+            for (long key : tiles.tilesIn(level, lowerRight.getY(), upperLeft.getX(), upperLeft.getY(), lowerRight.getX())) {
+                TileId id = new TileId(source, key);
+                ProjectedTile tile = projectedTiles.get(id);
+                if (tile == null) {
+                    try {
+                        tile = project(tiles.getTile(key), ShapeTiles.bounds(key), proj, offset);
+                    } catch (IOException e) {
+                        LOG.error("Failed to read background tile of " + source.name, e);
+                        continue;
+                    }
+                    projectedTiles.put(id, tile);
+                    if (projectedTiles.size() > MAX_PROJECTED_TILES) {
+                        Iterator<TileId> it = projectedTiles.keySet().iterator();
+                        it.next();
+                        it.remove();
+                    }
+                }
+                projected.add(tile);
+            }
+            entries.add(new FrameEntry(source, projected));
+        }
+
+        frame = new Frame(offset, entries);
+        return new OMGraphicList();
+    }
+
+    /**
+     * Checks if the projection is a translation of the one the cached tiles were projected with, and clears the cache if
+     * not
+     *
+     * @return the translation from the cached tiles to the projection
+     */
+    private Point2D updateFrame(Projection proj) {
+        Point2D origin = proj.forward(0, 0);
+        Point2D check = proj.forward(45, 45);
+        if (frameOrigin == null || proj.getClass() != frameProjection || proj.getScale() != frameScale
+                || Math.abs(check.getX() - frameCheck.getX() - (origin.getX() - frameOrigin.getX())) > 0.5
+                || Math.abs(check.getY() - frameCheck.getY() - (origin.getY() - frameOrigin.getY())) > 0.5) {
+            projectedTiles.clear();
+            frameProjection = proj.getClass();
+            frameScale = proj.getScale();
+            frameOrigin = origin;
+            frameCheck = check;
+        }
+        return new Point2D.Double(origin.getX() - frameOrigin.getX(), origin.getY() - frameOrigin.getY());
+    }
+
+    /**
+     * Projects the rings of a tile into frame coordinates. Outline edges along the tile border are left out
+     */
+    private static ProjectedTile project(float[][] rings, double[] bounds, Projection proj, Point2D offset) {
+        Path2D.Float fill = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+        Path2D.Float outline = new Path2D.Float();
+        double dx = offset.getX();
+        double dy = offset.getY();
+        for (float[] ring : rings) {
+            int n = ring.length / 2;
+            float[] xy = new float[ring.length];
+            for (int i = 0; i < n; i++) {
+                Point2D p = proj.forward(ring[2 * i], ring[2 * i + 1]);
+                xy[2 * i] = (float) (p.getX() - dx);
+                xy[2 * i + 1] = (float) (p.getY() - dy);
+            }
+
+            fill.moveTo(xy[0], xy[1]);
+            for (int i = 1; i < n; i++) {
+                fill.lineTo(xy[2 * i], xy[2 * i + 1]);
+            }
+            fill.closePath();
+
+            boolean penDown = false;
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                if (ShapeTiles.onBorder(bounds, ring[2 * i], ring[2 * i + 1], ring[2 * j], ring[2 * j + 1])) {
+                    penDown = false;
+                    continue;
+                }
+                if (!penDown) {
+                    outline.moveTo(xy[2 * i], xy[2 * i + 1]);
+                    penDown = true;
+                }
+                outline.lineTo(xy[2 * j], xy[2 * j + 1]);
+            }
+        }
+        return new ProjectedTile(fill, outline);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        Frame current = frame;
+        if (current == null) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.translate(current.offset.getX(), current.offset.getY());
+            for (FrameEntry entry : current.entries) {
+                if (entry.source.fillColor != null) {
+                    g2.setColor(entry.source.fillColor);
+                    for (ProjectedTile tile : entry.tiles) {
+                        g2.fill(tile.fill);
+                    }
+                }
+                if (entry.source.lineColor != null) {
+                    g2.setColor(entry.source.lineColor);
+                    for (ProjectedTile tile : entry.tiles) {
+                        g2.draw(tile.outline);
+                    }
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * A shapefile of the layer, with its tile cache opened on first use
+     */
+    private static final class ShapeSource {
+
+        final String name;
+        final String shapeFile;
+        final Color lineColor;
+        final Color fillColor;
+        private ShapeTiles tiles;
+        private boolean failed;
+
+        ShapeSource(String name, String shapeFile, Color lineColor, Color fillColor) {
+            this.name = name;
+            this.shapeFile = shapeFile;
+            this.lineColor = lineColor;
+            this.fillColor = fillColor;
+        }
+
+        /**
+         * Returns the tiles, opening or building the shared tile cache if needed. Called from the prepare thread only
+         */
+        ShapeTiles getTiles() {
+            if (tiles != null || failed) {
+                return tiles;
+            }
+            try {
+                tiles = sharedTiles(shapeFile);
+            } catch (IOException e) {
+                LOG.error("Failed to load background " + name, e);
+                failed = true;
+            }
+            return tiles;
+        }
+    }
+
+    /**
+     * A tile of a shapefile
+     */
+    private static final class TileId {
+
+        final ShapeSource source;
+        final long key;
+
+        TileId(ShapeSource source, long key) {
+            this.source = source;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileId)) {
+                return false;
+            }
+            TileId other = (TileId) obj;
+            return source == other.source && key == other.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + (int) (key ^ (key >>> 32));
+        }
+    }
+
+    /**
+     * A tile projected into frame coordinates
+     */
+    private static final class ProjectedTile {
+
+        final Path2D fill;
+        final Path2D outline;
+
+        ProjectedTile(Path2D fill, Path2D outline) {
+            this.fill = fill;
+            this.outline = outline;
+        }
+    }
+
+    /**
+     * The projected tiles of one shapefile
+     */
+    private static final class FrameEntry {
+
+        final ShapeSource source;
+        final List<ProjectedTile> tiles;
+
+        FrameEntry(ShapeSource source, List<ProjectedTile> tiles) {
+            this.source = source;
+            this.tiles = tiles;
+        }
+    }
+
+    /**
+     * What to paint for the current projection
+     */
+    private static final class Frame {
+
+        final Point2D offset;
+        final List<FrameEntry> entries;
+
+        Frame(Point2D offset, List<FrameEntry> entries) {
+            this.offset = offset;
+            this.entries = entries;
+        }
+    }
+}
@@ -66,6 +66,20 @@ public class IntendedRouteGraphic extends OMGraphicList {
     private List<WpCircle> routeWps = new ArrayList<>();
     private ActiveIntendedRouteWpCircle activeWpCircle;
 
+    // The route data the leg and way point graphics were built from
+    private IntendedRoute renderedRoute;
+    private int renderedActiveWpIndex = -1;
+    private int renderedWpCount = -1;
+
+    // The opacity the colors were last set with, or -1 if faded out
+    private int renderedAlpha = Integer.MIN_VALUE;
+
+    // Bounding box of the route and the vessel position
+    private double minLat = Double.POSITIVE_INFINITY;
+    private double minLon = Double.POSITIVE_INFINITY;
+    private double maxLat = Double.NEGATIVE_INFINITY;
+    private double maxLon = Double.NEGATIVE_INFINITY;
+
     // private PlannedPositionGraphic plannedPositionArea = new
     // PlannedPositionGraphic();
 
@@ -191,29 +205,37 @@ public class IntendedRouteGraphic extends OMGraphicList {
     }
 
     /**
-     * Called when the vessel target has been updated
+     * Called when the vessel target has been updated. Only the leg from the vessel to the active way point is updated
      * 
      * @param vesselPos
      *            the vessel position
+     * @return if the graphics changed
      */
-    public synchronized void updateVesselPosition(Position vesselPos) {
-
-        if ((vesselPos == null && this.vesselPos != null) || !vesselPos.equals(this.vesselPos)) {
-            this.vesselPos = vesselPos;
-            renderIntendedRoute();
+    public synchronized boolean updateVesselPosition(Position vesselPos) {
+        if (vesselPos == null ? this.vesselPos == null : vesselPos.equals(this.vesselPos)) {
+            return false;
         }
-        if (!this.isVisible()) {
-            // plannedPositionArea.setVisible(false);
-        } else {
-            // plannedPositionArea.setVisible(true);
+        this.vesselPos = vesselPos;
+        if (intendedRoute == null || !intendedRoute.hasRoute()) {
+            return false;
         }
+        updateActiveWpLine();
+        updateBounds();
+        return true;
     }
 
     /**
-     * Called when the graphics should be updated with the current intended route
+     * Called periodically to fade the graphics with the age of the intended route.
+     * <p>
+     * The leg and way point geometry is left untouched, and the colors are only updated when the opacity has changed.
+     * 
+     * @return if the graphics changed
      */
-    public synchronized void updateIntendedRoute() {
-        updateIntendedRoute(intendedRoute);
+    public synchronized boolean updateIntendedRoute() {
+        if (intendedRoute == null || !intendedRoute.hasRoute()) {
+            return false;
+        }
+        return updateAge(false);
 
         // Update planned position
         // plannedPositionArea.moveSymbol(intendedRoute.getPlannedPosition(),
@@ -221,20 +243,57 @@ public class IntendedRouteGraphic extends OMGraphicList {
     }
 
     /**
-     * Called when the intended route has been updated
+     * Called when the intended route has been updated. The graphics are only rebuilt if the route has changed
      * 
      * @param intendedRoute
      *            the intended route data
+     * @return if the graphics changed
      */
-    public synchronized void updateIntendedRoute(IntendedRoute intendedRoute) {
+    public synchronized boolean updateIntendedRoute(IntendedRoute intendedRoute) {
 
         if (this.name == null) {
             this.name = "ID:" + intendedRoute.getMmsi();
         }
 
         this.intendedRoute = intendedRoute;
-        // Always re-paint, since color may change over time
+        if (intendedRoute == renderedRoute && intendedRoute.getReceived() != null
+                && intendedRoute.getActiveWpIndex() == renderedActiveWpIndex
+                && intendedRoute.getWaypoints().size() == renderedWpCount) {
+            return intendedRoute.hasRoute() && updateAge(false);
+        }
         renderIntendedRoute();
+        return true;
+    }
+
+    /**
+     * Returns if the route or the vessel position lies within the given box
+     * 
+     * @return if the graphic overlaps the box
+     */
+    public synchronized boolean intersects(double minLat, double minLon, double maxLat, double maxLon) {
+        return this.maxLat >= minLat && this.minLat <= maxLat && this.maxLon >= minLon && this.minLon <= maxLon;
+    }
+
+    private void updateBounds() {
+        minLat = Double.POSITIVE_INFINITY;
+        minLon = Double.POSITIVE_INFINITY;
+        maxLat = Double.NEGATIVE_INFINITY;
+        maxLon = Double.NEGATIVE_INFINITY;
+        if (intendedRoute != null) {
+            for (RouteWaypoint wp : intendedRoute.getWaypoints()) {
+                extendBounds(wp.getPos());
+            }
+        }
+        extendBounds(vesselPos);
+    }
+
+    private void extendBounds(Position pos) {
+        if (pos != null) {
+            minLat = Math.min(minLat, pos.getLatitude());
+            maxLat = Math.max(maxLat, pos.getLatitude());
+            minLon = Math.min(minLon, pos.getLongitude());
+            maxLon = Math.max(maxLon, pos.getLongitude());
+        }
     }
 
     private void updateGraphics() {
@@ -310,18 +369,38 @@ public class IntendedRouteGraphic extends OMGraphicList {
             routeLegs.remove(routeLegs.size() - 1);
         }
 
-        // Adjust the transparency of the color depending on the last-received
-        // time for the route
+        updateAge(true);
+    }
+
+    /**
+     * Adjusts the transparency of the color depending on the last-received time for the route
+     * 
+     * @param force
+     *            whether to update the colors even if the opacity is unchanged
+     * @return if the graphics changed
+     */
+    private boolean updateAge(boolean force) {
         long secondsSinceReceived = (PntTime.getDate().getTime() - intendedRoute.getReceived().getTime()) / 1000L;
 
         if (secondsSinceReceived < TTL) {
             float factor = 1.0f - (float) secondsSinceReceived / (float) TTL;
+            int alpha = (int) Math.max(Math.min(255.0 * factor, 255.0), 0.0);
+            boolean visible = intendedRoute.isVisible();
+            if (!force && alpha == renderedAlpha && visible == isVisible()) {
+                return false;
+            }
             Color color = adjustColor(routeColor, factor, factor);
             updateColor(color);
-            setVisible(intendedRoute.isVisible());
+            setVisible(visible);
+            renderedAlpha = alpha;
         } else {
+            if (!force && renderedAlpha == -1) {
+                return false;
+            }
             setVisible(false);
+            renderedAlpha = -1;
         }
+        return true;
     }
 
     /**
@@ -329,7 +408,12 @@ public class IntendedRouteGraphic extends OMGraphicList {
      */
     private void renderIntendedRoute() {
 
+        renderedRoute = intendedRoute;
+        renderedActiveWpIndex = intendedRoute.getActiveWpIndex();
+        renderedWpCount = intendedRoute.getWaypoints().size();
+
         updateGraphics();
+        updateBounds();
 
         // Handle empty route
         if (intendedRoute == null || !intendedRoute.hasRoute()) {
@@ -347,6 +431,13 @@ public class IntendedRouteGraphic extends OMGraphicList {
             return;
         }
 
+        updateActiveWpLine();
+    }
+
+    /**
+     * Updates the leg from the vessel position to the active way point
+     */
+    private void updateActiveWpLine() {
         // Update leg to first way point
         if (vesselPos != null) {
 
@@ -17,12 +17,20 @@ package dk.dma.epd.common.prototype.layers.intendedroute;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.bbn.openmap.event.ProjectionEvent;
 import com.bbn.openmap.event.ProjectionListener;
 import com.bbn.openmap.omGraphics.OMCircle;
 import com.bbn.openmap.omGraphics.OMGraphic;
+import com.bbn.openmap.omGraphics.OMGraphicList;
+import com.bbn.openmap.proj.Projection;
 
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
@@ -53,6 +61,10 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
      */
     protected ConcurrentHashMap<Long, IntendedRouteGraphic> intendedRoutes = new ConcurrentHashMap<>();
 
+    /** The intended route graphics currently added to the graphics. Guarded by the graphics lock */
+    private final Set<IntendedRouteGraphic> shownRoutes = Collections
+            .newSetFromMap(new IdentityHashMap<IntendedRouteGraphic, Boolean>());
+
     protected IntendedRouteInfoPanel intendedRouteInfoPanel = new IntendedRouteInfoPanel();
 
     protected ChartPanelCommon chartPanel;
@@ -65,6 +77,9 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
     private boolean useFilter;
     private AisLayerCommon<?> aisLayer;
 
+    /** Set while a repaint is pending on the timer, so bursts of updates only cause a single repaint */
+    private final AtomicBoolean repaintScheduled = new AtomicBoolean();
+
     /**
      * Constructor
      */
@@ -113,20 +128,32 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
             }
 
             // Update the graphics
-            intendedRouteGraphic.updateVesselPosition(vessel.getPositionData().getPos());
-            doPrepare();
-
+            if (intendedRouteGraphic.updateVesselPosition(vessel.getPositionData().getPos())) {
+                scheduleRepaint();
+            }
         }
     }
 
     private void removeIntendedRoute(IntendedRouteGraphic intendedRouteGraphics, long mmsi) {
         synchronized (graphics) {
-            graphics.remove(intendedRouteGraphics);
+            if (shownRoutes.remove(intendedRouteGraphics)) {
+                graphics.remove(intendedRouteGraphics);
+            }
         }
         intendedRoutes.remove(mmsi);
 
         // Cause imminent repaint
-        restartTimer();
+        scheduleRepaint();
+    }
+
+    /**
+     * Schedules a repaint on the timer, unless one is already pending. Unlike restarting the timer for every update, a
+     * steady stream of updates cannot postpone the repaint indefinitely
+     */
+    protected void scheduleRepaint() {
+        if (repaintScheduled.compareAndSet(false, true)) {
+            restartTimer();
+        }
     }
 
     /**
@@ -163,11 +190,10 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
                     if (useFilter && intendedRouteHandler.getFilteredIntendedRoutes().containsKey(intendedRoute.getMmsi())
                             || !useFilter) {
 
-                        // Update the graphics
-                        intendedRouteGraphic.updateIntendedRoute(intendedRoute);
-
-                        // Cause imminent repaint
-                        restartTimer();
+                        // Update the graphics, and cause imminent repaint if they changed
+                        if (intendedRouteGraphic.updateIntendedRoute(intendedRoute)) {
+                            scheduleRepaint();
+                        }
 
                     } else {
                         removeIntendedRoute(intendedRouteGraphic, intendedRoute.getMmsi());
@@ -182,21 +208,18 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
 
                     IntendedRouteGraphic intendedRouteGraphic = new IntendedRouteGraphic();
 
-                    // add the new intended route graphic to the set of managed
-                    // intended route graphics
-                    intendedRoutes.put(intendedRoute.getMmsi(), intendedRouteGraphic);
-                    synchronized (graphics) {
-                        graphics.add(intendedRouteGraphic);
-                    }
-
                     // Update the graphics
                     intendedRouteGraphic.updateIntendedRoute(intendedRoute);
                     intendedRouteGraphic.showArrowHeads(showArrowHeads());
 
                     intendedRouteGraphic.setVisible(intendedRoute.isVisible());
 
+                    // add the new intended route graphic to the set of managed
+                    // intended route graphics. It is added to the graphics by prepare() once in view
+                    intendedRoutes.put(intendedRoute.getMmsi(), intendedRouteGraphic);
+
                     // Cause imminent repaint
-                    restartTimer();
+                    scheduleRepaint();
 
                 }
 
@@ -206,15 +229,81 @@ public class IntendedRouteLayerCommon extends EPDLayerCommon implements IAisTarg
     }
 
     /**
-     * Called periodically by the timer
+     * Called periodically by the timer, and shortly after updates have been scheduled for repaint.
+     * <p>
+     * Only the routes within the view are faded with their age. The others are faded once they come into view.
      */
     @Override
     protected void timerAction() {
-        for (IntendedRouteGraphic intendedRouteGraphic : intendedRoutes.values()) {
-            intendedRouteGraphic.updateIntendedRoute();
+        boolean changed = repaintScheduled.getAndSet(false);
+        synchronized (graphics) {
+            for (OMGraphic graphic : graphics) {
+                if (graphic instanceof IntendedRouteGraphic) {
+                    changed |= ((IntendedRouteGraphic) graphic).updateIntendedRoute();
+                }
+            }
         }
+        if (changed) {
+            doPrepare();
+        }
+    }
 
-        doPrepare();
+    /**
+     * Only keeps the intended routes overlapping the view in the graphics, so that routes outside the view are neither
+     * projected nor rendered
+     */
+    @Override
+    public synchronized OMGraphicList prepare() {
+        Projection projection = getProjection();
+        if (projection != null) {
+            Point2D upperLeft = projection.getUpperLeft();
+            Point2D lowerRight = projection.getLowerRight();
+            double minLon = upperLeft.getX();
+            double maxLon = lowerRight.getX();
+            if (minLon > maxLon) {
+                // The view crosses the date line
+                minLon = -180;
+                maxLon = 180;
+            }
+            synchronized (graphics) {
+                Set<IntendedRouteGraphic> leftView = Collections
+                        .newSetFromMap(new IdentityHashMap<IntendedRouteGraphic, Boolean>());
+                for (IntendedRouteGraphic intendedRouteGraphic : intendedRoutes.values()) {
+                    boolean inView = intendedRouteGraphic.intersects(lowerRight.getY(), minLon, upperLeft.getY(), maxLon);
+                    boolean shown = shownRoutes.contains(intendedRouteGraphic);
+                    if (inView && !shown) {
+                        intendedRouteGraphic.updateIntendedRoute();
+                        graphics.add(intendedRouteGraphic);
+                        shownRoutes.add(intendedRouteGraphic);
+                    } else if (!inView && shown) {
+                        leftView.add(intendedRouteGraphic);
+                        shownRoutes.remove(intendedRouteGraphic);
+                    }
+                }
+                removeGraphics(leftView);
+            }
+        }
+        return super.prepare();
+    }
+
+    /**
+     * Removes the given graphics in a single pass over the graphics, rather than a linear search for each of them. Must be
+     * called with the graphics lock held
+     */
+    private void removeGraphics(Set<? extends OMGraphic> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        List<OMGraphic> kept = new ArrayList<>(graphics.size());
+        for (OMGraphic graphic : graphics) {
+            if (!removed.contains(graphic)) {
+                kept.add(graphic);
+            }
+        }
+        graphics.clear();
+        for (OMGraphic graphic : kept) {
+            graphics.add(graphic);
+        }
     }
 
     /**
@@ -148,6 +148,13 @@ public class MsiNmDirectionalIcon extends OMGraphicList implements ProjectionLis
         super.render(image);
     }
     
+    /**
+     * Stops following the projection of the map once the icon is no longer shown
+     */
+    public void detach() {
+        mapBean.removeProjectionListener(this);
+    }
+
     public MsiNmNotification getMessage() {
         return message;
     }
@@ -22,12 +22,20 @@ import dk.dma.epd.common.prototype.layers.EPDLayerCommon;
 import dk.dma.epd.common.prototype.notification.MsiNmNotification;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
 import dk.dma.epd.common.prototype.service.MsiNmServiceHandlerCommon;
+import dk.dma.epd.common.util.TimeUtils;
+import dma.msinm.MCMessage;
 import dma.msinm.MCMsiNmService;
+import dma.msinm.MCStatus;
 
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static dk.dma.epd.common.prototype.service.MsiNmServiceHandlerCommon.IMsiNmServiceListener;
 
@@ -40,6 +48,12 @@ public abstract class MsiNmLayerCommon extends EPDLayerCommon  implements IMsiNm
 
     protected MsiNmServiceHandlerCommon msiNmHandler;
     private MsiNmInfoPanel msiNmInfoPanel = new MsiNmInfoPanel();
+
+    /** Graphics of the messages with a location, keyed by message id. Guarded by graphics */
+    private final Map<Integer, MessageGraphics> entries = new HashMap<>();
+
+    /** The days messages become valid and the times they expire. Guarded by graphics */
+    private final ValiditySchedule<MessageGraphics> schedule = new ValiditySchedule<>();
     
     /**
      * Constructor
@@ -49,42 +63,111 @@ public abstract class MsiNmLayerCommon extends EPDLayerCommon  implements IMsiNm
         
         // Register the info panels
         registerInfoPanel(msiNmInfoPanel, MsiNmNmSymbolGraphic.class, MsiNmDirectionalIcon.class);
+
+        // Check for messages becoming valid or expiring
+        startTimer(60 * 1000, 60 * 1000);
     }
     
     /**
-     * Generate the graphics based on the current list of MSI messages
+     * Applies the changes in the current list of MSI messages to the graphics.
+     * <p>
+     * Graphics are kept per message id and only created, replaced or removed for the messages that were added, updated or
+     * removed, or whose filter state changed. Messages that are not yet valid are queued by the day they become valid, and
+     * messages with an end of validity by the time they expire. Cancelled and expired messages are not shown.
      */
     public void doUpdate() {
-        graphics.clear();
-        Date now = PntTime.getDate();
+        long now = now();
+        long today = today(now);
         boolean showFiltered = EPD.getInstance().getSettings().getEnavSettings().isMsiFilter();
+        List<MsiNmNotification> messages = msiNmHandler.getMsiNmMessages(showFiltered);
 
-        // Get messages
-        for (MsiNmNotification message : msiNmHandler.getMsiNmMessages(showFiltered)) {
-            
-            // Not able to show messages without location
-            if (message.getLocation() == null) {
-                continue;
+        boolean changed = false;
+        synchronized (graphics) {
+            Set<Integer> ids = new HashSet<>(messages.size() * 2);
+            for (MsiNmNotification message : messages) {
+
+                // Not able to show messages without location
+                if (message.getLocation() == null) {
+                    continue;
+                }
+                ids.add(message.getId());
+
+                // Updated messages are new instances
+                MessageGraphics entry = entries.get(message.getId());
+                if (entry != null && entry.message != message) {
+                    changed |= entry.remove();
+                    entry = null;
+                }
+                if (entry == null) {
+                    entry = new MessageGraphics(message);
+                    entries.put(message.getId(), entry);
+                    schedule.add(entry, entry.validFrom, entry.validTo, today, now);
+                }
+
+                // Is it valid now
+                if (ValiditySchedule.isValid(entry.validFrom, entry.validTo, today, now)) {
+                    changed |= entry.show();
+                } else {
+                    changed |= entry.hide();
+                }
             }
 
-            // Is it valid now
-            if (!message.isValidAtDate(now)) {
-                continue;
+            // Removed messages
+            for (Iterator<MessageGraphics> it = entries.values().iterator(); it.hasNext();) {
+                MessageGraphics entry = it.next();
+                if (!ids.contains(entry.message.getId())) {
+                    changed |= entry.remove();
+                    it.remove();
+                }
             }
-            
-            // Create MSI graphic
-            MsiNmGraphic msiNmGraphic = new MsiNmGraphic(message);
-            graphics.add(msiNmGraphic);
-            
-            if(mapBean != null && message.isFiltered()){
-                MsiNmDirectionalIcon direction = new MsiNmDirectionalIcon(mapBean);
-                direction.setMarker(message);
-                graphics.add(direction);
+        }
+
+        if (changed) {
+            doPrepare();
+        }
+    }
+
+    /**
+     * Returns the current time, or {@code Long.MIN_VALUE} if the time is unknown
+     */
+    private static long now() {
+        Date now = PntTime.getDate();
+        return now != null ? now.getTime() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the start of the day of the given time
+     */
+    private static long today(long now) {
+        return now != Long.MIN_VALUE ? TimeUtils.resetTime(new Date(now)).getTime() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Shows the queued messages that have become valid, and hides those that have expired
+     */
+    @Override
+    protected void timerAction() {
+        long now = now();
+        long today = today(now);
+        boolean changed = false;
+        synchronized (graphics) {
+            for (MessageGraphics entry : schedule.pollStarted(today)) {
+                if (entries.get(entry.message.getId()) == entry
+                        && ValiditySchedule.isValid(entry.validFrom, entry.validTo, today, now)) {
+                    changed |= entry.show();
+                }
+            }
+            for (MessageGraphics entry : schedule.pollExpired(now)) {
+                if (entries.get(entry.message.getId()) == entry) {
+                    changed |= entry.hide();
+                }
             }
         }
-        doPrepare();
+        if (changed) {
+            doPrepare();
+        }
     }
-    
+
     /**
      * {@inheritDoc}
      */
@@ -142,4 +225,92 @@ public abstract class MsiNmLayerCommon extends EPDLayerCommon  implements IMsiNm
             doUpdate();
         }
     }
+
+    /**
+     * The graphics of a single message
+     */
+    private final class MessageGraphics {
+
+        final MsiNmNotification message;
+        final long validFrom;
+        final long validTo;
+        MsiNmGraphic graphic;
+        MsiNmDirectionalIcon direction;
+        boolean removed;
+
+        MessageGraphics(MsiNmNotification message) {
+            this.message = message;
+            MCMessage msg = message.get();
+            // Same rule as MsiNmNotification.isValidAtDate(), evaluated once
+            Date from = msg.getValidFrom() != null ? new Date(msg.getValidFrom().getTime()) : null;
+            this.validFrom = from != null ? TimeUtils.resetTime(from).getTime() : ValiditySchedule.UNBOUNDED;
+            MCStatus status = msg.getStatus();
+            if (status == MCStatus.CANCELLED || status == MCStatus.EXPIRED || status == MCStatus.DELETED) {
+                this.validTo = Long.MIN_VALUE;
+            } else {
+                this.validTo = msg.getValidTo() != null ? msg.getValidTo().getTime() : ValiditySchedule.UNBOUNDED;
+            }
+        }
+
+        /**
+         * Adds the graphics for the current filter state of the message
+         * 
+         * @return if the graphics changed
+         */
+        boolean show() {
+            if (removed) {
+                return false;
+            }
+            boolean changed = false;
+            if (graphic == null) {
+                graphic = new MsiNmGraphic(message);
+                graphics.add(graphic);
+                changed = true;
+            }
+            boolean showDirection = mapBean != null && message.isFiltered();
+            if (showDirection && direction == null) {
+                direction = new MsiNmDirectionalIcon(mapBean);
+                direction.setMarker(message);
+                graphics.add(direction);
+                changed = true;
+            } else if (!showDirection && direction != null) {
+                removeDirection();
+                changed = true;
+            }
+            return changed;
+        }
+
+        /**
+         * Removes the graphics of a message that is no longer valid
+         * 
+         * @return if the graphics changed
+         */
+        boolean hide() {
+            boolean changed = graphic != null || direction != null;
+            if (graphic != null) {
+                graphics.remove(graphic);
+                graphic = null;
+            }
+            if (direction != null) {
+                removeDirection();
+            }
+            return changed;
+        }
+
+        /**
+         * Removes the graphics of a message that was removed or replaced by an update
+         * 
+         * @return if the graphics changed
+         */
+        boolean remove() {
+            removed = true;
+            return hide();
+        }
+
+        private void removeDirection() {
+            graphics.remove(direction);
+            direction.detach();
+            direction = null;
+        }
+    }
 }
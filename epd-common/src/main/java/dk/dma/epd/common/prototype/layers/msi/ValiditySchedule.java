@@ -0,0 +1,142 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.msi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Schedule of the items that become valid at the start of a day, and of the items that expire at a given time.
+ * <p>
+ * Each item is queued once when added, so a timer only has to look at the heads of the queues to find the items whose
+ * validity changed, instead of checking every item.
+ * 
+ * @param <T>
+ *            the type of the items
+ */
+@NotThreadSafe
+final class ValiditySchedule<T> {
+
+    /** Time used for an unknown start or end of the validity period */
+    static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final PriorityQueue<Entry<T>> starting = new PriorityQueue<>();
+    private final PriorityQueue<Entry<T>> expiring = new PriorityQueue<>();
+
+    /**
+     * Returns if an item is valid
+     * 
+     * @param validFromDay
+     *            the start of the day the item becomes valid, or {@link #UNBOUNDED} if it never does
+     * @param validTo
+     *            the time the item expires, or {@link #UNBOUNDED} if it does not expire
+     * @param today
+     *            the start of the current day
+     * @param now
+     *            the current time
+     * @return if the item is valid
+     */
+    static boolean isValid(long validFromDay, long validTo, long today, long now) {
+        return validFromDay <= today && now < validTo;
+    }
+
+    /**
+     * Queues the future start and end of the validity of an item
+     * 
+     * @param item
+     *            the item
+     * @param validFromDay
+     *            the start of the day the item becomes valid, or {@link #UNBOUNDED} if it never does
+     * @param validTo
+     *            the time the item expires, or {@link #UNBOUNDED} if it does not expire
+     * @param today
+     *            the start of the current day
+     * @param now
+     *            the current time
+     */
+    void add(T item, long validFromDay, long validTo, long today, long now) {
+        if (validTo <= now || validFromDay == UNBOUNDED) {
+            return;
+        }
+        if (validFromDay > today && validFromDay < validTo) {
+            starting.add(new Entry<>(item, validFromDay));
+        }
+        if (validTo != UNBOUNDED) {
+            expiring.add(new Entry<>(item, validTo));
+        }
+    }
+
+    /**
+     * Removes and returns the items that have become valid by the given day, in the order they became valid
+     * 
+     * @param today
+     *            the start of the current day
+     * @return the items
+     */
+    List<T> pollStarted(long today) {
+        return poll(starting, today);
+    }
+
+    /**
+     * Removes and returns the items that have expired by the given time, in the order they expired
+     * 
+     * @param now
+     *            the current time
+     * @return the items
+     */
+    List<T> pollExpired(long now) {
+        return poll(expiring, now);
+    }
+
+    /**
+     * Returns the number of queued starts and ends
+     * 
+     * @return the number of queued starts and ends
+     */
+    int size() {
+        return starting.size() + expiring.size();
+    }
+
+    private static <T> List<T> poll(PriorityQueue<Entry<T>> queue, long time) {
+        if (queue.isEmpty() || queue.peek().time > time) {
+            return Collections.emptyList();
+        }
+        List<T> items = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().time <= time) {
+            items.add(queue.poll().item);
+        }
+        return items;
+    }
+
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+
+        final T item;
+        final long time;
+
+        Entry(T item, long time) {
+            this.item = item;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
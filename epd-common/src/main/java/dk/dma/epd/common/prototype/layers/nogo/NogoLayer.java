@@ -14,18 +14,26 @@
  */
 package dk.dma.epd.common.prototype.layers.nogo;
 
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.bbn.openmap.omGraphics.OMGraphicList;
+import com.bbn.openmap.proj.Projection;
 
 import dk.dma.enav.model.geometry.Position;
 import dk.dma.epd.common.prototype.layers.EPDLayerCommon;
 import dk.dma.epd.common.prototype.nogo.NoGoDataEntry;
+import dk.dma.epd.common.util.PolygonIndex;
 import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
 
 /**
  * No-go layer
+ * <p>
+ * Only the polygons of the selected result that overlap the current view are added to the graphics. The polygons are looked
+ * up in the spatial index of the result, and the graphics are kept while the result is selected.
  */
 public class NogoLayer extends EPDLayerCommon {
 
@@ -33,10 +41,14 @@ public class NogoLayer extends EPDLayerCommon {
 
     // private NogoHandler nogoHandler;
 
-    List<OMGraphicList> multipleNoGo = new ArrayList<OMGraphicList>();
+    List<NoGoDataEntry> multipleNoGo = new ArrayList<NoGoDataEntry>();
 
     int currentSelected;
 
+    private NoGoDataEntry selectedResult;
+    private final OMGraphicList nogoGraphics = new OMGraphicList();
+    private final Map<NogoPolygon, NogoGraphic> nogoGraphicCache = new IdentityHashMap<>();
+
     /**
      * Constructor
      */
@@ -44,9 +56,10 @@ public class NogoLayer extends EPDLayerCommon {
         super();
     }
 
-    public void initializeNoGoStorage(int count) {
+    public synchronized void initializeNoGoStorage(int count) {
         // System.out.println("Initialize storage");
         cleanUp();
+        currentSelected = 0;
         for (int i = 0; i < count; i++) {
             multipleNoGo.add(null);
         }
@@ -58,25 +71,32 @@ public class NogoLayer extends EPDLayerCommon {
      * @param dataEntry
      * @param id
      */
-    public void addResultFromMultipleRequest(NoGoDataEntry dataEntry, int id) {
+    public synchronized void addResultFromMultipleRequest(NoGoDataEntry dataEntry, int id) {
 
         // System.out.println("Adding result from multiple at id " + id);
 
-        multipleNoGo.add(id, createNoGoGraphics(dataEntry));
+        if (id < multipleNoGo.size()) {
+            multipleNoGo.set(id, dataEntry);
+        } else {
+            multipleNoGo.add(dataEntry);
+        }
 
-        if (id == 0) {
-            drawSpecificResult(0);
+        // Slices may arrive in any order, so draw the one that is selected when it arrives
+        if (id == currentSelected) {
+            drawSpecificResult(id);
         }
     }
 
-    public void drawSpecificResult(int id) {
+    public synchronized void drawSpecificResult(int id) {
         // System.out.println("Drawing " + id);
         if (multipleNoGo.size() >= id + 1) {
-            graphics.remove(multipleNoGo.get(currentSelected));
+            graphics.remove(nogoGraphics);
+            selectResult(null);
+            currentSelected = id;
 
             if (multipleNoGo.get(id) != null) {
-                graphics.add(multipleNoGo.get(id));
-                currentSelected = id;
+                selectResult(multipleNoGo.get(id));
+                graphics.add(nogoGraphics);
             } else {
 //                System.out.println("Value is null");
             }
@@ -86,22 +106,58 @@ public class NogoLayer extends EPDLayerCommon {
 
     }
 
-    private OMGraphicList createNoGoGraphics(NoGoDataEntry dataEntry) {
-        OMGraphicList nogoPolygon = new OMGraphicList();
-        List<NogoPolygon> polygons = dataEntry.getNogoPolygons();
-        for (NogoPolygon polygon : polygons) {
-            NogoGraphic nogoGraphic = new NogoGraphic(polygon);
-            nogoPolygon.add(nogoGraphic);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized OMGraphicList prepare() {
+        updateVisibleGraphics(getProjection());
+        return super.prepare();
+    }
+
+    private void selectResult(NoGoDataEntry dataEntry) {
+        selectedResult = dataEntry;
+        nogoGraphicCache.clear();
+        nogoGraphics.clear();
+    }
+
+    /**
+     * Fills the no-go graphics with the polygons of the selected result that overlap the view
+     */
+    private void updateVisibleGraphics(Projection projection) {
+        if (selectedResult == null || projection == null) {
+            return;
+        }
+        PolygonIndex<NogoPolygon> index = selectedResult.getNogoIndex();
+        if (index == null) {
+            return;
         }
 
-        return nogoPolygon;
+        Point2D ul = projection.getUpperLeft();
+        Point2D lr = projection.getLowerRight();
+        List<NogoPolygon> visible;
+        if (ul.getX() <= lr.getX()) {
+            visible = index.query(lr.getY(), ul.getX(), ul.getY(), lr.getX());
+        } else {
+            // The view crosses the date line
+            visible = selectedResult.getNogoPolygons();
+        }
+
+        nogoGraphics.clear();
+        for (NogoPolygon polygon : visible) {
+            NogoGraphic nogoGraphic = nogoGraphicCache.get(polygon);
+            if (nogoGraphic == null) {
+                nogoGraphic = new NogoGraphic(polygon);
+                nogoGraphicCache.put(polygon, nogoGraphic);
+            }
+            nogoGraphics.add(nogoGraphic);
+        }
     }
 
     private void cleanUp() {
         // System.out.println("Cleanup");
-        for (int i = 0; i < multipleNoGo.size(); i++) {
-            graphics.remove(multipleNoGo.get(i));
-        }
+        graphics.remove(nogoGraphics);
+        selectResult(null);
 
         multipleNoGo.clear();
     }
@@ -111,12 +167,13 @@ public class NogoLayer extends EPDLayerCommon {
      * 
      * @param dataEntry
      */
-    public void singleResultCompleted(NoGoDataEntry dataEntry) {
+    public synchronized void singleResultCompleted(NoGoDataEntry dataEntry) {
         cleanUp();
         currentSelected = 0;
-        multipleNoGo.add(0, createNoGoGraphics(dataEntry));
+        multipleNoGo.add(0, dataEntry);
 
-        graphics.add(multipleNoGo.get(0));
+        selectResult(dataEntry);
+        graphics.add(nogoGraphics);
 
         doPrepare();
     }
@@ -147,7 +204,7 @@ public class NogoLayer extends EPDLayerCommon {
      * @param errorCode
      *            the error code
      */
-    public void addFrame(Position northWest, Position southEast) {
+    public synchronized void addFrame(Position northWest, Position southEast) {
         graphics.clear();
         // NogoGraphic nogoGraphic = new NogoGraphic(null, validFrom, validTo, draught, message, nogoHandler.getNorthWestPoint(),
         // nogoHandler.getSouthEastPoint(), errorCode, true, Color.RED);
@@ -31,7 +31,6 @@ import com.bbn.openmap.omGraphics.OMGraphicList;
 import com.bbn.openmap.proj.coords.LatLonPoint;
 
 import dk.dma.enav.model.geometry.Position;
-import dk.dma.epd.common.math.Vector2D;
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.gui.metoc.MetocGraphic;
 import dk.dma.epd.common.prototype.gui.metoc.MetocInfoPanel;
@@ -44,7 +43,6 @@ import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
 import dk.dma.epd.common.prototype.route.RouteManagerCommon;
-import dk.frv.enav.common.xml.metoc.MetocForecast;
 import dk.frv.enav.common.xml.metoc.MetocForecastPoint;
 
 /**
@@ -81,85 +79,6 @@ public abstract class RouteLayerCommon extends EPDLayerCommon implements IRoutes
         registerMapMenuClasses(WaypointCircle.class, RouteLegGraphic.class);
     }
 
-    /**
-     * Calculate distance between displayed METOC-points projected onto the screen
-     * 
-     * @param metocGraphic
-     *            METOC-graphics containing METOC-points
-     * @return The smallest distance between displayed METOC-points projected onto the screen
-     */
-    public double calculateMetocDistance(MetocGraphic metocGraphic) {
-        List<OMGraphic> forecasts = metocGraphic.getTargets();
-        double minDist = 0;
-        for (int i = 0; i < forecasts.size(); i++) {
-            if (i < forecasts.size() - 2) {
-                MetocPointGraphic metocForecastPoint = (MetocPointGraphic) forecasts.get(i);
-                MetocPointGraphic metocForecastPointNext = (MetocPointGraphic) forecasts.get(i + 1);
-                double lat = metocForecastPoint.getLat();
-                double lon = metocForecastPoint.getLon();
-
-                double latnext = metocForecastPointNext.getLat();
-                double lonnext = metocForecastPointNext.getLon();
-
-                Point2D current = getProjection().forward(lat, lon);
-                Point2D next = getProjection().forward(latnext, lonnext);
-
-                Vector2D vector = new Vector2D(current.getX(), current.getY(), next.getX(), next.getY());
-
-                double newDist = vector.norm();
-
-                if (i == 0) {
-                    minDist = newDist;
-                }
-
-                if (minDist > newDist) {
-                    minDist = newDist;
-                }
-            }
-        }
-        return minDist;
-    }
-
-    /**
-     * Calculate distance between each METOC-point projected onto the screen
-     * 
-     * @param route
-     *            The route which contains metoc data (check for this before!)
-     * @return The smallest distance between METOC-points projected onto the screen
-     */
-    public double calculateMetocDistance(Route route) {
-        MetocForecast routeMetoc = route.getMetocForecast();
-        List<MetocForecastPoint> forecasts = routeMetoc.getForecasts();
-        double minDist = 0;
-        for (int i = 0; i < forecasts.size(); i++) {
-            if (i < forecasts.size() - 2) {
-                MetocForecastPoint metocForecastPoint = forecasts.get(i);
-                MetocForecastPoint metocForecastPointNext = forecasts.get(i + 1);
-                double lat = metocForecastPoint.getLat();
-                double lon = metocForecastPoint.getLon();
-
-                double latnext = metocForecastPointNext.getLat();
-                double lonnext = metocForecastPointNext.getLon();
-
-                Point2D current = getProjection().forward(lat, lon);
-                Point2D next = getProjection().forward(latnext, lonnext);
-
-                Vector2D vector = new Vector2D(current.getX(), current.getY(), next.getX(), next.getY());
-
-                double newDist = vector.norm();
-
-                if (i == 0) {
-                    minDist = newDist;
-                }
-
-                if (minDist > newDist) {
-                    minDist = newDist;
-                }
-            }
-        }
-        return minDist;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -290,15 +209,8 @@ public abstract class RouteLayerCommon extends EPDLayerCommon implements IRoutes
             MetocGraphic metocGraphic = (MetocGraphic) omGraphic;
             Route route = metocGraphic.getRoute();
             if (routeManager.showMetocForRoute(route)) {
-                double minDist = calculateMetocDistance(route);
-                int step = Math.max((int) (5.0 / minDist), 1);
-                metocGraphic.setStep(step);
-
-                // temporary fix for drawing metoc information
-                // All scales will draw all metoc.
-                metocGraphic.setStep(1);
-
-                metocGraphic.paintMetoc();
+                // Only re-selects the shown points if the projection has changed
+                metocGraphic.declutter(getProjection());
             }
         }
 
@@ -34,12 +34,17 @@ import com.bbn.openmap.proj.Projection;
 
 import dk.dma.epd.common.graphics.CenterRaster;
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.metrics.Counter;
+import dk.dma.epd.common.prototype.metrics.LatencyHistogram;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
 import dk.dma.epd.common.prototype.status.ComponentStatus;
 import dk.dma.epd.common.prototype.status.IStatusComponent;
 
 public final class SingleWMSService extends AbstractWMSService implements ImageServerConstants, IStatusComponent,
         Callable<OMGraphicList> {
     private static final Logger LOG = LoggerFactory.getLogger(SingleWMSService.class);
+    private static final LatencyHistogram FETCH_LATENCY = MetricsRegistry.getInstance().histogram("wms.fetch");
+    private static final Counter FETCH_ERRORS = MetricsRegistry.getInstance().counter("wms.fetch.errors");
     private Projection projection;
 
     public SingleWMSService(String wmsQuery, Projection p) {
@@ -64,6 +69,7 @@ public final class SingleWMSService extends AbstractWMSService implements ImageS
 
         OMGraphicList wmsList = new OMGraphicList();
         
+        long start = System.nanoTime();
         try {
 
             url = new java.net.URL(getQueryString());
@@ -89,9 +95,11 @@ public final class SingleWMSService extends AbstractWMSService implements ImageS
             }
 
         } catch (IOException ex) {
+            FETCH_ERRORS.inc();
             status.markContactError(ex);
             LOG.error("Bad URL!");
         }
+        FETCH_LATENCY.recordSince(start);
         // LOG.debug("DONE DOWNLOADING");
 
         return wmsList;
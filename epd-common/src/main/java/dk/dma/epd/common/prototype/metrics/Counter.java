@@ -0,0 +1,103 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Lock-free event counter with a rate.
+ * <p>
+ * Increments only touch a {@linkplain LongAdder} cell, so they do not contend between threads. The rate is computed lazily
+ * when read, over the window since the previous sample, and a new sample is taken when the window is at least
+ * {@value #RATE_INTERVAL} ms old. When the rate is read regularly, it is thus the rate of the last few seconds.
+ */
+@ThreadSafe
+public final class Counter {
+
+    /** Minimum length of a rate window in milliseconds */
+    public static final long RATE_INTERVAL = 5000;
+
+    private final LongAdder count = new LongAdder();
+    private final AtomicReference<RateSample> rateSample;
+
+    Counter() {
+        this(System.currentTimeMillis());
+    }
+
+    Counter(long now) {
+        rateSample = new AtomicReference<>(new RateSample(0, now, 0));
+    }
+
+    /**
+     * Counts one event
+     */
+    public void inc() {
+        count.increment();
+    }
+
+    /**
+     * Counts a number of events
+     */
+    public void add(long events) {
+        count.add(events);
+    }
+
+    /**
+     * @return the number of events since creation
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the events per second in the latest complete rate window
+     * 
+     * @param now
+     *            the current time in milliseconds
+     * @return the rate in events per second
+     */
+    public double getRate(long now) {
+        RateSample sample = rateSample.get();
+        long elapsed = now - sample.time;
+        if (elapsed >= RATE_INTERVAL) {
+            long current = getCount();
+            // If another thread takes the sample first, its rate is used
+            rateSample.compareAndSet(sample, new RateSample(current, now, (current - sample.count) * 1000.0 / elapsed));
+            return rateSample.get().rate;
+        }
+        return sample.rate;
+    }
+
+    /**
+     * The count at the start of a rate window, and the rate of the previous window
+     */
+    @Immutable
+    private static final class RateSample {
+
+        final long count;
+        final long time;
+        final double rate;
+
+        RateSample(long count, long time, double rate) {
+            this.count = count;
+            this.time = time;
+            this.rate = rate;
+        }
+    }
+}
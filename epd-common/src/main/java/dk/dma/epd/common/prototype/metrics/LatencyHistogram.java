@@ -0,0 +1,173 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with the throughput of the recorded operations.
+ * <p>
+ * Like an HDR histogram, the buckets are log-linear. Values below 2^{@value #SUB_BUCKET_BITS} ns have their own bucket, and
+ * each higher power of two is split in 2^({@value #SUB_BUCKET_BITS} - 1) buckets, so percentiles are accurate to about 3 %
+ * at any magnitude. Values above 2^{@value #MAX_BITS} ns, about 18 minutes, are counted in the last bucket. Recording a
+ * value is a few atomic increments and takes no locks.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int MAX_BITS = 40;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKETS = bucketIndex((1L << MAX_BITS) - 1) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final Counter counter = new Counter();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    /**
+     * Records a latency
+     * 
+     * @param nanos
+     *            the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(Math.min(bucketIndex(value), BUCKETS - 1));
+        counter.inc();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records the latency of an operation started at the given time
+     * 
+     * @param startNanos
+     *            the start time from {@linkplain System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return counter.getCount();
+    }
+
+    /**
+     * @return the counter of recorded values
+     */
+    public Counter getCounter() {
+        return counter;
+    }
+
+    /**
+     * @return the highest recorded value in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the recorded values in nanoseconds, or 0 if there are none
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : sum.sum() / (double) count;
+    }
+
+    /**
+     * Returns the values at the given percentiles, from one copy of the buckets
+     * 
+     * @param percentiles
+     *            the percentiles, in ascending order
+     * @return the highest value of the bucket holding each percentile in nanoseconds, capped by the highest recorded value
+     */
+    public long[] getPercentiles(double... percentiles) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        long[] result = new long[percentiles.length];
+        if (total == 0) {
+            return result;
+        }
+        long highest = getMax();
+        int bucket = 0;
+        long cumulative = counts[0];
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            while (cumulative < rank && bucket < BUCKETS - 1) {
+                cumulative += counts[++bucket];
+            }
+            result[p] = Math.min(bucketUpperBound(bucket), highest);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the histogram
+     * 
+     * @param name
+     *            the name of the metric
+     * @param now
+     *            the current time in milliseconds
+     * @return the snapshot
+     */
+    public MetricSnapshot snapshot(String name, long now) {
+        long[] percentiles = getPercentiles(50, 90, 99);
+        return new MetricSnapshot(name, getCount(), counter.getRate(now), toMillis(getMean()), toMillis(percentiles[0]),
+                toMillis(percentiles[1]), toMillis(percentiles[2]), toMillis(getMax()));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * The values of a counter or latency histogram at a point in time. Latencies are in milliseconds, and are NaN for counters
+ */
+@Immutable
+public final class MetricSnapshot {
+
+    private final String name;
+    private final long count;
+    private final double rate;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+
+    /**
+     * Creates the snapshot of a counter
+     */
+    public MetricSnapshot(String name, long count, double rate) {
+        this(name, count, rate, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Creates the snapshot of a latency histogram
+     */
+    public MetricSnapshot(String name, long count, double rate, double mean, double p50, double p90, double p99, double max) {
+        this.name = name;
+        this.count = count;
+        this.rate = rate;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * @return if the snapshot is of a latency histogram
+     */
+    public boolean hasLatency() {
+        return !Double.isNaN(p50);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the events per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,129 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.ThreadSafe;
+import dk.dma.epd.common.text.Formatter;
+
+/**
+ * Registry of the counters and latency histograms of the application.
+ * <p>
+ * Metrics are looked up by name once, typically into a static field, and are then updated without locks. Names are dotted,
+ * starting with the component, e.g. {@code ais.receive} or {@code layer.project.AisLayer}. The metrics can be viewed in the
+ * status dialog and exported to a file.
+ */
+@ThreadSafe
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    MetricsRegistry() {
+    }
+
+    /**
+     * @return the registry of the application
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the counter of the given name, creating it if it does not exist
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counters.putIfAbsent(name, new Counter());
+            counter = counters.get(name);
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the latency histogram of the given name, creating it if it does not exist
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histograms.putIfAbsent(name, new LatencyHistogram());
+            histogram = histograms.get(name);
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns snapshots of all metrics, sorted by name
+     */
+    public List<MetricSnapshot> snapshot() {
+        long now = System.currentTimeMillis();
+        List<MetricSnapshot> result = new ArrayList<>(counters.size() + histograms.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            result.add(new MetricSnapshot(entry.getKey(), counter.getCount(), counter.getRate(now)));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            result.add(entry.getValue().snapshot(entry.getKey(), now));
+        }
+        Collections.sort(result, new Comparator<MetricSnapshot>() {
+            @Override
+            public int compare(MetricSnapshot m1, MetricSnapshot m2) {
+                return m1.getName().compareTo(m2.getName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes snapshots of all metrics to a CSV file
+     * 
+     * @param file
+     *            the file to write
+     * @throws IOException
+     */
+    public void export(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# EPD metrics " + Formatter.formatLongDateTime(new Date()) + "\n");
+            writer.write("name,count,rate/s,mean ms,p50 ms,p90 ms,p99 ms,max ms\n");
+            for (MetricSnapshot metric : snapshot()) {
+                writer.write(String.format(Locale.US, "%s,%d,%.2f", metric.getName(), metric.getCount(), metric.getRate()));
+                if (metric.hasLatency()) {
+                    writer.write(String.format(Locale.US, ",%.3f,%.3f,%.3f,%.3f,%.3f", metric.getMean(), metric.getP50(),
+                            metric.getP90(), metric.getP99(), metric.getMax()));
+                } else {
+                    writer.write(",,,,,");
+                }
+                writer.write("\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.intendedroute;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import net.jcip.annotations.ThreadSafe;
+import net.maritimecloud.util.Timestamp;
+import net.maritimecloud.util.geometry.Position;
+import dma.route.IntendedRouteBroadcast;
+import dma.route.IntendedRouteHeartbeat;
+import dma.route.Leg;
+import dma.route.Waypoint;
+
+/**
+ * Decides whether an intended route is broadcast in full or as a heartbeat.
+ * <p>
+ * The full route is broadcast as a versioned keyframe when the route changes, and at least every
+ * {@linkplain #KEYFRAME_INTERVAL} so that new receivers pick it up. In between, while the route only differs from the
+ * keyframe by the active waypoint and a common shift of the ETAs from the active waypoint on, a small
+ * {@linkplain IntendedRouteHeartbeat} is sent instead. Receivers apply it to their copy of the keyframe, see
+ * {@linkplain dk.dma.epd.common.prototype.model.route.IntendedRoute#applyHeartbeat(int, int, long)}.
+ */
+@ThreadSafe
+public class IntendedRouteEncoder {
+
+    /** The maximum time between two full broadcasts */
+    public static final long KEYFRAME_INTERVAL = 5 * 60 * 1000L;
+
+    /** The maximum difference between an ETA and the keyframe ETA shifted by the heartbeat offset */
+    public static final long ETA_TOLERANCE = 30 * 1000L;
+
+    private IntendedRouteBroadcast keyframe;
+    private long keyframeTime;
+    private int version = new Random().nextInt();
+
+    /**
+     * Encodes the route to broadcast.
+     * <p>
+     * If the route must be sent in full, it is stamped with a new version, becomes the new keyframe and null is
+     * returned. Otherwise the heartbeat to send instead is returned.
+     * 
+     * @param route
+     *            the route to broadcast
+     * @param now
+     *            the current time
+     * @return the heartbeat to send, or null to send the route
+     */
+    public synchronized IntendedRouteHeartbeat encode(IntendedRouteBroadcast route, long now) {
+        if (keyframe != null && now - keyframeTime < KEYFRAME_INTERVAL && sameRoute(keyframe, route)) {
+            int activeIndex = route.getActiveWaypointIndex();
+            List<Waypoint> keyWaypoints = keyframe.getRoute().getWaypoints();
+            List<Waypoint> waypoints = route.getRoute().getWaypoints();
+            long etaOffset = waypoints.get(activeIndex).getEta().getTime() - keyWaypoints.get(activeIndex).getEta().getTime();
+            if (etasMatch(keyWaypoints, waypoints, activeIndex, etaOffset)) {
+                IntendedRouteHeartbeat heartbeat = new IntendedRouteHeartbeat();
+                heartbeat.setVersion(version);
+                heartbeat.setActiveWaypointIndex(activeIndex);
+                heartbeat.setEtaOffset(etaOffset);
+                return heartbeat;
+            }
+        }
+
+        version++;
+        route.setVersion(version);
+        keyframe = hasRoute(route) ? route : null;
+        keyframeTime = now;
+        return null;
+    }
+
+    /**
+     * Forces the next route to be broadcast in full
+     */
+    public synchronized void reset() {
+        keyframe = null;
+    }
+
+    private static boolean hasRoute(IntendedRouteBroadcast route) {
+        return route.getRoute() != null && !route.getRoute().getWaypoints().isEmpty()
+                && route.getActiveWaypointIndex() != null;
+    }
+
+    /**
+     * Returns if the two routes only differ by the active waypoint and the waypoint ETAs
+     */
+    static boolean sameRoute(IntendedRouteBroadcast keyframe, IntendedRouteBroadcast route) {
+        if (!hasRoute(route) || !Objects.equals(keyframe.getRoute().getRoutename(), route.getRoute().getRoutename())
+                || !sameTimes(keyframe.getCalculatedEtas(), route.getCalculatedEtas())) {
+            return false;
+        }
+        List<Waypoint> keyWaypoints = keyframe.getRoute().getWaypoints();
+        List<Waypoint> waypoints = route.getRoute().getWaypoints();
+        if (keyWaypoints.size() != waypoints.size() || route.getActiveWaypointIndex() < 0
+                || route.getActiveWaypointIndex() >= waypoints.size()) {
+            return false;
+        }
+        for (int i = 0; i < waypoints.size(); i++) {
+            Waypoint keyWp = keyWaypoints.get(i);
+            Waypoint wp = waypoints.get(i);
+            if (!samePosition(keyWp.getWaypointPosition(), wp.getWaypointPosition())
+                    || !Objects.equals(keyWp.getRot(), wp.getRot()) || !Objects.equals(keyWp.getTurnRad(), wp.getTurnRad())
+                    || !sameLeg(keyWp.getOutLeg(), wp.getOutLeg()) || keyWp.getEta() == null || wp.getEta() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean samePosition(Position keyPos, Position pos) {
+        if (keyPos == null || pos == null) {
+            return keyPos == pos;
+        }
+        return keyPos.getLatitude() == pos.getLatitude() && keyPos.getLongitude() == pos.getLongitude();
+    }
+
+    private static boolean sameTimes(List<Timestamp> keyTimes, List<Timestamp> times) {
+        if (keyTimes.size() != times.size()) {
+            return false;
+        }
+        for (int i = 0; i < times.size(); i++) {
+            if (keyTimes.get(i).getTime() != times.get(i).getTime()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameLeg(Leg keyLeg, Leg leg) {
+        if (keyLeg == null || leg == null) {
+            return keyLeg == leg;
+        }
+        return Objects.equals(keyLeg.getSpeed(), leg.getSpeed()) && Objects.equals(keyLeg.getXtdPort(), leg.getXtdPort())
+                && Objects.equals(keyLeg.getXtdStarboard(), leg.getXtdStarboard())
+                && keyLeg.getHeadingType() == leg.getHeadingType();
+    }
+
+    /**
+     * Returns if the ETAs from the active waypoint on are the keyframe ETAs shifted by the offset
+     */
+    private static boolean etasMatch(List<Waypoint> keyWaypoints, List<Waypoint> waypoints, int activeIndex, long etaOffset) {
+        for (int i = activeIndex; i < waypoints.size(); i++) {
+            Timestamp keyEta = keyWaypoints.get(i).getEta();
+            Timestamp eta = waypoints.get(i).getEta();
+            if (Math.abs(eta.getTime() - keyEta.getTime() - etaOffset) > ETA_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
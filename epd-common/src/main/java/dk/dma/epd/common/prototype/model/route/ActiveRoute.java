@@ -103,6 +103,27 @@ public class ActiveRoute extends Route {
 
     private boolean searchPattern;
 
+    // Leg values cached between PNT updates, so that an update only has to
+    // recalculate the current leg. The leg ranges are recalculated by
+    // calcValues(true), and the remaining sums when the active waypoint or
+    // the ETA calculation type changes
+    private transient double[] legRanges;
+    private transient long[] plannedTtgs;
+    private transient int legCacheWp = -1;
+    private transient EtaCalculationType legCacheEtaType;
+    private transient double remainingRange;
+    private transient long remainingPlannedTtg;
+    private transient double ttgSpeed = -1.0;
+    private transient long dynamicTtg;
+
+    // ETAs are derived from the TTGs when first read after a PNT update, and
+    // kept until the next one
+    private transient boolean etasDirty;
+
+    // The ETAs of the original route and the leg of the last safe haven lookup
+    private transient long[] originalEtaTimes;
+    private transient int safeHavenLeg;
+
     public ActiveRoute(Route route, PntData pntData) {
         super();
         this.waypoints = route.getWaypoints();
@@ -134,6 +155,7 @@ public class ActiveRoute extends Route {
             activeWp = getBestWaypoint(route, pntData);
         }
 
+        etasDirty = true;
         changeActiveWaypoint(activeWp);
 
     }
@@ -142,7 +164,8 @@ public class ActiveRoute extends Route {
      * Performs a deep copy of a route.
      */
     @Override
-    public Route copy() {
+    public synchronized Route copy() {
+        ensureEtas();
         Route newRoute = super.copy();
 
         newRoute.starttime = origStarttime;
@@ -229,79 +252,115 @@ public class ActiveRoute extends Route {
             return safeHavenLocation;
         } else {
 
-            for (int i = 0; i < originalRoute.getWaypoints().size(); i++) {
+            // Find the leg we should be sailing on according to the original
+            // plan, i.e. the last waypoint with an ETA before now
+            int i = findOriginalLeg(currentTime);
+            int last = originalRoute.getWaypoints().size() - 1;
 
+            if (i < 0 || i >= last
+                    || currentTime >= originalEtaTimes[i + 1]) {
                 // We haven't found the match so we must be at the end of the
                 // route
-                if (i == originalRoute.getWaypoints().size() - 1) {
-                    safeHavenBearing = computeBearing(originalRoute
-                            .getWaypoints().getLast().getInLeg());
-                    safeHavenLength = getWaypoints().get(i - 1).getOutLeg()
-                            .getSFLen();
-                    safeHavenWidth = getWaypoints().get(i - 1).getOutLeg()
-                            .getXtdPortMeters()
-                            + getWaypoints().get(i - 1).getOutLeg()
-                                    .getXtdStarboardMeters();
-                    safeHavenSpeed = 0;
-                    safeHavenLocation = originalRoute.getWaypoints().get(i)
-                            .getPos();
-                    return safeHavenLocation;
-                } else {
+                i = last;
+                safeHavenBearing = computeBearing(originalRoute.getWaypoints()
+                        .getLast().getInLeg());
+                safeHavenLength = getWaypoints().get(i - 1).getOutLeg()
+                        .getSFLen();
+                safeHavenWidth = getWaypoints().get(i - 1).getOutLeg()
+                        .getXtdPortMeters()
+                        + getWaypoints().get(i - 1).getOutLeg()
+                                .getXtdStarboardMeters();
+                safeHavenSpeed = 0;
+                safeHavenLocation = originalRoute.getWaypoints().get(i)
+                        .getPos();
+                return safeHavenLocation;
+            }
 
-                    // We should be beyond this
-                    if (currentTime > originalRoute.getEtas().get(i).getTime()
-                            && currentTime < originalRoute.getEtas().get(i + 1)
-                                    .getTime()) {
-
-                        // How long have we been sailing between these way
-                        // points?
-                        long secondsSailTime = (currentTime - originalRoute
-                                .getEtas().get(i).getTime()) / 1000;
-
-                        double distanceTravelledNauticalMiles = Calculator.distanceAfterTimeMph(
-                                        originalRoute.getWaypoints().get(i)
-                                                .getOutLeg().getSpeed(),
-                                        secondsSailTime);
-
-                        if (this.getWaypoints().get(i).getOutLeg().getHeading() == Heading.GC) {
-                            safeHavenLocation = Calculator
-                                    .findPosition(
-                                            this.getWaypoints().get(i).getPos(),
-                                            this.getWaypoints().get(i + 1)
-                                                    .getPos(),
-                                            Converter
-                                                    .nmToMeters(distanceTravelledNauticalMiles));
-                        } else {
-                            safeHavenLocation = Calculator
-                                    .findPosition(
-                                            this.getWaypoints().get(i).getPos(),
-                                            this.getWaypoints().get(i)
-                                                    .getOutLeg().calcBrg(),
-                                            Converter
-                                                    .nmToMeters(distanceTravelledNauticalMiles));
-                        }
-
-                        safeHavenBearing = computeBearing(originalRoute
-                                .getWaypoints().get(i).getOutLeg());
-                        safeHavenLength = getWaypoints().get(i).getOutLeg()
-                                .getSFLen();
-                        safeHavenWidth = getWaypoints().get(i).getOutLeg()
-                                .getXtdPortMeters()
-                                + getWaypoints().get(i).getOutLeg()
-                                        .getXtdStarboardMeters();
-                        safeHavenSpeed = originalRoute.getWaypoints().get(i)
-                                .getOutLeg().getSpeed();
-
-                        return safeHavenLocation;
-                    }
-                }
+            // How long have we been sailing between these way
+            // points?
+            long secondsSailTime = (currentTime - originalEtaTimes[i]) / 1000;
+
+            double distanceTravelledNauticalMiles = Calculator
+                    .distanceAfterTimeMph(originalRoute.getWaypoints().get(i)
+                            .getOutLeg().getSpeed(), secondsSailTime);
+
+            if (this.getWaypoints().get(i).getOutLeg().getHeading() == Heading.GC) {
+                safeHavenLocation = Calculator.findPosition(this
+                        .getWaypoints().get(i).getPos(), this.getWaypoints()
+                        .get(i + 1).getPos(), Converter
+                        .nmToMeters(distanceTravelledNauticalMiles));
+            } else {
+                safeHavenLocation = Calculator.findPosition(this
+                        .getWaypoints().get(i).getPos(), this.getWaypoints()
+                        .get(i).getOutLeg().calcBrg(), Converter
+                        .nmToMeters(distanceTravelledNauticalMiles));
             }
+
+            safeHavenBearing = computeBearing(originalRoute.getWaypoints()
+                    .get(i).getOutLeg());
+            safeHavenLength = getWaypoints().get(i).getOutLeg().getSFLen();
+            safeHavenWidth = getWaypoints().get(i).getOutLeg()
+                    .getXtdPortMeters()
+                    + getWaypoints().get(i).getOutLeg().getXtdStarboardMeters();
+            safeHavenSpeed = originalRoute.getWaypoints().get(i).getOutLeg()
+                    .getSpeed();
+
+            return safeHavenLocation;
         }
-        // An error must have occured
-        safeHavenLocation = null;
-        return safeHavenLocation;
     }
 
+    /**
+     * Returns the index of the last waypoint of the original route with an
+     * ETA before the given time, or -1 if there is none. The leg of the
+     * previous lookup is tried first, as time usually only moves a little
+     * between lookups.
+     * 
+     * @param time
+     *            the time
+     * @return the index of the waypoint
+     */
+    private int findOriginalLeg(long time) {
+        if (originalEtaTimes == null) {
+            List<Date> originalEtas = originalRoute.getEtas();
+            originalEtaTimes = new long[originalEtas.size()];
+            for (int i = 0; i < originalEtaTimes.length; i++) {
+                originalEtaTimes[i] = originalEtas.get(i).getTime();
+            }
+            safeHavenLeg = 0;
+        }
+
+        int n = originalEtaTimes.length;
+        int i = safeHavenLeg;
+        if (i < n && originalEtaTimes[i] < time
+                && (i == n - 1 || originalEtaTimes[i + 1] >= time)) {
+            return i;
+        }
+        if (i + 1 < n && originalEtaTimes[i + 1] < time
+                && (i + 1 == n - 1 || originalEtaTimes[i + 2] >= time)) {
+            safeHavenLeg = i + 1;
+            return safeHavenLeg;
+        }
+
+        // Binary search for the last ETA before the time
+        int low = 0;
+        int high = n - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (originalEtaTimes[mid] < time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (result >= 0) {
+            safeHavenLeg = result;
+        }
+        return result;
+    }
+
+
     public synchronized void update(PntData pntData) {
         if (pntData.isBadPosition() || pntData.getSog() == null) {
             return;
@@ -331,8 +390,10 @@ public class ActiveRoute extends Route {
         }
         speedActiveWpTtg = Math.round(activeWpRng / speed * 60 * 60 * 1000);
 
-        // Update ttg, dtg and eta
-        calcValues(true);
+        // Update ttg and dtg from the cached leg values. The ETAs are derived
+        // when read
+        updateRemainingValues();
+        etasDirty = true;
 
     }
 
@@ -347,32 +408,123 @@ public class ActiveRoute extends Route {
             return;
         }
 
+        // A forced calculation recalculates all legs, e.g. after the route
+        // has been edited
+        legRanges = null;
+
         if (plannedActiveWpTtg == null || speedActiveWpTtg == null) {
             return;
         }
 
+        updateRemainingValues();
+        reCalcRemainingWpEta();
+    }
+
+    /**
+     * Updates the TTG's of the remaining legs and the total TTG and DTG using
+     * the cached leg values
+     */
+    private void updateRemainingValues() {
+        if (plannedActiveWpTtg == null || speedActiveWpTtg == null) {
+            return;
+        }
+        int legs = waypoints.size() - 1;
+        if (legRanges == null || legRanges.length != legs) {
+            calcLegRanges();
+        }
+        if (legCacheWp != activeWaypointIndex
+                || legCacheEtaType != etaCalculationType) {
+            calcRemainingSums();
+        }
+
+        boolean dynamic = etaCalculationType == EtaCalculationType.DYNAMIC_SPEED;
+        boolean hybrid = etaCalculationType == EtaCalculationType.HYBRID;
+
+        // Only the speed dependent TTG's change between updates
+        if ((dynamic || hybrid) && speed != ttgSpeed) {
+            int end = dynamic ? legs : Math.min(activeWaypointIndex + 1, legs);
+            double legSpeed = Math.max(speed, 0.1);
+            dynamicTtg = 0L;
+            for (int i = activeWaypointIndex; i < end; i++) {
+                ttgs[i] = Math.round(legRanges[i] * 3600.0 / legSpeed * 1000.0);
+                dynamicTtg += ttgs[i];
+            }
+            ttgSpeed = speed;
+        }
+
         // Determine TTG to active waypoint
         long ttg = (this.etaCalculationType == EtaCalculationType.PLANNED_SPEED) ? plannedActiveWpTtg
                 : speedActiveWpTtg;
 
-        totalTtg = ttg;
-        totalDtg = activeWpRng;
+        totalDtg = activeWpRng + remainingRange;
+        if (dynamic) {
+            totalTtg = ttg + dynamicTtg;
+        } else if (hybrid && activeWaypointIndex < legs) {
+            totalTtg = ttg + dynamicTtg + remainingPlannedTtg
+                    - plannedTtgs[activeWaypointIndex];
+        } else {
+            totalTtg = ttg + remainingPlannedTtg;
+        }
+    }
 
-        for (int i = this.activeWaypointIndex; i < this.waypoints.size() - 1; i++) {
-            // Dynamic speed
-            if (this.etaCalculationType == EtaCalculationType.DYNAMIC_SPEED
-                    || ((this.etaCalculationType == EtaCalculationType.HYBRID) && i == this.activeWaypointIndex)) {
-                this.ttgs[i] = this.waypoints.get(i).getOutLeg()
-                        .calcTtg(this.speed);
-            } else {
-                // Planned speed
-                this.ttgs[i] = this.waypoints.get(i).getOutLeg().calcTtg();
-            }
-            totalDtg += dtgs[i];
-            totalTtg += ttgs[i];
+    /**
+     * Calculates the range and planned TTG of every leg
+     */
+    private void calcLegRanges() {
+        int legs = waypoints.size() - 1;
+        legRanges = new double[legs];
+        plannedTtgs = new long[legs];
+        if (ttgs == null || ttgs.length != legs) {
+            ttgs = new long[legs];
+        }
+        if (dtgs == null || dtgs.length != legs) {
+            dtgs = new double[legs];
         }
+        for (int i = 0; i < legs; i++) {
+            RouteLeg leg = waypoints.get(i).getOutLeg();
+            legRanges[i] = leg.calcRng();
+            dtgs[i] = legRanges[i];
+            plannedTtgs[i] = leg.getSpeed() < 0.1 ? -1L : Math.round(legRanges[i]
+                    * 3600.0 / leg.getSpeed() * 1000.0);
+        }
+        legCacheWp = -1;
+    }
 
-        reCalcRemainingWpEta();
+    /**
+     * Sums the range and planned TTG of the legs after the active waypoint
+     */
+    private void calcRemainingSums() {
+        remainingRange = 0.0;
+        remainingPlannedTtg = 0L;
+        for (int i = activeWaypointIndex; i < legRanges.length; i++) {
+            remainingRange += legRanges[i];
+            remainingPlannedTtg += plannedTtgs[i];
+            ttgs[i] = plannedTtgs[i];
+        }
+        legCacheWp = activeWaypointIndex;
+        legCacheEtaType = etaCalculationType;
+        ttgSpeed = -1.0;
+    }
+
+    /**
+     * Derives the ETA's from the TTG's if they have changed since last read
+     * 
+     * @return if the ETA's are derived from the current TTG's
+     */
+    private boolean ensureEtas() {
+        return !etasDirty || reCalcRemainingWpEta();
+    }
+
+    @Override
+    public synchronized Date getWpEta(int index) {
+        ensureEtas();
+        return super.getWpEta(index);
+    }
+
+    @Override
+    public synchronized List<Date> getEtas() {
+        ensureEtas();
+        return super.getEtas();
     }
 
     @Override
@@ -380,6 +532,7 @@ public class ActiveRoute extends Route {
         this.metocForecast = metocForecast;
         this.metocStarttime = getStarttime();
         this.metocEta = getEta();
+        this.metocEtas = metocForecast != null ? legEtas() : null;
     }
 
     @Override
@@ -441,6 +594,7 @@ public class ActiveRoute extends Route {
     }
 
     public synchronized void changeActiveWaypoint(int index) {
+        ensureEtas();
         // Save actual ETA
         etas.set(activeWaypointIndex, PntTime.getDate());
         // Change active waypoint
@@ -508,17 +662,29 @@ public class ActiveRoute extends Route {
             etaTime += ttgs[i];
             etas.set(i + 1, new Date(etaTime));
         }
+        etasDirty = false;
         return true;
     }
 
+    /**
+     * Returns the ETA at the last waypoint. The ETA is derived once after
+     * each PNT update, so repeated reads return the same instance
+     */
     @Override
     public synchronized Date getEta() {
-        if (!reCalcRemainingWpEta()) {
+        if (!ensureEtas()) {
             return null;
         }
         return etas.get(etas.size() - 1);
     }
 
+    @Override
+    public synchronized void setEtaCalculationType(EtaCalculationType etaCalculationType) {
+        super.setEtaCalculationType(etaCalculationType);
+        updateRemainingValues();
+        etasDirty = true;
+    }
+
     public synchronized Date getOrigStarttime() {
         return origStarttime;
     }
@@ -562,6 +728,7 @@ public class ActiveRoute extends Route {
 
         dk.dma.enav.model.voyage.Route voyageRoute = new dk.dma.enav.model.voyage.Route();
 
+        ensureEtas();
         int startingWP = this.getActiveWaypointIndex();
 
         for (int i = startingWP; i < getWaypoints().size(); i++) {
@@ -614,6 +781,7 @@ public class ActiveRoute extends Route {
 
         dk.dma.enav.model.voyage.Route voyageRoute = new dk.dma.enav.model.voyage.Route();
         List<Date> originalEtas = new ArrayList<>();
+        ensureEtas();
         int activeWpIndex = 0;
 
         // Pre-compute the start and end ETA's for the partial route
@@ -43,6 +43,9 @@ public class IntendedRoute extends Route {
     protected boolean visible;
     protected long mmsi;
     protected int activeWpIndex;
+    protected Integer version;
+    protected long etaOffset;
+    protected List<Date> keyframeEtas;
 
     protected List<Double> ranges = new ArrayList<>();
     protected List<Date> plannedEtas;
@@ -67,6 +70,55 @@ public class IntendedRoute extends Route {
             plannedEtas.add(new Date(timestamp.getTime()));
         }
         setPlannedEtas(plannedEtas);
+        version = intendedRouteMessage.getVersion();
+        keyframeEtas = new ArrayList<>(etas);
+    }
+
+    /**
+     * Applies a heartbeat of the sender to the route, without parsing the route again.
+     * <p>
+     * The heartbeat refers to the version of the broadcast this route was created from. If the versions differ, the
+     * heartbeat is ignored and the sender's next full broadcast must be waited for.
+     * 
+     * @param version
+     *            the route version of the heartbeat
+     * @param activeWpIndex
+     *            the active waypoint
+     * @param etaOffset
+     *            the milliseconds to add to the broadcast ETAs from the active waypoint on
+     * @return if the heartbeat was applied
+     */
+    public synchronized boolean applyHeartbeat(int version, int activeWpIndex, long etaOffset) {
+        if (this.version == null || this.version != version || activeWpIndex < 0 || activeWpIndex >= keyframeEtas.size()) {
+            return false;
+        }
+        for (int i = activeWpIndex; i < keyframeEtas.size(); i++) {
+            Date eta = keyframeEtas.get(i);
+            etas.set(i, eta != null ? new Date(eta.getTime() + etaOffset) : null);
+        }
+        this.activeWpIndex = activeWpIndex;
+        this.etaOffset = etaOffset;
+        received = PntTime.getDate();
+        return true;
+    }
+
+    /**
+     * Returns the version of the broadcast the route was created from, or null if the sender does not version its
+     * routes
+     * 
+     * @return the version of the route
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the offset of the ETAs to the broadcast ETAs, as last received in a heartbeat
+     * 
+     * @return the ETA offset in milliseconds
+     */
+    public long getEtaOffset() {
+        return etaOffset;
     }
 
     /**
@@ -0,0 +1,279 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.route;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.Heading;
+import dk.dma.epd.common.prototype.settings.NavSettings;
+
+/**
+ * Streaming (StAX) parser for KML waypoints and route files.
+ * <p>
+ * Follows the same rules as the JAXB based {@linkplain KmlParser}: placemarks are taken from the first folder of the document,
+ * or from the document itself if it has no folder, and {@code MultiGeometry} line strings are only used if no points or line
+ * strings were found. Only the placemarks themselves are kept in memory, never the document tree.
+ */
+public class KmlStreamParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private final NavSettings navSettings;
+
+    private final Deque<String> path = new ArrayDeque<>();
+    private final List<ParsedPlacemark> documentPlacemarks = new ArrayList<>();
+    private final List<ParsedPlacemark> folderPlacemarks = new ArrayList<>();
+    private String rootFeature;
+    private String documentName;
+    private int documentFolders;
+    private ParsedPlacemark placemark;
+    private int placemarkDepth;
+
+    public KmlStreamParser(NavSettings navSettings) {
+        this.navSettings = navSettings;
+    }
+
+    public Route parse(File file) throws RouteLoadException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return parse(in);
+        } catch (IOException e) {
+            throw new RouteLoadException("Could not load KML file: " + e.getMessage(), e);
+        }
+    }
+
+    public Route parse(InputStream in) throws RouteLoadException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    startElement(reader);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (placemark != null && path.size() == placemarkDepth) {
+                        placemark = null;
+                    }
+                    path.pop();
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new RouteLoadException("Unable to parse KML: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                }
+            }
+        }
+
+        if (rootFeature == null) {
+            throw new RouteLoadException("No feature in KML file");
+        }
+        if (!rootFeature.equals("Document") && !rootFeature.equals("Folder")) {
+            throw new RouteLoadException("No document or folder in KML file");
+        }
+
+        boolean useFolder = rootFeature.equals("Folder") || documentFolders > 0;
+        return createRoute(useFolder ? folderPlacemarks : documentPlacemarks);
+    }
+
+    private void startElement(XMLStreamReader reader) throws XMLStreamException, RouteLoadException {
+        String name = reader.getLocalName();
+        String parent = path.peek();
+        int depth = path.size();
+        path.push(name);
+
+        // Depth 0 is <kml>, depth 1 the root feature
+        if (depth == 1) {
+            if (rootFeature == null) {
+                rootFeature = name;
+            }
+            return;
+        }
+
+        if (placemark != null) {
+            parsePlacemarkChild(reader, name, parent, depth);
+            return;
+        }
+
+        if (depth == 2 && "Document".equals(rootFeature)) {
+            if (name.equals("name") && documentName == null) {
+                documentName = reader.getElementText().trim();
+                path.pop();
+            } else if (name.equals("Folder")) {
+                documentFolders++;
+            } else if (name.equals("Placemark")) {
+                startPlacemark(documentPlacemarks, depth);
+            }
+        } else if (depth == 2 && "Folder".equals(rootFeature) && name.equals("Placemark")) {
+            startPlacemark(folderPlacemarks, depth);
+        } else if (depth == 3 && "Document".equals(rootFeature) && documentFolders == 1 && "Folder".equals(parent)
+                && name.equals("Placemark")) {
+            startPlacemark(folderPlacemarks, depth);
+        }
+    }
+
+    private void startPlacemark(List<ParsedPlacemark> target, int depth) {
+        placemark = new ParsedPlacemark();
+        placemarkDepth = depth + 1;
+        target.add(placemark);
+    }
+
+    private void parsePlacemarkChild(XMLStreamReader reader, String name, String parent, int depth)
+            throws XMLStreamException, RouteLoadException {
+        int relative = depth - placemarkDepth;
+
+        if (relative == 0) {
+            if (name.equals("name")) {
+                placemark.name = reader.getElementText().trim();
+                path.pop();
+            } else if (name.equals("Point") || name.equals("LineString") || name.equals("MultiGeometry")) {
+                placemark.geometry = name;
+            }
+        } else if (name.equals("coordinates")) {
+            String text = reader.getElementText();
+            path.pop();
+            if (relative == 1 && placemark.geometry != null && !placemark.geometry.equals("MultiGeometry")) {
+                parseCoordinates(text, placemark.positions);
+            } else if (relative == 2 && "LineString".equals(parent) && "MultiGeometry".equals(placemark.geometry)) {
+                parseCoordinates(text, placemark.positions);
+            }
+        }
+    }
+
+    /**
+     * Parses a KML coordinate string of whitespace separated "lon,lat[,alt]" tuples
+     */
+    static void parseCoordinates(String text, List<Position> positions) throws RouteLoadException {
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < len && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            String[] parts = text.substring(start, i).split(",");
+            if (parts.length < 2) {
+                throw new RouteLoadException("Invalid KML coordinate: " + text.substring(start, i));
+            }
+            try {
+                positions.add(Position.create(Double.parseDouble(parts[1]), Double.parseDouble(parts[0])));
+            } catch (NumberFormatException e) {
+                throw new RouteLoadException("Invalid KML coordinate: " + text.substring(start, i));
+            }
+        }
+    }
+
+    private Route createRoute(List<ParsedPlacemark> placemarks) throws RouteLoadException {
+        String routeName = documentName != null ? documentName : "Imported from KML";
+        List<String> wpNames = new ArrayList<>();
+        List<Position> positions = new ArrayList<>();
+
+        for (ParsedPlacemark plMark : placemarks) {
+            if ("Point".equals(plMark.geometry)) {
+                if (plMark.positions.size() != 1) {
+                    throw new RouteLoadException("Waypoint has more than one coordinate");
+                }
+                wpNames.add(plMark.name != null ? plMark.name : RouteLoader.makeWpName(wpNames.size() + 1));
+                positions.add(plMark.positions.get(0));
+            } else if ("LineString".equals(plMark.geometry)) {
+                routeName = plMark.name;
+                for (Position position : plMark.positions) {
+                    wpNames.add(RouteLoader.makeWpName(wpNames.size() + 1));
+                    positions.add(position);
+                }
+            }
+        }
+
+        // If no positions were found it's possible that it only contains a LineString inside a MultiGeometry object (Special AU case)
+        if (positions.size() == 0) {
+            for (ParsedPlacemark plMark : placemarks) {
+                if ("MultiGeometry".equals(plMark.geometry) && plMark.positions.size() > 0) {
+                    routeName = plMark.name;
+                    for (Position position : plMark.positions) {
+                        wpNames.add(RouteLoader.makeWpName(wpNames.size() + 1));
+                        positions.add(position);
+                    }
+                }
+            }
+        }
+
+        Route route = new Route();
+        RouteLeg lastLeg = null;
+        for (int i = 0; i < positions.size(); i++) {
+            // Create route objects
+            RouteWaypoint wp = new RouteWaypoint();
+            RouteLeg outLeg = new RouteLeg();
+            wp.setInLeg(lastLeg);
+            wp.setOutLeg(outLeg);
+            outLeg.setStartWp(wp);
+            if (lastLeg != null) {
+                lastLeg.setEndWp(wp);
+            }
+
+            // Set wp attributes
+            wp.setName(wpNames.get(i));
+            wp.setPos(positions.get(i));
+            wp.setSpeed(navSettings.getDefaultSpeed());
+            wp.setTurnRad(navSettings.getDefaultTurnRad());
+
+            // Create leg properties
+            outLeg.setXtdPort(navSettings.getDefaultXtd());
+            outLeg.setXtdStarboard(navSettings.getDefaultXtd());
+            outLeg.setHeading(Heading.RL);
+
+            if (i == positions.size() - 1) {
+                wp.setOutLeg(null);
+            }
+
+            route.getWaypoints().add(wp);
+
+            lastLeg = outLeg;
+        }
+
+        route.setName(routeName);
+        return route;
+    }
+
+    /**
+     * The parts of a placemark needed to build the route
+     */
+    private static class ParsedPlacemark {
+        String name;
+        String geometry;
+        List<Position> positions = new ArrayList<>(1);
+    }
+}
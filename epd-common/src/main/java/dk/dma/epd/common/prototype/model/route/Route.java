@@ -95,6 +95,10 @@ public class Route implements Serializable {
      * The eta used for the current metoc
      */
     protected Date metocEta;
+    /**
+     * The start and end times of each leg that the points of the current metoc were fetched for, two entries per leg
+     */
+    protected List<Date> metocEtas;
 
     /**
      * Settings for the route metoc
@@ -133,6 +137,7 @@ public class Route implements Serializable {
         this.metocForecast = orig.metocForecast;
         this.metocStarttime = orig.metocStarttime;
         this.metocEta = orig.metocEta;
+        this.metocEtas = orig.metocEtas;
         this.routeMetocSettings = orig.routeMetocSettings;
         this.strategicRouteId = orig.strategicRouteId;
     }
@@ -439,6 +444,36 @@ public class Route implements Serializable {
         this.metocForecast = metocForecast;
         this.metocStarttime = getStarttime();
         this.metocEta = getEta();
+        this.metocEtas = metocForecast != null ? legEtas() : null;
+    }
+
+    /**
+     * Returns the start and end time of each leg at the current ETAs, two entries per leg
+     */
+    protected List<Date> legEtas() {
+        List<Date> etas = getEtas();
+        List<Date> legEtas = new ArrayList<>(2 * etas.size());
+        for (int i = 0; i < etas.size() - 1; i++) {
+            legEtas.add(etas.get(i));
+            legEtas.add(etas.get(i + 1));
+        }
+        return legEtas;
+    }
+
+    /**
+     * Sets a METOC forecast whose points were fetched for the given leg times rather than the current ETAs, as when a
+     * forecast is re-timed to drifted ETAs
+     * 
+     * @param metocForecast
+     *            the forecast
+     * @param metocEtas
+     *            the start and end time of each leg that the points were fetched for, two entries per leg
+     */
+    public void setMetocForecast(MetocForecast metocForecast, List<Date> metocEtas) {
+        this.metocForecast = metocForecast;
+        this.metocStarttime = metocEtas.get(0);
+        this.metocEta = metocEtas.get(metocEtas.size() - 1);
+        this.metocEtas = new ArrayList<>(metocEtas);
     }
 
     /**
@@ -481,6 +516,7 @@ public class Route implements Serializable {
         }
         this.metocStarttime = null;
         this.metocEta = null;
+        this.metocEtas = null;
     }
 
     public RouteMetocSettings getRouteMetocSettings() {
@@ -926,6 +962,10 @@ public class Route implements Serializable {
         this.metocEta = metocEta;
     }
 
+    public List<Date> getMetocEtas() {
+        return metocEtas;
+    }
+
     public boolean isSafeHaven() {
         return safeHaven;
     }
@@ -25,4 +25,8 @@ public class RouteLoadException extends Exception {
         super(errmsg);
     }
 
+    public RouteLoadException(String errmsg, Throwable cause) {
+        super(errmsg, cause);
+    }
+
 }
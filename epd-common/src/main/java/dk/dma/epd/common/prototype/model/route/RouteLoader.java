@@ -182,11 +182,27 @@ public class RouteLoader {
     }
 
     public static Route loadKml(File file, NavSettings navSettings) throws RouteLoadException {
+        return new KmlStreamParser(navSettings).parse(file);
+    }
+
+    /**
+     * Loads a KML route by unmarshalling the whole document. Superseded by the streaming {@linkplain #loadKml(File, NavSettings)}
+     * but kept as the reference implementation for tests and benchmarks.
+     */
+    public static Route loadKmlDom(File file, NavSettings navSettings) throws RouteLoadException {
         KmlParser kmlParser = new KmlParser(file, navSettings);
         return kmlParser.parse();
     }
 
     public static Route loadRt3(File file, NavSettings navSettings) throws RouteLoadException {
+        return new Rt3Parser(navSettings).parse(file);
+    }
+
+    /**
+     * Loads an RT3 route through a DOM. Superseded by the streaming {@linkplain #loadRt3(File, NavSettings)} but kept as the
+     * reference implementation for tests and benchmarks.
+     */
+    public static Route loadRt3Dom(File file, NavSettings navSettings) throws RouteLoadException {
         Route route = new Route();
 
         try {
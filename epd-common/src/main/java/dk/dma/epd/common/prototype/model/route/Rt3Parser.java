@@ -0,0 +1,255 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.route;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.FormatException;
+import dk.dma.epd.common.Heading;
+import dk.dma.epd.common.prototype.settings.NavSettings;
+import dk.dma.epd.common.util.ParseUtils;
+
+/**
+ * Streaming (StAX) parser for RT3 route files.
+ * <p>
+ * Produces the same route as the DOM based {@linkplain RouteLoader#loadRt3Dom(File, NavSettings)}, but reads the file in a
+ * single pass without building a document tree. Only the speeds of the last {@code Calculation} are buffered until the
+ * waypoint count can be checked.
+ */
+public class Rt3Parser {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Rt3Parser.class);
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private final NavSettings navSettings;
+    private final Route route = new Route();
+    private RouteLeg lastLeg;
+
+    private boolean waypointsSeen;
+    private boolean inWaypoints;
+    private boolean calculationsSeen;
+    private boolean inCalculations;
+    private boolean inCalculation;
+    private List<String> calculationSpeeds;
+    private List<String> wpExSpeeds;
+
+    public Rt3Parser(NavSettings navSettings) {
+        this.navSettings = navSettings;
+    }
+
+    public Route parse(File file) throws RouteLoadException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return parse(in);
+        } catch (IOException e) {
+            LOG.error("Failed to load RT3 route file: " + e.getMessage());
+            throw new RouteLoadException("Error reading route file: " + e.getMessage(), e);
+        }
+    }
+
+    public Route parse(InputStream in) throws RouteLoadException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            boolean root = true;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (root) {
+                        // DOM returns an empty string for a missing attribute
+                        String name = reader.getAttributeValue(null, "RtName");
+                        route.setName(name != null ? name : "");
+                        root = false;
+                    }
+                    startElement(reader);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    endElement(reader.getLocalName());
+                }
+            }
+        } catch (XMLStreamException | FormatException e) {
+            LOG.error("Failed to parse RT3 route file: " + e.getMessage());
+            throw new RouteLoadException("Error parsing RT3 route file: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                }
+            }
+        }
+
+        if (!waypointsSeen) {
+            throw new RouteLoadException("Failed to parse RT3, no WayPoints node");
+        }
+        if (route.getWaypoints().size() == 0) {
+            throw new RouteLoadException("Failed to parse RT3, no WayPoint nodes");
+        }
+        route.getWaypoints().getLast().setOutLeg(null);
+
+        applySpeeds();
+        return route;
+    }
+
+    private void startElement(XMLStreamReader reader) throws RouteLoadException, FormatException {
+        String name = reader.getLocalName();
+        switch (name) {
+        case "WayPoints":
+            // Only the first WayPoints element is used
+            if (!waypointsSeen) {
+                waypointsSeen = true;
+                inWaypoints = true;
+            }
+            break;
+        case "WayPoint":
+            if (inWaypoints) {
+                parseWaypoint(reader);
+            }
+            break;
+        case "Calculations":
+            if (!calculationsSeen) {
+                calculationsSeen = true;
+                inCalculations = true;
+            }
+            break;
+        case "Calculation":
+            if (inCalculations) {
+                inCalculation = true;
+                calculationSpeeds = new ArrayList<>();
+            }
+            break;
+        case "WayPointEx":
+            if (inCalculation) {
+                calculationSpeeds.add(reader.getAttributeValue(null, "Speed"));
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void endElement(String name) {
+        switch (name) {
+        case "WayPoints":
+            inWaypoints = false;
+            break;
+        case "Calculations":
+            inCalculations = false;
+            break;
+        case "Calculation":
+            if (inCalculation) {
+                // The last calculation wins
+                wpExSpeeds = calculationSpeeds;
+                inCalculation = false;
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void parseWaypoint(XMLStreamReader reader) throws RouteLoadException, FormatException {
+        RouteWaypoint wp = new RouteWaypoint();
+        RouteLeg outLeg = new RouteLeg();
+        wp.setInLeg(lastLeg);
+        wp.setOutLeg(outLeg);
+        outLeg.setStartWp(wp);
+        if (lastLeg != null) {
+            lastLeg.setEndWp(wp);
+        }
+        lastLeg = outLeg;
+
+        // Set defaults
+        wp.setSpeed(navSettings.getDefaultSpeed());
+        wp.setTurnRad(navSettings.getDefaultTurnRad());
+        outLeg.setXtdPort(navSettings.getDefaultXtd());
+        outLeg.setXtdStarboard(navSettings.getDefaultXtd());
+        wp.setName(RouteLoader.makeWpName(route.getWaypoints().size() + 1));
+
+        // Wp name
+        String name = reader.getAttributeValue(null, "WPName");
+        if (name != null && name.length() > 0) {
+            wp.setName(name);
+        }
+
+        // Lat and lon
+        Double lat = ParseUtils.parseDouble(reader.getAttributeValue(null, "Lat"));
+        Double lon = ParseUtils.parseDouble(reader.getAttributeValue(null, "Lon"));
+        if (lat == null || lon == null) {
+            throw new RouteLoadException("Missing latitude/longitude for WP " + wp.getName());
+        }
+        wp.setPos(Position.create(lat / 60.0, lon / 60.0));
+
+        // Turn rad
+        String turnRad = reader.getAttributeValue(null, "TurnRadius");
+        if (turnRad != null && turnRad.length() > 0) {
+            wp.setTurnRad(ParseUtils.parseDouble(turnRad));
+        }
+
+        // XTE
+        String xte = reader.getAttributeValue(null, "PortXTE");
+        if (xte != null && xte.length() > 0) {
+            outLeg.setXtdPort(ParseUtils.parseDouble(xte));
+        }
+        xte = reader.getAttributeValue(null, "StbXTE");
+        if (xte != null && xte.length() > 0) {
+            outLeg.setXtdStarboard(ParseUtils.parseDouble(xte));
+        }
+
+        // Leg type
+        String legType = reader.getAttributeValue(null, "LegType");
+        if (legType != null && !legType.equals("0")) {
+            outLeg.setHeading(Heading.GC);
+        } else {
+            outLeg.setHeading(Heading.RL);
+        }
+
+        wp.setSpeed(outLeg.getSpeed());
+        route.getWaypoints().add(wp);
+    }
+
+    private void applySpeeds() throws RouteLoadException {
+        if (wpExSpeeds == null || wpExSpeeds.isEmpty()) {
+            return;
+        }
+        if (wpExSpeeds.size() != route.getWaypoints().size()) {
+            throw new RouteLoadException("Wrong number of WayPointEx entries: " + wpExSpeeds.size());
+        }
+        try {
+            for (int i = 0; i < wpExSpeeds.size() - 1; i++) {
+                Double speed = ParseUtils.parseDouble(wpExSpeeds.get(i));
+                if (speed != null && speed > 0) {
+                    route.getWaypoints().get(i).getOutLeg().setSpeed(speed);
+                }
+            }
+        } catch (FormatException e) {
+            LOG.error("Failed to parse RT3 route speeds: " + e.getMessage());
+            throw new RouteLoadException("Error parsing RT3 route file: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,483 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.epd.common.prototype.model.voct.EffortAllocationPlan.Assignment;
+
+/**
+ * Searches for the assignment of rectangular search areas to a set of SRUs that maximizes the total probability of success
+ * (POS) over a {@linkplain ProbabilityGrid}.
+ * <p>
+ * For each SRU the optimizer varies the area center, the orientation of the area (and hence of the search pattern laid out
+ * in it), the aspect ratio and the coverage factor. The area size follows from the coverage factor as
+ * {@code A = W * V * T / C}, and the probability of detection from the inverse of the track spacing formula used by
+ * {@linkplain SAROperation#calculateEffortAllocation(dk.dma.epd.common.prototype.model.voct.sardata.SARData)}. Cells covered by
+ * several SRUs combine their probability of detection as independent searches.
+ * <p>
+ * Each worker thread runs a simulated annealing search from its own starting point until the time budget or the optional
+ * iteration budget expires, or the optimizer is cancelled. The best plan found by any worker is published atomically and
+ * can be read with {@linkplain #getBestPlan()} at any moment while the search is running.
+ */
+public class EffortAllocationOptimizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EffortAllocationOptimizer.class);
+
+    static final double MIN_COVERAGE = 0.25;
+    static final double MAX_COVERAGE = 3.0;
+    static final double MAX_LOG_ASPECT = Math.log(4.0);
+    static final double INITIAL_TEMPERATURE = 0.01;
+
+    // Indexes into the per-SRU state vector
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int ORIENTATION = 2;
+    private static final int LOG_ASPECT = 3;
+    private static final int COVERAGE = 4;
+    private static final int STATE_SIZE = 5;
+
+    private final ProbabilityGrid grid;
+    private final List<SearchUnit> units;
+    private final double[] probabilities;
+    private final AtomicReference<EffortAllocationPlan> bestPlan = new AtomicReference<>();
+    private final CountDownLatch firstPlan = new CountDownLatch(1);
+
+    private volatile boolean cancelled;
+    private ExecutorService executor;
+    private CountDownLatch workersDone;
+
+    /**
+     * Constructor
+     *
+     * @param grid
+     *            the probability of containment grid
+     * @param units
+     *            the SRUs to allocate
+     */
+    public EffortAllocationOptimizer(ProbabilityGrid grid, List<SearchUnit> units) {
+        if (units.isEmpty()) {
+            throw new IllegalArgumentException("No search units to allocate");
+        }
+        this.grid = grid;
+        this.units = new ArrayList<>(units);
+
+        probabilities = new double[grid.getRows() * grid.getColumns()];
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int col = 0; col < grid.getColumns(); col++) {
+                probabilities[row * grid.getColumns() + col] = grid.getProbability(row, col);
+            }
+        }
+    }
+
+    /**
+     * Starts the optimization in the background
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param timeBudgetMillis
+     *            the time budget in milliseconds
+     */
+    public void start(int threads, long timeBudgetMillis) {
+        start(threads, timeBudgetMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts the optimization in the background with an iteration budget per worker. The search cools down according to
+     * whichever budget is closest to expiring.
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param timeBudgetMillis
+     *            the time budget in milliseconds
+     * @param maxIterations
+     *            the maximum number of iterations of each worker
+     */
+    public synchronized void start(int threads, long timeBudgetMillis, long maxIterations) {
+        if (executor != null) {
+            throw new IllegalStateException("Optimizer already started");
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final long deadline = startTime + timeBudgetMillis;
+        final CountDownLatch done = new CountDownLatch(threads);
+        workersDone = done;
+        executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+
+        for (int i = 0; i < threads; i++) {
+            final Worker worker = new Worker(new Random(startTime + i), startTime, deadline, maxIterations);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        worker.run();
+                    } catch (RuntimeException e) {
+                        LOG.error("Effort allocation worker failed", e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the optimization and blocks until the time budget has expired
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param timeBudgetMillis
+     *            the time budget in milliseconds
+     * @return the best plan found
+     */
+    public EffortAllocationPlan optimize(int threads, long timeBudgetMillis) throws InterruptedException {
+        return optimize(threads, timeBudgetMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the optimization and blocks until the time budget or the iteration budget has expired
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param timeBudgetMillis
+     *            the time budget in milliseconds
+     * @param maxIterations
+     *            the maximum number of iterations of each worker
+     * @return the best plan found
+     */
+    public EffortAllocationPlan optimize(int threads, long timeBudgetMillis, long maxIterations) throws InterruptedException {
+        start(threads, timeBudgetMillis, maxIterations);
+        return awaitCompletion();
+    }
+
+    /**
+     * Blocks until all workers have finished
+     *
+     * @return the best plan found
+     */
+    public EffortAllocationPlan awaitCompletion() throws InterruptedException {
+        CountDownLatch done;
+        synchronized (this) {
+            if (workersDone == null) {
+                throw new IllegalStateException("Optimizer not started");
+            }
+            done = workersDone;
+        }
+        done.await();
+        return bestPlan.get();
+    }
+
+    /**
+     * Stops the search. The best plan found so far remains available.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if workers are still searching
+     */
+    public synchronized boolean isRunning() {
+        return workersDone != null && workersDone.getCount() > 0;
+    }
+
+    /**
+     * Blocks until a worker has produced a plan, or the timeout expires
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return the best plan found so far, or null if the timeout expired first
+     */
+    public EffortAllocationPlan awaitFirstPlan(long timeout, TimeUnit unit) throws InterruptedException {
+        firstPlan.await(timeout, unit);
+        return bestPlan.get();
+    }
+
+    /**
+     * Returns the best plan found so far, or null if no worker has produced a plan yet
+     *
+     * @return the best plan found so far
+     */
+    public EffortAllocationPlan getBestPlan() {
+        return bestPlan.get();
+    }
+
+    public ProbabilityGrid getGrid() {
+        return grid;
+    }
+
+    public List<SearchUnit> getUnits() {
+        return units;
+    }
+
+    /**
+     * Computes the probability of success of an arbitrary plan, e.g. one derived from the manually placed effort allocation
+     * areas, so that it can be compared with the optimized plan.
+     *
+     * @param plan
+     *            the plan to evaluate
+     * @return the probability of success
+     */
+    public double evaluate(EffortAllocationPlan plan) {
+        double[] survival = new double[probabilities.length];
+        Arrays.fill(survival, 1.0);
+        for (Assignment assignment : plan.getAssignments()) {
+            markArea(assignment.getCenterX(), assignment.getCenterY(), assignment.getOrientation(), assignment.getWidth(),
+                    assignment.getHeight(), 1.0 - assignment.getProbabilityOfDetection(), survival);
+        }
+        return probabilityOfSuccess(survival);
+    }
+
+    /**
+     * Evaluates a state and leaves the per-cell probability of the object not being detected in survival
+     */
+    double evaluate(double[][] state, double[] survival) {
+        Arrays.fill(survival, 1.0);
+        for (int i = 0; i < units.size(); i++) {
+            SearchUnit unit = units.get(i);
+            double[] s = state[i];
+            double area = unit.getSearchEffort() / s[COVERAGE];
+            double width = Math.sqrt(area * Math.exp(s[LOG_ASPECT]));
+            double height = width > 0 ? area / width : 0;
+            double pod = SAROperation.findPoD(unit.getSweepWidth(), unit.getSweepWidth() / s[COVERAGE]);
+            markArea(s[X], s[Y], s[ORIENTATION], width, height, 1.0 - pod, survival);
+        }
+        return probabilityOfSuccess(survival);
+    }
+
+    private double probabilityOfSuccess(double[] survival) {
+        double pos = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            pos += probabilities[i] * (1.0 - survival[i]);
+        }
+        return pos;
+    }
+
+    /**
+     * Multiplies the survival of every cell whose center lies within the given rectangle by miss
+     */
+    private void markArea(double centerX, double centerY, double orientation, double width, double height, double miss,
+            double[] survival) {
+        double sin = Math.sin(Math.toRadians(orientation));
+        double cos = Math.cos(Math.toRadians(orientation));
+        double halfWidth = width / 2;
+        double halfHeight = height / 2;
+        double reach = Math.sqrt(halfWidth * halfWidth + halfHeight * halfHeight);
+
+        int minRow = grid.getRow(centerY + reach);
+        int maxRow = grid.getRow(centerY - reach);
+        int minCol = grid.getColumn(centerX - reach);
+        int maxCol = grid.getColumn(centerX + reach);
+        int columns = grid.getColumns();
+
+        for (int row = minRow; row <= maxRow; row++) {
+            double dy = grid.getCellY(row) - centerY;
+            for (int col = minCol; col <= maxCol; col++) {
+                double dx = grid.getCellX(col) - centerX;
+                // Project onto the top edge (bearing = orientation) and the side edge (bearing = orientation + 90)
+                double along = dx * sin + dy * cos;
+                double across = dx * cos - dy * sin;
+                if (Math.abs(along) <= halfWidth && Math.abs(across) <= halfHeight) {
+                    survival[row * columns + col] *= miss;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the state as the best plan if it beats the current best plan
+     */
+    private void publish(double[][] state, double value) {
+        EffortAllocationPlan current = bestPlan.get();
+        if (current != null && value <= current.getProbabilityOfSuccess()) {
+            return;
+        }
+        EffortAllocationPlan plan = toPlan(state, value);
+        while (current == null || value > current.getProbabilityOfSuccess()) {
+            if (bestPlan.compareAndSet(current, plan)) {
+                firstPlan.countDown();
+                return;
+            }
+            current = bestPlan.get();
+        }
+    }
+
+    private EffortAllocationPlan toPlan(double[][] state, double value) {
+        List<Assignment> assignments = new ArrayList<>(units.size());
+        for (int i = 0; i < units.size(); i++) {
+            SearchUnit unit = units.get(i);
+            double[] s = state[i];
+            double trackSpacing = unit.getSweepWidth() / s[COVERAGE];
+            double area = unit.getSearchEffort() / s[COVERAGE];
+            double width = Math.sqrt(area * Math.exp(s[LOG_ASPECT]));
+            double height = width > 0 ? area / width : 0;
+            assignments.add(new Assignment(unit.getMmsi(), s[X], s[Y], s[ORIENTATION], width, height, trackSpacing, SAROperation
+                    .findPoD(unit.getSweepWidth(), trackSpacing)));
+        }
+        return new EffortAllocationPlan(assignments, value);
+    }
+
+    /**
+     * A single simulated annealing search
+     */
+    private final class Worker {
+
+        private final Random random;
+        private final long startTime;
+        private final long deadline;
+        private final long maxIterations;
+
+        Worker(Random random, long startTime, long deadline, long maxIterations) {
+            this.random = random;
+            this.startTime = startTime;
+            this.deadline = deadline;
+            this.maxIterations = maxIterations;
+        }
+
+        void run() {
+            double[] survival = new double[probabilities.length];
+            double[][] current = initialState();
+            double[][] candidate = new double[units.size()][STATE_SIZE];
+
+            double currentValue = evaluate(current, survival);
+            double bestValue = currentValue;
+            publish(current, currentValue);
+
+            long now = System.currentTimeMillis();
+            long iterations = 0;
+            while (!cancelled && now < deadline && iterations < maxIterations) {
+                double elapsed = Math.max((double) (now - startTime) / Math.max(1, deadline - startTime),
+                        (double) iterations / maxIterations);
+                double remaining = 1.0 - elapsed;
+                double temperature = INITIAL_TEMPERATURE * remaining + 1e-9;
+
+                for (int i = 0; i < current.length; i++) {
+                    System.arraycopy(current[i], 0, candidate[i], 0, STATE_SIZE);
+                }
+                mutate(candidate, Math.max(0.05, remaining));
+
+                double value = evaluate(candidate, survival);
+                if (value >= currentValue || random.nextDouble() < Math.exp((value - currentValue) / temperature)) {
+                    double[][] tmp = current;
+                    current = candidate;
+                    candidate = tmp;
+                    currentValue = value;
+
+                    if (value > bestValue) {
+                        bestValue = value;
+                        publish(current, value);
+                    }
+                }
+
+                // Checking the clock on every iteration is measurable on small grids
+                if (++iterations % 64 == 0) {
+                    now = System.currentTimeMillis();
+                }
+            }
+            LOG.debug("Effort allocation worker finished after " + iterations + " iterations, best POS " + bestValue);
+        }
+
+        /**
+         * Places every SRU at a cell drawn according to the probability of containment
+         */
+        private double[][] initialState() {
+            double[][] state = new double[units.size()][STATE_SIZE];
+            for (double[] s : state) {
+                int cell = sampleCell();
+                s[X] = grid.getCellX(cell % grid.getColumns());
+                s[Y] = grid.getCellY(cell / grid.getColumns());
+                s[ORIENTATION] = random.nextDouble() * 180.0;
+                s[LOG_ASPECT] = 0.0;
+                s[COVERAGE] = 1.0;
+            }
+            return state;
+        }
+
+        private int sampleCell() {
+            double target = random.nextDouble() * grid.getTotalProbability();
+            double sum = 0;
+            for (int i = 0; i < probabilities.length; i++) {
+                sum += probabilities[i];
+                if (sum >= target) {
+                    return i;
+                }
+            }
+            return probabilities.length / 2;
+        }
+
+        /**
+         * Perturbs a single parameter of a single SRU. The step size shrinks as the search cools down.
+         */
+        private void mutate(double[][] state, double scale) {
+            double[] s = state[random.nextInt(state.length)];
+            double halfWidth = grid.getWidth() / 2;
+            double halfHeight = grid.getHeight() / 2;
+
+            switch (random.nextInt(STATE_SIZE)) {
+            case X:
+                s[X] = clamp(s[X] + random.nextGaussian() * grid.getWidth() * 0.1 * scale, -halfWidth, halfWidth);
+                break;
+            case Y:
+                s[Y] = clamp(s[Y] + random.nextGaussian() * grid.getHeight() * 0.1 * scale, -halfHeight, halfHeight);
+                break;
+            case ORIENTATION:
+                double orientation = (s[ORIENTATION] + random.nextGaussian() * 30.0 * scale) % 180.0;
+                s[ORIENTATION] = orientation < 0 ? orientation + 180.0 : orientation;
+                break;
+            case LOG_ASPECT:
+                s[LOG_ASPECT] = clamp(s[LOG_ASPECT] + random.nextGaussian() * 0.3 * scale, -MAX_LOG_ASPECT, MAX_LOG_ASPECT);
+                break;
+            default:
+                s[COVERAGE] = clamp(s[COVERAGE] + random.nextGaussian() * 0.3 * scale, MIN_COVERAGE, MAX_COVERAGE);
+                break;
+            }
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Creates daemon threads so that a running optimization never blocks shutdown
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "effortAllocationOptimizer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
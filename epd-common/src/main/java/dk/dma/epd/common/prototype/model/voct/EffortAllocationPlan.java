@@ -0,0 +1,186 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
+import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
+import dk.dma.epd.common.util.Calculator;
+import dk.dma.epd.common.util.Converter;
+
+/**
+ * An immutable assignment of rectangular search areas to a set of SRUs, as produced by the
+ * {@linkplain EffortAllocationOptimizer}
+ */
+public class EffortAllocationPlan {
+
+    private final List<Assignment> assignments;
+    private final double probabilityOfSuccess;
+
+    /**
+     * Constructor
+     *
+     * @param assignments
+     *            the area assignments, one per SRU
+     * @param probabilityOfSuccess
+     *            the total probability of success of the plan
+     */
+    public EffortAllocationPlan(List<Assignment> assignments, double probabilityOfSuccess) {
+        this.assignments = Collections.unmodifiableList(new ArrayList<>(assignments));
+        this.probabilityOfSuccess = probabilityOfSuccess;
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    public double getProbabilityOfSuccess() {
+        return probabilityOfSuccess;
+    }
+
+    /**
+     * Writes the effective areas, track spacing and probability of detection of the plan into the effort allocation data of
+     * the given SAR operation. SRUs without effort allocation data are skipped.
+     *
+     * @param data
+     *            the SAR data to update
+     * @param grid
+     *            the grid the plan was optimized against
+     */
+    public void applyTo(SARData data, ProbabilityGrid grid) {
+        for (Assignment assignment : assignments) {
+            EffortAllocationData effortAllocationData = data.getEffortAllocationData().get(assignment.getMmsi());
+            if (effortAllocationData == null) {
+                continue;
+            }
+
+            double horizontalBearing = assignment.getOrientation();
+            double verticalBearing = Calculator.turn90Plus(horizontalBearing);
+
+            Position center = grid.toPosition(assignment.getCenterX(), assignment.getCenterY());
+            Position topCenter = Calculator.findPosition(center, Calculator.reverseDirection(verticalBearing),
+                    Converter.nmToMeters(assignment.getHeight() / 2));
+
+            Position a = Calculator.findPosition(topCenter, Calculator.reverseDirection(horizontalBearing),
+                    Converter.nmToMeters(assignment.getWidth() / 2));
+            Position b = Calculator.findPosition(a, horizontalBearing, Converter.nmToMeters(assignment.getWidth()));
+            Position c = Calculator.findPosition(a, verticalBearing, Converter.nmToMeters(assignment.getHeight()));
+            Position d = Calculator.findPosition(c, horizontalBearing, Converter.nmToMeters(assignment.getWidth()));
+
+            effortAllocationData.setTrackSpacing(assignment.getTrackSpacing());
+            effortAllocationData.setPod(assignment.getProbabilityOfDetection());
+            effortAllocationData.setEffectiveAreaSize(assignment.getWidth() * assignment.getHeight());
+            effortAllocationData.setEffectiveAreaA(a);
+            effortAllocationData.setEffectiveAreaB(b);
+            effortAllocationData.setEffectiveAreaC(c);
+            effortAllocationData.setEffectiveAreaD(d);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EffortAllocationPlan [probabilityOfSuccess=" + probabilityOfSuccess + ", assignments=" + assignments + "]";
+    }
+
+    /**
+     * A rectangular search area assigned to a single SRU. Coordinates are in the local frame of the {@linkplain ProbabilityGrid}.
+     */
+    public static class Assignment {
+
+        private final long mmsi;
+        private final double centerX;
+        private final double centerY;
+        private final double orientation;
+        private final double width;
+        private final double height;
+        private final double trackSpacing;
+        private final double probabilityOfDetection;
+
+        /**
+         * Constructor
+         *
+         * @param mmsi
+         *            the MMSI of the SRU
+         * @param centerX
+         *            the area center in nautical miles east of the grid center
+         * @param centerY
+         *            the area center in nautical miles north of the grid center
+         * @param orientation
+         *            the bearing of the top edge of the area, from A to B, in degrees
+         * @param width
+         *            the length of the top edge in nautical miles
+         * @param height
+         *            the length of the side edges in nautical miles
+         * @param trackSpacing
+         *            the track spacing in nautical miles
+         * @param probabilityOfDetection
+         *            the probability of detection within the area
+         */
+        public Assignment(long mmsi, double centerX, double centerY, double orientation, double width, double height,
+                double trackSpacing, double probabilityOfDetection) {
+            this.mmsi = mmsi;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.orientation = orientation;
+            this.width = width;
+            this.height = height;
+            this.trackSpacing = trackSpacing;
+            this.probabilityOfDetection = probabilityOfDetection;
+        }
+
+        public long getMmsi() {
+            return mmsi;
+        }
+
+        public double getCenterX() {
+            return centerX;
+        }
+
+        public double getCenterY() {
+            return centerY;
+        }
+
+        public double getOrientation() {
+            return orientation;
+        }
+
+        public double getWidth() {
+            return width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public double getTrackSpacing() {
+            return trackSpacing;
+        }
+
+        public double getProbabilityOfDetection() {
+            return probabilityOfDetection;
+        }
+
+        @Override
+        public String toString() {
+            return "Assignment [mmsi=" + mmsi + ", centerX=" + centerX + ", centerY=" + centerY + ", orientation=" + orientation
+                    + ", width=" + width + ", height=" + height + ", trackSpacing=" + trackSpacing + ", pod="
+                    + probabilityOfDetection + "]";
+        }
+    }
+}
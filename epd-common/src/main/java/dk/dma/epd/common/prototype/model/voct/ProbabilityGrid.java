@@ -0,0 +1,189 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import dk.dma.enav.model.geometry.Position;
+
+/**
+ * A square grid of probability of containment (POC) values centered on a position.
+ * <p>
+ * Cells are addressed by row and column, with row 0 being the northernmost row. The grid uses a local flat projection where x
+ * is nautical miles east and y is nautical miles north of the grid center, which is accurate enough for the size of a search
+ * area and keeps the effort allocation optimizer free of geodetic calculations.
+ */
+public class ProbabilityGrid {
+
+    private final Position center;
+    private final double cellSize;
+    private final int rows;
+    private final int columns;
+    private final double[] probabilities;
+    private final double cosLat;
+
+    /**
+     * Constructor
+     *
+     * @param center
+     *            the center of the grid
+     * @param cellSize
+     *            the side length of a cell in nautical miles
+     * @param rows
+     *            the number of rows
+     * @param columns
+     *            the number of columns
+     */
+    public ProbabilityGrid(Position center, double cellSize, int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("Invalid grid dimensions");
+        }
+        this.center = center;
+        this.cellSize = cellSize;
+        this.rows = rows;
+        this.columns = columns;
+        this.probabilities = new double[rows * columns];
+        this.cosLat = Math.cos(Math.toRadians(center.getLatitude()));
+    }
+
+    /**
+     * Creates a grid with a circular normal distribution around the datum. The standard deviation is half the radius, so the
+     * radius circle contains roughly 86% of the probability mass. The grid spans twice the radius in each direction.
+     *
+     * @param datum
+     *            the datum
+     * @param radius
+     *            the search radius in nautical miles
+     * @param cellsAcross
+     *            the number of cells along each side of the grid
+     * @return the normalized grid
+     */
+    public static ProbabilityGrid fromDatum(Position datum, double radius, int cellsAcross) {
+        ProbabilityGrid grid = new ProbabilityGrid(datum, 4 * radius / cellsAcross, cellsAcross, cellsAcross);
+        double sigma = radius / 2;
+        double twoSigmaSquared = 2 * sigma * sigma;
+        for (int row = 0; row < cellsAcross; row++) {
+            for (int col = 0; col < cellsAcross; col++) {
+                double x = grid.getCellX(col);
+                double y = grid.getCellY(row);
+                grid.setProbability(row, col, Math.exp(-(x * x + y * y) / twoSigmaSquared));
+            }
+        }
+        grid.normalize();
+        return grid;
+    }
+
+    /**
+     * Scales all cells so that the total probability is 1
+     */
+    public void normalize() {
+        double sum = getTotalProbability();
+        if (sum > 0) {
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] /= sum;
+            }
+        }
+    }
+
+    /**
+     * @return the sum of all cell probabilities
+     */
+    public double getTotalProbability() {
+        double sum = 0;
+        for (double p : probabilities) {
+            sum += p;
+        }
+        return sum;
+    }
+
+    public double getProbability(int row, int col) {
+        return probabilities[row * columns + col];
+    }
+
+    public void setProbability(int row, int col, double probability) {
+        probabilities[row * columns + col] = probability;
+    }
+
+    /**
+     * Returns the x coordinate, in nautical miles east of the grid center, of the center of the given column
+     */
+    public double getCellX(int col) {
+        return (col + 0.5 - columns / 2.0) * cellSize;
+    }
+
+    /**
+     * Returns the y coordinate, in nautical miles north of the grid center, of the center of the given row
+     */
+    public double getCellY(int row) {
+        return (rows / 2.0 - row - 0.5) * cellSize;
+    }
+
+    /**
+     * Returns the column containing the given x coordinate, clamped to the grid
+     */
+    public int getColumn(double x) {
+        int col = (int) Math.floor(x / cellSize + columns / 2.0);
+        return Math.max(0, Math.min(columns - 1, col));
+    }
+
+    /**
+     * Returns the row containing the given y coordinate, clamped to the grid
+     */
+    public int getRow(double y) {
+        int row = (int) Math.floor(rows / 2.0 - y / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    /**
+     * Converts local grid coordinates to a position
+     *
+     * @param x
+     *            nautical miles east of the grid center
+     * @param y
+     *            nautical miles north of the grid center
+     * @return the position
+     */
+    public Position toPosition(double x, double y) {
+        return Position.create(center.getLatitude() + y / 60.0, center.getLongitude() + x / (60.0 * cosLat));
+    }
+
+    public Position getCenter() {
+        return center;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the width of the grid in nautical miles
+     */
+    public double getWidth() {
+        return columns * cellSize;
+    }
+
+    /**
+     * @return the height of the grid in nautical miles
+     */
+    public double getHeight() {
+        return rows * cellSize;
+    }
+}
@@ -0,0 +1,352 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.joda.time.DateTime;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.enav.model.voct.SARAreaData;
+import dk.dma.enav.model.voct.SARISTarget;
+import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointDataSARIS;
+import dk.dma.epd.common.prototype.model.voct.sardata.SARWeatherData;
+
+/**
+ * Streaming (StAX) parser for SARIS XML reports.
+ * <p>
+ * Produces the same {@linkplain DatumPointDataSARIS} as {@linkplain SARISXMLParser}, but reads the report in a single pass
+ * instead of building a DOM and evaluating XPath expressions for every field. Only the element stack and the children of the
+ * small elements that make up a single value (angles, times, wind values and targets) are held in memory.
+ */
+public class SARISStreamParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private final Deque<Element> stack = new ArrayDeque<>();
+
+    private DateTime lkpDate;
+    private DateTime cssDate;
+    private Position dsp;
+    private final Map<String, SARWeatherData> weatherData = new HashMap<>();
+    private final Map<String, SARISTarget> targets = new HashMap<>();
+    private final Map<String, SARAreaData> areas = new HashMap<>();
+
+    /**
+     * Parses the SARIS report in the given file
+     *
+     * @param file
+     *            the SARIS report
+     * @return the SAR data
+     */
+    public DatumPointDataSARIS parse(File file) throws IOException, XMLStreamException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return parse(in);
+        }
+    }
+
+    /**
+     * Parses a SARIS report
+     *
+     * @param in
+     *            the SARIS report
+     * @return the SAR data
+     */
+    public DatumPointDataSARIS parse(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (!stack.isEmpty()) {
+                        stack.peek().childStarted();
+                    }
+                    stack.push(new Element(reader));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (!stack.isEmpty()) {
+                        stack.peek().appendText(reader);
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    endElement(stack.pop());
+                    break;
+                default:
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (lkpDate == null) {
+            throw new XMLStreamException("No drift start time in SARIS report");
+        }
+
+        DatumPointDataSARIS sarData = new DatumPointDataSARIS("N/A", lkpDate, cssDate, dsp, 0.0, 0.0, 0.0, -1);
+        sarData.setWeatherPoints(collect(weatherData, ""));
+        sarData.setSarisTarget(collect(targets, "Target "));
+        sarData.setSarAreaData(collect(areas, "Target "));
+        return sarData;
+    }
+
+    /**
+     * Returns the entries keyed prefix + 1, prefix + 2... up to the first missing one, like the XPath parser does
+     */
+    private static <T> List<T> collect(Map<String, T> entries, String prefix) {
+        List<T> result = new ArrayList<>();
+        for (int i = 1;; i++) {
+            T entry = entries.get(prefix + i);
+            if (entry == null) {
+                return result;
+            }
+            result.add(entry);
+        }
+    }
+
+    private void endElement(Element element) {
+        Element parent = stack.peek();
+        if (parent == null) {
+            return;
+        }
+        parent.childEnded(element);
+
+        switch (element.name) {
+        case "position":
+            endPosition(element, parent);
+            break;
+        case "time":
+            endTime(element, parent);
+            break;
+        case "wind-value":
+            parent.windValues = parseWindValues(element);
+            break;
+        case "wind-entry":
+            if (hasAncestor("wind-input") && element.index != null && element.time != null && element.windValues != null) {
+                weatherData.put(element.index,
+                        new SARWeatherData(-1, -1, element.windValues[0], element.windValues[1], element.time));
+            }
+            break;
+        case "target":
+            if (hasAncestor("leeway-info") && element.attrName != null && element.children.size() >= 3) {
+                String leewayFormula = element.children.get(0).text;
+                double divergence = Double.parseDouble(element.children.get(1).firstChildText);
+                String type = element.children.get(2).text;
+                targets.put(element.attrName, new SARISTarget(element.attrName, leewayFormula, divergence, type));
+            }
+            break;
+        case "distance":
+            if (parent.name.equals("search-area") && element.attrName != null) {
+                parent.distances.put(element.attrName, Double.parseDouble(element.text));
+            }
+            break;
+        case "search-area":
+            if ("Area".equals(element.attrName) && parent.name.equals("search-area-target") && parent.area == null) {
+                parent.area = createArea(element);
+            }
+            break;
+        case "search-area-target":
+            if (parent.name.equals("search-area-coordinates") && element.attrName != null && element.area != null) {
+                areas.put(element.attrName, element.area);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void endPosition(Element position, Element parent) {
+        if (position.angleValues.isEmpty()) {
+            return;
+        }
+        // Index 0 is Latitude, index 4 is Longitude
+        Position pos = Position.create(Double.parseDouble(position.angleValues.get(0)),
+                Double.parseDouble(position.angleValues.get(4)));
+
+        if (parent.name.equals("dsp-information") && "1".equals(parent.location) && "D.S.P.".equals(position.attrName)
+                && dsp == null) {
+            dsp = pos;
+        } else if (parent.name.equals("search-area") && position.attrName != null) {
+            parent.positions.put(position.attrName, pos);
+        }
+    }
+
+    private void endTime(Element time, Element parent) {
+        DateTime date = parseDate(time.children);
+        if (date == null) {
+            return;
+        }
+        if (parent.name.equals("dsp-information") && "1".equals(parent.location) && "Drift Start".equals(time.attrName)
+                && lkpDate == null) {
+            lkpDate = date;
+        } else if (parent.name.equals("search-plan-information") && "Datum".equals(time.attrName) && cssDate == null) {
+            cssDate = date;
+        } else if (parent.name.equals("wind-entry")) {
+            parent.time = date;
+        }
+    }
+
+    private boolean hasAncestor(String name) {
+        for (Element element : stack) {
+            if (element.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static SARAreaData createArea(Element area) {
+        Position a = area.positions.get("A");
+        Position b = area.positions.get("B");
+        Position c = area.positions.get("C");
+        Position d = area.positions.get("D");
+        if (a == null || b == null || c == null || d == null) {
+            return null;
+        }
+        return new SARAreaData(a, b, c, d, area.positions.get("centre"), area.distances.get("Breadth"),
+                area.distances.get("Length"));
+    }
+
+    private static double[] parseWindValues(Element windValue) {
+        List<Element> children = windValue.children;
+        if (children.size() < 2 || !children.get(0).name.equals("speed") || !children.get(1).name.equals("angle")) {
+            return null;
+        }
+        return new double[] { Double.parseDouble(children.get(0).text), Double.parseDouble(children.get(1).firstChildText) };
+    }
+
+    /**
+     * Applies the day, month, year, hour, minute and second children to the current time, in the same order as the XPath
+     * parser
+     */
+    private static DateTime parseDate(List<Element> fields) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        String[] names = { "day", "month", "year", "hour", "minute", "second" };
+        DateTime date = new DateTime();
+        for (int i = 0; i < names.length && i < fields.size(); i++) {
+            Element field = fields.get(i);
+            if (!field.name.equals(names[i])) {
+                continue;
+            }
+            int value = Integer.parseInt(field.text);
+            switch (i) {
+            case 0:
+                date = date.withDayOfMonth(value);
+                break;
+            case 1:
+                date = date.withMonthOfYear(value);
+                break;
+            case 2:
+                date = date.withYear(value);
+                break;
+            case 3:
+                date = date.withHourOfDay(value);
+                break;
+            case 4:
+                date = date.withMinuteOfHour(value);
+                break;
+            default:
+                date = date.withSecondOfMinute(value);
+                break;
+            }
+        }
+        return date;
+    }
+
+    /**
+     * An open element on the parse stack
+     */
+    private static final class Element {
+
+        final String name;
+        final String attrName;
+        final String location;
+        final String index;
+
+        private StringBuilder textBuilder;
+        private boolean hasChildren;
+        String text = "";
+        String firstChildText;
+
+        // Only collected for elements whose value is made up of their children
+        final List<Element> children = new ArrayList<>(0);
+        final List<String> angleValues = new ArrayList<>(0);
+
+        final Map<String, Position> positions = new HashMap<>(0);
+        final Map<String, Double> distances = new HashMap<>(0);
+        DateTime time;
+        double[] windValues;
+        SARAreaData area;
+
+        Element(XMLStreamReader reader) {
+            name = reader.getLocalName();
+            attrName = reader.getAttributeValue(null, "name");
+            location = reader.getAttributeValue(null, "location");
+            index = reader.getAttributeValue(null, "index");
+        }
+
+        /**
+         * Only leaf text is used, so the whitespace between child elements is dropped rather than accumulated
+         */
+        void childStarted() {
+            hasChildren = true;
+            textBuilder = null;
+        }
+
+        void appendText(XMLStreamReader reader) {
+            if (hasChildren) {
+                return;
+            }
+            if (textBuilder == null) {
+                textBuilder = new StringBuilder();
+            }
+            textBuilder.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+
+        void childEnded(Element child) {
+            child.text = child.textBuilder != null ? child.textBuilder.toString().trim() : "";
+            child.textBuilder = null;
+
+            if (firstChildText == null) {
+                firstChildText = child.text;
+            }
+            if (name.equals("time") || name.equals("wind-value") || name.equals("target")) {
+                children.add(child);
+            } else if (name.equals("angle")) {
+                angleValues.add(child.text);
+            } else if (name.equals("position") && child.name.equals("angle")) {
+                angleValues.addAll(child.angleValues);
+            }
+        }
+    }
+}
@@ -1858,4 +1858,47 @@ public class SAROperation {
         return W * val2;
     }
 
+    /**
+     * The inverse of {@linkplain #findS(double, double)}, i.e. the probability of detection for a given sweep width and track
+     * spacing
+     * 
+     * @param W
+     *            the sweep width
+     * @param S
+     *            the track spacing
+     * @return the probability of detection
+     */
+    static double findPoD(double W, double S) {
+        // PoD = 1 - exp(-8/5*(W/S)^(7/5))
+        if (S <= 0) {
+            return W > 0 ? 1.0 : 0.0;
+        }
+        return 1 - Math.exp(-8.0 / 5.0 * Math.pow(W / S, 7.0 / 5.0));
+    }
+
+    /**
+     * Creates a probability of containment grid around the datum of the SAR operation
+     * 
+     * @param data
+     *            the SAR data
+     * @param cellsAcross
+     *            the number of cells along each side of the grid
+     * @return the grid, or null if the SAR type has no single datum and radius
+     */
+    public ProbabilityGrid createProbabilityGrid(SARData data, int cellsAcross) {
+        if (data instanceof RapidResponseData) {
+            RapidResponseData rapidResponseData = (RapidResponseData) data;
+            return ProbabilityGrid.fromDatum(rapidResponseData.getDatum(), rapidResponseData.getRadius(), cellsAcross);
+        }
+        if (data instanceof DatumPointData) {
+            DatumPointData datumPointData = (DatumPointData) data;
+            return ProbabilityGrid.fromDatum(datumPointData.getDatumDownWind(), datumPointData.getRadiusDownWind(), cellsAcross);
+        }
+        if (data instanceof DatumLineData && !((DatumLineData) data).getDatumPointDataSets().isEmpty()) {
+            DatumPointData datumPointData = ((DatumLineData) data).getDatumPointDataSets().get(0);
+            return ProbabilityGrid.fromDatum(datumPointData.getDatumDownWind(), datumPointData.getRadiusDownWind(), cellsAcross);
+        }
+        return null;
+    }
+
 }
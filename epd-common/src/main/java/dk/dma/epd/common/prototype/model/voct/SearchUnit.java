@@ -0,0 +1,86 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
+
+/**
+ * The search capabilities of a single SRU as used by the {@linkplain EffortAllocationOptimizer}
+ */
+public class SearchUnit {
+
+    private final long mmsi;
+    private final double sweepWidth;
+    private final double speed;
+    private final double endurance;
+
+    /**
+     * Constructor
+     *
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @param sweepWidth
+     *            the corrected sweep width in nautical miles
+     * @param speed
+     *            the search speed in knots
+     * @param endurance
+     *            the available search time in hours
+     */
+    public SearchUnit(long mmsi, double sweepWidth, double speed, double endurance) {
+        this.mmsi = mmsi;
+        this.sweepWidth = sweepWidth;
+        this.speed = speed;
+        this.endurance = endurance;
+    }
+
+    /**
+     * Creates a search unit from the effort allocation entered for an SRU
+     *
+     * @param data
+     *            the effort allocation data
+     * @return the search unit
+     */
+    public static SearchUnit fromEffortAllocation(EffortAllocationData data) {
+        return new SearchUnit(data.getMmsi(), data.getW(), data.getGroundSpeed(), data.getSearchTime());
+    }
+
+    public long getMmsi() {
+        return mmsi;
+    }
+
+    public double getSweepWidth() {
+        return sweepWidth;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public double getEndurance() {
+        return endurance;
+    }
+
+    /**
+     * @return the sweep width times the distance the unit can cover, in square nautical miles
+     */
+    public double getSearchEffort() {
+        return sweepWidth * speed * endurance;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchUnit [mmsi=" + mmsi + ", sweepWidth=" + sweepWidth + ", speed=" + speed + ", endurance=" + endurance + "]";
+    }
+}
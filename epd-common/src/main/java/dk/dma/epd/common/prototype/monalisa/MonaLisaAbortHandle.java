@@ -0,0 +1,77 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Handle used to abort a Mona Lisa route request in progress from another thread.
+ * <p>
+ * The service performing the request registers an abort action, e.g. aborting the HTTP method, while the request is
+ * in progress. Interrupting the requesting thread is not enough, since the blocking HTTP client does not respond to
+ * interrupts.
+ */
+@ThreadSafe
+public class MonaLisaAbortHandle {
+
+    @GuardedBy("this")
+    private Runnable abortAction;
+    @GuardedBy("this")
+    private boolean aborted;
+
+    /**
+     * Sets the action that aborts the request in progress, or clears it when the request has finished. If the handle
+     * has already been aborted, the action is run immediately
+     * 
+     * @param abortAction
+     *            the abort action, or null to clear it
+     */
+    public void setAbortAction(Runnable abortAction) {
+        synchronized (this) {
+            this.abortAction = abortAction;
+            if (!aborted || abortAction == null) {
+                return;
+            }
+        }
+        abortAction.run();
+    }
+
+    /**
+     * Aborts the request in progress, if any, and any request later registered with this handle
+     */
+    public void abort() {
+        Runnable action;
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            action = abortAction;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Returns if the handle has been aborted
+     * 
+     * @return if the handle has been aborted
+     */
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+}
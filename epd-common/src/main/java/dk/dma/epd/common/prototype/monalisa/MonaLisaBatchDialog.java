@@ -0,0 +1,175 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+import dk.dma.epd.common.prototype.model.route.Route;
+
+/**
+ * Dialog optimizing several variants of a route concurrently and showing the results side by side as they arrive. The
+ * optimized route of the selected variant can be added to the routes
+ */
+public class MonaLisaBatchDialog extends JDialog implements ActionListener, ListSelectionListener,
+        MonaLisaBatchOptimizer.Listener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Route route;
+    private final MonaLisaRouteOptimizationCommon monaLisaRouteOptimization;
+    private final MonaLisaBatchTableModel tableModel;
+    private final MonaLisaBatchOptimizer.Batch batch;
+
+    private JTable resultTable;
+    private JLabel statusLbl;
+    private JButton addRouteBtn;
+    private JButton closeBtn;
+
+    public MonaLisaBatchDialog(Window parent, MonaLisaRouteOptimizationCommon monaLisaRouteOptimization, Route route,
+            boolean removeIntermediateETA, List<MonaLisaVariant> variants, int timeout, List<Boolean> selectedWp) {
+        super(parent, "Mona Lisa Route Variants");
+        this.route = route;
+        this.monaLisaRouteOptimization = monaLisaRouteOptimization;
+        this.tableModel = new MonaLisaBatchTableModel(variants);
+
+        initGui(parent);
+
+        batch = monaLisaRouteOptimization.makeBatchRouteRequest(route, removeIntermediateETA, variants, timeout, selectedWp,
+                this);
+    }
+
+    private void initGui(Window parent) {
+        setSize(600, 260);
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(parent);
+        getContentPane().setLayout(new BorderLayout());
+
+        JPanel contentPanel = new JPanel(new BorderLayout());
+        contentPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+        getContentPane().add(contentPanel, BorderLayout.CENTER);
+
+        resultTable = new JTable(tableModel);
+        resultTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultTable.getSelectionModel().addListSelectionListener(this);
+        contentPanel.add(new JScrollPane(resultTable), BorderLayout.CENTER);
+
+        statusLbl = new JLabel("Getting optimized routes from server ...");
+        contentPanel.add(statusLbl, BorderLayout.SOUTH);
+
+        JPanel buttonPane = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        getContentPane().add(buttonPane, BorderLayout.SOUTH);
+
+        addRouteBtn = new JButton("Add Route");
+        addRouteBtn.setEnabled(false);
+        addRouteBtn.addActionListener(this);
+        buttonPane.add(addRouteBtn);
+
+        closeBtn = new JButton("Cancel");
+        closeBtn.addActionListener(this);
+        buttonPane.add(closeBtn);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                batch.cancel();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void variantCompleted(final int index, final SSPAResponse response, final boolean cached) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                tableModel.setResponse(index, response, cached);
+                updateAddRouteBtn();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void variantFailed(final int index, final String error) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                tableModel.setStatus(index, "Failed: " + error);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void batchCompleted() {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                statusLbl.setText("All variants handled");
+                closeBtn.setText("Close");
+            }
+        });
+    }
+
+    private void updateAddRouteBtn() {
+        int row = resultTable.getSelectedRow();
+        addRouteBtn.setEnabled(row >= 0 && tableModel.getResponse(row) != null);
+    }
+
+    @Override
+    public void valueChanged(ListSelectionEvent e) {
+        updateAddRouteBtn();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == addRouteBtn) {
+            int row = resultTable.getSelectedRow();
+            if (row >= 0 && tableModel.getResponse(row) != null) {
+                monaLisaRouteOptimization.addOptimizedRoute(route, tableModel.getResponse(row).getMonaLisaResponse(),
+                        tableModel.getVariant(row));
+                statusLbl.setText("Added optimized route for " + tableModel.getVariant(row).getName());
+            }
+        } else if (e.getSource() == closeBtn) {
+            dispose();
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.epd.common.prototype.monalisa.sspa.CurrentShipDataType;
+import dk.dma.epd.common.prototype.monalisa.sspa.LeginfoType;
+import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
+import dk.dma.epd.common.prototype.monalisa.sspa.WaypointType;
+
+/**
+ * Sends several Mona Lisa route optimization requests concurrently.
+ * <p>
+ * Each request runs on a bounded thread pool with its own timeout, counted from when the request is sent. Requests that
+ * time out or belong to a cancelled batch are aborted through a {@linkplain MonaLisaAbortHandle}, which releases the
+ * pooled thread blocked in the HTTP client. The listener is
+ * notified as soon as a response arrives, so the results of the variants can be compared while the rest are still being
+ * optimized. Valid responses are cached by a hash of the request, so trying a variant again is answered without asking
+ * the server.
+ */
+@ThreadSafe
+public class MonaLisaBatchOptimizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MonaLisaBatchOptimizer.class);
+
+    /** The maximum number of cached responses */
+    static final int CACHE_SIZE = 32;
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService watchdog;
+
+    @GuardedBy("cache")
+    private final Map<String, SSPAResponse> cache = new LinkedHashMap<String, SSPAResponse>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SSPAResponse> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Constructor
+     * 
+     * @param threads
+     *            the maximum number of concurrent requests
+     */
+    public MonaLisaBatchOptimizer(int threads) {
+        final AtomicInteger threadNo = new AtomicInteger();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "MonaLisa-" + threadNo.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        executor = Executors.newFixedThreadPool(threads, threadFactory);
+        watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Starts optimizing the given requests. Cached responses are delivered immediately from the calling thread
+     * 
+     * @param service
+     *            the Mona Lisa service
+     * @param requests
+     *            the route requests, one for each variant
+     * @param timeout
+     *            the timeout of each request in milliseconds
+     * @param listener
+     *            the listener notified of the results
+     * @return the batch, which can be used to cancel it
+     */
+    public Batch optimize(final MonaLisaService service, List<RouterequestType> requests, final int timeout,
+            final Listener listener) {
+        final Batch batch = new Batch(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            final int index = i;
+            final RouterequestType request = requests.get(i);
+            final String key = requestHash(request);
+
+            SSPAResponse cached = getCached(key);
+            if (cached != null) {
+                try {
+                    listener.variantCompleted(index, cached, true);
+                } finally {
+                    batch.variantDone(listener);
+                }
+                continue;
+            }
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!batch.isCancelled()) {
+                            optimizeVariant(batch, service, request, key, timeout, index, listener);
+                        }
+                    } finally {
+                        batch.variantDone(listener);
+                    }
+                }
+            });
+        }
+        return batch;
+    }
+
+    private void optimizeVariant(final Batch batch, MonaLisaService service, RouterequestType request, String key, int timeout,
+            final int index, Listener listener) {
+
+        MonaLisaAbortHandle abortHandle = new MonaLisaAbortHandle();
+        batch.started(index, abortHandle);
+        ScheduledFuture<?> timer = watchdog.schedule(new Runnable() {
+            @Override
+            public void run() {
+                batch.timedOut(index);
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+
+        SSPAResponse response = null;
+        String error = null;
+        try {
+            response = service.makeMonaLisaRouteRequest(request, timeout, false, false, abortHandle);
+        } catch (RuntimeException e) {
+            LOG.error("Mona Lisa request for variant " + index + " failed: " + e.getMessage());
+            error = e.getMessage();
+        } finally {
+            timer.cancel(false);
+        }
+        boolean inTime = batch.finished(index);
+
+        // Responses arriving after the timeout are still worth keeping for the next attempt
+        if (response != null && response.isValid() && key != null) {
+            synchronized (cache) {
+                cache.put(key, response);
+            }
+        }
+
+        if (batch.isCancelled()) {
+            return;
+        }
+        if (!inTime) {
+            listener.variantFailed(index, "Timed out after " + timeout + " ms");
+        } else if (response == null) {
+            listener.variantFailed(index, error != null ? error : "No response");
+        } else if (!response.isValid()) {
+            listener.variantFailed(index, response.getErrorMessage());
+        } else {
+            listener.variantCompleted(index, response, false);
+        }
+    }
+
+    private SSPAResponse getCached(String key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Clears the response cache
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Stops the thread pool. Pending requests are abandoned
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Returns a hash of the ship data and waypoints of the request, which identifies the request in the response cache.
+     * Requests with NoGo areas are not cached
+     * 
+     * @param request
+     *            the route request
+     * @return the hash, or null if the request cannot be cached
+     */
+    public static String requestHash(RouterequestType request) {
+        if (request.getNogoareas() != null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        CurrentShipDataType ship = request.getCurrentShipData();
+        if (ship != null) {
+            sb.append(ship.getMmsi()).append('|').append(ship.getImoid()).append('|').append(ship.getUkcrequested()).append('|')
+                    .append(ship.getOptimization());
+            if (ship.getDraft() != null) {
+                sb.append('|').append(ship.getDraft().getForward()).append('|').append(ship.getDraft().getAft());
+            }
+        }
+        sb.append('\n');
+
+        if (request.getRoute() != null && request.getRoute().getWaypoints() != null) {
+            for (WaypointType wp : request.getRoute().getWaypoints().getWaypoint()) {
+                sb.append(wp.getWptId()).append('|').append(wp.getWptName()).append('|').append(wp.getFixed()).append('|')
+                        .append(wp.getETA() != null ? wp.getETA().toXMLFormat() : null);
+                if (wp.getPosition() != null) {
+                    sb.append('|').append(wp.getPosition().getLatitude()).append('|').append(wp.getPosition().getLongitude());
+                }
+                LeginfoType leg = wp.getLegInfo();
+                if (leg != null) {
+                    sb.append('|').append(leg.getLegtype()).append('|').append(leg.getPlannedSpeed()).append('|')
+                            .append(leg.getTurnRadius()).append('|').append(leg.getRhsXte()).append('|').append(leg.getLhsXte());
+                }
+                sb.append('\n');
+            }
+        }
+
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Listener for the results of a batch. Called from the optimizer threads, or from the calling thread for cached
+     * responses
+     */
+    public interface Listener {
+
+        /**
+         * Called when the optimized route of a variant has been received
+         * 
+         * @param index
+         *            the index of the variant
+         * @param response
+         *            the valid response
+         * @param cached
+         *            if the response was taken from the cache
+         */
+        void variantCompleted(int index, SSPAResponse response, boolean cached);
+
+        /**
+         * Called when a variant could not be optimized
+         * 
+         * @param index
+         *            the index of the variant
+         * @param error
+         *            the error message
+         */
+        void variantFailed(int index, String error);
+
+        /**
+         * Called once every variant of a batch that has not been cancelled has been handled
+         */
+        void batchCompleted();
+    }
+
+    /**
+     * A running batch
+     */
+    public static final class Batch {
+
+        private final AtomicInteger remaining;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean cancelled;
+
+        /** The abort handles of the requests currently being sent, by variant index */
+        @GuardedBy("this")
+        private final Map<Integer, MonaLisaAbortHandle> running = new HashMap<>();
+
+        private Batch(int variants) {
+            remaining = new AtomicInteger(variants);
+            if (variants == 0) {
+                done.countDown();
+            }
+        }
+
+        private void started(int index, MonaLisaAbortHandle abortHandle) {
+            synchronized (this) {
+                if (!cancelled) {
+                    running.put(index, abortHandle);
+                    return;
+                }
+            }
+            abortHandle.abort();
+        }
+
+        /**
+         * Called by the watchdog when a request times out
+         */
+        private void timedOut(int index) {
+            MonaLisaAbortHandle abortHandle;
+            synchronized (this) {
+                abortHandle = running.remove(index);
+            }
+            if (abortHandle != null) {
+                abortHandle.abort();
+            }
+        }
+
+        /**
+         * Called when a request has returned
+         * 
+         * @return if the request returned before it timed out
+         */
+        private boolean finished(int index) {
+            boolean inTime;
+            synchronized (this) {
+                inTime = running.remove(index) != null;
+            }
+            return inTime && !cancelled;
+        }
+
+        private void variantDone(Listener listener) {
+            if (remaining.decrementAndGet() == 0) {
+                if (!cancelled) {
+                    listener.batchCompleted();
+                }
+                done.countDown();
+            }
+        }
+
+        /**
+         * Cancels the batch. Variants that have not yet been sent are skipped, requests in progress are aborted, and no
+         * further results are delivered
+         */
+        public void cancel() {
+            List<MonaLisaAbortHandle> abortHandles;
+            synchronized (this) {
+                cancelled = true;
+                abortHandles = new ArrayList<>(running.values());
+                running.clear();
+            }
+            for (MonaLisaAbortHandle abortHandle : abortHandles) {
+                abortHandle.abort();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Waits for all variants to be handled
+         * 
+         * @return if all variants were handled within the timeout
+         */
+        public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.epd.common.prototype.monalisa.sspa.RouteresponseType;
+import dk.dma.epd.common.text.Formatter;
+
+/**
+ * Table model comparing the results of the variants of a Mona Lisa batch optimization side by side
+ */
+public class MonaLisaBatchTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(MonaLisaBatchTableModel.class);
+
+    private static final String[] COLUMN_NAMES = { "Variant", "Draft F/A", "Status", "Fuel", "Optimized", "Saving %", "UKC" };
+
+    private final List<MonaLisaVariant> variants;
+    private final SSPAResponse[] responses;
+    private final String[] statuses;
+
+    public MonaLisaBatchTableModel(List<MonaLisaVariant> variants) {
+        super();
+        this.variants = variants;
+        this.responses = new SSPAResponse[variants.size()];
+        this.statuses = new String[variants.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = "Waiting";
+        }
+    }
+
+    /**
+     * Sets the result of a variant. Must be called on the EDT
+     */
+    public void setResponse(int index, SSPAResponse response, boolean cached) {
+        responses[index] = response;
+        statuses[index] = cached ? "Done (cached)" : "Done";
+        fireTableRowsUpdated(index, index);
+    }
+
+    /**
+     * Sets the status of a variant without a result. Must be called on the EDT
+     */
+    public void setStatus(int index, String status) {
+        statuses[index] = status;
+        fireTableRowsUpdated(index, index);
+    }
+
+    /**
+     * @return the response of the variant, or null if it has not been received
+     */
+    public SSPAResponse getResponse(int index) {
+        return responses[index];
+    }
+
+    public MonaLisaVariant getVariant(int index) {
+        return variants.get(index);
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public int getRowCount() {
+        return variants.size();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        MonaLisaVariant variant = variants.get(rowIndex);
+        RouteresponseType response = responses[rowIndex] != null ? responses[rowIndex].getMonaLisaResponse() : null;
+        switch (columnIndex) {
+        case 0:
+            return variant.getName();
+        case 1:
+            return Formatter.formatDouble((double) variant.getDraftForward(), 1) + " / "
+                    + Formatter.formatDouble((double) variant.getDraftAft(), 1);
+        case 2:
+            return statuses[rowIndex];
+        case 3:
+            return response != null ? Formatter.formatDouble((double) response.getFuelRequested(), 2) : "";
+        case 4:
+            return response != null ? Formatter.formatDouble((double) response.getFuelFinal(), 2) : "";
+        case 5:
+            return response != null ? Formatter.formatDouble(
+                    (double) (response.getFuelRequested() - response.getFuelFinal()) / response.getFuelRequested() * 100, 1) : "";
+        case 6:
+            return response != null ? Formatter.formatDouble((double) response.getUkcActual(), 1) : "";
+        default:
+            LOG.error("Unknown column " + columnIndex);
+            return "";
+        }
+    }
+}
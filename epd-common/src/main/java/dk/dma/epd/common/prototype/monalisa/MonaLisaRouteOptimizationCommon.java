@@ -34,6 +34,7 @@ import dk.dma.epd.common.prototype.model.route.RouteLeg;
 import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
 import dk.dma.epd.common.prototype.monalisa.sspa.CurrentShipDataType;
 import dk.dma.epd.common.prototype.monalisa.sspa.DraftType;
+import dk.dma.epd.common.prototype.monalisa.sspa.LeginfoType;
 import dk.dma.epd.common.prototype.monalisa.sspa.PositionType;
 import dk.dma.epd.common.prototype.monalisa.sspa.RouteType;
 import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
@@ -57,16 +58,23 @@ public class MonaLisaRouteOptimizationCommon extends MapHandlerChild
     // .getLogger(MonaLisaRouteExchange.class);
 
     // private ShoreServiceStatus status = new ShoreServiceStatus();
+    /** The maximum number of variants optimized concurrently */
+    private static final int BATCH_THREADS = 4;
+
     protected ShoreServicesCommon shoreService;
     protected RouteManagerCommon routeManager;
+    protected final MonaLisaBatchOptimizer batchOptimizer = new MonaLisaBatchOptimizer(BATCH_THREADS);
 
     public MonaLisaRouteOptimizationCommon() {
 
     }
 
     public RouterequestType convertRoute(Route route, boolean removeIntermediateETA, float trim, int ukc, List<Boolean> selectedWp) {
+        return convertRoute(route, removeIntermediateETA, new MonaLisaVariant("", trim, trim, ukc, null), selectedWp);
+    }
 
-        // float trim = 6.0f;
+    public RouterequestType convertRoute(Route route, boolean removeIntermediateETA, MonaLisaVariant variant,
+            List<Boolean> selectedWp) {
 
         // Create the route request
         RouterequestType monaLisaRoute = new RouterequestType();
@@ -77,11 +85,11 @@ public class MonaLisaRouteOptimizationCommon extends MapHandlerChild
         // Current ship data
         currentShipData.setImoid("1234567");
         currentShipData.setMmsi("123456789");
-        currentShipData.setUkcrequested(ukc);
+        currentShipData.setUkcrequested(variant.getUkc());
 
         DraftType draft = new DraftType();
-        draft.setAft(trim);
-        draft.setForward(trim);
+        draft.setAft(variant.getDraftAft());
+        draft.setForward(variant.getDraftForward());
         currentShipData.setDraft(draft);
 
         monaLisaRoute.setCurrentShipData(currentShipData);
@@ -128,6 +136,12 @@ public class MonaLisaRouteOptimizationCommon extends MapHandlerChild
 
                 waypoint.setPosition(position);
 
+                if (variant.getSpeed() != null) {
+                    LeginfoType legInfo = new LeginfoType();
+                    legInfo.setPlannedSpeed(variant.getSpeed());
+                    waypoint.setLegInfo(legInfo);
+                }
+
                 monaLisaWaypoints.add(waypoint);
             }
 
@@ -297,6 +311,52 @@ public class MonaLisaRouteOptimizationCommon extends MapHandlerChild
 
     }
 
+    /**
+     * Starts optimizing several variants of the route concurrently. The listener is notified of each result as it arrives
+     * 
+     * @param route
+     *            the route to optimize
+     * @param removeIntermediateETA
+     *            if the ETAs of intermediate waypoints should be left to the optimization
+     * @param variants
+     *            the draft, trim and speed variants
+     * @param timeout
+     *            the timeout of each request in milliseconds
+     * @param selectedWp
+     *            the waypoints to include
+     * @param listener
+     *            the listener notified of the results
+     * @return the batch, which can be used to cancel it
+     */
+    public MonaLisaBatchOptimizer.Batch makeBatchRouteRequest(Route route, boolean removeIntermediateETA,
+            List<MonaLisaVariant> variants, int timeout, List<Boolean> selectedWp, MonaLisaBatchOptimizer.Listener listener) {
+
+        List<RouterequestType> requests = new ArrayList<>(variants.size());
+        for (MonaLisaVariant variant : variants) {
+            requests.add(convertRoute(route, removeIntermediateETA, variant, selectedWp));
+        }
+        return batchOptimizer.optimize(shoreService, requests, timeout, listener);
+    }
+
+    /**
+     * Adds the optimized route of a variant to the route manager and hides the original route
+     * 
+     * @param route
+     *            the original route
+     * @param response
+     *            the optimization response of the variant
+     * @param variant
+     *            the variant
+     * @return the optimized route
+     */
+    public Route addOptimizedRoute(Route route, RouteresponseType response, MonaLisaVariant variant) {
+        Route newRoute = convertRouteBack(response);
+        newRoute.setName(newRoute.getName() + " (" + variant.getName() + ")");
+        route.setVisible(false);
+        routeManager.addRoute(newRoute);
+        return newRoute;
+    }
+
     @Override
     public void findAndInit(Object obj) {
 
@@ -0,0 +1,57 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
+
+/**
+ * Interface for services that can optimize a route with the SSPA Mona Lisa route optimization
+ */
+public interface MonaLisaService {
+
+    /**
+     * Sends a route optimization request and waits for the response
+     * 
+     * @param monaLisaRoute
+     *            the route request
+     * @param timeout
+     *            the timeout in milliseconds
+     * @param showInput
+     *            if the request XML should be shown
+     * @param showOutput
+     *            if the response XML should be shown
+     * @return the response
+     */
+    SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput);
+
+    /**
+     * Sends a route optimization request and waits for the response. The request can be aborted from another thread
+     * through the given handle, in which case an invalid response is returned
+     * 
+     * @param monaLisaRoute
+     *            the route request
+     * @param timeout
+     *            the timeout in milliseconds
+     * @param showInput
+     *            if the request XML should be shown
+     * @param showOutput
+     *            if the response XML should be shown
+     * @param abortHandle
+     *            the handle used to abort the request, or null
+     * @return the response
+     */
+    SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput,
+            MonaLisaAbortHandle abortHandle);
+}
@@ -0,0 +1,111 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A draft, trim and speed variant of a Mona Lisa route optimization request
+ */
+public final class MonaLisaVariant {
+
+    /** Trim used by the standard trim variants in meters */
+    public static final float STANDARD_TRIM = 0.5f;
+
+    private final String name;
+    private final float draftForward;
+    private final float draftAft;
+    private final int ukc;
+    private final Float speed;
+
+    /**
+     * Constructor
+     * 
+     * @param name
+     *            the name shown for the variant
+     * @param draftForward
+     *            the forward draft in meters
+     * @param draftAft
+     *            the aft draft in meters
+     * @param ukc
+     *            the requested under keel clearance in meters
+     * @param speed
+     *            the planned speed of all legs in knots, or null to leave the speed to the optimization
+     */
+    public MonaLisaVariant(String name, float draftForward, float draftAft, int ukc, Float speed) {
+        this.name = name;
+        this.draftForward = draftForward;
+        this.draftAft = draftAft;
+        this.ukc = ukc;
+        this.speed = speed;
+    }
+
+    /**
+     * Creates the variants usually compared for a given draft: even keel, trimmed by the stern and by the head, and
+     * at the given speeds on even keel
+     * 
+     * @param draft
+     *            the mean draft in meters
+     * @param ukc
+     *            the requested under keel clearance in meters
+     * @param speeds
+     *            the planned speeds to compare in knots
+     * @return the variants
+     */
+    public static List<MonaLisaVariant> createStandardVariants(float draft, int ukc, float... speeds) {
+        float halfTrim = STANDARD_TRIM / 2;
+        List<MonaLisaVariant> variants = new ArrayList<>();
+        variants.add(new MonaLisaVariant("Even keel", draft, draft, ukc, null));
+        variants.add(new MonaLisaVariant("By the stern", draft - halfTrim, draft + halfTrim, ukc, null));
+        variants.add(new MonaLisaVariant("By the head", draft + halfTrim, draft - halfTrim, ukc, null));
+        for (float speed : speeds) {
+            variants.add(new MonaLisaVariant("Even keel at " + speed + " kn", draft, draft, ukc, speed));
+        }
+        return variants;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getDraftForward() {
+        return draftForward;
+    }
+
+    public float getDraftAft() {
+        return draftAft;
+    }
+
+    /**
+     * @return the trim in meters, positive when trimmed by the stern
+     */
+    public float getTrim() {
+        return draftAft - draftForward;
+    }
+
+    public int getUkc() {
+        return ukc;
+    }
+
+    public Float getSpeed() {
+        return speed;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -18,11 +18,31 @@ import java.util.List;
 
 import org.joda.time.DateTime;
 
+import dk.dma.epd.common.util.PolygonIndex;
 import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
 
 public class NoGoDataEntry {
 
+    /**
+     * Extracts the outline of a NoGo polygon for the {@linkplain PolygonIndex}
+     */
+    public static final PolygonIndex.Outline<NogoPolygon> OUTLINE = new PolygonIndex.Outline<NogoPolygon>() {
+        @Override
+        public double[] getOutline(NogoPolygon polygon) {
+            if (polygon.getPolygon() == null) {
+                return null;
+            }
+            double[] points = new double[polygon.getPolygon().size() * 2];
+            for (int i = 0; i < polygon.getPolygon().size(); i++) {
+                points[2 * i] = polygon.getPolygon().get(i).getLat();
+                points[2 * i + 1] = polygon.getPolygon().get(i).getLon();
+            }
+            return points;
+        }
+    };
+
     private List<NogoPolygon> nogoPolygons;
+    private PolygonIndex<NogoPolygon> nogoIndex;
     private DateTime validFrom;
     private DateTime validTo;
     private int noGoErrorCode;
@@ -51,8 +71,21 @@ public class NoGoDataEntry {
      * @param nogoPolygons
      *            the nogoPolygons to set
      */
-    public void setNogoPolygons(List<NogoPolygon> nogoPolygons) {
+    public synchronized void setNogoPolygons(List<NogoPolygon> nogoPolygons) {
         this.nogoPolygons = nogoPolygons;
+        this.nogoIndex = null;
+    }
+
+    /**
+     * Returns a spatial index of the NoGo polygons. The index is built on first use
+     * 
+     * @return the spatial index of the NoGo polygons, or null if no polygons have been set
+     */
+    public synchronized PolygonIndex<NogoPolygon> getNogoIndex() {
+        if (nogoIndex == null && nogoPolygons != null) {
+            nogoIndex = new PolygonIndex<>(nogoPolygons, OUTLINE);
+        }
+        return nogoIndex;
     }
 
     /**
@@ -75,42 +75,54 @@ public class NoGoWorker extends Thread {
 
                 NogoResponse nogoResponse = shoreServices.nogoPoll(draught, northWestPoint, southEastPoint, validFrom, validTo);
 
+                // The request may have been replaced while waiting for shore
+                if (!nogoHandler.isCurrentRequest(id)) {
+                    return;
+                }
+
                 // Check the nogoresponse stuff
 
                 if (nogoResponse == null || nogoResponse.getPolygons() == null) {
                     nogoHandler.nogoTimedOut();
+                    nogoHandler.setNoGoRequestCompleted(id);
                     return;
                 }
 
                 // Store results
 
-                nogoHandler.nogoRequestCompleted(nogoResponse);
+                nogoHandler.nogoRequestCompleted(id, nogoResponse);
             } else {
                 NogoResponseSlices nogoResponse = shoreServices.nogoPoll(draught, northWestPoint, southEastPoint, validFrom,
                         validTo, slices);
 
+                if (!nogoHandler.isCurrentRequest(id)) {
+                    return;
+                }
+
                 // Check the nogoresponse stuff
 
                 if (nogoResponse == null || nogoResponse.getResponses() == null) {
                     nogoHandler.nogoTimedOut();
-                    nogoHandler.setNoGoRequestCompleted();
+                    nogoHandler.setNoGoRequestCompleted(id);
                     return;
                 }
 
                 // Store the responses
-                nogoHandler.nogoRequestCompleted(nogoResponse);
+                nogoHandler.nogoRequestCompleted(id, nogoResponse);
 
                 LOG.info("NoGo Worker has completed its request");
 
             }
         } catch (ShoreServiceException e) {
             // TODO Auto-generated catch block
-            nogoHandler.noNetworkConnection();
+            if (nogoHandler.isCurrentRequest(id)) {
+                nogoHandler.noNetworkConnection();
+            }
             LOG.error("Failed to get NoGo from shore: " + e.getMessage());
 
         }
         // Perform the thing
-        nogoHandler.setNoGoRequestCompleted();
+        nogoHandler.setNoGoRequestCompleted(id);
     }
 
 }
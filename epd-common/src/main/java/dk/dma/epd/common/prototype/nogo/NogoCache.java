@@ -0,0 +1,234 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.joda.time.DateTime;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.util.PolygonIndex;
+import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
+
+/**
+ * Cache of completed NoGo requests.
+ * <p>
+ * Requests are keyed by draught (in decimeters), bounding box (in thousandths of a degree), time window (in whole minutes)
+ * and slice length, so requests that only differ by rounding noise share an entry. A request is served from the cache if
+ * its key matches a cached request exactly, or if a cached request with the same draught and time slices covers its
+ * bounding box. In the latter case only the polygons overlapping the requested bounding box are returned.
+ */
+@ThreadSafe
+public class NogoCache {
+
+    private final int maxEntries;
+    private final long maxAgeMillis;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries
+     *            the maximum number of cached requests
+     * @param maxAgeMillis
+     *            the time after which a cached request is no longer used
+     */
+    public NogoCache(int maxEntries, long maxAgeMillis) {
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Returns the cached results of a request, one entry per time slice
+     *
+     * @param draught
+     *            the draught
+     * @param northWest
+     *            the north west corner of the request
+     * @param southEast
+     *            the south east corner of the request
+     * @param validFrom
+     *            the start of the time window
+     * @param validTo
+     *            the end of the time window
+     * @param sliceMinutes
+     *            the length of each time slice, or 0 for a single request
+     * @return the cached results, or null if the request is not cached
+     */
+    public synchronized List<NoGoDataEntry> get(double draught, Position northWest, Position southEast, DateTime validFrom,
+            DateTime validTo, int sliceMinutes) {
+        expire();
+
+        Key key = new Key(draught, northWest, southEast, validFrom, validTo, sliceMinutes);
+        Entry exact = entries.get(key);
+        if (exact != null) {
+            return copy(exact.results, null, null);
+        }
+
+        for (Map.Entry<Key, Entry> cached : entries.entrySet()) {
+            if (cached.getKey().sameSlices(key) && cached.getValue().covers(northWest, southEast)) {
+                // Touch the entry for the LRU ordering
+                Entry entry = entries.get(cached.getKey());
+                return copy(entry.results, northWest, southEast);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches the results of a completed request
+     *
+     * @param results
+     *            the results, one entry per time slice
+     */
+    public synchronized void put(double draught, Position northWest, Position southEast, DateTime validFrom, DateTime validTo,
+            int sliceMinutes, List<NoGoDataEntry> results) {
+        Key key = new Key(draught, northWest, southEast, validFrom, validTo, sliceMinutes);
+        entries.put(key, new Entry(northWest, southEast, copy(results, null, null)));
+        while (entries.size() > maxEntries) {
+            Iterator<Key> it = entries.keySet().iterator();
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Clears the cache
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached requests
+     *
+     * @return the number of cached requests
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            if (now - it.next().created > maxAgeMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Copies the results, optionally restricted to the polygons overlapping the given box
+     */
+    private static List<NoGoDataEntry> copy(List<NoGoDataEntry> results, Position northWest, Position southEast) {
+        List<NoGoDataEntry> copy = new ArrayList<>(results.size());
+        for (NoGoDataEntry result : results) {
+            NoGoDataEntry entry = new NoGoDataEntry(result.getValidFrom(), result.getValidTo());
+            List<NogoPolygon> polygons = result.getNogoPolygons();
+            if (polygons != null && northWest != null) {
+                PolygonIndex<NogoPolygon> index = result.getNogoIndex();
+                polygons = index.query(northWest, southEast);
+            }
+            entry.setNogoPolygons(polygons);
+            entry.setNoGoMessage(result.getNoGoMessage());
+            entry.setNoGoErrorCode(result.getNoGoErrorCode());
+            copy.add(entry);
+        }
+        return copy;
+    }
+
+    /**
+     * A cached request
+     */
+    private static final class Entry {
+
+        final Position northWest;
+        final Position southEast;
+        final List<NoGoDataEntry> results;
+        final long created = System.currentTimeMillis();
+
+        Entry(Position northWest, Position southEast, List<NoGoDataEntry> results) {
+            this.northWest = northWest;
+            this.southEast = southEast;
+            this.results = results;
+        }
+
+        boolean covers(Position nw, Position se) {
+            return northWest.getLatitude() >= nw.getLatitude() && northWest.getLongitude() <= nw.getLongitude()
+                    && southEast.getLatitude() <= se.getLatitude() && southEast.getLongitude() >= se.getLongitude();
+        }
+    }
+
+    /**
+     * The quantized parameters of a request
+     */
+    static final class Key {
+
+        final int draught;
+        final int north;
+        final int west;
+        final int south;
+        final int east;
+        final long validFrom;
+        final long validTo;
+        final int sliceMinutes;
+
+        Key(double draught, Position northWest, Position southEast, DateTime validFrom, DateTime validTo, int sliceMinutes) {
+            this.draught = (int) Math.round(Math.abs(draught) * 10);
+            this.north = (int) Math.round(northWest.getLatitude() * 1000);
+            this.west = (int) Math.round(northWest.getLongitude() * 1000);
+            this.south = (int) Math.round(southEast.getLatitude() * 1000);
+            this.east = (int) Math.round(southEast.getLongitude() * 1000);
+            this.validFrom = validFrom.getMillis() / 60000L;
+            this.validTo = validTo.getMillis() / 60000L;
+            this.sliceMinutes = sliceMinutes;
+        }
+
+        boolean sameSlices(Key other) {
+            return draught == other.draught && validFrom == other.validFrom && validTo == other.validTo
+                    && sliceMinutes == other.sliceMinutes;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sameSlices(other) && north == other.north && west == other.west && south == other.south
+                    && east == other.east;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = draught;
+            result = 31 * result + north;
+            result = 31 * result + west;
+            result = 31 * result + south;
+            result = 31 * result + east;
+            result = 31 * result + (int) (validFrom ^ (validFrom >>> 32));
+            result = 31 * result + (int) (validTo ^ (validTo >>> 32));
+            result = 31 * result + sliceMinutes;
+            return result;
+        }
+    }
+}
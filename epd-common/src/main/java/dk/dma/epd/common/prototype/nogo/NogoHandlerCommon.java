@@ -27,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import com.bbn.openmap.MapHandlerChild;
 
 import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
 import dk.dma.epd.common.prototype.layers.nogo.NogoLayer;
 import dk.dma.epd.common.prototype.shoreservice.ShoreServicesCommon;
 import dk.frv.enav.common.xml.nogo.response.NogoResponse;
@@ -41,6 +43,16 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
     private static final Logger LOG = LoggerFactory.getLogger(NogoHandlerCommon.class);
 
+    private static final int CACHE_SIZE = 20;
+    private static final long CACHE_MAX_AGE = 30 * 60 * 1000L;
+    private static final int SLICE_THREADS = 4;
+
+    /**
+     * Error code of a NoGo reply computed from depth alone, as no tide data covers the region. The polygons are still
+     * valid for the request, and a repeated request gives the same answer, so the reply can be cached
+     */
+    public static final int ERROR_NO_TIDE_DATA = 18;
+
     protected List<NoGoDataEntry> nogoData = new ArrayList<NoGoDataEntry>();
 
     Position northWestPoint;
@@ -51,6 +63,7 @@ public class NogoHandlerCommon extends MapHandlerChild {
     boolean nogoFailed;
 
     protected ShoreServicesCommon shoreServices;
+    private NogoService nogoService;
 
     // Create a seperate layer for the nogo information
     protected NogoLayer nogoLayer;
@@ -64,10 +77,19 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
     // private NoGoComponentPanel nogoPanel;
 
-    // int completedSlices;
+    int completedSlices;
 
     protected boolean requestInProgress;
 
+    private final NogoCache nogoCache = new NogoCache(CACHE_SIZE, CACHE_MAX_AGE);
+    private int requestSliceMinutes;
+
+    private final NogoSliceFetcher sliceFetcher = new NogoSliceFetcher(SLICE_THREADS);
+    private NogoSliceFetcher.Fetch currentFetch;
+    // Incremented for every request, so results of abandoned requests can be ignored
+    private int requestId;
+    private boolean sliceFailed;
+
     public NogoLayer getNogoLayer() {
         return nogoLayer;
     }
@@ -95,6 +117,11 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
     public synchronized void updateNogo(boolean useSlices, int minutesBetween) {
 
+        // A new request replaces any request in progress
+        cancelPendingRequest();
+        completedSlices = 0;
+        sliceFailed = false;
+
         nogoData = new ArrayList<NoGoDataEntry>();
         // New Request - determine how many time slices are needed to complete the request or if we even need to do slices
 
@@ -129,6 +156,30 @@ public class NogoHandlerCommon extends MapHandlerChild {
             nogoData.add(nogoDataEntry);
         }
 
+        // Serve the request locally if the same or a containing area has already been fetched
+        requestSliceMinutes = this.useSlices ? minutesBetween : 0;
+        final List<NoGoDataEntry> cached = nogoCache.get(draught, northWestPoint, southEastPoint, new DateTime(validFrom.getTime()),
+                new DateTime(validTo.getTime()), requestSliceMinutes);
+        final int id = requestId;
+        if (cached != null && cached.size() == nogoData.size()) {
+            LOG.info("NoGo request served from cache");
+            // Delivered on a separate thread, so that sub-classes complete their request set-up first
+            EPD.startThread(new Runnable() {
+                @Override
+                public void run() {
+                    cachedRequestCompleted(id, cached);
+                    setNoGoRequestCompleted(id);
+                }
+            }, "NoGoCache");
+            return;
+        }
+
+        // Time slices are requested concurrently and displayed as they arrive
+        if (this.useSlices && nogoData.size() > 1 && getNogoService() != null) {
+            fetchSlices(id);
+            return;
+        }
+
         NoGoWorker nogoWorker = createWorker(nogoData.size(), new DateTime(validFrom.getTime()), new DateTime(validTo.getTime()));
 
         nogoWorker.start();
@@ -136,11 +187,107 @@ public class NogoHandlerCommon extends MapHandlerChild {
     }
 
     private NoGoWorker createWorker(int slices, DateTime startDate, DateTime endDate) {
-        NoGoWorker nogoWorker = new NoGoWorker(this, this.shoreServices, 0, slices);
+        NoGoWorker nogoWorker = new NoGoWorker(this, this.shoreServices, requestId, slices);
         nogoWorker.setValues(draught, northWestPoint, southEastPoint, startDate, endDate);
         return nogoWorker;
     }
 
+    private void fetchSlices(final int id) {
+        currentFetch = sliceFetcher.fetch(getNogoService(), draught, northWestPoint, southEastPoint, nogoData,
+                new NogoSliceFetcher.Listener() {
+                    @Override
+                    public void sliceCompleted(int index, NogoResponse response) {
+                        nogoSliceCompleted(id, index, response);
+                    }
+
+                    @Override
+                    public void sliceFailed(int index, ShoreServiceException e) {
+                        nogoSliceFailed(id, e);
+                    }
+
+                    @Override
+                    public void fetchCompleted() {
+                        LOG.info("All NoGo slices have been received");
+                        setNoGoRequestCompleted(id);
+                    }
+                });
+    }
+
+    private synchronized void nogoSliceCompleted(int id, int index, NogoResponse response) {
+        if (id != requestId) {
+            return;
+        }
+        storeResult(index, response.getPolygons(), response.getNoGoMessage(), response.getNoGoErrorCode());
+
+        completedSlices = completedSlices + 1;
+        sliceCompleted(index, completedSlices);
+
+        if (completedSlices == nogoData.size()) {
+            cacheResults();
+        }
+    }
+
+    private synchronized void nogoSliceFailed(int id, ShoreServiceException e) {
+        if (id != requestId || sliceFailed) {
+            return;
+        }
+        // The request as a whole has failed, so the remaining slices are not needed
+        sliceFailed = true;
+        currentFetch.cancel();
+        if (e != null) {
+            noNetworkConnection();
+        } else {
+            nogoTimedOut();
+        }
+        requestInProgress = false;
+    }
+
+    /**
+     * Cancels the request in progress, if any. Results that arrive for it later are ignored
+     */
+    public synchronized void cancelNogoRequest() {
+        cancelPendingRequest();
+        requestInProgress = false;
+    }
+
+    private void cancelPendingRequest() {
+        if (currentFetch != null) {
+            currentFetch.cancel();
+            currentFetch = null;
+        }
+        requestId++;
+    }
+
+    /**
+     * Returns if the given id is the id of the current request
+     * 
+     * @param id
+     *            the request id
+     * @return if the id is the current request
+     */
+    synchronized boolean isCurrentRequest(int id) {
+        return id == requestId;
+    }
+
+    /**
+     * Returns the service used for fetching time slices
+     * 
+     * @return the NoGo service
+     */
+    public synchronized NogoService getNogoService() {
+        return nogoService != null ? nogoService : shoreServices;
+    }
+
+    /**
+     * Sets the service used for fetching time slices, e.g. a local stub. If not set, the shore services are used
+     * 
+     * @param nogoService
+     *            the NoGo service
+     */
+    public synchronized void setNogoService(NogoService nogoService) {
+        this.nogoService = nogoService;
+    }
+
     /**
      * Handles a failed NoGo request, either because of data error, or no connection
      */
@@ -152,6 +299,12 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
     }
 
+    synchronized void nogoRequestCompleted(int id, NogoResponseSlices nogoResponses) {
+        if (id == requestId) {
+            nogoRequestCompleted(nogoResponses);
+        }
+    }
+
     public synchronized void nogoRequestCompleted(NogoResponseSlices nogoResponses) {
 
         LOG.info("NoGo Worker has completed its request");
@@ -163,28 +316,76 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
             completedSlices = completedSlices + 1;
 
-            NoGoDataEntry dataEntry = nogoData.get(i);
+            storeResult(i, response.getPolygons(), response.getNoGoMessage(), response.getNoGoErrorCode());
 
-            dataEntry.setNogoPolygons(response.getPolygons());
-            dataEntry.setNoGoMessage(response.getNoGoMessage());
-            dataEntry.setNoGoErrorCode(response.getNoGoErrorCode());
-
-            // Special handling of slices
-            if (this.useSlices) {
-                updatePanelCompleteMultiple(dataEntry.getNoGoErrorCode(), dataEntry.getNogoPolygons(), dataEntry.getValidFrom(),
-                        dataEntry.getValidTo(), draught, i);
+            sliceCompleted(i, completedSlices);
+        }
 
-                updateLayerMultipleResult(i);
+        cacheResults();
+    }
 
-                updatePanelCompletedSlices(completedSlices, nogoData.size());
-            } else {
-                updatePanelCompleteSingle(dataEntry.getNoGoErrorCode(), dataEntry.getNogoPolygons(), validFrom, validTo, draught);
+    /**
+     * Called with the results of a request that was served by the cache
+     * 
+     * @param cached
+     *            the cached results, one per time slice
+     */
+    private synchronized void cachedRequestCompleted(int id, List<NoGoDataEntry> cached) {
+        if (id != requestId) {
+            return;
+        }
+        for (int i = 0; i < cached.size(); i++) {
+            NoGoDataEntry result = cached.get(i);
+            storeResult(i, result.getNogoPolygons(), result.getNoGoMessage(), result.getNoGoErrorCode());
 
+            // Mirror the worker, which only uses the slice response for more than one slice
+            if (cached.size() == 1) {
+                updatePanelCompleteSingle(result.getNoGoErrorCode(), result.getNogoPolygons(), validFrom, validTo, draught);
                 updateLayerSingleResult();
+            } else {
+                sliceCompleted(i, i + 1);
             }
+        }
+    }
+
+    private void storeResult(int i, List<NogoPolygon> polygons, String message, int errorCode) {
+        NoGoDataEntry dataEntry = nogoData.get(i);
+
+        dataEntry.setNogoPolygons(polygons);
+        dataEntry.setNoGoMessage(message);
+        dataEntry.setNoGoErrorCode(errorCode);
+    }
+
+    private void sliceCompleted(int i, int completedSlices) {
+        NoGoDataEntry dataEntry = nogoData.get(i);
+
+        // Special handling of slices
+        if (this.useSlices) {
+            updatePanelCompleteMultiple(dataEntry.getNoGoErrorCode(), dataEntry.getNogoPolygons(), dataEntry.getValidFrom(),
+                    dataEntry.getValidTo(), draught, i);
+
+            updateLayerMultipleResult(i);
+
+            updatePanelCompletedSlices(completedSlices, nogoData.size());
+        } else {
+            updatePanelCompleteSingle(dataEntry.getNoGoErrorCode(), dataEntry.getNogoPolygons(), validFrom, validTo, draught);
 
+            updateLayerSingleResult();
         }
+    }
 
+    /**
+     * Caches the current results if every slice returned polygons without an error, or with only the tide data missing
+     */
+    private void cacheResults() {
+        for (NoGoDataEntry dataEntry : nogoData) {
+            int errorCode = dataEntry.getNoGoErrorCode();
+            if (dataEntry.getNogoPolygons() == null || errorCode != 0 && errorCode != ERROR_NO_TIDE_DATA) {
+                return;
+            }
+        }
+        nogoCache.put(draught, northWestPoint, southEastPoint, new DateTime(validFrom.getTime()), new DateTime(validTo.getTime()),
+                requestSliceMinutes, nogoData);
     }
 
     protected void updatePanelCompleteMultiple(int errorcode, List<NogoPolygon> polygons, DateTime validFrom, DateTime validTo,
@@ -200,24 +401,34 @@ public class NogoHandlerCommon extends MapHandlerChild {
 
     }
 
-    public synchronized void nogoRequestCompleted(NogoResponse response) {
+    synchronized void nogoRequestCompleted(int id, NogoResponse response) {
+        if (id == requestId) {
+            nogoRequestCompleted(response);
+        }
+    }
 
-        NoGoDataEntry dataEntry = nogoData.get(0);
+    public synchronized void nogoRequestCompleted(NogoResponse response) {
 
-        dataEntry.setNogoPolygons(response.getPolygons());
-        dataEntry.setNoGoMessage(response.getNoGoMessage());
-        dataEntry.setNoGoErrorCode(response.getNoGoErrorCode());
+        storeResult(0, response.getPolygons(), response.getNoGoMessage(), response.getNoGoErrorCode());
 
+        NoGoDataEntry dataEntry = nogoData.get(0);
         updatePanelCompleteSingle(dataEntry.getNoGoErrorCode(), dataEntry.getNogoPolygons(), validFrom, validTo, draught);
 
         updateLayerSingleResult();
 
+        cacheResults();
     }
 
     public synchronized void setNoGoRequestCompleted() {
         requestInProgress = false;
     }
 
+    synchronized void setNoGoRequestCompleted(int id) {
+        if (id == requestId) {
+            setNoGoRequestCompleted();
+        }
+    }
+
     public Position getNorthWestPoint() {
         return northWestPoint;
     }
@@ -260,6 +471,45 @@ public class NogoHandlerCommon extends MapHandlerChild {
         return null;
     }
 
+    /**
+     * Returns the NoGo polygons of any completed time slice that the route leg between the two positions enters
+     * 
+     * @param start
+     *            the start of the leg
+     * @param end
+     *            the end of the leg
+     * @return the NoGo polygons crossed by the leg
+     */
+    public synchronized List<NogoPolygon> getPolygonsAlongLeg(Position start, Position end) {
+        List<NogoPolygon> result = new ArrayList<>();
+        for (NoGoDataEntry dataEntry : nogoData) {
+            if (dataEntry.getNogoIndex() != null) {
+                result.addAll(dataEntry.getNogoIndex().intersecting(start, end));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns if the route leg between the two positions enters a NoGo area in any completed time slice
+     * 
+     * @param start
+     *            the start of the leg
+     * @param end
+     *            the end of the leg
+     * @return if the leg enters a NoGo area
+     */
+    public boolean isLegInNogo(Position start, Position end) {
+        return !getPolygonsAlongLeg(start, end).isEmpty();
+    }
+
+    /**
+     * Clears the cache of completed NoGo requests
+     */
+    public void clearNogoCache() {
+        nogoCache.clear();
+    }
+
     public boolean toggleLayer() {
         if (isVisible) {
             nogoLayer.setVisible(false);
@@ -0,0 +1,45 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import java.util.Date;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.frv.enav.common.xml.nogo.response.NogoResponse;
+
+/**
+ * Interface for services that can calculate NoGo areas for a single time window
+ */
+public interface NogoService {
+
+    /**
+     * Requests the NoGo areas for the given draught, area and time window
+     * 
+     * @param draught
+     *            the draught
+     * @param northWestPoint
+     *            the north west corner of the area
+     * @param southEastPoint
+     *            the south east corner of the area
+     * @param startDate
+     *            the start of the time window
+     * @param endDate
+     *            the end of the time window
+     * @return the NoGo response
+     */
+    NogoResponse nogoPoll(double draught, Position northWestPoint, Position southEastPoint, Date startDate, Date endDate)
+            throws ShoreServiceException;
+}
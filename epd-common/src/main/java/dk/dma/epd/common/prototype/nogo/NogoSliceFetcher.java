@@ -0,0 +1,213 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.frv.enav.common.xml.nogo.response.NogoResponse;
+
+/**
+ * Fetches the time slices of a NoGo request concurrently.
+ * <p>
+ * Each slice is requested as a separate single window request on a bounded thread pool. The listener is notified as soon
+ * as a slice arrives, so the first slices can be displayed while the rest are still being calculated.
+ */
+@ThreadSafe
+public class NogoSliceFetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NogoSliceFetcher.class);
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor
+     * 
+     * @param threads
+     *            the maximum number of concurrent slice requests
+     */
+    public NogoSliceFetcher(int threads) {
+        final AtomicInteger threadNo = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NoGoSlice-" + threadNo.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts fetching the given time slices
+     * 
+     * @param service
+     *            the NoGo service
+     * @param draught
+     *            the draught
+     * @param northWestPoint
+     *            the north west corner of the area
+     * @param southEastPoint
+     *            the south east corner of the area
+     * @param slices
+     *            the time slices to fetch
+     * @param listener
+     *            the listener notified of the results
+     * @return the fetch, which can be used to cancel it
+     */
+    public Fetch fetch(final NogoService service, final double draught, final Position northWestPoint,
+            final Position southEastPoint, List<NoGoDataEntry> slices, final Listener listener) {
+        final Fetch fetch = new Fetch(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            final int index = i;
+            final Date validFrom = slices.get(i).getValidFrom().toDate();
+            final Date validTo = slices.get(i).getValidTo().toDate();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!fetch.isCancelled()) {
+                            fetchSlice(fetch, service, draught, northWestPoint, southEastPoint, validFrom, validTo, index, listener);
+                        }
+                    } finally {
+                        fetch.sliceDone(listener);
+                    }
+                }
+            });
+        }
+        return fetch;
+    }
+
+    private void fetchSlice(Fetch fetch, NogoService service, double draught, Position northWestPoint, Position southEastPoint,
+            Date validFrom, Date validTo, int index, Listener listener) {
+        NogoResponse response;
+        try {
+            response = service.nogoPoll(draught, northWestPoint, southEastPoint, validFrom, validTo);
+        } catch (ShoreServiceException e) {
+            LOG.error("Failed to get NoGo slice " + index + " from shore: " + e.getMessage());
+            if (!fetch.isCancelled()) {
+                listener.sliceFailed(index, e);
+            }
+            return;
+        }
+
+        if (fetch.isCancelled()) {
+            return;
+        }
+        if (response == null || response.getPolygons() == null) {
+            listener.sliceFailed(index, null);
+        } else {
+            listener.sliceCompleted(index, response);
+        }
+    }
+
+    /**
+     * Stops the thread pool. Pending slice requests are abandoned
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Listener for the results of a fetch. Called from the fetcher threads
+     */
+    public interface Listener {
+
+        /**
+         * Called when a time slice has been received
+         * 
+         * @param index
+         *            the index of the slice
+         * @param response
+         *            the response
+         */
+        void sliceCompleted(int index, NogoResponse response);
+
+        /**
+         * Called when a time slice could not be fetched
+         * 
+         * @param index
+         *            the index of the slice
+         * @param e
+         *            the exception, or null if the service returned no result
+         */
+        void sliceFailed(int index, ShoreServiceException e);
+
+        /**
+         * Called once every slice of a fetch that has not been cancelled has been handled
+         */
+        void fetchCompleted();
+    }
+
+    /**
+     * A running fetch
+     */
+    public static final class Fetch {
+
+        private final AtomicInteger remaining;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean cancelled;
+
+        private Fetch(int slices) {
+            remaining = new AtomicInteger(slices);
+            if (slices == 0) {
+                done.countDown();
+            }
+        }
+
+        private void sliceDone(Listener listener) {
+            if (remaining.decrementAndGet() == 0) {
+                if (!cancelled) {
+                    listener.fetchCompleted();
+                }
+                done.countDown();
+            }
+        }
+
+        /**
+         * Cancels the fetch. Slices that have not yet been requested are skipped, and no further results are delivered.
+         * Requests already sent to the service are left to finish, but their results are dropped
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Waits for all slices to be handled
+         * 
+         * @return if all slices were handled within the timeout
+         */
+        public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+    }
+}
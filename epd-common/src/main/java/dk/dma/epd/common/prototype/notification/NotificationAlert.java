@@ -101,7 +101,7 @@ public class NotificationAlert implements Serializable {
         // Check if a repeat-at date is found.
         // Note that the list of date is sorted.
         if (repeatAtTimes.size() > 0 && now.after(repeatAtTimes.get(0))) {
-            while (now.after(repeatAtTimes.get(0))) {
+            while (repeatAtTimes.size() > 0 && now.after(repeatAtTimes.get(0))) {
                 repeatAtTimes.remove(0);
             }
             return true;
@@ -117,6 +117,38 @@ public class NotificationAlert implements Serializable {
         return false;
     }
     
+    /**
+     * Returns the earliest time at which {@linkplain #shouldTrigger(Notification)}
+     * may return true, or -1 if the alert will not trigger again unless it is
+     * changed. The returned time may be in the past, in which case the alert is due.
+     * 
+     * @param notification the associated notification
+     * @return the next trigger time, or -1 if the alert will not trigger again
+     */
+    public long getNextTriggerTime(Notification<?,?> notification) {
+        // Handle the initial alert
+        if (lastTriggered == -1 && initial) {
+            return 0L;
+        }
+        
+        // Check if the alert repeats and if the stop conditions have been met
+        if (!repeats() ||
+             (repeatUntilAcknowledged && notification.isAcknowledged()) ||
+             repeatUntilRead && notification.isRead()) {
+            return -1L;
+        }
+        
+        // Note that shouldTrigger() only triggers strictly after the given times
+        long next = Long.MAX_VALUE;
+        if (repeatAtTimes.size() > 0) {
+            next = repeatAtTimes.get(0).getTime() + 1;
+        }
+        for (Long interval : repeatEveryTimes) {
+            next = Math.min(next, lastTriggered + interval.longValue() + 1);
+        }
+        return next;
+    }
+    
     /**
      * Must be called whenever the alert has been triggered
      */
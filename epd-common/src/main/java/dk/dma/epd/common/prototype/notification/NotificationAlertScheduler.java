@@ -0,0 +1,413 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the {@linkplain NotificationAlert}s of notifications by their next trigger time.
+ * <p>
+ * The scheduled alerts are kept in a queue ordered by their next trigger time, and a background thread sleeps until the
+ * first alert is due. The due alerts are handed to the {@linkplain AlertHandler} in one batch, so the cost of a wake-up
+ * does not depend on the total number of notifications. Cancelling the alerts of an acknowledged or removed notification
+ * removes their entries from the queue in O(log n).
+ * <p>
+ * The scheduler thread never inspects the notifications, which are owned by the thread of the owner, typically the Swing
+ * event thread. The handler decides on that thread whether a due alert should trigger, and the alerts are re-scheduled
+ * from there through {@linkplain #triggered(ScheduledAlert)} or {@linkplain #skipped(ScheduledAlert)}.
+ * <p>
+ * The notifications are grouped by an owner, e.g. the notification panel that displays them. The owner reports single
+ * changes through {@linkplain #add(Object, Notification)}, {@linkplain #reschedule(Object, Notification)} and
+ * {@linkplain #remove(Object, Notification)}, and only reports its full list of notifications through
+ * {@linkplain #update(Object, Collection)} when the list has been reloaded. Alerts are identified by instance, so a
+ * notification that is re-created with new alert instances is scheduled anew.
+ * 
+ * @param <P>
+ *            the type of the owners of the notifications
+ */
+@ThreadSafe
+public class NotificationAlertScheduler<P> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationAlertScheduler.class);
+
+    /** Upper bound on the time the scheduler sleeps, in case the system clock is changed */
+    private static final long MAX_WAIT = 60 * 1000L;
+
+    private final AlertHandler<P> handler;
+
+    @GuardedBy("this")
+    private final TreeSet<ScheduledAlert<P>> queue = new TreeSet<>();
+    @GuardedBy("this")
+    private final Map<P, Map<NotificationAlert, ScheduledAlert<P>>> owners = new HashMap<>();
+    @GuardedBy("this")
+    private long sequence;
+    @GuardedBy("this")
+    private Thread thread;
+
+    /**
+     * Constructor
+     * 
+     * @param handler
+     *            the handler of due alerts
+     */
+    public NotificationAlertScheduler(AlertHandler<P> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Starts the background thread that dispatches due alerts
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatchLoop();
+            }
+        }, "NotificationAlertScheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the background thread
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Updates the notifications of the given owner. Alerts that have not been seen before are scheduled, and the alerts of
+     * notifications that are no longer present are cancelled.
+     * 
+     * @param owner
+     *            the owner of the notifications
+     * @param notifications
+     *            the current notifications of the owner
+     */
+    public synchronized void update(P owner, Collection<? extends Notification<?, ?>> notifications) {
+        Map<NotificationAlert, ScheduledAlert<P>> oldAlerts = owners.get(owner);
+        Map<NotificationAlert, ScheduledAlert<P>> alerts = new IdentityHashMap<>();
+        for (Notification<?, ?> notification : notifications) {
+            for (NotificationAlert alert : notification.getAlerts()) {
+                ScheduledAlert<P> scheduled = (oldAlerts == null) ? null : oldAlerts.remove(alert);
+                if (scheduled == null || scheduled.notification != notification) {
+                    cancel(scheduled);
+                    scheduled = new ScheduledAlert<>(owner, notification, alert);
+                    schedule(scheduled);
+                }
+                alerts.put(alert, scheduled);
+            }
+        }
+
+        if (oldAlerts != null) {
+            for (ScheduledAlert<P> scheduled : oldAlerts.values()) {
+                cancel(scheduled);
+            }
+        }
+        if (alerts.isEmpty()) {
+            owners.remove(owner);
+        } else {
+            owners.put(owner, alerts);
+        }
+    }
+
+    /**
+     * Schedules the alerts of a notification that has been added to the given owner
+     * 
+     * @param owner
+     *            the owner of the notification
+     * @param notification
+     *            the notification
+     */
+    public synchronized void add(P owner, Notification<?, ?> notification) {
+        Map<NotificationAlert, ScheduledAlert<P>> alerts = owners.get(owner);
+        if (alerts == null) {
+            alerts = new IdentityHashMap<>();
+            owners.put(owner, alerts);
+        }
+        for (NotificationAlert alert : notification.getAlerts()) {
+            ScheduledAlert<P> scheduled = alerts.get(alert);
+            if (scheduled == null || scheduled.notification != notification) {
+                cancel(scheduled);
+                scheduled = new ScheduledAlert<>(owner, notification, alert);
+                schedule(scheduled);
+                alerts.put(alert, scheduled);
+            }
+        }
+    }
+
+    /**
+     * Re-computes the next trigger time of the alerts of the given notification, e.g. after it has been acknowledged or
+     * read. Alerts that will not trigger again are removed from the queue.
+     * 
+     * @param owner
+     *            the owner of the notification
+     * @param notification
+     *            the notification
+     */
+    public synchronized void reschedule(P owner, Notification<?, ?> notification) {
+        Map<NotificationAlert, ScheduledAlert<P>> alerts = owners.get(owner);
+        if (alerts == null) {
+            return;
+        }
+        for (NotificationAlert alert : notification.getAlerts()) {
+            ScheduledAlert<P> scheduled = alerts.get(alert);
+            if (scheduled != null && !scheduled.inFlight) {
+                cancel(scheduled);
+                schedule(scheduled);
+            }
+        }
+    }
+
+    /**
+     * Cancels the alerts of the given notification
+     * 
+     * @param owner
+     *            the owner of the notification
+     * @param notification
+     *            the notification
+     */
+    public synchronized void remove(P owner, Notification<?, ?> notification) {
+        Map<NotificationAlert, ScheduledAlert<P>> alerts = owners.get(owner);
+        if (alerts == null) {
+            return;
+        }
+        for (NotificationAlert alert : notification.getAlerts()) {
+            cancel(alerts.remove(alert));
+        }
+        if (alerts.isEmpty()) {
+            owners.remove(owner);
+        }
+    }
+
+    /**
+     * Must be called by the {@linkplain AlertHandler} once a due alert has been triggered, in order to schedule its next
+     * repetition
+     * 
+     * @param scheduled
+     *            the triggered alert
+     */
+    public synchronized void triggered(ScheduledAlert<P> scheduled) {
+        scheduled.inFlight = false;
+        if (isCurrent(scheduled)) {
+            schedule(scheduled);
+        }
+    }
+
+    /**
+     * Must be called by the {@linkplain AlertHandler} for a due alert that should not trigger, typically because a stop
+     * condition has been met. The alert is only scheduled again if it is due later on.
+     * 
+     * @param scheduled
+     *            the skipped alert
+     */
+    public synchronized void skipped(ScheduledAlert<P> scheduled) {
+        scheduled.inFlight = false;
+        if (isCurrent(scheduled)) {
+            long next = scheduled.alert.getNextTriggerTime(scheduled.notification);
+            if (next > System.currentTimeMillis()) {
+                enqueue(scheduled, next);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of alerts waiting in the queue
+     * 
+     * @return the number of alerts waiting in the queue
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Removes the alerts that are due at the given time from the queue and returns them.
+     * <p>
+     * The alerts are not evaluated here. The returned alerts are in flight until {@linkplain #triggered(ScheduledAlert)}
+     * or {@linkplain #skipped(ScheduledAlert)} is called for them.
+     * 
+     * @param now
+     *            the current time
+     * @return the due alerts
+     */
+    public synchronized List<ScheduledAlert<P>> pollDue(long now) {
+        List<ScheduledAlert<P>> due = new ArrayList<>();
+        for (Iterator<ScheduledAlert<P>> it = queue.iterator(); it.hasNext();) {
+            ScheduledAlert<P> scheduled = it.next();
+            if (scheduled.time > now) {
+                break;
+            }
+            it.remove();
+            scheduled.queued = false;
+            scheduled.inFlight = true;
+            due.add(scheduled);
+        }
+        return due;
+    }
+
+    /**
+     * Waits for alerts to become due and dispatches them until the thread is interrupted
+     */
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<ScheduledAlert<P>> due;
+            try {
+                synchronized (this) {
+                    long now = System.currentTimeMillis();
+                    due = pollDue(now);
+                    if (due.isEmpty()) {
+                        long wait = queue.isEmpty() ? MAX_WAIT : Math.min(MAX_WAIT, queue.first().time - now);
+                        wait(Math.max(1L, wait));
+                        continue;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                handler.alertsDue(due);
+            } catch (Exception e) {
+                LOG.error("Failed dispatching notification alerts", e);
+            }
+        }
+    }
+
+    /**
+     * Returns if the given alert is still registered with its owner
+     */
+    private boolean isCurrent(ScheduledAlert<P> scheduled) {
+        Map<NotificationAlert, ScheduledAlert<P>> alerts = owners.get(scheduled.owner);
+        return alerts != null && alerts.get(scheduled.alert) == scheduled;
+    }
+
+    /**
+     * Computes the next trigger time of the given alert and adds it to the queue, unless it will not trigger again
+     */
+    private void schedule(ScheduledAlert<P> scheduled) {
+        long next = scheduled.alert.getNextTriggerTime(scheduled.notification);
+        if (next >= 0) {
+            enqueue(scheduled, next);
+        }
+    }
+
+    /**
+     * Adds the given alert to the queue and wakes up the dispatcher if it is the first alert
+     */
+    private void enqueue(ScheduledAlert<P> scheduled, long time) {
+        scheduled.time = time;
+        scheduled.seq = sequence++;
+        scheduled.queued = true;
+        queue.add(scheduled);
+        if (queue.first() == scheduled) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Removes the given alert from the queue
+     */
+    private void cancel(ScheduledAlert<P> scheduled) {
+        if (scheduled != null && scheduled.queued) {
+            queue.remove(scheduled);
+            scheduled.queued = false;
+        }
+    }
+
+    /**
+     * An alert of a notification waiting to be triggered
+     * 
+     * @param <P>
+     *            the type of the owner of the notification
+     */
+    public static final class ScheduledAlert<P> implements Comparable<ScheduledAlert<P>> {
+
+        private final P owner;
+        private final Notification<?, ?> notification;
+        private final NotificationAlert alert;
+        private long time;
+        private long seq;
+        private boolean queued;
+        private boolean inFlight;
+
+        ScheduledAlert(P owner, Notification<?, ?> notification, NotificationAlert alert) {
+            this.owner = owner;
+            this.notification = notification;
+            this.alert = alert;
+        }
+
+        public P getOwner() {
+            return owner;
+        }
+
+        public Notification<?, ?> getNotification() {
+            return notification;
+        }
+
+        public NotificationAlert getAlert() {
+            return alert;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(ScheduledAlert<P> other) {
+            if (time != other.time) {
+                return (time < other.time) ? -1 : 1;
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * Interface implemented by handlers of due alerts
+     * 
+     * @param <P>
+     *            the type of the owners of the notifications
+     */
+    public interface AlertHandler<P> {
+
+        /**
+         * Called from the scheduler thread with the alerts that are due. The handler must evaluate
+         * {@linkplain NotificationAlert#shouldTrigger(Notification)} on the thread owning the notifications, and call
+         * {@linkplain NotificationAlertScheduler#triggered(ScheduledAlert)} for each alert once it has been triggered, or
+         * {@linkplain NotificationAlertScheduler#skipped(ScheduledAlert)} if it should not trigger.
+         * 
+         * @param alerts
+         *            the due alerts, ordered by their trigger time
+         */
+        void alertsDue(List<ScheduledAlert<P>> alerts);
+    }
+}
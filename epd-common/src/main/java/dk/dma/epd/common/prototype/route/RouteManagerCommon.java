@@ -17,6 +17,8 @@ package dk.dma.epd.common.prototype.route;
 import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,12 +40,14 @@ import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RouteLoadException;
 import dk.dma.epd.common.prototype.model.route.RouteLoader;
 import dk.dma.epd.common.prototype.model.route.RouteMetocSettings;
+import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
 import dk.dma.epd.common.prototype.settings.EnavSettings;
 import dk.dma.epd.common.prototype.shoreservice.ShoreServicesCommon;
 import dk.dma.epd.common.util.Util;
 import dk.frv.enav.common.xml.metoc.MetocForecast;
+import dk.frv.enav.common.xml.metoc.MetocForecastPoint;
 
 /**
  * Base class for route managers, which handles a collection of routes and active route.
@@ -67,6 +71,9 @@ public abstract class RouteManagerCommon extends MapHandlerChild implements Runn
     @GuardedBy("this")
     protected int activeRouteIndex = -1;
 
+    /** Position cells of 0.05 degrees and time buckets of 15 minutes */
+    private final transient RouteMetocCache metocCache = new RouteMetocCache(0.05, 15 * 60 * 1000, 20000);
+
     /**
      * Constructor
      */
@@ -401,6 +408,9 @@ public abstract class RouteManagerCommon extends MapHandlerChild implements Runn
         if (route instanceof ActiveRoute) {
             return false;
         }
+        if (showMetocForRoute(route) && !route.isMetocValid(enavSettings.getMetocTimeDiffTolerance()) && retimeMetoc(route)) {
+            return true;
+        }
         if (!showMetocForRoute(route) || !route.isMetocValid(enavSettings.getMetocTimeDiffTolerance())) {
             if (route.getMetocForecast() != null) {
                 route.removeMetoc();
@@ -420,12 +430,89 @@ public abstract class RouteManagerCommon extends MapHandlerChild implements Runn
     public void requestRouteMetoc(Route route) throws ShoreServiceException {
         // Request METOC from shore
         MetocForecast metocForecast = shoreServices.routeMetoc(route);
+        metocCache.addAll(metocForecast.getForecasts());
         // Add the METOC to route
         route.setMetocForecast(metocForecast);
         // Set show to true
         route.getRouteMetocSettings().setShowRouteMetoc(true);
     }
 
+    /**
+     * Updates the METOC data of a route whose ETAs have drifted.
+     * <p>
+     * The current forecast is re-timed to the new way point ETAs, and only the legs that cannot be covered by the current
+     * forecast or by previously received forecast points are requested from shore. A full request is made if the METOC
+     * data is too old, or if all legs have drifted.
+     * 
+     * @param route
+     *            the route to update METOC data for
+     */
+    public void refreshRouteMetoc(Route route) throws ShoreServiceException {
+        RouteMetocCache.Retiming retiming = isMetocOld(route) ? null : metocCache.retime(route, getMetocTolerance());
+        if (retiming == null || retiming.isAllStale()) {
+            requestRouteMetoc(route);
+            return;
+        }
+
+        List<MetocForecastPoint> points = new ArrayList<>(retiming.getPoints());
+        for (int[] legs : retiming.getStaleLegs()) {
+            MetocForecast legForecast = shoreServices.routeMetoc(createMetocRoute(route, legs[0], legs[1]));
+            metocCache.addAll(legForecast.getForecasts());
+            points.addAll(legForecast.getForecasts());
+        }
+        LOG.info("Refreshed route METOC, requested " + retiming.getStaleLegs().size() + " leg runs");
+        setMergedMetoc(route, points, retiming.getMetocEtas());
+    }
+
+    /**
+     * Re-times the METOC data of a route to its current ETAs without contacting shore
+     * 
+     * @param route
+     *            the route
+     * @return if all legs could be covered by the current forecast or previously received forecast points
+     */
+    protected boolean retimeMetoc(Route route) {
+        RouteMetocCache.Retiming retiming = metocCache.retime(route, getMetocTolerance());
+        if (retiming == null || !retiming.getStaleLegs().isEmpty()) {
+            return false;
+        }
+        setMergedMetoc(route, new ArrayList<>(retiming.getPoints()), retiming.getMetocEtas());
+        return true;
+    }
+
+    private void setMergedMetoc(Route route, List<MetocForecastPoint> points, List<Date> metocEtas) {
+        Collections.sort(points, new Comparator<MetocForecastPoint>() {
+            @Override
+            public int compare(MetocForecastPoint p1, MetocForecastPoint p2) {
+                return p1.getTime().compareTo(p2.getTime());
+            }
+        });
+        MetocForecast merged = new MetocForecast();
+        // Keep the creation time of the original forecast, so the METOC TTL still applies
+        merged.setCreated(route.getMetocForecast().getCreated());
+        merged.getForecasts().addAll(points);
+        route.setMetocForecast(merged, metocEtas);
+    }
+
+    /**
+     * Creates a route of the given way points of the route, starting at the current ETA of the first way point
+     */
+    private static Route createMetocRoute(Route route, int firstWp, int lastWp) {
+        Date starttime = route.getWpEta(firstWp);
+        Route metocRoute = route.copy();
+        LinkedList<RouteWaypoint> waypoints = new LinkedList<>(metocRoute.getWaypoints().subList(firstWp, lastWp + 1));
+        waypoints.getFirst().setInLeg(null);
+        waypoints.getLast().setOutLeg(null);
+        metocRoute.setWaypoints(waypoints);
+        metocRoute.setRouteMetocSettings(route.getRouteMetocSettings());
+        metocRoute.setStarttime(starttime);
+        return metocRoute;
+    }
+
+    private long getMetocTolerance() {
+        return enavSettings.getMetocTimeDiffTolerance() * 60 * 1000L;
+    }
+
     /**
      * Determine if route METOC data should be shown for route
      * 
@@ -498,6 +585,11 @@ public abstract class RouteManagerCommon extends MapHandlerChild implements Runn
                 if (route.getMetocForecast() == null) {
                     continue;
                 }
+                if (!isMetocOld(route) && !route.isMetocValid(enavSettings.getMetocTimeDiffTolerance())
+                        && retimeMetoc(route)) {
+                    visualUpdate |= route.isVisible() && route.getRouteMetocSettings().isShowRouteMetoc();
+                    continue;
+                }
                 if (isMetocOld(route) || !route.isMetocValid(enavSettings.getMetocTimeDiffTolerance())) {
                     if (route.isVisible() && route.getRouteMetocSettings().isShowRouteMetoc()) {
                         visualUpdate = true;
@@ -547,7 +639,7 @@ public abstract class RouteManagerCommon extends MapHandlerChild implements Runn
         }
 
         try {
-            requestRouteMetoc(getActiveRoute());
+            refreshRouteMetoc(getActiveRoute());
             notifyListeners(RoutesUpdateEvent.ROUTE_METOC_CHANGED);
             LOG.info("Auto updated route metoc for active route");
         } catch (ShoreServiceException e) {
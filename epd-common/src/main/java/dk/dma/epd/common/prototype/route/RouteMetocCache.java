@@ -0,0 +1,336 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import net.jcip.annotations.ThreadSafe;
+import dk.dma.epd.common.prototype.model.route.ActiveRoute;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.frv.enav.common.xml.metoc.MetocForecastPoint;
+
+/**
+ * Cache of received route METOC forecast points, keyed by position cell and forecast time.
+ * <p>
+ * When the ETAs of a route drift, {@linkplain #retime(Route, long)} maps the current forecast of the route onto the new
+ * way point ETAs. Points on legs whose time window moved less than the tolerance from the one they were fetched for are
+ * kept. For the other legs the cache is
+ * searched for a forecast at the same position and the new passing time, and the legs that cannot be covered that way are
+ * returned, so that only they need to be requested from shore.
+ */
+@ThreadSafe
+public class RouteMetocCache {
+
+    private final double cellSize;
+    private final long timeBucket;
+    private final int maxPoints;
+
+    private final LinkedHashMap<Key, MetocForecastPoint> points = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * Constructor
+     * 
+     * @param cellSize
+     *            the size of a position cell in degrees
+     * @param timeBucket
+     *            the length of a forecast time bucket in milliseconds
+     * @param maxPoints
+     *            the maximum number of cached points
+     */
+    public RouteMetocCache(double cellSize, long timeBucket, int maxPoints) {
+        this.cellSize = cellSize;
+        this.timeBucket = timeBucket;
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Adds the received forecast points to the cache
+     * 
+     * @param forecasts
+     *            the forecast points
+     */
+    public synchronized void addAll(List<MetocForecastPoint> forecasts) {
+        for (MetocForecastPoint point : forecasts) {
+            if (point.getTime() != null) {
+                points.put(key(point.getLat(), point.getLon(), point.getTime().getTime()), point);
+            }
+        }
+        Iterator<Key> it = points.keySet().iterator();
+        while (points.size() > maxPoints && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the cached forecast point in the cell of the given position closest to the given time
+     * 
+     * @param lat
+     *            the latitude
+     * @param lon
+     *            the longitude
+     * @param time
+     *            the time
+     * @param tolerance
+     *            the maximum time difference in milliseconds
+     * @return the forecast point, or null if none is found within the tolerance
+     */
+    public synchronized MetocForecastPoint find(double lat, double lon, long time, long tolerance) {
+        Key key = key(lat, lon, time);
+        long buckets = tolerance / timeBucket + 1;
+        MetocForecastPoint best = null;
+        long bestDiff = Long.MAX_VALUE;
+        for (long bucket = key.bucket - buckets; bucket <= key.bucket + buckets; bucket++) {
+            MetocForecastPoint point = points.get(new Key(key.lat, key.lon, bucket));
+            if (point != null) {
+                long diff = Math.abs(point.getTime().getTime() - time);
+                if (diff <= tolerance && diff < bestDiff) {
+                    best = point;
+                    bestDiff = diff;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Clears the cache
+     */
+    public synchronized void clear() {
+        points.clear();
+    }
+
+    /**
+     * Returns the number of cached forecast points
+     * 
+     * @return the number of cached forecast points
+     */
+    public synchronized int size() {
+        return points.size();
+    }
+
+    /**
+     * Maps the current forecast of the route onto its current way point ETAs
+     * 
+     * @param route
+     *            the route
+     * @param tolerance
+     *            the allowed time difference in milliseconds
+     * @return the result, or null if the route has no forecast or the leg times used for the forecast are unknown
+     */
+    public Retiming retime(Route route, long tolerance) {
+        List<Date> metocEtas = route.getMetocEtas();
+        int wpCount = route.getWaypoints().size();
+        if (route.getMetocForecast() == null || metocEtas == null || metocEtas.size() != 2 * (wpCount - 1)) {
+            return null;
+        }
+        List<Date> newEtas = new ArrayList<>(wpCount);
+        for (int i = 0; i < wpCount; i++) {
+            newEtas.add(route.getWpEta(i));
+        }
+        int firstLeg = route instanceof ActiveRoute ? Math.max(((ActiveRoute) route).getActiveWaypointIndex() - 1, 0) : 0;
+        return retime(metocEtas, newEtas, firstLeg, route.getMetocForecast().getForecasts(), tolerance);
+    }
+
+    /**
+     * Maps forecast points onto new way point ETAs.
+     * <p>
+     * Each leg is compared with the leg times its points were fetched for, not with the ETAs of an earlier re-timing, so
+     * repeated drifts within the tolerance cannot add up. Legs that are kept retain their original leg times in the
+     * result, while re-timed and stale legs get the new ones.
+     * 
+     * @param metocEtas
+     *            the start and end time of each leg that the points were fetched for, two entries per leg
+     * @param newEtas
+     *            the new way point ETAs
+     * @param firstLeg
+     *            the first leg to map, the points of earlier legs are dropped
+     * @param forecasts
+     *            the forecast points
+     * @param tolerance
+     *            the allowed time difference in milliseconds
+     * @return the result, or null if any of the times are unknown
+     */
+    public Retiming retime(List<Date> metocEtas, List<Date> newEtas, int firstLeg, List<MetocForecastPoint> forecasts,
+            long tolerance) {
+        int wpCount = newEtas.size();
+        if (metocEtas.size() != 2 * (wpCount - 1) || metocEtas.contains(null) || newEtas.contains(null)) {
+            return null;
+        }
+
+        List<MetocForecastPoint> result = new ArrayList<>(forecasts.size());
+        List<Date> resultEtas = new ArrayList<>(metocEtas.subList(0, 2 * firstLeg));
+        List<int[]> staleLegs = new ArrayList<>();
+        Set<MetocForecastPoint> assigned = Collections.newSetFromMap(new IdentityHashMap<MetocForecastPoint, Boolean>());
+
+        for (int leg = firstLeg; leg < wpCount - 1; leg++) {
+            long oldStart = metocEtas.get(2 * leg).getTime();
+            long oldEnd = metocEtas.get(2 * leg + 1).getTime();
+            long newStart = newEtas.get(leg).getTime();
+            long newEnd = newEtas.get(leg + 1).getTime();
+            boolean lastLeg = leg == wpCount - 2;
+            List<MetocForecastPoint> legPoints = pointsInWindow(forecasts, oldStart, oldEnd, lastLeg, assigned);
+
+            if (Math.abs(newStart - oldStart) <= tolerance && Math.abs(newEnd - oldEnd) <= tolerance) {
+                result.addAll(legPoints);
+                resultEtas.add(metocEtas.get(2 * leg));
+                resultEtas.add(metocEtas.get(2 * leg + 1));
+                continue;
+            }
+            resultEtas.add(newEtas.get(leg));
+            resultEtas.add(newEtas.get(leg + 1));
+
+            // Look up a forecast for the new passing time of each point on the leg
+            List<MetocForecastPoint> retimed = new ArrayList<>(legPoints.size());
+            for (MetocForecastPoint point : legPoints) {
+                double fraction = oldEnd > oldStart ? (point.getTime().getTime() - oldStart) / (double) (oldEnd - oldStart) : 0.0;
+                long passingTime = newStart + Math.round(fraction * (newEnd - newStart));
+                MetocForecastPoint cached = find(point.getLat(), point.getLon(), passingTime, tolerance);
+                if (cached == null) {
+                    retimed = null;
+                    break;
+                }
+                retimed.add(cached);
+            }
+
+            if (retimed != null) {
+                result.addAll(retimed);
+            } else if (!staleLegs.isEmpty() && staleLegs.get(staleLegs.size() - 1)[1] == leg) {
+                staleLegs.get(staleLegs.size() - 1)[1] = leg + 1;
+            } else {
+                staleLegs.add(new int[] { leg, leg + 1 });
+            }
+        }
+        return new Retiming(result, resultEtas, staleLegs, wpCount - 1 - firstLeg);
+    }
+
+    /**
+     * Returns the points within the time window that are not yet assigned to a leg, and assigns them
+     */
+    private static List<MetocForecastPoint> pointsInWindow(List<MetocForecastPoint> forecasts, long start, long end,
+            boolean inclusive, Set<MetocForecastPoint> assigned) {
+        List<MetocForecastPoint> result = new ArrayList<>();
+        for (MetocForecastPoint point : forecasts) {
+            long time = point.getTime().getTime();
+            if (time >= start && (time < end || inclusive && time == end) && assigned.add(point)) {
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    private Key key(double lat, double lon, long time) {
+        return new Key((int) Math.floor(lat / cellSize), (int) Math.floor(lon / cellSize), Math.floorDiv(time, timeBucket));
+    }
+
+    /**
+     * The result of re-timing a route forecast
+     */
+    public static final class Retiming {
+
+        private final List<MetocForecastPoint> points;
+        private final List<Date> metocEtas;
+        private final List<int[]> staleLegs;
+        private final int legCount;
+
+        Retiming(List<MetocForecastPoint> points, List<Date> metocEtas, List<int[]> staleLegs, int legCount) {
+            this.points = Collections.unmodifiableList(points);
+            this.metocEtas = Collections.unmodifiableList(metocEtas);
+            this.staleLegs = Collections.unmodifiableList(staleLegs);
+            this.legCount = legCount;
+        }
+
+        /**
+         * Returns the forecast points that are still valid for the new ETAs
+         * 
+         * @return the valid forecast points
+         */
+        public List<MetocForecastPoint> getPoints() {
+            return points;
+        }
+
+        /**
+         * Returns the start and end time of each leg that the valid forecast points, and the points requested for the
+         * stale legs, are for
+         * 
+         * @return the leg times, two entries per leg
+         */
+        public List<Date> getMetocEtas() {
+            return metocEtas;
+        }
+
+        /**
+         * Returns the runs of consecutive legs that must be requested, as {@code [first way point, last way point]}
+         * 
+         * @return the stale legs
+         */
+        public List<int[]> getStaleLegs() {
+            return staleLegs;
+        }
+
+        /**
+         * Returns if all legs must be requested
+         * 
+         * @return if all legs must be requested
+         */
+        public boolean isAllStale() {
+            int stale = 0;
+            for (int[] run : staleLegs) {
+                stale += run[1] - run[0];
+            }
+            return stale >= legCount;
+        }
+    }
+
+    /**
+     * Position cell and time bucket of a forecast point
+     */
+    private static final class Key {
+
+        final int lat;
+        final int lon;
+        final long bucket;
+
+        Key(int lat, int lon, long bucket) {
+            this.lat = lat;
+            this.lon = lon;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return lat == other.lat && lon == other.lon && bucket == other.bucket;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = lat;
+            result = 31 * result + lon;
+            result = 31 * result + (int) (bucket ^ (bucket >>> 32));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import net.maritimecloud.core.id.MaritimeId;
+import net.maritimecloud.core.id.MmsiId;
+import net.maritimecloud.util.Timestamp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dk.dma.epd.common.prototype.service.internal.EPDChatMessage;
+import dma.messaging.MaritimeText;
+import dma.messaging.MaritimeTextingNotificationSeverity;
+
+/**
+ * Append-only on-disk log of chat messages with a sparse time index.
+ * <p>
+ * Each record carries the time it was logged, which never decreases through the log. Every {@linkplain #INDEX_INTERVAL}th
+ * record has its time and file offset written to an index file next to the log, so reading the records of a time range
+ * seeks directly to the nearest indexed record instead of scanning the log from the start. A torn record at the end of the
+ * log, e.g. after a crash, is truncated when the log is opened, and a missing or stale index is rebuilt from the log.
+ * <p>
+ * The log only grows, so the owner is expected to {@linkplain #compact(long) compact} it now and then, dropping the records
+ * that are no longer needed.
+ */
+@ThreadSafe
+public class ChatLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChatLog.class);
+
+    private static final int MAGIC = 0x45504443;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    /** Number of records between two index entries */
+    public static final int INDEX_INTERVAL = 64;
+
+    /** Record type of a chat message */
+    public static final byte MESSAGE = 0;
+
+    /** Record type marking that the chat messages of a target have been cleared */
+    public static final byte CLEAR = 1;
+
+    private final Path logFile;
+    private final Path indexFile;
+
+    @GuardedBy("this")
+    private FileChannel log;
+    @GuardedBy("this")
+    private FileChannel index;
+    @GuardedBy("this")
+    private long logSize;
+    @GuardedBy("this")
+    private long lastTime;
+    @GuardedBy("this")
+    private long[] indexTimes = new long[16];
+    @GuardedBy("this")
+    private long[] indexOffsets = new long[16];
+    @GuardedBy("this")
+    private int indexSize;
+    @GuardedBy("this")
+    private int recordsSinceIndex;
+
+    /**
+     * Constructor
+     * 
+     * @param logFile
+     *            the log file. The index is stored next to it
+     */
+    public ChatLog(Path logFile) {
+        this.logFile = logFile;
+        this.indexFile = logFile.resolveSibling(logFile.getFileName() + ".idx");
+    }
+
+    /**
+     * Appends a chat message to the log. Only messages exchanged with MMSI targets are logged.
+     * 
+     * @param id
+     *            the maritime id of the target
+     * @param message
+     *            the message
+     */
+    public synchronized void appendMessage(MaritimeId id, EPDChatMessage message) throws IOException {
+        Long mmsi = MaritimeCloudUtils.toMmsi(id);
+        if (mmsi == null) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        long time = open();
+        out.writeByte(MESSAGE);
+        out.writeLong(time);
+        out.writeLong(mmsi);
+        out.writeLong(message.getSendDate().getTime());
+        out.writeBoolean(message.isOwnMessage());
+        out.writeUTF(message.getSeverity() == null ? "" : message.getSeverity().name());
+        byte[] msg = message.getMsg() == null ? new byte[0] : message.getMsg().getBytes("UTF-8");
+        out.writeInt(msg.length);
+        out.write(msg);
+        append(time, bytes.toByteArray());
+    }
+
+    /**
+     * Appends a marker to the log stating that the chat messages of the given target have been cleared
+     * 
+     * @param id
+     *            the maritime id of the target
+     */
+    public synchronized void appendClear(MaritimeId id) throws IOException {
+        Long mmsi = MaritimeCloudUtils.toMmsi(id);
+        if (mmsi == null) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        long time = open();
+        out.writeByte(CLEAR);
+        out.writeLong(time);
+        out.writeLong(mmsi);
+        append(time, bytes.toByteArray());
+    }
+
+    /**
+     * Reads the records logged within the given time range, in log order
+     * 
+     * @param fromTime
+     *            the earliest log time, inclusive
+     * @param toTime
+     *            the latest log time, inclusive
+     * @return the records logged within the time range
+     */
+    public synchronized List<Entry> read(long fromTime, long toTime) throws IOException {
+        open();
+        List<Entry> entries = new ArrayList<>();
+
+        long offset = indexedOffset(fromTime);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log.position(offset))));
+        while (offset < logSize) {
+            byte[] payload = readRecord(in);
+            offset += 8 + payload.length;
+            Entry entry = decode(payload);
+            if (entry.getTime() > toTime) {
+                break;
+            } else if (entry.getTime() >= fromTime) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Drops the records logged before the given time. The remaining records are copied to a new log, which replaces the
+     * current one, and the index is rebuilt. Nothing is done if no record is old enough.
+     * 
+     * @param fromTime
+     *            the earliest log time to keep
+     * @return the number of bytes dropped from the log
+     */
+    public synchronized long compact(long fromTime) throws IOException {
+        open();
+
+        // Find the first record to keep
+        long offset = indexedOffset(fromTime);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log.position(offset))));
+        while (offset < logSize) {
+            byte[] payload = readRecord(in);
+            if (decode(payload).getTime() >= fromTime) {
+                break;
+            }
+            offset += 8 + payload.length;
+        }
+        if (offset == HEADER_SIZE) {
+            return 0;
+        }
+
+        Path tmpFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (FileChannel tmp = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).flip();
+            while (header.hasRemaining()) {
+                tmp.write(header);
+            }
+            for (long position = offset; position < logSize;) {
+                position += log.transferTo(position, logSize - position, tmp);
+            }
+            tmp.force(false);
+        }
+
+        // The index goes first, so a crash before the new log is in place merely rebuilds the index of the old log
+        long time = lastTime;
+        close();
+        Files.deleteIfExists(indexFile);
+        Files.move(tmpFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexTimes = new long[16];
+        indexOffsets = new long[16];
+        open();
+        lastTime = Math.max(lastTime, time);
+        LOG.info("Dropped " + (offset - HEADER_SIZE) + " bytes from the chat log");
+        return offset - HEADER_SIZE;
+    }
+
+    /**
+     * Closes the log files. The log is reopened on the next access.
+     */
+    public synchronized void close() {
+        try {
+            if (log != null) {
+                log.close();
+            }
+            if (index != null) {
+                index.close();
+            }
+        } catch (IOException e) {
+            LOG.error("Failed closing chat log: " + e.getMessage());
+        }
+        log = null;
+        index = null;
+    }
+
+    /**
+     * Opens the log files if needed and returns the time to log the next record with
+     * 
+     * @return the time to log the next record with
+     */
+    private long open() throws IOException {
+        if (log == null) {
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                recover();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+        lastTime = Math.max(lastTime, System.currentTimeMillis());
+        return lastTime;
+    }
+
+    /**
+     * Validates the log header, loads the index and scans the records logged after the last indexed record
+     */
+    private void recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (log.size() < HEADER_SIZE) {
+            header.putInt(MAGIC).putShort(VERSION).flip();
+            log.truncate(0);
+            log.write(header, 0);
+            index.truncate(0);
+        } else {
+            log.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+                throw new IOException("Not a chat log: " + logFile);
+            }
+        }
+        long size = log.size();
+
+        // Load the index entries that point into the log
+        indexSize = 0;
+        ByteBuffer entries = ByteBuffer.allocate((int) (index.size() / INDEX_ENTRY_SIZE * INDEX_ENTRY_SIZE));
+        index.read(entries, 0);
+        entries.flip();
+        while (entries.remaining() >= INDEX_ENTRY_SIZE) {
+            long time = entries.getLong();
+            long offset = entries.getLong();
+            if (offset < HEADER_SIZE || offset >= size || (indexSize > 0 && offset <= indexOffsets[indexSize - 1])) {
+                break;
+            }
+            addIndexEntry(time, offset);
+        }
+        index.truncate((long) indexSize * INDEX_ENTRY_SIZE);
+
+        // Scan the records after the last indexed record, indexing them and dropping a torn record at the end
+        long offset = (indexSize == 0) ? HEADER_SIZE : indexOffsets[indexSize - 1];
+        long indexedOffset = offset;
+        recordsSinceIndex = 0;
+        logSize = offset;
+        lastTime = (indexSize == 0) ? 0 : indexTimes[indexSize - 1];
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log.position(offset))));
+        while (offset < size) {
+            Entry entry;
+            try {
+                byte[] payload = readRecord(in);
+                entry = decode(payload);
+                logSize = offset + 8 + payload.length;
+            } catch (IOException e) {
+                LOG.warn("Truncating chat log at offset " + offset + ": " + e);
+                if (indexSize > 0 && offset == indexedOffset) {
+                    // The indexed record itself was lost, so the next record is indexed instead
+                    indexSize--;
+                    index.truncate((long) indexSize * INDEX_ENTRY_SIZE);
+                    recordsSinceIndex = INDEX_INTERVAL;
+                }
+                break;
+            }
+            if (indexSize > 0 && offset == indexedOffset) {
+                recordsSinceIndex++;
+            } else {
+                track(entry.getTime(), offset);
+            }
+            lastTime = Math.max(lastTime, entry.getTime());
+            offset = logSize;
+        }
+        log.truncate(logSize);
+    }
+
+    /**
+     * Returns the offset of the last indexed record logged before the given time, or of the first record if there is none
+     */
+    private long indexedOffset(long fromTime) {
+        int i = Arrays.binarySearch(indexTimes, 0, indexSize, fromTime);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        while (i > 0 && indexTimes[i - 1] >= fromTime) {
+            i--;
+        }
+        return (i == 0) ? HEADER_SIZE : indexOffsets[i - 1];
+    }
+
+    /**
+     * Writes a record at the end of the log
+     */
+    private void append(long time, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        long offset = logSize;
+        while (record.hasRemaining()) {
+            log.write(record, offset + record.position());
+        }
+        logSize = offset + 8 + payload.length;
+        track(time, offset);
+    }
+
+    /**
+     * Counts a record and writes an index entry for it if it is the first record since the last index entry
+     */
+    private void track(long time, long offset) throws IOException {
+        if (indexSize == 0 || recordsSinceIndex == INDEX_INTERVAL) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            entry.putLong(time).putLong(offset).flip();
+            index.write(entry, (long) indexSize * INDEX_ENTRY_SIZE);
+            addIndexEntry(time, offset);
+            recordsSinceIndex = 0;
+        }
+        recordsSinceIndex++;
+    }
+
+    private void addIndexEntry(long time, long offset) {
+        if (indexSize == indexTimes.length) {
+            indexTimes = Arrays.copyOf(indexTimes, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTimes[indexSize] = time;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+    }
+
+    /**
+     * Reads and verifies the payload of the next record
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length < 0 || length > 1 << 24) {
+            throw new IOException("Invalid record length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Record checksum mismatch");
+        }
+        return payload;
+    }
+
+    /**
+     * Decodes the payload of a record
+     */
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            byte type = in.readByte();
+            long time = in.readLong();
+            MaritimeId id = new MmsiId((int) in.readLong());
+            if (type == CLEAR) {
+                return new Entry(type, time, id, null);
+            } else if (type != MESSAGE) {
+                throw new IOException("Unknown record type " + type);
+            }
+
+            long sendTime = in.readLong();
+            boolean own = in.readBoolean();
+            String severity = in.readUTF();
+            byte[] msg = new byte[in.readInt()];
+            in.readFully(msg);
+
+            MaritimeText text = new MaritimeText();
+            text.setMsg(new String(msg, "UTF-8"));
+            if (!severity.isEmpty()) {
+                text.setSeverity(MaritimeTextingNotificationSeverity.valueOf(severity));
+            }
+            return new Entry(type, time, id, new EPDChatMessage(text, own, Timestamp.create(sendTime)));
+        } catch (EOFException | IllegalArgumentException e) {
+            throw new IOException("Malformed record", e);
+        }
+    }
+
+    /**
+     * A record of the chat log
+     */
+    public static class Entry {
+
+        private final byte type;
+        private final long time;
+        private final MaritimeId id;
+        private final EPDChatMessage message;
+
+        Entry(byte type, long time, MaritimeId id, EPDChatMessage message) {
+            this.type = type;
+            this.time = time;
+            this.id = id;
+            this.message = message;
+        }
+
+        /**
+         * Returns the record type, either {@linkplain ChatLog#MESSAGE} or {@linkplain ChatLog#CLEAR}
+         * 
+         * @return the record type
+         */
+        public byte getType() {
+            return type;
+        }
+
+        /**
+         * Returns the time the record was logged
+         * 
+         * @return the time the record was logged
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Returns the maritime id of the target
+         * 
+         * @return the maritime id of the target
+         */
+        public MaritimeId getId() {
+            return id;
+        }
+
+        /**
+         * Returns the chat message, or null for a clear marker
+         * 
+         * @return the chat message
+         */
+        public EPDChatMessage getMessage() {
+            return message;
+        }
+    }
+}
@@ -15,22 +15,49 @@
 package dk.dma.epd.common.prototype.service;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
 import net.maritimecloud.core.id.MaritimeId;
 import dk.dma.epd.common.prototype.service.internal.EPDChatMessage;
 
 /**
  * Wraps a list of chat messages for a given maritime id
+ * <p>
+ * The messages are appended to fixed-size segments kept in a ring. When the ring is full, the oldest segment is dropped and
+ * reused, so a conversation holds at most {@linkplain #MAX_MESSAGES} messages and appending never copies the retained
+ * messages. Older messages remain available in the {@linkplain ChatLog}.
  */
+@ThreadSafe
 public class ChatServiceData implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /** Number of messages per segment */
+    public static final int SEGMENT_SIZE = 64;
+
+    /** Maximum number of segments retained per conversation */
+    public static final int MAX_SEGMENTS = 32;
+
+    /** Maximum number of messages retained per conversation */
+    public static final int MAX_MESSAGES = SEGMENT_SIZE * MAX_SEGMENTS;
 
     private MaritimeId id;
-    private List<EPDChatMessage> messages = new CopyOnWriteArrayList<>();
-    private boolean read = true; // Initially empty list of messages
+
+    @GuardedBy("this")
+    private EPDChatMessage[][] segments = new EPDChatMessage[MAX_SEGMENTS][];
+    @GuardedBy("this")
+    private int firstSegment;
+    @GuardedBy("this")
+    private int segmentCount;
+    @GuardedBy("this")
+    private int size;
+    @GuardedBy("this")
+    private int unreadCount;
 
     /**
      * Constructor
@@ -52,12 +79,45 @@ public class ChatServiceData implements Serializable {
     }
 
     /**
-     * Returns the list of chat service messages
+     * Returns a copy of the retained chat service messages, oldest first
      * 
      * @return the list of chat service messages
      */
-    public List<EPDChatMessage> getMessages() {
-        return messages;
+    public synchronized List<EPDChatMessage> getMessages() {
+        return getMessages(0, size);
+    }
+
+    /**
+     * Returns a page of the retained chat service messages, oldest first
+     * 
+     * @param from
+     *            the index of the first message to return
+     * @param count
+     *            the maximum number of messages to return
+     * @return the page of chat service messages
+     */
+    public synchronized List<EPDChatMessage> getMessages(int from, int count) {
+        int start = Math.max(0, from);
+        int end = Math.min(size, start + Math.max(0, count));
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+        List<EPDChatMessage> page = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            page.add(get(i));
+        }
+        return page;
+    }
+
+    /**
+     * Returns the latest retained chat service messages, oldest first
+     * 
+     * @param count
+     *            the maximum number of messages to return
+     * @return the latest chat service messages
+     */
+    public synchronized List<EPDChatMessage> getLatestMessages(int count) {
+        return getMessages(size - count, count);
     }
 
     /**
@@ -65,17 +125,26 @@ public class ChatServiceData implements Serializable {
      * 
      * @return the latest chat message
      */
-    public EPDChatMessage getLatestMessage() {
-        return (messages == null) ? null : messages.get(messages.size() - 1);
+    public synchronized EPDChatMessage getLatestMessage() {
+        return (size == 0) ? null : get(size - 1);
     }
 
     /**
-     * Returns the number of messages
+     * Returns the number of retained messages
      * 
      * @return the number of messages
      */
-    public int getMessageCount() {
-        return messages.size();
+    public synchronized int getMessageCount() {
+        return size;
+    }
+
+    /**
+     * Returns the number of unread messages
+     * 
+     * @return the number of unread messages
+     */
+    public synchronized int getUnreadCount() {
+        return unreadCount;
     }
 
     /**
@@ -84,19 +153,67 @@ public class ChatServiceData implements Serializable {
      * @param message
      *            the message to add
      */
-    public void addChatMessage(EPDChatMessage message) {
-        messages.add(message);
+    public synchronized void addChatMessage(EPDChatMessage message) {
+        int slot = size - (segmentCount - 1) * SEGMENT_SIZE;
+        if (segmentCount == 0 || slot == SEGMENT_SIZE) {
+            addSegment();
+            slot = 0;
+        }
+        segments[(firstSegment + segmentCount - 1) % MAX_SEGMENTS][slot] = message;
+        size++;
+
         if (!message.isOwnMessage()) {
-            setRead(false);
+            unreadCount = Math.min(unreadCount + 1, size);
+        }
+    }
+
+    /**
+     * Removes all messages
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < segmentCount; i++) {
+            Arrays.fill(segments[(firstSegment + i) % MAX_SEGMENTS], null);
         }
+        segmentCount = 0;
+        size = 0;
+        unreadCount = 0;
     }
 
-    public boolean isRead() {
-        return read;
+    public synchronized boolean isRead() {
+        return unreadCount == 0;
     }
 
-    public void setRead(boolean read) {
-        this.read = read;
+    public synchronized void setRead(boolean read) {
+        if (read) {
+            unreadCount = 0;
+        } else if (unreadCount == 0) {
+            unreadCount = 1;
+        }
     }
 
+    /**
+     * Opens a new segment at the end of the ring, dropping the oldest segment if the ring is full
+     */
+    private void addSegment() {
+        if (segmentCount == MAX_SEGMENTS) {
+            EPDChatMessage[] oldest = segments[firstSegment];
+            Arrays.fill(oldest, null);
+            firstSegment = (firstSegment + 1) % MAX_SEGMENTS;
+            segmentCount--;
+            size -= SEGMENT_SIZE;
+            unreadCount = Math.min(unreadCount, size);
+        }
+        int index = (firstSegment + segmentCount) % MAX_SEGMENTS;
+        if (segments[index] == null) {
+            segments[index] = new EPDChatMessage[SEGMENT_SIZE];
+        }
+        segmentCount++;
+    }
+
+    /**
+     * Returns the retained message with the given index
+     */
+    private EPDChatMessage get(int index) {
+        return segments[(firstSegment + index / SEGMENT_SIZE) % MAX_SEGMENTS][index % SEGMENT_SIZE];
+    }
 }
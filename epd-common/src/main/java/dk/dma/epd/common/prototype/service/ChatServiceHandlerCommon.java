@@ -14,10 +14,15 @@
  */
 package dk.dma.epd.common.prototype.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import net.maritimecloud.core.id.MaritimeId;
@@ -28,6 +33,7 @@ import net.maritimecloud.util.Timestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.notification.Notification.NotificationSeverity;
 import dk.dma.epd.common.prototype.service.internal.EPDChatMessage;
 import dma.messaging.AbstractMaritimeTextingService;
@@ -42,9 +48,23 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
 
     private static final Logger LOG = LoggerFactory.getLogger(ChatServiceHandlerCommon.class);
 
+    /** Chat messages logged within this period are restored at start-up. Older messages are dropped from the chat log */
+    private static final long HISTORY_PERIOD = TimeUnit.DAYS.toMillis(7);
+
     private List<MaritimeTextingService> chatServiceList = new ArrayList<>();
     protected List<IChatServiceListener> listeners = new CopyOnWriteArrayList<>();
     private ConcurrentHashMap<MaritimeId, ChatServiceData> chatMessages = new ConcurrentHashMap<>();
+    private final ChatLog chatLog = new ChatLog(EPD.getInstance().getHomePath().resolve(".chatlog"));
+
+    // Writes to the chat log, so that chat messages sent from the GUI do not wait for the disk
+    private final ScheduledExecutorService chatLogWriter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ChatLog");
+            t.setDaemon(true);
+            return t;
+        }
+    });
 
     /**
      * Constructor
@@ -52,6 +72,16 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
     public ChatServiceHandlerCommon() {
         super();
 
+        loadChatHistory();
+
+        // Drop the messages that have fallen out of the history period once a day
+        chatLogWriter.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                compactChatLog();
+            }
+        }, 1, 1, TimeUnit.DAYS);
+
         // Schedule a refresh of the chat services approximately every minute
         scheduleWithFixedDelayWhenConnected(new Runnable() {
             @Override
@@ -176,6 +206,7 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
 
         // Store the message
         getOrCreateChatServiceData(targetId).addChatMessage(epdChatMessage);
+        logChatMessage(targetId, epdChatMessage);
 
         // Find a matching chat end point and send the message
         MaritimeTextingService chatMessageService = MaritimeCloudUtils.findServiceWithMmsi(chatServiceList,
@@ -219,10 +250,12 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
      * @return the chatMessages
      */
     public ChatServiceData getOrCreateChatServiceData(MaritimeId id) {
-        if (!chatMessages.containsKey(id)) {
-            chatMessages.put(id, new ChatServiceData(id));
+        ChatServiceData chatData = chatMessages.get(id);
+        if (chatData == null) {
+            chatMessages.putIfAbsent(id, new ChatServiceData(id));
+            chatData = chatMessages.get(id);
         }
-        return chatMessages.get(id);
+        return chatData;
     }
 
     /**
@@ -239,6 +272,7 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
         EPDChatMessage chatMessage = new EPDChatMessage(message, false, timestamp);
 
         getOrCreateChatServiceData(senderId).addChatMessage(chatMessage);
+        logChatMessage(senderId, chatMessage);
 
         // Notify listeners
         fireChatMessagesUpdated(senderId);
@@ -250,16 +284,116 @@ public class ChatServiceHandlerCommon extends EnavServiceHandlerCommon {
      * @param id
      *            the maritime id
      */
-    public void clearChatMessages(MaritimeId id) {
+    public void clearChatMessages(final MaritimeId id) {
         ChatServiceData chatData = getChatServiceData(id);
         if (chatData != null) {
-            chatData.getMessages().clear();
+            chatData.clear();
+            writeChatLog(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        chatLog.appendClear(id);
+                    } catch (IOException e) {
+                        LOG.error("Failed to log clearing chat messages: " + e.getMessage());
+                    }
+                }
+            });
 
             // Notify listeners
             fireChatMessagesUpdated(id);
         }
     }
 
+    /**
+     * Appends the given chat message to the chat log on the chat log thread
+     * 
+     * @param id
+     *            the maritime id of the target
+     * @param message
+     *            the message
+     */
+    private void logChatMessage(final MaritimeId id, final EPDChatMessage message) {
+        writeChatLog(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    chatLog.appendMessage(id, message);
+                } catch (IOException e) {
+                    LOG.error("Failed to log chat message: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the given write to the chat log on the chat log thread, in submission order
+     * 
+     * @param write
+     *            the write to run
+     */
+    private void writeChatLog(Runnable write) {
+        try {
+            chatLogWriter.execute(write);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Chat log closed, dropping write");
+        }
+    }
+
+    /**
+     * Drops the chat messages logged before the {@linkplain #HISTORY_PERIOD} from the chat log
+     */
+    private void compactChatLog() {
+        try {
+            chatLog.compact(System.currentTimeMillis() - HISTORY_PERIOD);
+        } catch (IOException e) {
+            LOG.error("Failed to compact chat log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restores the chat messages logged within the {@linkplain #HISTORY_PERIOD}, after dropping the older ones from the chat
+     * log. Restored messages are marked as read.
+     */
+    private void loadChatHistory() {
+        compactChatLog();
+        long now = System.currentTimeMillis();
+        try {
+            for (ChatLog.Entry entry : chatLog.read(now - HISTORY_PERIOD, now)) {
+                if (entry.getType() == ChatLog.CLEAR) {
+                    ChatServiceData chatData = getChatServiceData(entry.getId());
+                    if (chatData != null) {
+                        chatData.clear();
+                    }
+                } else {
+                    getOrCreateChatServiceData(entry.getId()).addChatMessage(entry.getMessage());
+                }
+            }
+            for (ChatServiceData chatData : chatMessages.values()) {
+                chatData.setRead(true);
+            }
+            LOG.info("Restored chat messages for " + chatMessages.size() + " targets");
+        } catch (IOException e) {
+            LOG.error("Failed to load chat log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void shutdown() {
+        super.shutdown();
+
+        // Let the pending writes complete before closing the chat log
+        chatLogWriter.shutdown();
+        try {
+            chatLogWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        chatLog.close();
+    }
+
     /**
      * Called when the chat message exchange has been updated for the given maritime id
      * 
@@ -47,6 +47,7 @@ import dk.dma.epd.common.util.TypedValue.SpeedType;
 import dk.dma.epd.common.util.TypedValue.Time;
 import dk.dma.epd.common.util.TypedValue.TimeType;
 import dma.route.IntendedRouteBroadcast;
+import dma.route.IntendedRouteHeartbeat;
 import net.maritimecloud.net.BroadcastConsumer;
 import net.maritimecloud.net.MessageHeader;
 import net.maritimecloud.net.mms.MmsClient;
@@ -67,7 +68,8 @@ import java.util.concurrent.TimeUnit;
 /**
  * Intended route service implementation.
  * <p>
- * Listens for intended route broadcasts, and updates the vessel target when one is received.
+ * Listens for intended route broadcasts, and updates the vessel target when one is received. Heartbeats are applied to
+ * the cached route of the sender, without parsing it again.
  */
 public abstract class IntendedRouteHandlerCommon extends EnavServiceHandlerCommon implements INotificationListener {
 
@@ -146,6 +148,43 @@ public abstract class IntendedRouteHandlerCommon extends EnavServiceHandlerCommo
                 updateIntendedRoute(id, broadcast);
             }
         });
+        connection.broadcastSubscribe(IntendedRouteHeartbeat.class, new BroadcastConsumer<IntendedRouteHeartbeat>() {
+            @Override
+            public void onMessage(MessageHeader header, IntendedRouteHeartbeat heartbeat) {
+                long id = MaritimeCloudUtils.toMmsi(header.getSender());
+                updateIntendedRoute(id, heartbeat);
+            }
+        });
+    }
+
+    /**
+     * Applies a heartbeat to the intended route of a vessel target.
+     * <p>
+     * Heartbeats referring to another version than the cached route are ignored until the next full broadcast. The
+     * filter is only re-applied if the active waypoint or the ETAs changed.
+     * 
+     * @param mmsi
+     * @param heartbeat
+     */
+    private synchronized void updateIntendedRoute(long mmsi, IntendedRouteHeartbeat heartbeat) {
+        IntendedRoute intendedRoute = intendedRoutes.get(mmsi);
+        if (intendedRoute == null || heartbeat.getVersion() == null || heartbeat.getActiveWaypointIndex() == null
+                || heartbeat.getEtaOffset() == null) {
+            return;
+        }
+
+        int activeWpIndex = intendedRoute.getActiveWpIndex();
+        long etaOffset = intendedRoute.getEtaOffset();
+        if (!intendedRoute.applyHeartbeat(heartbeat.getVersion(), heartbeat.getActiveWaypointIndex(),
+                heartbeat.getEtaOffset())) {
+            LOG.debug("Ignoring heartbeat of unknown intended route version from " + mmsi);
+            return;
+        }
+
+        if (activeWpIndex != intendedRoute.getActiveWpIndex() || etaOffset != intendedRoute.getEtaOffset()) {
+            applyFilter(intendedRoute);
+        }
+        fireIntendedEvent(intendedRoute);
     }
 
     /**
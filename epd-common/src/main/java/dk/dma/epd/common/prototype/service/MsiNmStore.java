@@ -15,16 +15,11 @@
 package dk.dma.epd.common.prototype.service;
 
 import dk.dma.epd.common.prototype.notification.MsiNmNotification;
+import dk.dma.epd.common.util.JournaledStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -40,7 +35,7 @@ public class MsiNmStore implements Serializable {
     private static final long serialVersionUID = 4;
     private static final Logger LOG = LoggerFactory.getLogger(MsiNmStore.class);
 
-    private static String msiNmFile;
+    private final transient JournaledStore store;
 
     private List<MsiNmNotification> msiNmMessages = new ArrayList<>();
     private Set<Integer> deletedMsiNmIds = new HashSet<>();
@@ -66,7 +61,7 @@ public class MsiNmStore implements Serializable {
      * @param homePath the home path
      */
     public MsiNmStore(Path homePath) {
-        msiNmFile = homePath.resolve(".msinm").toString();
+        store = new JournaledStore(homePath.resolve(".msinm.db"), homePath.resolve(".msinm"));
     }
 
     /**
@@ -74,11 +69,12 @@ public class MsiNmStore implements Serializable {
      */
     public synchronized void saveToFile() {
 
-        try (FileOutputStream fileOut = new FileOutputStream(msiNmFile);
-             ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
-
-            objectOut.writeObject(deletedMsiNmIds);
-            objectOut.writeObject(msiNmMessages);
+        // The deleted ids are followed by one record per message, so only the changed messages are written
+        List<Object> records = new ArrayList<>(msiNmMessages.size() + 1);
+        records.add(deletedMsiNmIds);
+        records.addAll(msiNmMessages);
+        try {
+            store.save(records);
 
             LOG.info("Saved MSI-NM store");
         } catch (IOException e) {
@@ -94,27 +90,35 @@ public class MsiNmStore implements Serializable {
     @SuppressWarnings("unchecked")
     public static MsiNmStore loadFromFile(Path homePath) {
 
-        msiNmFile = homePath.resolve(".msinm").toString();
-        MsiNmStore store = new MsiNmStore(homePath);
-
-        try (FileInputStream fileIn = new FileInputStream(msiNmFile);
-             ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
-
-            Set<Integer> deletedMsiNmIds = (Set<Integer>)objectIn.readObject();
-            store.setDeletedMsiNmIds(deletedMsiNmIds);
-
-            List<MsiNmNotification> msiNmMessages = (List<MsiNmNotification>)objectIn.readObject();
-            store.setMsiNmMessages(msiNmMessages);
-
-            return  store;
-        } catch (FileNotFoundException e) {
-            // Not an error
+        MsiNmStore msiNmStore = new MsiNmStore(homePath);
+
+        try {
+            List<Object> records = msiNmStore.store.load();
+            if (records.isEmpty()) {
+                return msiNmStore;
+            }
+
+            Set<Integer> deletedMsiNmIds = (Set<Integer>)records.get(0);
+            msiNmStore.setDeletedMsiNmIds(deletedMsiNmIds);
+
+            List<MsiNmNotification> msiNmMessages;
+            if (msiNmStore.store.isLegacy()) {
+                msiNmMessages = (List<MsiNmNotification>)records.get(1);
+            } else {
+                msiNmMessages = new ArrayList<>(records.size() - 1);
+                for (Object record : records.subList(1, records.size())) {
+                    msiNmMessages.add((MsiNmNotification)record);
+                }
+            }
+            msiNmStore.setMsiNmMessages(msiNmMessages);
+
+            return  msiNmStore;
         } catch (Exception e) {
             LOG.error("Failed to load MSI-NM file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(msiNmFile).delete();
+            msiNmStore.store.delete();
         }
-        return store;
+        return msiNmStore;
     }
 
 }
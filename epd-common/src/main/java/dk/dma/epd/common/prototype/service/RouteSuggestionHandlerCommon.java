@@ -16,12 +16,12 @@ package dk.dma.epd.common.prototype.service;
 
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.model.route.RouteSuggestionData;
+import dk.dma.epd.common.util.JournaledStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -37,7 +37,8 @@ public class RouteSuggestionHandlerCommon extends EnavServiceHandlerCommon {
 
     protected Map<Long, RouteSuggestionData> routeSuggestions = new ConcurrentHashMap<>();
     protected Set<RouteSuggestionListener> routeExchangeListener = new HashSet<RouteSuggestionListener>();
-    protected static final String ROUTE_SUGGESTION_PATH = EPD.getInstance().getHomePath().resolve(".routesuggestions").toString();
+    private static final JournaledStore ROUTE_SUGGESTION_STORE = new JournaledStore(EPD.getInstance().getHomePath()
+            .resolve(".routesuggestions.db"), EPD.getInstance().getHomePath().resolve(".routesuggestions"));
     protected static final Logger LOG = LoggerFactory.getLogger(RouteSuggestionHandlerCommon.class);
 
     /**
@@ -158,16 +159,49 @@ public class RouteSuggestionHandlerCommon extends EnavServiceHandlerCommon {
     }
 
     public synchronized void saveToFile() {
-
-        try (FileOutputStream fileOut = new FileOutputStream(ROUTE_SUGGESTION_PATH);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-            objectOut.writeObject(routeSuggestions);
+        // Each route suggestion is stored as a separate record, so only the changed suggestions are written
+        List<Map.Entry<Long, RouteSuggestionData>> records = new ArrayList<>(routeSuggestions.size());
+        for (Map.Entry<Long, RouteSuggestionData> entry : routeSuggestions.entrySet()) {
+            records.add(new SimpleImmutableEntry<>(entry));
+        }
+        try {
+            ROUTE_SUGGESTION_STORE.save(records);
         } catch (IOException e) {
             e.printStackTrace();
             LOG.error("Failed to save Route Suggestion data: " + e.getMessage());
         }
     }
 
+    /**
+     * Loads the stored route suggestions
+     * 
+     * @return if any route suggestions were loaded
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean loadFromFile() {
+        try {
+            List<Object> records = ROUTE_SUGGESTION_STORE.load();
+            if (ROUTE_SUGGESTION_STORE.isLegacy()) {
+                setRouteSuggestions((Map<Long, RouteSuggestionData>) records.get(0));
+            } else if (!records.isEmpty()) {
+                Map<Long, RouteSuggestionData> loaded = new ConcurrentHashMap<>();
+                for (Object record : records) {
+                    Map.Entry<Long, RouteSuggestionData> entry = (Map.Entry<Long, RouteSuggestionData>) record;
+                    loaded.put(entry.getKey(), entry.getValue());
+                }
+                setRouteSuggestions(loaded);
+            } else {
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to load route suggestion file: " + e.getMessage());
+            // Delete possible corrupted or old file
+            ROUTE_SUGGESTION_STORE.delete();
+            return false;
+        }
+    }
+
     /****************************************/
     /** Helper classes **/
     /****************************************/
@@ -0,0 +1,38 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.settings;
+
+import java.util.Set;
+
+/**
+ * An {@link ISettingsObserver} that is notified once per change set committed
+ * on an {@link ObservedSettings} instance, in addition to the notifications of
+ * the individual settings. Implement this interface in observers that recompute
+ * their state whenever any of the observed settings change, so that a batch of
+ * changes only causes a single recomputation.
+ */
+public interface ISettingsChangeSetObserver extends ISettingsObserver {
+
+    /**
+     * Invoked on the settings notifier thread after the observer has been
+     * notified of the individual changes of a change set.
+     * 
+     * @param source
+     *            The {@link ObservedSettings} instance that was changed.
+     * @param changedKeys
+     *            The keys of the settings that were changed.
+     */
+    void settingsChanged(ObservedSettings<?> source, Set<String> changedKeys);
+}
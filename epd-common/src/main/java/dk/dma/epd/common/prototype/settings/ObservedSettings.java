@@ -19,10 +19,25 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import net.jcip.annotations.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * <p>
  * An abstract base class that can be used when writing classes that maintain a
@@ -35,6 +50,26 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * instance field {@link #settingLock}) that subclasses can utilize when
  * synchronizing access to the settings values they maintain.
  * </p>
+ * <p>
+ * Subclasses report changes through
+ * {@link #fireSettingChanged(String, Object, Object, ChangeNotifier)}. The
+ * changes are collected into a change set that is delivered to the observers
+ * asynchronously on a shared notifier thread. Changes made between
+ * {@link #beginUpdate()} and {@link #commitUpdate()} are delivered as a single
+ * change set, and repeated changes to the same setting are merged, so an
+ * observer is notified once per setting with the value prior to the first
+ * change and the value after the last change. Settings that end up with their
+ * original value are left out. Observers that implement
+ * {@link ISettingsChangeSetObserver} are additionally notified once per change
+ * set, which lets them recompute their state once rather than once per
+ * setting.
+ * </p>
+ * <p>
+ * The write lock is released before the change set is delivered, so observers
+ * may read the settings or wait for the event dispatch thread without
+ * blocking the thread that committed the change. Change sets committed while
+ * a delivery is pending are merged into it.
+ * </p>
  * 
  * @param <OBSERVER>
  *            The type of the observers observing the {@code ObservedSettings}
@@ -44,6 +79,22 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public abstract class ObservedSettings<OBSERVER extends ISettingsObserver> {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ObservedSettings.class);
+
+    /**
+     * Delivers the change sets of all {@code ObservedSettings} instances in the
+     * order they were committed.
+     */
+    private static final ExecutorService NOTIFIER = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SettingsNotifier");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
     // TODO We may have to do lazy init of this list inside add/remove observer
     // methods if we want to serialize this class.
     /**
@@ -61,6 +112,30 @@ public abstract class ObservedSettings<OBSERVER extends ISettingsObserver> {
      */
     protected ReentrantReadWriteLock settingLock = new ReentrantReadWriteLock(true);
 
+    /**
+     * The changes made since the last commit.
+     */
+    @GuardedBy("settingLock")
+    private final Map<String, PendingChange<OBSERVER, ?>> uncommitted = new LinkedHashMap<>();
+
+    /**
+     * The nesting depth of {@link #beginUpdate()} calls.
+     */
+    @GuardedBy("settingLock")
+    private int updateDepth;
+
+    /**
+     * The committed changes awaiting delivery.
+     */
+    @GuardedBy("pending")
+    private final Map<String, PendingChange<OBSERVER, ?>> pending = new LinkedHashMap<>();
+
+    /**
+     * Whether a delivery of the pending changes has been queued.
+     */
+    @GuardedBy("pending")
+    private boolean deliveryScheduled;
+
     /**
      * Add a new observer that is to be notified when any setting is changed. An
      * observer can only be registered once.
@@ -89,6 +164,159 @@ public abstract class ObservedSettings<OBSERVER extends ISettingsObserver> {
         return this.observers.remove(obs);
     }
 
+    /**
+     * Starts a transactional update. The changes made until the matching call
+     * to {@link #commitUpdate()} are delivered to the observers as a single
+     * change set. The calling thread holds the write lock until the update has
+     * been committed. Updates may be nested, in which case the changes are
+     * delivered when the outermost update is committed.
+     */
+    public void beginUpdate() {
+        this.settingLock.writeLock().lock();
+        this.updateDepth++;
+    }
+
+    /**
+     * Commits a transactional update started with {@link #beginUpdate()} and
+     * queues the resulting change set for delivery to the observers.
+     */
+    public void commitUpdate() {
+        try {
+            if (--this.updateDepth == 0) {
+                this.publish();
+            }
+        } finally {
+            this.settingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a change to a setting. Subclasses should call this from their
+     * setters rather than notifying the observers directly. Unless the change
+     * is part of a transactional update, it is committed right away.
+     * 
+     * @param key
+     *            The key identifying the setting.
+     * @param oldValue
+     *            The value of the setting prior to this change.
+     * @param newValue
+     *            The updated value of the setting.
+     * @param notifier
+     *            Notifies an observer of the (merged) change.
+     */
+    protected <T> void fireSettingChanged(String key, T oldValue, T newValue,
+            ChangeNotifier<OBSERVER, T> notifier) {
+        this.settingLock.writeLock().lock();
+        try {
+            PendingChange<OBSERVER, ?> change = this.uncommitted.get(key);
+            if (change == null) {
+                this.uncommitted.put(key, new PendingChange<>(oldValue,
+                        newValue, notifier));
+            } else {
+                change.mergeNewValue(newValue);
+            }
+            if (this.updateDepth == 0) {
+                this.publish();
+            }
+        } finally {
+            this.settingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the uncommitted changes to the pending change set and queues a
+     * delivery unless one is already queued. Called with the write lock held.
+     */
+    private void publish() {
+        if (this.uncommitted.isEmpty()) {
+            return;
+        }
+        boolean schedule;
+        synchronized (this.pending) {
+            for (Map.Entry<String, PendingChange<OBSERVER, ?>> entry : this.uncommitted
+                    .entrySet()) {
+                PendingChange<OBSERVER, ?> change = this.pending.get(entry
+                        .getKey());
+                if (change == null) {
+                    this.pending.put(entry.getKey(), entry.getValue());
+                } else {
+                    change.mergeNewValue(entry.getValue().newValue);
+                }
+            }
+            schedule = !this.deliveryScheduled;
+            this.deliveryScheduled = true;
+        }
+        this.uncommitted.clear();
+
+        if (schedule) {
+            NOTIFIER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver();
+                }
+            });
+        }
+    }
+
+    /**
+     * Delivers the pending change set to the observers. Runs on the notifier
+     * thread.
+     */
+    private void deliver() {
+        Map<String, PendingChange<OBSERVER, ?>> changes;
+        synchronized (this.pending) {
+            changes = new LinkedHashMap<>(this.pending);
+            this.pending.clear();
+            this.deliveryScheduled = false;
+        }
+
+        // Leave out the settings that were changed back to their original value
+        for (Iterator<PendingChange<OBSERVER, ?>> it = changes.values()
+                .iterator(); it.hasNext();) {
+            PendingChange<OBSERVER, ?> change = it.next();
+            if (Objects.equals(change.oldValue, change.newValue)) {
+                it.remove();
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Set<String> keys = Collections.unmodifiableSet(changes.keySet());
+        for (OBSERVER obs : this.observers) {
+            try {
+                for (PendingChange<OBSERVER, ?> change : changes.values()) {
+                    change.fire(obs);
+                }
+                if (obs instanceof ISettingsChangeSetObserver) {
+                    ((ISettingsChangeSetObserver) obs).settingsChanged(this,
+                            keys);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed notifying settings observer " + obs, e);
+            }
+        }
+    }
+
+    /**
+     * Blocks until the change sets committed so far by any
+     * {@code ObservedSettings} instance have been delivered. Must not be called
+     * from an observer.
+     */
+    public static void flushNotifications() {
+        try {
+            NOTIFIER.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Failed flushing settings notifications", e);
+        }
+    }
+
     /**
      * Loads settings from a file into memory. If the settings are successfully
      * loaded, {@link #onLoadSuccess(Properties)} is invoked with a
@@ -174,4 +402,52 @@ public abstract class ObservedSettings<OBSERVER extends ISettingsObserver> {
      *            while persisting the settings to the file.
      */
     protected abstract void onSaveFailure(IOException error);
+
+    /**
+     * Notifies an observer of a change to a single setting.
+     * 
+     * @param <O>
+     *            The type of the observer.
+     * @param <T>
+     *            The type of the setting value.
+     */
+    protected interface ChangeNotifier<O, T> {
+
+        /**
+         * Notifies the observer of the change.
+         * 
+         * @param observer
+         *            The observer to notify.
+         * @param oldValue
+         *            The value of the setting prior to the change set.
+         * @param newValue
+         *            The value of the setting after the change set.
+         */
+        void fire(O observer, T oldValue, T newValue);
+    }
+
+    /**
+     * A change to a setting awaiting delivery.
+     */
+    private static final class PendingChange<O, T> {
+
+        private final T oldValue;
+        private T newValue;
+        private final ChangeNotifier<O, T> notifier;
+
+        PendingChange(T oldValue, T newValue, ChangeNotifier<O, T> notifier) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.notifier = notifier;
+        }
+
+        @SuppressWarnings("unchecked")
+        void mergeNewValue(Object value) {
+            this.newValue = (T) value;
+        }
+
+        void fire(O observer) {
+            this.notifier.fire(observer, this.oldValue, this.newValue);
+        }
+    }
 }
@@ -15,8 +15,11 @@
 package dk.dma.epd.common.prototype.settings.layers;
 
 import java.io.IOException;
+import java.util.Set;
 
 import dk.dma.epd.common.prototype.layers.ais.AisLayerCommon;
+import dk.dma.epd.common.prototype.settings.ISettingsChangeSetObserver;
+import dk.dma.epd.common.prototype.settings.ObservedSettings;
 
 /**
  * <p>
@@ -46,7 +49,7 @@ import dk.dma.epd.common.prototype.layers.ais.AisLayerCommon;
  */
 public class AisLayerCommonLocalSettings<OBSERVER extends IAisLayerCommonSettingsObserver>
         extends AisLayerCommonSettings<OBSERVER> implements
-        IAisLayerCommonSettingsObserver {
+        IAisLayerCommonSettingsObserver, ISettingsChangeSetObserver {
 
     /**
      * Creates a new {@link AisLayerCommonLocalSettings} and registers this
@@ -63,32 +66,50 @@ public class AisLayerCommonLocalSettings<OBSERVER extends IAisLayerCommonSetting
 
     /**
      * Invoked when the global value for display of AIS name labels has changed.
+     * The change is obeyed in {@link #settingsChanged(ObservedSettings, Set)}.
      */
     @Override
     public void showAllAisNameLabelsChanged(boolean oldValue, boolean newValue) {
-        // The "display AIS labels" was changed on the global settings object.
-        // We need to obey to this for our local settings:
-        this.setShowAllAisNameLabels(newValue);
     }
 
     /**
      * Invoked when the global value for display of past tracks has changed.
+     * The change is obeyed in {@link #settingsChanged(ObservedSettings, Set)}.
      */
     @Override
     public void showAllPastTracksChanged(boolean oldValue, boolean newValue) {
-        // The "display all past tracks" was changed on the global settings
-        // object.
-        // We need to obey to this for our local settings:
-        this.setShowAllPastTracks(newValue);
     }
 
+    /**
+     * Invoked when the global layer redraw interval has changed. The change is
+     * obeyed in {@link #settingsChanged(ObservedSettings, Set)}.
+     */
     @Override
     public void layerRedrawIntervalChanged(int oldValue, int newValue) {
-        /*
-         * The "set layer redraw interval" was changed on the global settings
-         * object. We need to obey to this for this local settings instance.
-         */
-        this.setLayerRedrawInterval(newValue);
+    }
+
+    /**
+     * Invoked once the global settings have been changed. The changed global
+     * values are obeyed as a single update, so the observers of this instance
+     * receive the global changes as a single change set too.
+     */
+    @Override
+    public void settingsChanged(ObservedSettings<?> source, Set<String> changedKeys) {
+        AisLayerCommonGlobalSettings global = AisLayerCommonGlobalSettings.getInstance();
+        this.beginUpdate();
+        try {
+            if (changedKeys.contains(KEY_SHOW_ALL_AIS_NAMES)) {
+                this.setShowAllAisNameLabels(global.isShowAllAisNameLabels());
+            }
+            if (changedKeys.contains(KEY_SHOW_ALL_PAST_TRACKS)) {
+                this.setShowAllPastTracks(global.isShowAllPastTracks());
+            }
+            if (changedKeys.contains(KEY_LAYER_REDRAW_INTERVAL)) {
+                this.setLayerRedrawInterval(global.getLayerRedrawInterval());
+            }
+        } finally {
+            this.commitUpdate();
+        }
     }
 
     @Override
@@ -38,18 +38,18 @@ public abstract class AisLayerCommonSettings<OBSERVER extends IAisLayerCommonSet
     /**
      * The setting key for the "show all AIS names" setting.
      */
-    private static final String KEY_SHOW_ALL_AIS_NAMES = "showAllAisNameLabels";
+    protected static final String KEY_SHOW_ALL_AIS_NAMES = "showAllAisNameLabels";
 
     /**
      * The setting key for the "show all past tracks" setting.
      */
-    private static final String KEY_SHOW_ALL_PAST_TRACKS = "showAllPastTracks";
+    protected static final String KEY_SHOW_ALL_PAST_TRACKS = "showAllPastTracks";
 
     /**
      * The setting key for the setting that specifies how often the layer should
      * repaint itself.
      */
-    private static final String KEY_LAYER_REDRAW_INTERVAL = "layerRedrawInterval";
+    protected static final String KEY_LAYER_REDRAW_INTERVAL = "layerRedrawInterval";
 
     /**
      * Specifies if all AIS name labels should be shown.
@@ -92,13 +92,21 @@ public abstract class AisLayerCommonSettings<OBSERVER extends IAisLayerCommonSet
      */
     public void setShowAllAisNameLabels(boolean show) {
         this.settingLock.writeLock().lock();
-        boolean oldVal = this.showAllAisNameLabels;
-        this.showAllAisNameLabels = show;
-        // Notify observers of change to this setting
-        for (OBSERVER obs : this.observers) {
-            obs.showAllAisNameLabelsChanged(oldVal, this.showAllAisNameLabels);
+        try {
+            boolean oldVal = this.showAllAisNameLabels;
+            this.showAllAisNameLabels = show;
+            // Notify observers of change to this setting
+            this.fireSettingChanged(KEY_SHOW_ALL_AIS_NAMES, oldVal, show,
+                    new ChangeNotifier<OBSERVER, Boolean>() {
+                        @Override
+                        public void fire(OBSERVER obs, Boolean oldValue,
+                                Boolean newValue) {
+                            obs.showAllAisNameLabelsChanged(oldValue, newValue);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
-        this.settingLock.writeLock().unlock();
     }
 
     /**
@@ -127,13 +135,21 @@ public abstract class AisLayerCommonSettings<OBSERVER extends IAisLayerCommonSet
      */
     public void setShowAllPastTracks(boolean show) {
         this.settingLock.writeLock().lock();
-        boolean oldVal = this.showAllPastTracks;
-        this.showAllPastTracks = show;
-        // Notify observers of change to this setting
-        for (OBSERVER obs : this.observers) {
-            obs.showAllPastTracksChanged(oldVal, this.showAllPastTracks);
+        try {
+            boolean oldVal = this.showAllPastTracks;
+            this.showAllPastTracks = show;
+            // Notify observers of change to this setting
+            this.fireSettingChanged(KEY_SHOW_ALL_PAST_TRACKS, oldVal, show,
+                    new ChangeNotifier<OBSERVER, Boolean>() {
+                        @Override
+                        public void fire(OBSERVER obs, Boolean oldValue,
+                                Boolean newValue) {
+                            obs.showAllPastTracksChanged(oldValue, newValue);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
-        this.settingLock.writeLock().unlock();
     }
 
     /**
@@ -167,22 +183,30 @@ public abstract class AisLayerCommonSettings<OBSERVER extends IAisLayerCommonSet
                     "A redraw interval below 1 second is not allowed.");
         }
         this.settingLock.writeLock().lock();
-        int oldVal = this.layerRedrawInterval;
-        this.layerRedrawInterval = seconds;
-        for (OBSERVER obs : this.observers) {
-            obs.layerRedrawIntervalChanged(oldVal, this.layerRedrawInterval);
+        try {
+            int oldVal = this.layerRedrawInterval;
+            this.layerRedrawInterval = seconds;
+            this.fireSettingChanged(KEY_LAYER_REDRAW_INTERVAL, oldVal, seconds,
+                    new ChangeNotifier<OBSERVER, Integer>() {
+                        @Override
+                        public void fire(OBSERVER obs, Integer oldValue,
+                                Integer newValue) {
+                            obs.layerRedrawIntervalChanged(oldValue, newValue);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
-        this.settingLock.writeLock().unlock();
     }
 
     @Override
     protected void onLoadSuccess(Properties settings) {
         /*
-         * We acquire the lock here even though the individual setters acquire
+         * We start an update here even though the individual setters acquire
          * the lock themselves too. This is to ensure that all settings are
-         * loaded as a single batch.
+         * loaded as a single batch and delivered as a single change set.
          */
-        this.settingLock.writeLock().lock();
+        this.beginUpdate();
         this.setShowAllAisNameLabels(PropUtils.booleanFromProperties(settings,
                 KEY_SHOW_ALL_AIS_NAMES, this.isShowAllAisNameLabels()));
         this.setShowAllPastTracks(PropUtils.booleanFromProperties(settings,
@@ -194,8 +218,8 @@ public abstract class AisLayerCommonSettings<OBSERVER extends IAisLayerCommonSet
          * instance...
          */
 
-        // Release the lock.
-        this.settingLock.writeLock().unlock();
+        // Commit the update, releasing the lock.
+        this.commitUpdate();
     }
 
     @Override
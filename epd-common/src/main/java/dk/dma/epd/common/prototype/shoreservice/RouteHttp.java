@@ -44,7 +44,7 @@ public class RouteHttp {
 //    private int connectionTimeout = 30000; // 30 sec
 
     private HttpClient httpClient;
-    private PostMethod method;
+    private volatile PostMethod method;
     private String responseBody;
 
     public RouteHttp(EnavSettings enavSettings) {
@@ -109,6 +109,17 @@ public class RouteHttp {
         // method.addRequestHeader("Accept-Encoding", "gzip");
     }
 
+    /**
+     * Aborts the request in progress from another thread. The blocking {@linkplain #makeRequest()} then returns
+     * without a response body
+     */
+    public void abort() {
+        PostMethod method = this.method;
+        if (method != null) {
+            method.abort();
+        }
+    }
+
     public void setRequestBody(String route) {
         try {
             method.setRequestEntity(new StringRequestEntity(route, null, null));
@@ -36,13 +36,19 @@ import dk.dma.epd.common.prototype.ais.AisHandlerCommon;
 import dk.dma.epd.common.prototype.communication.webservice.ShoreHttp;
 import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceErrorCode;
 import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.dma.epd.common.prototype.metrics.Counter;
+import dk.dma.epd.common.prototype.metrics.LatencyHistogram;
+import dk.dma.epd.common.prototype.metrics.MetricsRegistry;
 import dk.dma.epd.common.prototype.model.route.ActiveRoute;
 import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
+import dk.dma.epd.common.prototype.monalisa.MonaLisaAbortHandle;
+import dk.dma.epd.common.prototype.monalisa.MonaLisaService;
 import dk.dma.epd.common.prototype.monalisa.SSPAResponse;
 import dk.dma.epd.common.prototype.monalisa.XMLDialog;
 import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
 import dk.dma.epd.common.prototype.monalisa.sspa.RouteresponseType;
+import dk.dma.epd.common.prototype.nogo.NogoService;
 import dk.dma.epd.common.prototype.sensor.pnt.PntData;
 import dk.dma.epd.common.prototype.sensor.pnt.PntHandler;
 import dk.dma.epd.common.prototype.settings.EnavSettings;
@@ -68,10 +74,14 @@ import dk.frv.enav.common.xml.risk.response.RiskResponse;
 /**
  * Shore service component providing the functional link to shore.
  */
-public class ShoreServicesCommon extends MapHandlerChild implements IStatusComponent {
+public class ShoreServicesCommon extends MapHandlerChild implements IStatusComponent, NogoService, MonaLisaService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ShoreServicesCommon.class);
 
+    private static final LatencyHistogram REQUEST_LATENCY = MetricsRegistry.getInstance().histogram("shore.request");
+    private static final Counter REQUEST_ERRORS = MetricsRegistry.getInstance().counter("shore.request.errors");
+    private static final LatencyHistogram MONALISA_LATENCY = MetricsRegistry.getInstance().histogram("shore.monalisa");
+
     private AisHandlerCommon aisHandler;
     private PntHandler pntHandler;
     protected EnavSettings enavSettings;
@@ -139,6 +149,7 @@ public class ShoreServicesCommon extends MapHandlerChild implements IStatusCompo
         return xmlRoute;
     }
 
+    @Override
     public NogoResponse nogoPoll(double draught, Position northWestPoint, Position southEastPoint, Date startDate, Date endDate)
             throws ShoreServiceException {
 
@@ -275,11 +286,15 @@ public class ShoreServicesCommon extends MapHandlerChild implements IStatusCompo
         }
 
         // Make request
+        long start = System.nanoTime();
         try {
             shoreHttp.makeRequest();
         } catch (ShoreServiceException e) {
+            REQUEST_ERRORS.inc();
             status.markContactError(e);
             throw e;
+        } finally {
+            REQUEST_LATENCY.recordSince(start);
         }
 
         ShoreServiceResponse res;
@@ -327,8 +342,15 @@ public class ShoreServicesCommon extends MapHandlerChild implements IStatusCompo
         return status;
     }
 
-    @SuppressWarnings({ "rawtypes", "unused" })
+    @Override
     public SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput) {
+        return makeMonaLisaRouteRequest(monaLisaRoute, timeout, showInput, showOutput, null);
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unused" })
+    public SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput,
+            MonaLisaAbortHandle abortHandle) {
 
         JAXBContext context = null;
         String xmlReturnRoute = "";
@@ -351,21 +373,40 @@ public class ShoreServicesCommon extends MapHandlerChild implements IStatusCompo
             }
 
             // Create HTTP request
-            RouteHttp routeHttp = new RouteHttp(enavSettings);
+            final RouteHttp routeHttp = new RouteHttp(enavSettings);
             // Init HTTP
             routeHttp.init(timeout);
             // Set content
             routeHttp.setRequestBody(xml);
 
             // Make request
+            long start = System.nanoTime();
             try {
+                if (abortHandle != null) {
+                    abortHandle.setAbortAction(new Runnable() {
+                        @Override
+                        public void run() {
+                            routeHttp.abort();
+                        }
+                    });
+                }
                 routeHttp.makeRequest();
 
                 xmlReturnRoute = routeHttp.getResponseBody();
             } catch (Exception e) {
                 // status.markContactError(e);
                 // throw e;
+                REQUEST_ERRORS.inc();
                 return new SSPAResponse(null, e.getMessage());
+            } finally {
+                if (abortHandle != null) {
+                    abortHandle.setAbortAction(null);
+                }
+                MONALISA_LATENCY.recordSince(start);
+            }
+
+            if (abortHandle != null && abortHandle.isAborted()) {
+                return new SSPAResponse(null, "Request aborted");
             }
 
         } catch (JAXBException e) {
@@ -0,0 +1,209 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.voct;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
+import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
+import dk.dma.epd.common.prototype.model.voct.sardata.SearchPatternRoute;
+
+/**
+ * Index of the SRUs of a SAR operation keyed by MMSI.
+ * <p>
+ * Maps each SRU to its effort allocation and search pattern route, maps each search pattern route back to its SRU and
+ * keeps track of which SRUs currently offer the VOCT service in the cloud. The update methods return the MMSIs of the
+ * SRUs that were affected, so that status is recomputed for those SRUs only.
+ */
+@ThreadSafe
+public class SruStatusIndex {
+
+    @GuardedBy("this")
+    private final Map<Long, EffortAllocationData> allocations = new HashMap<>();
+
+    @GuardedBy("this")
+    private final Map<Long, SearchPatternRoute> indexedRoutes = new HashMap<>();
+
+    @GuardedBy("this")
+    private final Map<Route, Long> routes = new IdentityHashMap<>();
+
+    @GuardedBy("this")
+    private final Set<Long> reachable = new HashSet<>();
+
+    /**
+     * Re-indexes all effort allocations of the given SAR data
+     * 
+     * @param sarData
+     *            the SAR data, may be null
+     */
+    public synchronized void index(SARData sarData) {
+        allocations.clear();
+        indexedRoutes.clear();
+        routes.clear();
+        if (sarData != null) {
+            for (Entry<Long, EffortAllocationData> entry : sarData.getEffortAllocationData().entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Indexes the effort allocation of a single SRU, replacing any previous allocation. Must also be called when the search
+     * pattern route of the allocation has changed.
+     * 
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @param data
+     *            the effort allocation
+     */
+    public synchronized void put(long mmsi, EffortAllocationData data) {
+        remove(mmsi);
+        allocations.put(mmsi, data);
+        if (data.getSearchPatternRoute() != null) {
+            indexedRoutes.put(mmsi, data.getSearchPatternRoute());
+            routes.put(data.getSearchPatternRoute(), mmsi);
+        }
+    }
+
+    /**
+     * Removes the effort allocation of the given SRU from the index
+     * 
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @return the removed effort allocation, or null if the SRU had none
+     */
+    public synchronized EffortAllocationData remove(long mmsi) {
+        SearchPatternRoute route = indexedRoutes.remove(mmsi);
+        if (route != null) {
+            routes.remove(route);
+        }
+        return allocations.remove(mmsi);
+    }
+
+    /**
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @return the effort allocation of the SRU, or null if it has none
+     */
+    public synchronized EffortAllocationData getAllocation(long mmsi) {
+        return allocations.get(mmsi);
+    }
+
+    /**
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @return the search pattern route of the SRU, or null if it has none
+     */
+    public synchronized SearchPatternRoute getRoute(long mmsi) {
+        EffortAllocationData data = allocations.get(mmsi);
+        return data != null ? data.getSearchPatternRoute() : null;
+    }
+
+    /**
+     * @param route
+     *            the route
+     * @return the MMSI of the SRU the route is the search pattern of, or null if it is not a search pattern route
+     */
+    public synchronized Long getMmsi(Route route) {
+        return routes.get(route);
+    }
+
+    /**
+     * Called when routes have been removed. Clears the search pattern route of each effort allocation whose route is no
+     * longer among the given routes.
+     * 
+     * @param remaining
+     *            the routes that are still present
+     * @return the MMSIs of the SRUs that lost their search pattern route
+     */
+    public synchronized List<Long> retainRoutes(Collection<? extends Route> remaining) {
+        if (routes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Route> present = Collections.newSetFromMap(new IdentityHashMap<Route, Boolean>());
+        present.addAll(remaining);
+
+        List<Long> changed = new ArrayList<>();
+        for (Iterator<Entry<Route, Long>> it = routes.entrySet().iterator(); it.hasNext();) {
+            Entry<Route, Long> entry = it.next();
+            Route route = entry.getKey();
+            Long mmsi = entry.getValue();
+            if (!present.contains(route)) {
+                it.remove();
+                indexedRoutes.remove(mmsi);
+                EffortAllocationData data = allocations.get(mmsi);
+                if (data.getSearchPatternRoute() == route) {
+                    data.setSearchPatternRoute(null);
+                }
+                changed.add(mmsi);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces the set of SRUs that offer the VOCT service in the cloud
+     * 
+     * @param mmsis
+     *            the MMSIs of the SRUs that can currently be reached
+     * @return the MMSIs of the SRUs that became reachable or unreachable
+     */
+    public synchronized Set<Long> updateReachable(Collection<Long> mmsis) {
+        Set<Long> current = new HashSet<>(mmsis);
+        Set<Long> changed = new HashSet<>();
+        for (Long mmsi : current) {
+            if (!reachable.contains(mmsi)) {
+                changed.add(mmsi);
+            }
+        }
+        for (Long mmsi : reachable) {
+            if (!current.contains(mmsi)) {
+                changed.add(mmsi);
+            }
+        }
+        reachable.clear();
+        reachable.addAll(current);
+        return changed;
+    }
+
+    /**
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @return if the SRU currently offers the VOCT service in the cloud
+     */
+    public synchronized boolean isReachable(long mmsi) {
+        return reachable.contains(mmsi);
+    }
+
+    /**
+     * @return the number of indexed effort allocations
+     */
+    public synchronized int size() {
+        return allocations.size();
+    }
+}
@@ -14,11 +14,9 @@
  */
 package dk.dma.epd.common.prototype.voct;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
@@ -43,6 +41,7 @@ import dk.dma.epd.common.prototype.model.voct.sardata.RapidResponseData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SARWeatherData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SearchPatternRoute;
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.common.util.Util;
 
 /**
@@ -67,7 +66,8 @@ public class VOCTManagerCommon extends MapHandlerChild implements Runnable, Seri
     protected SARData sarData;
     protected List<SARData> sarFutureData;
 
-    protected static final String VOCT_FILE = EPD.getInstance().getHomePath().resolve(".voct").toString();
+    protected static final JournaledStore VOCT_STORE = new JournaledStore(EPD.getInstance().getHomePath().resolve(".voct.db"), EPD
+            .getInstance().getHomePath().resolve(".voct"));
     protected static final Logger LOG = LoggerFactory.getLogger(VOCTManagerCommon.class);
 
     public enum VoctMsgStatus {
@@ -157,7 +157,7 @@ public class VOCTManagerCommon extends MapHandlerChild implements Runnable, Seri
         notifyListeners(VOCTUpdateEvent.SAR_CANCEL);
 
         // Delete stored SAR
-        new File(VOCT_FILE).delete();
+        VOCT_STORE.delete();
     }
 
     private void deleteAllRoutes() {
@@ -193,9 +193,8 @@ public class VOCTManagerCommon extends MapHandlerChild implements Runnable, Seri
 
         if (hasSar || loadSarFromSerialize) {
 
-            try (FileOutputStream fileOut = new FileOutputStream(VOCT_FILE);
-                    ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-                objectOut.writeObject(sarData);
+            try {
+                VOCT_STORE.save(Collections.singletonList(sarData));
             } catch (IOException e) {
                 LOG.error("Failed to save VOCT data: " + e.getMessage());
             }
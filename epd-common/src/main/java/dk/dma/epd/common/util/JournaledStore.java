@@ -0,0 +1,561 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versioned store of serializable records with an append-only change journal.
+ * <p>
+ * The store consists of a snapshot file and a journal file next to it. Each record is serialized and deflated on its own and
+ * identified by the digest of its serialized form, so saving a list of records only appends the records that have changed since
+ * the last save, along with the new record order, to the journal. When the journal grows larger than the snapshot, the
+ * snapshot is rewritten and the journal truncated.
+ * <p>
+ * Records are serialized on the calling thread, so that a consistent state is captured, while all file I/O is done on a
+ * background thread. Pending writes are flushed when the JVM shuts down.
+ * <p>
+ * If the store does not exist yet, {@linkplain #load()} reads the objects of the legacy file, written with a single
+ * {@code ObjectOutputStream}, instead. The legacy file is deleted once the store has been written.
+ */
+@ThreadSafe
+public class JournaledStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JournaledStore.class);
+
+    private static final int MAGIC = 0x45504453;
+    private static final short VERSION = 1;
+    private static final byte SNAPSHOT = 1;
+    private static final byte JOURNAL = 2;
+    private static final int HEADER_SIZE = 4 + 2 + 1 + 8;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte ORDER = 3;
+
+    /** The journal is never compacted below this size */
+    private static final long MIN_COMPACT_SIZE = 64 * 1024L;
+
+    private static final List<JournaledStore> STORES = new CopyOnWriteArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (JournaledStore store : STORES) {
+                    store.flush();
+                }
+            }
+        }, "JournaledStore shutdown"));
+    }
+
+    private final Path file;
+    private final Path journalFile;
+    private final Path legacyFile;
+    private final ExecutorService writer;
+
+    // The ids and digests of the records last saved, in order
+    @GuardedBy("this")
+    private List<Long> ids = new ArrayList<>();
+    @GuardedBy("this")
+    private List<ByteBuffer> digests = new ArrayList<>();
+    @GuardedBy("this")
+    private long nextId = 1L;
+    @GuardedBy("this")
+    private boolean initialized;
+    @GuardedBy("this")
+    private boolean legacy;
+
+    // Only accessed on the writer thread, except while loading
+    private final Map<Long, byte[]> records = new HashMap<>();
+    private List<Long> order = new ArrayList<>();
+    private long generation;
+    private long snapshotSize;
+    private long journalSize;
+    private boolean compact = true;
+
+    /**
+     * Constructor
+     *
+     * @param file
+     *            the snapshot file. The journal is stored next to it with the suffix {@code .journal}
+     * @param legacyFile
+     *            the file written with {@code ObjectOutputStream} by earlier versions, or null
+     */
+    public JournaledStore(Path file, Path legacyFile) {
+        this.file = file;
+        this.journalFile = file.resolveSibling(file.getFileName() + ".journal");
+        this.legacyFile = legacyFile;
+        final String threadName = "store-" + file.getFileName();
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        STORES.add(this);
+    }
+
+    /**
+     * Loads the records of the store, or the objects of the legacy file if the store does not exist. Should be called before
+     * the first save.
+     *
+     * @return the records, or an empty list if neither the store nor the legacy file exists
+     */
+    public synchronized List<Object> load() throws IOException, ClassNotFoundException {
+        flush();
+        ids = new ArrayList<>();
+        digests = new ArrayList<>();
+        initialized = false;
+        legacy = false;
+
+        if (!Files.exists(file)) {
+            if (legacyFile == null || !Files.exists(legacyFile)) {
+                return new ArrayList<>();
+            }
+            legacy = true;
+            return readLegacy(legacyFile.toFile());
+        }
+
+        records.clear();
+        readSnapshot();
+        readJournal();
+
+        List<Object> result = new ArrayList<>(order.size());
+        for (Long id : order) {
+            byte[] data = inflate(records.get(id));
+            ids.add(id);
+            digests.add(digest(data));
+            nextId = Math.max(nextId, id + 1);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                result.add(in.readObject());
+            }
+        }
+        initialized = true;
+        return result;
+    }
+
+    /**
+     * Returns if the last {@linkplain #load()} read the legacy file
+     *
+     * @return if the legacy file was read
+     */
+    public synchronized boolean isLegacy() {
+        return legacy;
+    }
+
+    /**
+     * Saves the records. The records are serialized before returning, and the changes written in the background.
+     *
+     * @param records
+     *            the records to save, in order
+     * @throws IOException
+     *             if a record could not be serialized
+     */
+    public synchronized void save(List<?> records) throws IOException {
+        Map<ByteBuffer, Deque<Long>> available = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Deque<Long> sameDigest = available.get(digests.get(i));
+            if (sameDigest == null) {
+                sameDigest = new ArrayDeque<>(1);
+                available.put(digests.get(i), sameDigest);
+            }
+            sameDigest.add(ids.get(i));
+        }
+
+        List<Long> newIds = new ArrayList<>(records.size());
+        List<ByteBuffer> newDigests = new ArrayList<>(records.size());
+        Map<Long, byte[]> puts = new HashMap<>();
+        for (Object record : records) {
+            byte[] data = serialize(record);
+            ByteBuffer digest = digest(data);
+            Deque<Long> sameDigest = available.get(digest);
+            Long id = sameDigest != null ? sameDigest.poll() : null;
+            if (id == null) {
+                id = nextId++;
+                puts.put(id, deflate(data));
+            }
+            newIds.add(id);
+            newDigests.add(digest);
+        }
+
+        List<Long> removed = new ArrayList<>();
+        for (Deque<Long> sameDigest : available.values()) {
+            removed.addAll(sameDigest);
+        }
+
+        if (initialized && puts.isEmpty() && removed.isEmpty() && newIds.equals(ids)) {
+            return;
+        }
+
+        final Batch batch = new Batch(puts, removed, newIds, !initialized);
+        ids = newIds;
+        digests = newDigests;
+        initialized = true;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(batch);
+            }
+        });
+    }
+
+    /**
+     * Deletes the store and the legacy file
+     */
+    public synchronized void delete() {
+        ids = new ArrayList<>();
+        digests = new ArrayList<>();
+        initialized = false;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                records.clear();
+                order = new ArrayList<>();
+                compact = true;
+                try {
+                    Files.deleteIfExists(file);
+                    Files.deleteIfExists(journalFile);
+                    if (legacyFile != null) {
+                        Files.deleteIfExists(legacyFile);
+                    }
+                } catch (IOException e) {
+                    LOG.error("Failed to delete store " + file + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for all pending writes to complete
+     */
+    public void flush() {
+        try {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Failed to flush store " + file, e);
+        }
+    }
+
+    /**
+     * Applies a batch of changes. Called on the writer thread
+     */
+    private void write(Batch batch) {
+        if (batch.snapshot) {
+            // All records of a first save are new
+            records.clear();
+        }
+        records.keySet().removeAll(batch.removed);
+        records.putAll(batch.puts);
+        order = batch.order;
+
+        try {
+            if (batch.snapshot || compact) {
+                writeSnapshot();
+                return;
+            }
+            appendJournal(batch);
+            if (journalSize > Math.max(snapshotSize, MIN_COMPACT_SIZE)) {
+                writeSnapshot();
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to write store " + file + ": " + e.getMessage());
+            // Rewrite everything on the next save
+            compact = true;
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        generation++;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeHeader(out, SNAPSHOT);
+            out.writeInt(order.size());
+            for (Long id : order) {
+                byte[] data = records.get(id);
+                out.writeLong(id);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // A journal with an older generation is ignored, so a crash at this point loses nothing
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(journalFile))) {
+            writeHeader(out, JOURNAL);
+        }
+        snapshotSize = Files.size(file);
+        journalSize = HEADER_SIZE;
+        compact = false;
+
+        if (legacyFile != null) {
+            Files.deleteIfExists(legacyFile);
+        }
+    }
+
+    private void appendJournal(Batch batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream entry = new DataOutputStream(bytes);
+        for (Long id : batch.removed) {
+            entry.writeByte(REMOVE);
+            entry.writeLong(id);
+        }
+        for (Map.Entry<Long, byte[]> put : batch.puts.entrySet()) {
+            entry.writeByte(PUT);
+            entry.writeLong(put.getKey());
+            entry.writeInt(put.getValue().length);
+            entry.write(put.getValue());
+        }
+        entry.writeByte(ORDER);
+        entry.writeInt(batch.order.size());
+        for (Long id : batch.order) {
+            entry.writeLong(id);
+        }
+        entry.flush();
+
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalFile,
+                StandardOpenOption.APPEND)))) {
+            out.writeInt(data.length);
+            out.writeInt((int) crc.getValue());
+            out.write(data);
+        }
+        journalSize += 8 + data.length;
+    }
+
+    private void writeHeader(DataOutputStream out, byte type) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(type);
+        out.writeLong(generation);
+    }
+
+    /**
+     * Reads and checks the header, returning the generation
+     */
+    private long readHeader(DataInputStream in, byte type) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readByte() != type) {
+            throw new IOException("Unsupported store format: " + file);
+        }
+        return in.readLong();
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            generation = readHeader(in, SNAPSHOT);
+            int count = in.readInt();
+            order = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                records.put(id, data);
+                order.add(id);
+            }
+        }
+        snapshotSize = Files.size(file);
+        compact = false;
+    }
+
+    /**
+     * Replays the journal up to the first incomplete entry, which is what a crash while appending leaves behind
+     */
+    private void readJournal() throws IOException {
+        if (!Files.exists(journalFile)) {
+            compact = true;
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            if (readHeader(in, JOURNAL) != generation) {
+                compact = true;
+                return;
+            }
+            journalSize = HEADER_SIZE;
+            while (true) {
+                byte[] data;
+                int crc;
+                try {
+                    data = new byte[in.readInt()];
+                    crc = in.readInt();
+                    in.readFully(data);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 check = new CRC32();
+                check.update(data);
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+                replay(data);
+                journalSize += 8 + data.length;
+            }
+        }
+        if (journalSize < Files.size(journalFile)) {
+            LOG.warn("Ignoring incomplete entry at the end of " + journalFile);
+            // Appending after the incomplete entry would hide the later entries
+            compact = true;
+        }
+    }
+
+    private void replay(byte[] entry) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+        while (in.available() > 0) {
+            byte op = in.readByte();
+            if (op == REMOVE) {
+                records.remove(in.readLong());
+            } else if (op == PUT) {
+                long id = in.readLong();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                records.put(id, data);
+            } else if (op == ORDER) {
+                int count = in.readInt();
+                order = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    order.add(in.readLong());
+                }
+            } else {
+                throw new IOException("Invalid journal entry in " + journalFile);
+            }
+        }
+    }
+
+    /**
+     * Reads all objects written to the given file with a single {@code ObjectOutputStream}
+     *
+     * @param file
+     *            the file
+     * @return the objects
+     */
+    public static List<Object> readLegacy(File file) throws IOException, ClassNotFoundException {
+        List<Object> result = new ArrayList<>();
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                try {
+                    result.add(in.readObject());
+                } catch (EOFException e) {
+                    return result;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return result;
+        }
+    }
+
+    private static byte[] serialize(Object record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(record);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 16);
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length * 4);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                bytes.write(buf, 0, len);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer digest(byte[] data) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-1").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The changes of a save
+     */
+    private static final class Batch {
+
+        final Map<Long, byte[]> puts;
+        final List<Long> removed;
+        final List<Long> order;
+        final boolean snapshot;
+
+        Batch(Map<Long, byte[]> puts, List<Long> removed, List<Long> order, boolean snapshot) {
+            this.puts = puts;
+            this.removed = removed;
+            this.order = order;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import net.jcip.annotations.Immutable;
+import dk.dma.enav.model.geometry.Position;
+
+/**
+ * Immutable R-tree of lat/lon polygons.
+ * <p>
+ * The tree is bulk loaded with the Sort-Tile-Recursive algorithm, so it is meant for data sets that are received as a whole,
+ * like the result of a NoGo request. Bounding box queries only visit the nodes overlapping the box, and the geometric tests
+ * are only performed for the polygons whose bounding box matches.
+ * <p>
+ * Geometry is treated as planar in lat/lon, i.e. edges are rhumb lines, which matches how the polygons are drawn. Polygons
+ * crossing the date line are not supported.
+ *
+ * @param <T>
+ *            the type of the value associated with each polygon
+ */
+@Immutable
+public class PolygonIndex<T> {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private final Node<T> root;
+    private final int size;
+
+    /**
+     * Creates an index of the given polygons
+     *
+     * @param values
+     *            the values to index
+     * @param outline
+     *            returns the outline of a value as lat/lon pairs, i.e. {@code lat0, lon0, lat1, lon1, ...}
+     */
+    public PolygonIndex(List<? extends T> values, Outline<? super T> outline) {
+        List<Node<T>> level = new ArrayList<>(values.size());
+        for (T value : values) {
+            double[] points = outline.getOutline(value);
+            if (points != null && points.length >= 2) {
+                level.add(new Node<T>(value, points));
+            }
+        }
+        size = level.size();
+
+        if (level.isEmpty()) {
+            root = null;
+            return;
+        }
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        root = level.get(0);
+    }
+
+    /**
+     * Returns the number of indexed polygons
+     *
+     * @return the number of indexed polygons
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the values whose polygon bounding box overlaps the given box
+     *
+     * @param northWest
+     *            the north west corner
+     * @param southEast
+     *            the south east corner
+     * @return the overlapping values
+     */
+    public List<T> query(Position northWest, Position southEast) {
+        return query(southEast.getLatitude(), northWest.getLongitude(), northWest.getLatitude(), southEast.getLongitude());
+    }
+
+    /**
+     * Returns the values whose polygon bounding box overlaps the given box
+     */
+    public List<T> query(double minLat, double minLon, double maxLat, double maxLon) {
+        List<T> result = new ArrayList<>();
+        for (Node<T> leaf : leaves(minLat, minLon, maxLat, maxLon)) {
+            result.add(leaf.value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values whose polygon contains the given position
+     *
+     * @param pos
+     *            the position
+     * @return the values whose polygon contains the position
+     */
+    public List<T> containing(Position pos) {
+        double lat = pos.getLatitude();
+        double lon = pos.getLongitude();
+        List<T> result = new ArrayList<>();
+        for (Node<T> leaf : leaves(lat, lon, lat, lon)) {
+            if (contains(leaf.points, lat, lon)) {
+                result.add(leaf.value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values whose polygon is crossed by, or contains, the line between the two positions
+     *
+     * @param start
+     *            the start of the line
+     * @param end
+     *            the end of the line
+     * @return the values whose polygon intersects the line
+     */
+    public List<T> intersecting(Position start, Position end) {
+        double lat1 = start.getLatitude();
+        double lon1 = start.getLongitude();
+        double lat2 = end.getLatitude();
+        double lon2 = end.getLongitude();
+
+        List<T> result = new ArrayList<>();
+        for (Node<T> leaf : leaves(Math.min(lat1, lat2), Math.min(lon1, lon2), Math.max(lat1, lat2), Math.max(lon1, lon2))) {
+            if (contains(leaf.points, lat1, lon1) || crosses(leaf.points, lat1, lon1, lat2, lon2)) {
+                result.add(leaf.value);
+            }
+        }
+        return result;
+    }
+
+    private List<Node<T>> leaves(double minLat, double minLon, double maxLat, double maxLon) {
+        List<Node<T>> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            if (node.maxLat < minLat || node.minLat > maxLat || node.maxLon < minLon || node.minLon > maxLon) {
+                continue;
+            }
+            if (node.children == null) {
+                result.add(node);
+            } else {
+                for (Node<T> child : node.children) {
+                    stack.push(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ray casting point-in-polygon test
+     */
+    static boolean contains(double[] points, double lat, double lon) {
+        boolean inside = false;
+        int n = points.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double latI = points[2 * i];
+            double lonI = points[2 * i + 1];
+            double latJ = points[2 * j];
+            double lonJ = points[2 * j + 1];
+            if ((latI > lat) != (latJ > lat) && lon < (lonJ - lonI) * (lat - latI) / (latJ - latI) + lonI) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Returns if the line crosses any of the polygon edges
+     */
+    static boolean crosses(double[] points, double lat1, double lon1, double lat2, double lon2) {
+        int n = points.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            if (segmentsIntersect(lat1, lon1, lat2, lon2, points[2 * j], points[2 * j + 1], points[2 * i], points[2 * i + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean segmentsIntersect(double ay, double ax, double by, double bx, double cy, double cx, double dy, double dx) {
+        double d1 = direction(cx, cy, dx, dy, ax, ay);
+        double d2 = direction(cx, cy, dx, dy, bx, by);
+        double d3 = direction(ax, ay, bx, by, cx, cy);
+        double d4 = direction(ax, ay, bx, by, dx, dy);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return d1 == 0 && onSegment(cx, cy, dx, dy, ax, ay) || d2 == 0 && onSegment(cx, cy, dx, dy, bx, by) || d3 == 0
+                && onSegment(ax, ay, bx, by, cx, cy) || d4 == 0 && onSegment(ax, ay, bx, by, dx, dy);
+    }
+
+    private static double direction(double x1, double y1, double x2, double y2, double x3, double y3) {
+        return (x3 - x1) * (y2 - y1) - (x2 - x1) * (y3 - y1);
+    }
+
+    private static boolean onSegment(double x1, double y1, double x2, double y2, double x, double y) {
+        return Math.min(x1, x2) <= x && x <= Math.max(x1, x2) && Math.min(y1, y2) <= y && y <= Math.max(y1, y2);
+    }
+
+    /**
+     * Packs one level of the tree into the next using Sort-Tile-Recursive
+     */
+    private static <T> List<Node<T>> pack(List<Node<T>> level) {
+        int nodeCount = (int) Math.ceil(level.size() / (double) NODE_CAPACITY);
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+
+        Collections.sort(level, new Comparator<Node<T>>() {
+            @Override
+            public int compare(Node<T> n1, Node<T> n2) {
+                return Double.compare(n1.minLon + n1.maxLon, n2.minLon + n2.maxLon);
+            }
+        });
+
+        List<Node<T>> result = new ArrayList<>(nodeCount);
+        for (int i = 0; i < level.size(); i += sliceSize) {
+            List<Node<T>> slice = new ArrayList<>(level.subList(i, Math.min(i + sliceSize, level.size())));
+            Collections.sort(slice, new Comparator<Node<T>>() {
+                @Override
+                public int compare(Node<T> n1, Node<T> n2) {
+                    return Double.compare(n1.minLat + n1.maxLat, n2.minLat + n2.maxLat);
+                }
+            });
+            for (int j = 0; j < slice.size(); j += NODE_CAPACITY) {
+                result.add(new Node<T>(slice.subList(j, Math.min(j + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the outline of an indexed value
+     */
+    public interface Outline<T> {
+
+        /**
+         * Returns the outline of the value as lat/lon pairs
+         *
+         * @param value
+         *            the value
+         * @return the outline as {@code lat0, lon0, lat1, lon1, ...}
+         */
+        double[] getOutline(T value);
+    }
+
+    /**
+     * A node of the tree. Leaves hold a single polygon
+     */
+    private static final class Node<T> {
+
+        final double minLat;
+        final double minLon;
+        final double maxLat;
+        final double maxLon;
+
+        final List<Node<T>> children;
+        final T value;
+        final double[] points;
+
+        Node(T value, double[] points) {
+            this.value = value;
+            this.points = points;
+            this.children = null;
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i + 1 < points.length; i += 2) {
+                minLat = Math.min(minLat, points[i]);
+                maxLat = Math.max(maxLat, points[i]);
+                minLon = Math.min(minLon, points[i + 1]);
+                maxLon = Math.max(maxLon, points[i + 1]);
+            }
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+        }
+
+        Node(List<Node<T>> children) {
+            this.value = null;
+            this.points = null;
+            this.children = new ArrayList<>(children);
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (Node<T> child : children) {
+                minLat = Math.min(minLat, child.minLat);
+                maxLat = Math.max(maxLat, child.maxLat);
+                minLon = Math.min(minLon, child.minLon);
+                maxLon = Math.max(maxLon, child.maxLon);
+            }
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StartupOrchestratorTest {
+
+    private static final String[] LOADERS = { "AisHandler", "RouteManager", "VoyageManager", "ShoreServices",
+            "MaritimeCloud" };
+
+    /**
+     * Mimics the boot of an EPD instance: settings first, then independent components reading files or opening sockets,
+     * and finally the GUI, which needs them all. The loaders count down {@code loaded} when done, and the GUI records how
+     * many had completed when it started
+     */
+    private static StartupOrchestrator boot(int threads, Runnable loader, final CountDownLatch loaded,
+            final AtomicInteger loadedBeforeGui) {
+        StartupOrchestrator startup = new StartupOrchestrator(threads);
+        startup.add("Settings", noop());
+        for (String name : LOADERS) {
+            startup.add(name, loader, "Settings");
+        }
+        startup.add("Gui", new Runnable() {
+            @Override
+            public void run() {
+                loadedBeforeGui.set((int) (LOADERS.length - loaded.getCount()));
+            }
+        }, LOADERS);
+        return startup;
+    }
+
+    /**
+     * Returns a loader that counts down {@code loaded} when done
+     */
+    private static Runnable loader(final CountDownLatch loaded) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                loaded.countDown();
+            }
+        };
+    }
+
+    /**
+     * Returns a loader that only completes once all loaders have started, so the loaders must run at the same time
+     */
+    private static Runnable overlappingLoader(final CountDownLatch started, final CountDownLatch loaded) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    if (!started.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("The loaders did not run at the same time");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                loaded.countDown();
+            }
+        };
+    }
+
+    /**
+     * Returns a loader that takes {@code millis} to load, after waiting up to {@code millis} for all loaders to start. When
+     * the loaders run one after another, each of them waits the full time
+     */
+    private static Runnable timedLoader(final CountDownLatch started, final CountDownLatch loaded, final long millis) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    started.await(millis, TimeUnit.MILLISECONDS);
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                loaded.countDown();
+            }
+        };
+    }
+
+    /**
+     * Boots the graph with timed loaders and returns the time the GUI was started
+     */
+    private static long timeToGui(int threads) {
+        CountDownLatch started = new CountDownLatch(LOADERS.length);
+        CountDownLatch loaded = new CountDownLatch(LOADERS.length);
+        AtomicInteger loadedBeforeGui = new AtomicInteger();
+        StartupOrchestrator startup = boot(threads, timedLoader(started, loaded, 50), loaded, loadedBeforeGui);
+        startup.run();
+        assertEquals(LOADERS.length, loadedBeforeGui.get());
+        return startup.getStartTime("Gui");
+    }
+
+    private static Runnable noop() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    @Test
+    public void dependenciesCompleteFirst() {
+        CountDownLatch loaded = new CountDownLatch(LOADERS.length);
+        AtomicInteger loadedBeforeGui = new AtomicInteger();
+        StartupOrchestrator startup = boot(4, loader(loaded), loaded, loadedBeforeGui);
+        startup.run();
+
+        List<String> started = startup.getStartOrder();
+        List<String> completed = startup.getCompletionOrder();
+        assertEquals(7, completed.size());
+        assertEquals("Settings", started.get(0));
+        assertEquals("Settings", completed.get(0));
+        assertEquals("Gui", started.get(6));
+        assertEquals("Gui", completed.get(6));
+        assertEquals(LOADERS.length, loadedBeforeGui.get());
+    }
+
+    @Test
+    public void sequentialKeepsDeclarationOrder() {
+        CountDownLatch loaded = new CountDownLatch(LOADERS.length);
+        AtomicInteger loadedBeforeGui = new AtomicInteger();
+        StartupOrchestrator startup = boot(1, loader(loaded), loaded, loadedBeforeGui);
+        startup.run();
+
+        String declared = "[Settings, AisHandler, RouteManager, VoyageManager, ShoreServices, MaritimeCloud, Gui]";
+        assertEquals(declared, startup.getStartOrder().toString());
+        assertEquals(declared, startup.getCompletionOrder().toString());
+        assertEquals(1, startup.getMaxConcurrency());
+        assertEquals(LOADERS.length, loadedBeforeGui.get());
+    }
+
+    @Test
+    public void independentComponentsOverlap() {
+        CountDownLatch started = new CountDownLatch(LOADERS.length);
+        CountDownLatch loaded = new CountDownLatch(LOADERS.length);
+        AtomicInteger loadedBeforeGui = new AtomicInteger();
+        StartupOrchestrator startup = boot(LOADERS.length, overlappingLoader(started, loaded), loaded, loadedBeforeGui);
+        startup.run();
+
+        // Each loader waited for all of them to start, so all five were initializing at once
+        assertEquals(LOADERS.length, startup.getMaxConcurrency());
+        assertEquals("Gui", startup.getStartOrder().get(6));
+        assertEquals(LOADERS.length, loadedBeforeGui.get());
+    }
+
+    @Test
+    public void parallelReachesGuiSooner() {
+        long sequential = timeToGui(1);
+        long parallel = timeToGui(LOADERS.length);
+
+        // Sequentially each loader waits for the others in vain before loading, so the GUI starts after 10 loading times
+        // at least, whereas in parallel the loaders start together. Compare the two rather than to a fixed bound
+        assertTrue("Sequential " + sequential + " ms, parallel " + parallel + " ms", parallel * 2 < sequential);
+    }
+
+    @Test
+    public void failureSkipsDependents() {
+        final AtomicInteger guiStarted = new AtomicInteger();
+        StartupOrchestrator startup = new StartupOrchestrator(2);
+        startup.add("Settings", noop());
+        startup.add("RouteManager", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalArgumentException("Corrupt routes");
+            }
+        }, "Settings");
+        startup.add("AisHandler", noop(), "Settings");
+        startup.add("Gui", new Runnable() {
+            @Override
+            public void run() {
+                guiStarted.incrementAndGet();
+            }
+        }, "RouteManager", "AisHandler");
+
+        try {
+            startup.run();
+            fail("Expected the startup to fail");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(0, guiStarted.get());
+        assertTrue(startup.getCompletionOrder().contains("AisHandler"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDependency() {
+        new StartupOrchestrator(2).add("Gui", noop(), "Settings");
+    }
+}
@@ -0,0 +1,290 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.ais;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import net.maritimecloud.core.id.MaritimeId;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import dk.dma.ais.message.AisMessage18;
+import dk.dma.ais.message.AisMessage27;
+import dk.dma.ais.message.AisMessage4;
+import dk.dma.ais.message.AisMessage9;
+import dk.dma.ais.message.AisPosition;
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.gui.MainFrameCommon;
+import dk.dma.epd.common.prototype.model.intendedroute.FilteredIntendedRoute;
+import dk.dma.epd.common.prototype.model.route.IntendedRoute;
+import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+import dk.dma.epd.common.prototype.service.IntendedRouteHandlerCommon;
+import dk.dma.epd.common.prototype.settings.AisSettings;
+
+/**
+ * Tests that the AIS messages handled by {@linkplain AisHandlerCommon} end up in the right target maps
+ */
+public class AisHandlerCommonTest {
+
+    private static final long MMSI = 219000001L;
+    private static final Position POS = Position.create(55.7, 12.6);
+
+    private TestAisHandler aisHandler;
+
+    @BeforeClass
+    public static void createEpd() throws IOException {
+        if (EPD.getInstance() == null) {
+            new TestEPD(Files.createTempDirectory("epd-common-test"));
+        }
+        PntTime.init(false);
+    }
+
+    @Before
+    public void createHandler() {
+        aisHandler = new TestAisHandler();
+        aisHandler.findAndInit(new TestIntendedRouteHandler());
+    }
+
+    @Test
+    public void baseStationReport() {
+        AisMessage4 msg4 = new AisMessage4();
+        msg4.setUserId((int) MMSI);
+        msg4.setPos(new AisPosition(POS));
+        aisHandler.receive(msg4);
+
+        assertTrue(aisHandler.baseStationTargets.containsKey(MMSI));
+        assertTrue(aisHandler.getTarget(MMSI) instanceof BaseStationTarget);
+        assertTrue(aisHandler.vesselTargets.isEmpty());
+        assertTrue(aisHandler.getMobileTargets(null).isEmpty());
+    }
+
+    @Test
+    public void sarAircraftReport() {
+        AisMessage9 msg9 = new AisMessage9();
+        msg9.setUserId((int) MMSI);
+        msg9.setPos(new AisPosition(POS));
+        msg9.setSog(140);
+        msg9.setCog(900);
+        aisHandler.receive(msg9);
+
+        // SAR aircraft are neither vessels nor SART distress beacons
+        assertTrue(aisHandler.sarAircraftTargets.containsKey(MMSI));
+        assertTrue(aisHandler.sarTargets.isEmpty());
+        assertTrue(aisHandler.vesselTargets.isEmpty());
+        assertTrue(aisHandler.getTarget(MMSI) instanceof SarAircraftTarget);
+        assertEquals(1, aisHandler.getMobileTargets(null).size());
+
+        SarAircraftTarget target = aisHandler.sarAircraftTargets.get(MMSI);
+        assertEquals(140, target.getPositionData().getSog(), 0.0);
+        assertEquals(90, target.getPositionData().getCog(), 0.0);
+    }
+
+    @Test
+    public void longRangeReportCreatesClassAVessel() {
+        aisHandler.receive(longRangeReport());
+
+        VesselTarget target = aisHandler.vesselTargets.get(MMSI);
+        assertEquals(VesselTarget.AisClass.A, target.getAisClass());
+        assertTrue(target.isLongRange());
+        assertTrue(aisHandler.sarAircraftTargets.isEmpty());
+        assertTrue(aisHandler.baseStationTargets.isEmpty());
+    }
+
+    @Test
+    public void longRangeReportKeepsAisClass() {
+        aisHandler.receive(classBReport());
+        VesselTarget target = aisHandler.vesselTargets.get(MMSI);
+        assertEquals(VesselTarget.AisClass.B, target.getAisClass());
+        assertFalse(target.isLongRange());
+
+        aisHandler.receive(longRangeReport());
+        assertEquals(1, aisHandler.vesselTargets.size());
+        assertEquals(VesselTarget.AisClass.B, target.getAisClass());
+        assertTrue(target.isLongRange());
+
+        // A terrestrial report clears the flag again
+        aisHandler.receive(classBReport());
+        assertEquals(VesselTarget.AisClass.B, target.getAisClass());
+        assertFalse(target.isLongRange());
+    }
+
+    @Test
+    public void longRangeGoneTolerance() {
+        aisHandler.receive(longRangeReport());
+        VesselTarget target = aisHandler.vesselTargets.get(MMSI);
+        Date now = new Date();
+
+        // Long-range reports are sent every 3 minutes, so a missed report must not make the target gone
+        target.setLastReceived(new Date(now.getTime() - 5 * 60 * 1000));
+        assertFalse(target.hasGone(now, true));
+        target.setLastReceived(new Date(now.getTime() - 7 * 60 * 1000));
+        assertTrue(target.hasGone(now, true));
+
+        // A moving class A vessel seen by a terrestrial station is gone after 2 minutes in strict mode
+        target.setLongRange(false);
+        target.setLastReceived(new Date(now.getTime() - 5 * 60 * 1000));
+        assertTrue(target.hasGone(now, true));
+    }
+
+    @Test
+    public void clearAisTargets() {
+        aisHandler.receive(longRangeReport());
+        AisMessage9 msg9 = new AisMessage9();
+        msg9.setUserId((int) MMSI + 1);
+        msg9.setPos(new AisPosition(POS));
+        aisHandler.receive(msg9);
+        assertEquals(2, aisHandler.getMobileTargets(null).size());
+
+        aisHandler.clearAisTargets();
+        assertTrue(aisHandler.getMobileTargets(null).isEmpty());
+        assertNull(aisHandler.getTarget(MMSI + 1));
+    }
+
+    private static AisMessage27 longRangeReport() {
+        AisMessage27 msg27 = new AisMessage27();
+        msg27.setUserId((int) MMSI);
+        msg27.setPos(new AisPosition(POS));
+        msg27.setSog(10);
+        msg27.setCog(90);
+        return msg27;
+    }
+
+    private static AisMessage18 classBReport() {
+        AisMessage18 msg18 = new AisMessage18();
+        msg18.setUserId((int) MMSI);
+        msg18.setPos(new AisPosition(POS));
+        msg18.setSog(65);
+        msg18.setCog(900);
+        msg18.setTrueHeading(90);
+        return msg18;
+    }
+
+    /**
+     * AIS handler accepting all targets
+     */
+    private static final class TestAisHandler extends AisHandlerCommon {
+
+        TestAisHandler() {
+            super(new AisSettings());
+        }
+
+        @Override
+        protected boolean isWithinRange(Position pos) {
+            return true;
+        }
+    }
+
+    /**
+     * Intended route handler without filtering or notifications, needed when creating vessel targets
+     */
+    private static final class TestIntendedRouteHandler extends IntendedRouteHandlerCommon {
+
+        @Override
+        protected void updateFilter() {
+        }
+
+        @Override
+        protected void applyFilter(IntendedRoute route) {
+        }
+
+        @Override
+        protected String formatNotificationDescription(FilteredIntendedRoute filteredIntendedRoute) {
+            return "";
+        }
+    }
+
+    /**
+     * Minimal headless {@linkplain EPD} instance, needed by the AIS handler to find the home path
+     */
+    private static final class TestEPD extends EPD {
+
+        private final Path homePath;
+
+        TestEPD(Path homePath) {
+            this.homePath = homePath;
+        }
+
+        @Override
+        public EPDType getType() {
+            return EPDType.SHIP;
+        }
+
+        @Override
+        public Path getHomePath() {
+            return homePath;
+        }
+
+        @Override
+        protected String getPropertyFileName() {
+            return "epd-ship.properties";
+        }
+
+        @Override
+        protected void propertyLoadError(String msg, IOException e) {
+        }
+
+        @Override
+        protected void startSensors() {
+        }
+
+        @Override
+        protected void stopSensors() {
+        }
+
+        @Override
+        public MainFrameCommon getMainFrame() {
+            return null;
+        }
+
+        @Override
+        public Position getPosition() {
+            return null;
+        }
+
+        @Override
+        public Long getMmsi() {
+            return null;
+        }
+
+        @Override
+        public MaritimeId getMaritimeId() {
+            return null;
+        }
+
+        @Override
+        public String[] getDefaultMouseModeServiceList() {
+            return new String[0];
+        }
+
+        @Override
+        public void closeApp(boolean restart) {
+        }
+
+        @Override
+        public void settingsChanged(Type type) {
+        }
+    }
+}
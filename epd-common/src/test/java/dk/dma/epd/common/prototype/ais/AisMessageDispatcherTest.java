@@ -0,0 +1,74 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.ais;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import dk.dma.ais.message.AisMessage;
+import dk.dma.ais.message.AisMessage27;
+import dk.dma.ais.message.AisMessage3;
+import dk.dma.ais.message.AisMessage4;
+
+public class AisMessageDispatcherTest {
+
+    @Test
+    public void dispatchByMessageId() {
+        final List<AisMessage> received = new ArrayList<>();
+        AisMessageDispatcher dispatcher = new AisMessageDispatcher();
+        dispatcher.register(new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+                received.add(aisMessage);
+            }
+        }, 3, 27);
+
+        AisMessage3 msg3 = new AisMessage3();
+        AisMessage27 msg27 = new AisMessage27();
+        assertTrue(dispatcher.dispatch(msg3));
+        assertFalse(dispatcher.dispatch(new AisMessage4()));
+        assertTrue(dispatcher.dispatch(msg27));
+
+        assertEquals(2, received.size());
+        assertSame(msg3, received.get(0));
+        assertSame(msg27, received.get(1));
+    }
+
+    @Test
+    public void unregister() {
+        AisMessageDispatcher dispatcher = new AisMessageDispatcher();
+        dispatcher.register(4, new AisMessageHandler() {
+            @Override
+            public void handle(AisMessage aisMessage) {
+            }
+        });
+        assertTrue(dispatcher.dispatch(new AisMessage4()));
+
+        dispatcher.register(4, null);
+        assertFalse(dispatcher.dispatch(new AisMessage4()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMessageId() {
+        new AisMessageDispatcher().register(28, null);
+    }
+}
@@ -0,0 +1,180 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import dk.dma.ais.binary.SixbitException;
+import dk.dma.epd.common.prototype.areanotice.AreaNoticeSubArea.Shape;
+
+public class AreaNoticeDecoderTest {
+
+    private static final Date RECEIVED = utc(2014, 1, 2, 12, 0);
+
+    @Test
+    public void circleAndText() throws SixbitException {
+        Bits bits = header(5, 3, 1, 2, 10, 30, 120);
+        circle(bits, 1, 11.5, 55.25, 50);
+        bits.add(5, 3);
+        bits.text("KEEP CLEAR", 14);
+
+        AreaNotice notice = AreaNoticeDecoder.decode(219000001, bits.reader(), RECEIVED);
+        assertEquals(219000001, notice.getMmsi());
+        assertEquals(5, notice.getLinkageId());
+        assertEquals(3, notice.getNoticeType());
+        assertEquals(utc(2014, 1, 2, 10, 30), notice.getStart());
+        assertEquals(utc(2014, 1, 2, 12, 30), notice.getExpiry());
+        assertEquals(2, notice.getSubAreas().size());
+
+        AreaNoticeSubArea circle = notice.getSubAreas().get(0);
+        assertEquals(Shape.CIRCLE_OR_POINT, circle.getShape());
+        assertEquals(55.25, circle.getPos().getLatitude(), 1e-9);
+        assertEquals(11.5, circle.getPos().getLongitude(), 1e-9);
+        assertEquals(500.0, circle.toMeters(circle.getRadius()), 1e-9);
+        assertEquals("KEEP CLEAR", notice.getText());
+    }
+
+    @Test
+    public void negativeCoordinatesAndSector() throws SixbitException {
+        Bits bits = header(1, 20, 1, 2, 10, 30, AreaNotice.UNDEFINED_DURATION);
+        bits.add(2, 3).add(0, 2).signed(-70.125 * 60000, 25).signed(-33.5 * 60000, 24).add(0, 3);
+        bits.add(100, 12).add(350, 9).add(20, 9);
+
+        AreaNoticeSubArea sector = AreaNoticeDecoder.decode(1, bits.reader(), RECEIVED).getSubAreas().get(0);
+        assertEquals(Shape.SECTOR, sector.getShape());
+        assertEquals(-33.5, sector.getPos().getLatitude(), 1e-9);
+        assertEquals(-70.125, sector.getPos().getLongitude(), 1e-9);
+        assertEquals(350, sector.getLeftBound());
+        assertEquals(20, sector.getRightBound());
+    }
+
+    @Test
+    public void polylineStartsAtPrecedingPoint() throws SixbitException {
+        Bits bits = header(1, 20, 1, 2, 10, 30, 60);
+        circle(bits, 0, 11.0, 55.0, 0);
+        bits.add(3, 3).add(2, 2);
+        bits.add(180, 10).add(10, 10).add(0, 10).add(10, 10).add(0, 10).add(0, 10).add(0, 10).add(0, 10).add(0, 2);
+
+        AreaNotice notice = AreaNoticeDecoder.decode(1, bits.reader(), RECEIVED);
+        assertEquals(3, notice.getPolyPoints(1).size());
+        assertEquals(55.0, notice.getPolyPoints(1).get(0).getLatitude(), 1e-9);
+        // 1000 m east, then 1000 m north
+        assertTrue(notice.getPolyPoints(1).get(1).getLongitude() > 11.0);
+        assertTrue(notice.getPolyPoints(1).get(2).getLatitude() > 55.0);
+        assertEquals(90.0, notice.getSubAreas().get(1).getAngle(0), 1e-9);
+    }
+
+    @Test
+    public void reservedShapeEndsDecoding() throws SixbitException {
+        Bits bits = header(1, 20, 1, 2, 10, 30, 60);
+        circle(bits, 0, 11.0, 55.0, 10);
+        bits.add(7, 3).add(0, 84);
+        circle(bits, 0, 12.0, 56.0, 10);
+
+        assertEquals(1, AreaNoticeDecoder.decode(1, bits.reader(), RECEIVED).getSubAreas().size());
+    }
+
+    @Test
+    public void cancellationWithoutSubAreas() throws SixbitException {
+        AreaNotice notice = AreaNoticeDecoder.decode(1, header(1, 20, 1, 2, 10, 30, 0).reader(), RECEIVED);
+        assertTrue(notice.isCancellation());
+        assertNull(AreaNoticeDecoder.decode(1, header(1, 20, 1, 2, 10, 30, 60).reader(), RECEIVED));
+        assertNull(AreaNoticeDecoder.decode(1, new Bits().add(0, 10).reader(), RECEIVED));
+    }
+
+    @Test
+    public void startTimeYear() {
+        assertEquals(utc(2013, 12, 31, 23, 0), AreaNoticeDecoder.startTime(12, 31, 23, 0, RECEIVED));
+        Date received = utc(2013, 12, 31, 23, 0);
+        assertEquals(utc(2014, 1, 1, 1, 0), AreaNoticeDecoder.startTime(1, 1, 1, 0, received));
+        assertEquals(received, AreaNoticeDecoder.startTime(0, 1, 1, 0, received));
+        assertEquals(received, AreaNoticeDecoder.startTime(1, 1, 24, 0, received));
+    }
+
+    static Bits header(int linkageId, int noticeType, int month, int day, int hour, int minute, int duration) {
+        return new Bits().add(linkageId, 10).add(noticeType, 7).add(month, 4).add(day, 5).add(hour, 5).add(minute, 6)
+                .add(duration, 18);
+    }
+
+    static void circle(Bits bits, int scaleFactor, double lon, double lat, int radius) {
+        bits.add(0, 3).add(scaleFactor, 2).signed(lon * 60000, 25).signed(lat * 60000, 24).add(0, 3).add(radius, 12)
+                .add(0, 18);
+    }
+
+    static Date utc(int year, int month, int day, int hour, int minute) {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.clear();
+        cal.set(year, month - 1, day, hour, minute);
+        return cal.getTime();
+    }
+
+    /**
+     * Builder of application data
+     */
+    static class Bits {
+
+        private final StringBuilder bits = new StringBuilder();
+
+        Bits add(long val, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                bits.append((val >> i & 1) == 1 ? '1' : '0');
+            }
+            return this;
+        }
+
+        Bits signed(double val, int count) {
+            long raw = Math.round(val);
+            return add(raw < 0 ? raw + (1L << count) : raw, count);
+        }
+
+        Bits text(String text, int chars) {
+            for (int i = 0; i < chars; i++) {
+                char c = i < text.length() ? text.charAt(i) : '@';
+                add(c >= 64 ? c - 64 : c, 6);
+            }
+            return this;
+        }
+
+        AreaNoticeDecoder.BitReader reader() {
+            final String data = bits.toString();
+            return new AreaNoticeDecoder.BitReader() {
+                private int pos;
+
+                @Override
+                public int remaining() {
+                    return data.length() - pos;
+                }
+
+                @Override
+                public long getVal(int count) throws SixbitException {
+                    if (count > remaining()) {
+                        throw new SixbitException("Not enough bits");
+                    }
+                    long val = Long.parseLong(data.substring(pos, pos + count), 2);
+                    pos += count;
+                    return val;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.areanotice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+
+public class AreaNoticeStoreTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final Date START = new Date(1400000000000L);
+
+    private final AreaNoticeStore store = new AreaNoticeStore();
+
+    @Test
+    public void reassembleFragments() {
+        assertTrue(store.update(notice(1, 20, 60, START, circle(55.0, 11.0))));
+        assertTrue(store.update(notice(1, 20, 60, at(1), circle(55.1, 11.1), circle(55.2, 11.2))));
+
+        AreaNotice notice = store.get(219000001, 1);
+        assertEquals(2, notice.getFragmentCount());
+        assertEquals(3, notice.getSubAreas().size());
+        assertEquals(at(1), notice.getLastReceived());
+
+        // Re-broadcasts only refresh the fragments
+        assertFalse(store.update(notice(1, 20, 60, at(2), circle(55.0, 11.0))));
+        assertEquals(2, store.get(219000001, 1).getFragmentCount());
+        assertEquals(at(2), store.get(219000001, 1).getLastReceived());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void staleFragmentsDropped() {
+        store.update(notice(1, 20, AreaNotice.UNDEFINED_DURATION, START, circle(55.0, 11.0)));
+        store.update(notice(1, 20, AreaNotice.UNDEFINED_DURATION, at(10), circle(55.1, 11.1)));
+        store.update(notice(1, 20, AreaNotice.UNDEFINED_DURATION, at(20), circle(55.1, 11.1)));
+
+        AreaNotice notice = store.get(219000001, 1);
+        assertEquals(1, notice.getFragmentCount());
+        assertEquals(55.1, notice.getSubAreas().get(0).getPos().getLatitude(), 1e-9);
+    }
+
+    @Test
+    public void newHeaderReplacesNotice() {
+        store.update(notice(1, 20, 60, START, circle(55.0, 11.0)));
+        assertTrue(store.update(notice(1, 21, 60, at(1), circle(55.1, 11.1))));
+
+        AreaNotice notice = store.get(219000001, 1);
+        assertEquals(21, notice.getNoticeType());
+        assertEquals(1, notice.getSubAreas().size());
+    }
+
+    @Test
+    public void cancellation() {
+        store.update(notice(1, 20, 60, START, circle(55.0, 11.0)));
+        store.update(notice(2, 20, 60, START, circle(55.0, 11.0)));
+
+        assertTrue(store.update(notice(1, 20, 0, at(1))));
+        assertNull(store.get(219000001, 1));
+        assertEquals(1, store.size());
+        assertFalse(store.update(notice(1, 20, 0, at(2))));
+    }
+
+    @Test
+    public void expiry() {
+        store.update(notice(1, 20, 10, START, circle(55.0, 11.0)));
+        store.update(notice(2, 20, AreaNotice.UNDEFINED_DURATION, START, circle(55.0, 11.0)));
+
+        assertFalse(store.removeExpired(at(9)));
+        assertTrue(store.removeExpired(at(10)));
+        assertNull(store.get(219000001, 1));
+
+        // Re-broadcasts extend notices without a duration
+        store.update(notice(2, 20, AreaNotice.UNDEFINED_DURATION, at(20), circle(55.0, 11.0)));
+        assertFalse(store.removeExpired(at(30)));
+        assertSame(store.get(219000001, 2), store.getNotices().get(0));
+        assertTrue(store.removeExpired(at(50)));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void spatialIndex() {
+        store.update(notice(1, 20, 60, START, circle(55.0, 11.0)));
+        store.update(notice(2, 20, 60, START, circle(57.0, 13.0)));
+        store.update(notice(3, 20, 60, START, AreaNoticeSubArea.text("TEXT ONLY")));
+
+        List<AreaNotice> visible = store.createIndex().query(54.5, 10.5, 55.5, 11.5);
+        assertEquals(1, visible.size());
+        assertEquals(1, visible.get(0).getLinkageId());
+        assertEquals(2, store.createIndex().query(54.0, 10.0, 58.0, 14.0).size());
+    }
+
+    private static Date at(int minutes) {
+        return new Date(START.getTime() + minutes * MINUTE);
+    }
+
+    private static AreaNoticeSubArea circle(double lat, double lon) {
+        return AreaNoticeSubArea.circle(1, Position.create(lat, lon), 0, 100);
+    }
+
+    private static AreaNotice notice(int linkageId, int noticeType, int duration, Date received,
+            AreaNoticeSubArea... subAreas) {
+        return AreaNotice.create(219000001, linkageId, noticeType, START, duration,
+                subAreas.length == 0 ? Collections.<AreaNoticeSubArea> emptyList() : Arrays.asList(subAreas), received);
+    }
+}
@@ -0,0 +1,145 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.background;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShapeTilesTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("tiles");
+    }
+
+    /**
+     * Creates a polygon shapefile with one record per ring, rings given as lat/lon pairs
+     */
+    private static byte[] shapefile(float[]... rings) {
+        int length = 100;
+        for (float[] ring : rings) {
+            length += 8 + 44 + 4 + (ring.length / 2 + 1) * 16;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(9994).position(24);
+        buffer.putInt(length / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(1000).putInt(5).position(100);
+        int record = 1;
+        for (float[] ring : rings) {
+            int n = ring.length / 2 + 1;
+            buffer.order(ByteOrder.BIG_ENDIAN).putInt(record++).putInt((44 + 4 + n * 16) / 2);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(5).putDouble(0).putDouble(0).putDouble(0).putDouble(0);
+            buffer.putInt(1).putInt(n).putInt(0);
+            for (int i = 0; i < n; i++) {
+                int p = i % (n - 1);
+                buffer.putDouble(ring[2 * p + 1]).putDouble(ring[2 * p]);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static float[] box(float minLat, float minLon, float maxLat, float maxLon) {
+        return new float[] { minLat, minLon, minLat, maxLon, maxLat, maxLon, maxLat, minLon };
+    }
+
+    @Test
+    public void readsRingsWithoutClosingPoint() throws Exception {
+        List<float[]> rings = ShapefileReader.readRings(new ByteArrayInputStream(shapefile(box(10, 20, 11, 21))));
+        assertEquals(1, rings.size());
+        assertTrue(Arrays.equals(box(10, 20, 11, 21), rings.get(0)));
+    }
+
+    @Test
+    public void clipsToTileBounds() {
+        long key = ShapeTiles.key(1, 1, 1);
+        double[] bounds = ShapeTiles.bounds(key);
+        assertEquals(0.0, bounds[0], 0.0);
+        assertEquals(0.0, bounds[1], 0.0);
+
+        List<float[]> clipped = ShapeTiles.clip(Collections.singletonList(box(10, -10, 20, 10)), bounds);
+        assertEquals(1, clipped.size());
+        float[] ring = clipped.get(0);
+        for (int i = 0; i < ring.length; i += 2) {
+            assertTrue(ring[i + 1] >= 0 && ring[i + 1] <= 10);
+        }
+        assertTrue(ShapeTiles.onBorder(bounds, 10, 0, 20, 0));
+        assertFalse(ShapeTiles.onBorder(bounds, 10, 10, 20, 10));
+    }
+
+    @Test
+    public void simplifiesBelowTolerance() {
+        // A box with a small notch on its southern edge
+        float[] ring = { 0, 0, 0, 5, 0.001f, 5.001f, 0, 5.002f, 0, 10, 10, 10, 10, 0 };
+        assertEquals(8, ShapeTiles.simplify(ring, 0.01).length);
+        assertEquals(14, ShapeTiles.simplify(ring, 0.0001).length);
+        assertNull(ShapeTiles.simplify(box(0, 0, 0.001f, 0.001f), 0.01));
+    }
+
+    @Test
+    public void buildsAndReusesCache() throws Exception {
+        Path shp = dir.resolve("land.shp");
+        Files.write(shp, shapefile(box(-40, -100, 40, 100), box(60.0001f, 10.0001f, 60.0002f, 10.0002f)));
+        Path cache = dir.resolve("land.tiles");
+
+        try (ShapeTiles tiles = ShapeTiles.open(shp.toUri().toURL(), cache)) {
+            // The island is simplified away at the coarse levels, but kept at the finest
+            Set<Long> coarse = tiles.tilesIn(2, 55, 5, 65, 15);
+            assertTrue(coarse.isEmpty());
+            Set<Long> fine = tiles.tilesIn(ShapeTiles.MAX_LEVEL, 60, 10, 60.001, 10.001);
+            assertEquals(1, fine.size());
+            assertEquals(1, tiles.getTile(fine.iterator().next()).length);
+
+            // Inside the box, a full tile of a coarser level covers the finest level
+            Set<Long> full = tiles.tilesIn(ShapeTiles.MAX_LEVEL, 0, 0, 0.1, 0.1);
+            assertEquals(1, full.size());
+            long key = full.iterator().next();
+            assertTrue(ShapeTiles.level(key) < ShapeTiles.MAX_LEVEL);
+            assertEquals(8, tiles.getTile(key)[0].length);
+        }
+
+        long modified = Files.getLastModifiedTime(cache).toMillis();
+        Thread.sleep(10);
+        try (ShapeTiles tiles = ShapeTiles.open(shp.toUri().toURL(), cache)) {
+            assertTrue(tiles.size() > 0);
+        }
+        assertEquals(modified, Files.getLastModifiedTime(cache).toMillis());
+    }
+
+    @Test
+    public void choosesLevelFromResolution() {
+        assertEquals(0, ShapeTiles.levelFor(1));
+        assertEquals(ShapeTiles.MAX_LEVEL, ShapeTiles.levelFor(0.00001));
+        int level = ShapeTiles.levelFor(0.01);
+        assertTrue(ShapeTiles.tolerance(level) <= 0.01);
+        assertTrue(ShapeTiles.tolerance(level - 1) > 0.01);
+    }
+}
@@ -0,0 +1,88 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.layers.msi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ValidityScheduleTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long TODAY = 16000 * DAY;
+    private static final long UNBOUNDED = ValiditySchedule.UNBOUNDED;
+
+    @Test
+    public void validity() {
+        long now = TODAY + 10 * HOUR;
+        assertTrue(ValiditySchedule.isValid(TODAY, UNBOUNDED, TODAY, now));
+        assertTrue(ValiditySchedule.isValid(TODAY - DAY, now + 1, TODAY, now));
+        assertFalse(ValiditySchedule.isValid(TODAY + DAY, UNBOUNDED, TODAY, now));
+        assertFalse(ValiditySchedule.isValid(TODAY, now, TODAY, now));
+        assertFalse(ValiditySchedule.isValid(UNBOUNDED, UNBOUNDED, TODAY, now));
+        // Cancelled
+        assertFalse(ValiditySchedule.isValid(TODAY, Long.MIN_VALUE, TODAY, now));
+    }
+
+    @Test
+    public void startsAtDayBoundary() {
+        ValiditySchedule<String> schedule = new ValiditySchedule<>();
+        long now = TODAY + 10 * HOUR;
+        schedule.add("tomorrow", TODAY + DAY, UNBOUNDED, TODAY, now);
+        schedule.add("in two days", TODAY + 2 * DAY, UNBOUNDED, TODAY, now);
+        schedule.add("today", TODAY, UNBOUNDED, TODAY, now);
+        assertEquals(2, schedule.size());
+
+        assertEquals(Collections.emptyList(), schedule.pollStarted(TODAY));
+        assertEquals(Arrays.asList("tomorrow"), schedule.pollStarted(TODAY + DAY));
+        assertEquals(Arrays.asList("in two days"), schedule.pollStarted(TODAY + 5 * DAY));
+        assertEquals(0, schedule.size());
+    }
+
+    @Test
+    public void expiresAtValidTo() {
+        ValiditySchedule<String> schedule = new ValiditySchedule<>();
+        long now = TODAY + 10 * HOUR;
+        schedule.add("late", TODAY, now + 3 * HOUR, TODAY, now);
+        schedule.add("early", TODAY, now + HOUR, TODAY, now);
+        schedule.add("open", TODAY, UNBOUNDED, TODAY, now);
+        schedule.add("expired", TODAY - DAY, now, TODAY, now);
+        schedule.add("cancelled", TODAY, Long.MIN_VALUE, TODAY, now);
+        assertEquals(2, schedule.size());
+
+        assertEquals(Collections.emptyList(), schedule.pollExpired(now + HOUR - 1));
+        assertEquals(Arrays.asList("early", "late"), schedule.pollExpired(now + 3 * HOUR));
+        assertEquals(0, schedule.size());
+    }
+
+    @Test
+    public void startsAndExpires() {
+        ValiditySchedule<String> schedule = new ValiditySchedule<>();
+        long now = TODAY + 10 * HOUR;
+        schedule.add("tomorrow morning", TODAY + DAY, TODAY + DAY + 8 * HOUR, TODAY, now);
+        // Expires before the day it becomes valid
+        schedule.add("never", TODAY + 2 * DAY, TODAY + DAY, TODAY, now);
+
+        assertEquals(Arrays.asList("tomorrow morning"), schedule.pollStarted(TODAY + DAY));
+        assertEquals(Arrays.asList("never", "tomorrow morning"), schedule.pollExpired(TODAY + DAY + 8 * HOUR));
+        assertEquals(Collections.emptyList(), schedule.pollStarted(TODAY + 2 * DAY));
+    }
+}
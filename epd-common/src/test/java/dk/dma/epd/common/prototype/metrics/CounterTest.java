@@ -0,0 +1,38 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CounterTest {
+
+    @Test
+    public void rateOfLatestWindow() {
+        Counter counter = new Counter(0);
+
+        counter.add(100);
+        // The first window is not complete yet
+        assertEquals(0.0, counter.getRate(1000), 0.0);
+        assertEquals(20.0, counter.getRate(Counter.RATE_INTERVAL), 1e-9);
+
+        // Within the next window the rate of the previous one is kept
+        counter.add(50);
+        assertEquals(20.0, counter.getRate(Counter.RATE_INTERVAL + 1000), 1e-9);
+        assertEquals(10.0, counter.getRate(2 * Counter.RATE_INTERVAL), 1e-9);
+        assertEquals(150, counter.getCount());
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverValuesWithBoundedError() {
+        int lastIndex = -1;
+        for (long value = 0; value < 1L << LatencyHistogram.MAX_BITS; value = value < 1000 ? value + 1 : value * 11 / 10) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue("Index decreased at " + value, index >= lastIndex);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue("Value above bucket at " + value, value <= upper);
+            assertTrue("Bucket too wide at " + value, upper - value <= Math.max(0, value / 32));
+            lastIndex = index;
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 1e-6);
+
+        long[] percentiles = histogram.getPercentiles(50, 90, 99, 100);
+        assertEquals(500000, percentiles[0], 500000 / 32);
+        assertEquals(900000, percentiles[1], 900000 / 32);
+        assertEquals(990000, percentiles[2], 990000 / 32);
+        assertEquals(1000000, percentiles[3]);
+    }
+
+    @Test
+    public void emptyAndOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentiles(50)[0]);
+        assertEquals(0.0, histogram.getMean(), 0.0);
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentiles(50)[0]);
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    public void snapshotInMillis() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2000000);
+
+        MetricSnapshot snapshot = histogram.snapshot("test", System.currentTimeMillis());
+        assertTrue(snapshot.hasLatency());
+        assertEquals(1, snapshot.getCount());
+        assertEquals(2.0, snapshot.getMax(), 1e-9);
+        assertEquals(2.0, snapshot.getP50(), 1e-9);
+    }
+
+    @Test
+    public void concurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int values = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < values; i++) {
+                        histogram.record(i);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * values, histogram.getCount());
+        assertEquals(values - 1, histogram.getMax());
+    }
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void metricsByName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.counter("a.count"), registry.counter("a.count"));
+        assertSame(registry.histogram("a.latency"), registry.histogram("a.latency"));
+    }
+
+    @Test
+    public void snapshotSortedByName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("b.latency").record(1000000);
+        registry.counter("a.count").add(3);
+
+        List<MetricSnapshot> snapshot = registry.snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("a.count", snapshot.get(0).getName());
+        assertEquals(3, snapshot.get(0).getCount());
+        assertFalse(snapshot.get(0).hasLatency());
+        assertEquals("b.latency", snapshot.get(1).getName());
+        assertTrue(snapshot.get(1).hasLatency());
+    }
+
+    @Test
+    public void export() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("a.count").add(3);
+        registry.histogram("b.latency").record(1500000);
+
+        Path file = Files.createTempFile("metrics", ".csv");
+        try {
+            registry.export(file);
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(4, lines.size());
+            assertTrue(lines.get(2).startsWith("a.count,3,"));
+            assertTrue(lines.get(3).startsWith("b.latency,1,"));
+            assertTrue(lines.get(3).endsWith(",1.500"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
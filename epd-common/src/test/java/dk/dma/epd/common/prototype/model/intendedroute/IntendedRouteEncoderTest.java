@@ -0,0 +1,196 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.intendedroute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dk.dma.enav.model.voyage.Route;
+import dk.dma.enav.model.voyage.RouteLeg;
+import dk.dma.enav.model.voyage.Waypoint;
+import dk.dma.epd.common.prototype.model.route.IntendedRoute;
+import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+import dma.route.IntendedRouteBroadcast;
+import dma.route.IntendedRouteHeartbeat;
+import net.maritimecloud.util.Timestamp;
+
+public class IntendedRouteEncoderTest {
+
+    private static final long MMSI = 219000001L;
+    private static final long START = 1400000000000L;
+    private static final long LEG_MILLIS = 30 * 60 * 1000L;
+    private static final int WAYPOINTS = 12;
+
+    @Before
+    public void setUp() {
+        PntTime.init(false);
+    }
+
+    /**
+     * Creates the broadcast of a route with the given active waypoint, where the ETAs from the active waypoint on are
+     * delayed by the given time
+     */
+    private static IntendedRouteBroadcast broadcast(double latShift, int activeIndex, long delay) {
+        Route route = new Route();
+        route.setName("Test route");
+        for (int i = 0; i < WAYPOINTS; i++) {
+            Waypoint wp = new Waypoint();
+            wp.setLatitude(55.0 + i * 0.1 + (i == WAYPOINTS - 1 ? latShift : 0));
+            wp.setLongitude(11.0 + i * 0.1);
+            wp.setEta(new Date(START + i * LEG_MILLIS + (i >= activeIndex ? delay : 0)));
+            wp.setRot(10.0);
+            wp.setTurnRad(0.5);
+            if (i < WAYPOINTS - 1) {
+                RouteLeg leg = new RouteLeg();
+                leg.setSpeed(12.0);
+                leg.setXtdPort(0.1);
+                leg.setXtdStarboard(0.1);
+                leg.setHeading(RouteLeg.Heading.RL);
+                wp.setRouteLeg(leg);
+            }
+            route.getWaypoints().add(wp);
+        }
+        IntendedRouteBroadcast broadcast = IntendedRoute.fromRoute(route);
+        for (int i = 0; i < WAYPOINTS; i++) {
+            broadcast.addCalculatedEtas(Timestamp.create(START + i * LEG_MILLIS));
+        }
+        broadcast.setActiveWaypointIndex(activeIndex);
+        return broadcast;
+    }
+
+    private static void send(LoopbackBroadcasts mms, IntendedRouteEncoder encoder, IntendedRouteBroadcast route, long now) {
+        IntendedRouteHeartbeat heartbeat = encoder.encode(route, now);
+        if (heartbeat != null) {
+            mms.broadcast(MMSI, heartbeat);
+        } else {
+            mms.broadcast(MMSI, route);
+        }
+    }
+
+    @Test
+    public void heartbeatWhileOnRoute() {
+        IntendedRouteEncoder encoder = new IntendedRouteEncoder();
+        IntendedRouteBroadcast first = broadcast(0, 2, 0);
+        assertNull(encoder.encode(first, START));
+        assertNotNull(first.getVersion());
+
+        IntendedRouteHeartbeat heartbeat = encoder.encode(broadcast(0, 3, 120000L), START + 60000L);
+        assertNotNull(heartbeat);
+        assertEquals(first.getVersion(), heartbeat.getVersion());
+        assertEquals(3, heartbeat.getActiveWaypointIndex().intValue());
+        assertEquals(120000L, heartbeat.getEtaOffset().longValue());
+    }
+
+    @Test
+    public void fullRouteOnChange() {
+        IntendedRouteEncoder encoder = new IntendedRouteEncoder();
+        IntendedRouteBroadcast first = broadcast(0, 2, 0);
+        assertNull(encoder.encode(first, START));
+
+        // Moved waypoint
+        IntendedRouteBroadcast moved = broadcast(0.01, 2, 0);
+        assertNull(encoder.encode(moved, START + 1000L));
+        assertFalse(first.getVersion().equals(moved.getVersion()));
+
+        // ETAs that are not shifted uniformly
+        IntendedRouteBroadcast uneven = broadcast(0.01, 2, 0);
+        uneven.getRoute().getWaypoints().get(WAYPOINTS - 1).setEta(Timestamp.create(START + 3600000L));
+        assertNull(encoder.encode(uneven, START + 2000L));
+
+        // Keyframe interval
+        assertNull(encoder.encode(broadcast(0.01, 2, 0), START + 3000L));
+        assertNotNull(encoder.encode(broadcast(0.01, 2, 0), START + 4000L));
+        assertNull(encoder.encode(broadcast(0.01, 2, 0), START + 3000L + IntendedRouteEncoder.KEYFRAME_INTERVAL));
+    }
+
+    @Test
+    public void receiverAppliesHeartbeat() {
+        LoopbackBroadcasts mms = new LoopbackBroadcasts();
+        IntendedRouteEncoder encoder = new IntendedRouteEncoder();
+
+        send(mms, encoder, broadcast(0, 2, 0), START);
+        IntendedRoute route = mms.getRoute(MMSI);
+        assertEquals(2, route.getActiveWpIndex());
+
+        send(mms, encoder, broadcast(0, 4, 90000L), START + 60000L);
+        assertSame(route, mms.getRoute(MMSI));
+        assertEquals(1, mms.getHeartbeats());
+        assertEquals(4, route.getActiveWpIndex());
+        assertEquals(90000L, route.getEtaOffset());
+        assertEquals(START + 3 * LEG_MILLIS, route.getEtas().get(3).getTime());
+        assertEquals(START + 4 * LEG_MILLIS + 90000L, route.getEtas().get(4).getTime());
+        assertEquals(START + (WAYPOINTS - 1) * LEG_MILLIS + 90000L, route.getEtas().get(WAYPOINTS - 1).getTime());
+    }
+
+    @Test
+    public void staleHeartbeatIgnored() {
+        LoopbackBroadcasts mms = new LoopbackBroadcasts();
+        IntendedRouteEncoder encoder = new IntendedRouteEncoder();
+        IntendedRouteBroadcast first = broadcast(0, 2, 0);
+        send(mms, encoder, first, START);
+
+        IntendedRouteHeartbeat stale = new IntendedRouteHeartbeat();
+        stale.setVersion(first.getVersion() + 1);
+        stale.setActiveWaypointIndex(3);
+        stale.setEtaOffset(0L);
+        mms.broadcast(MMSI, stale);
+
+        assertEquals(1, mms.getIgnoredHeartbeats());
+        assertEquals(2, mms.getRoute(MMSI).getActiveWpIndex());
+    }
+
+    /**
+     * Measures an hour of broadcasts every minute, with a route change half way
+     */
+    @Test
+    public void bytesPerHour() {
+        LoopbackBroadcasts full = new LoopbackBroadcasts();
+        LoopbackBroadcasts encoded = new LoopbackBroadcasts();
+        IntendedRouteEncoder encoder = new IntendedRouteEncoder();
+
+        for (int minute = 0; minute < 60; minute++) {
+            long now = START + minute * 60000L;
+            double latShift = minute < 30 ? 0 : 0.01;
+            int activeIndex = 1 + minute / 30;
+            long delay = minute * 5000L;
+            full.broadcast(MMSI, broadcast(latShift, activeIndex, delay));
+            send(encoded, encoder, broadcast(latShift, activeIndex, delay), now);
+        }
+
+        assertEquals(0, encoded.getIgnoredHeartbeats());
+        assertEquals(60, encoded.getFullRoutes() + encoded.getHeartbeats());
+        assertTrue(encoded.getFullRoutes() <= 14);
+
+        // A heartbeat is a small fraction of a full route, and the encoded stream less than half the full one
+        long fullRouteBytes = full.getBytes() / full.getFullRoutes();
+        assertEquals(full.getBytes(), full.getFullRouteBytes());
+        assertEquals(encoded.getBytes(), encoded.getFullRouteBytes() + encoded.getHeartbeatBytes());
+        assertTrue(encoded.getHeartbeatBytes() * 10 < encoded.getHeartbeats() * fullRouteBytes);
+        assertTrue(encoded.getBytes() * 2 < full.getBytes());
+
+        // Both receivers end up with the same ETAs
+        assertEquals(full.getRoute(MMSI).getEtas(), encoded.getRoute(MMSI).getEtas());
+        assertEquals(full.getRoute(MMSI).getActiveWpIndex(), encoded.getRoute(MMSI).getActiveWpIndex());
+    }
+}
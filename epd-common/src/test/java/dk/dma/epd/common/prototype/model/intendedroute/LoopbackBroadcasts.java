@@ -0,0 +1,109 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.intendedroute;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import dk.dma.epd.common.prototype.model.route.IntendedRoute;
+import dma.route.IntendedRouteBroadcast;
+import dma.route.IntendedRouteHeartbeat;
+
+/**
+ * In-process stand-in for the maritime cloud broadcasts of intended routes.
+ * <p>
+ * Messages are serialized and deserialized on the way, to count the bytes sent and to make sure the receiver does not
+ * share instances with the sender. The receiver side keeps the intended routes by MMSI, like
+ * {@linkplain dk.dma.epd.common.prototype.service.IntendedRouteHandlerCommon} does.
+ */
+public class LoopbackBroadcasts {
+
+    private final Map<Long, IntendedRoute> routes = new HashMap<>();
+    private long bytes;
+    private long heartbeatBytes;
+    private int fullRoutes;
+    private int heartbeats;
+    private int ignoredHeartbeats;
+
+    public void broadcast(long mmsi, IntendedRouteBroadcast broadcast) {
+        IntendedRoute route = new IntendedRoute(transfer(broadcast));
+        route.setMmsi(mmsi);
+        routes.put(mmsi, route);
+        fullRoutes++;
+    }
+
+    public void broadcast(long mmsi, IntendedRouteHeartbeat heartbeat) {
+        long before = bytes;
+        IntendedRouteHeartbeat received = transfer(heartbeat);
+        heartbeatBytes += bytes - before;
+        IntendedRoute route = routes.get(mmsi);
+        if (route != null
+                && route.applyHeartbeat(received.getVersion(), received.getActiveWaypointIndex(), received.getEtaOffset())) {
+            heartbeats++;
+        } else {
+            ignoredHeartbeats++;
+        }
+    }
+
+    public IntendedRoute getRoute(long mmsi) {
+        return routes.get(mmsi);
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getHeartbeatBytes() {
+        return heartbeatBytes;
+    }
+
+    public long getFullRouteBytes() {
+        return bytes - heartbeatBytes;
+    }
+
+    public int getFullRoutes() {
+        return fullRoutes;
+    }
+
+    public int getHeartbeats() {
+        return heartbeats;
+    }
+
+    public int getIgnoredHeartbeats() {
+        return ignoredHeartbeats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T transfer(T message) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject((Serializable) message);
+            }
+            bytes += out.size();
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                return (T) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
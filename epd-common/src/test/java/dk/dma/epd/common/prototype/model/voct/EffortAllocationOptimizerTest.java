@@ -0,0 +1,90 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.model.voct.EffortAllocationPlan.Assignment;
+
+public class EffortAllocationOptimizerTest {
+
+    private final ProbabilityGrid grid = ProbabilityGrid.fromDatum(Position.create(56, 11), 5, 40);
+
+    private final List<SearchUnit> units = Arrays.asList(new SearchUnit(1, 0.5, 10, 4), new SearchUnit(2, 0.8, 12, 4),
+            new SearchUnit(3, 0.3, 8, 6));
+
+    @Test
+    public void testGridIsNormalized() {
+        assertEquals(1.0, grid.getTotalProbability(), 1e-9);
+        assertEquals(20, grid.getRow(0.0));
+        assertEquals(20, grid.getColumn(0.0));
+    }
+
+    @Test
+    public void testFindPoDIsInverseOfTrackSpacing() {
+        // S = W for a coverage factor of 1
+        assertEquals(1 - Math.exp(-1.6), SAROperation.findPoD(0.5, 0.5), 1e-12);
+        assertTrue(SAROperation.findPoD(0.5, 0.25) > SAROperation.findPoD(0.5, 0.5));
+    }
+
+    @Test
+    public void testOptimizedPlanBeatsStackedSquares() throws InterruptedException {
+        EffortAllocationOptimizer optimizer = new EffortAllocationOptimizer(grid, units);
+
+        // All SRUs searching a square on the datum with a coverage factor of 1
+        List<Assignment> stacked = new ArrayList<>();
+        for (SearchUnit unit : units) {
+            double side = Math.sqrt(unit.getSearchEffort());
+            stacked.add(new Assignment(unit.getMmsi(), 0, 0, 90, side, side, unit.getSweepWidth(), SAROperation.findPoD(
+                    unit.getSweepWidth(), unit.getSweepWidth())));
+        }
+        double baseline = optimizer.evaluate(new EffortAllocationPlan(stacked, 0));
+
+        // Bounded by iterations rather than time, so that a slow machine searches just as far
+        EffortAllocationPlan plan = optimizer.optimize(2, TimeUnit.MINUTES.toMillis(5), 20000);
+
+        assertNotNull(plan);
+        assertFalse(optimizer.isRunning());
+        assertEquals(units.size(), plan.getAssignments().size());
+        assertTrue(plan.getProbabilityOfSuccess() > baseline);
+        assertEquals(plan.getProbabilityOfSuccess(), optimizer.evaluate(plan), 1e-9);
+    }
+
+    @Test
+    public void testBestPlanAvailableWhileRunning() throws InterruptedException {
+        EffortAllocationOptimizer optimizer = new EffortAllocationOptimizer(grid, units);
+        // The workers only stop at the deadline or when cancelled
+        optimizer.start(2, TimeUnit.MINUTES.toMillis(5));
+
+        EffortAllocationPlan early = optimizer.awaitFirstPlan(10, TimeUnit.SECONDS);
+        assertNotNull(early);
+        assertTrue(optimizer.isRunning());
+
+        optimizer.cancel();
+        EffortAllocationPlan plan = optimizer.awaitCompletion();
+        assertTrue(plan.getProbabilityOfSuccess() >= early.getProbabilityOfSuccess());
+    }
+}
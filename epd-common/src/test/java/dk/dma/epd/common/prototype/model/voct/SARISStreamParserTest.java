@@ -0,0 +1,76 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointDataSARIS;
+import dk.dma.epd.common.prototype.model.voct.sardata.SARWeatherData;
+
+public class SARISStreamParserTest {
+
+    @Test
+    public void streamingMatchesXPath() throws Exception {
+        File file = File.createTempFile("saris", ".xml");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            SarisReportWriter.write(out, 5, 3);
+        }
+
+        DatumPointDataSARIS expected = new SARISXMLParser(file.getAbsolutePath()).getSarData();
+        DatumPointDataSARIS actual = new SARISStreamParser().parse(file);
+
+        assertEquals(expected.getLKP(), actual.getLKP());
+        assertSameTime(expected.getLKPDate(), actual.getLKPDate());
+        assertSameTime(expected.getCSSDate(), actual.getCSSDate());
+
+        assertEquals(5, actual.getWeatherPoints().size());
+        assertEquals(expected.getWeatherPoints().size(), actual.getWeatherPoints().size());
+        for (int i = 0; i < expected.getWeatherPoints().size(); i++) {
+            SARWeatherData expectedWeather = expected.getWeatherPoints().get(i);
+            SARWeatherData actualWeather = actual.getWeatherPoints().get(i);
+            assertEquals(expectedWeather.getLWknots(), actualWeather.getLWknots(), 0.0);
+            assertEquals(expectedWeather.getLWHeading(), actualWeather.getLWHeading(), 0.0);
+            assertSameTime(expectedWeather.getDateTime(), actualWeather.getDateTime());
+        }
+
+        assertEquals(3, actual.getSarisTarget().size());
+        assertEquals(expected.getSarisTarget().size(), actual.getSarisTarget().size());
+        for (int i = 0; i < expected.getSarisTarget().size(); i++) {
+            assertEquals(expected.getSarisTarget().get(i).getName(), actual.getSarisTarget().get(i).getName());
+        }
+
+        assertEquals(3, actual.getSarAreaData().size());
+        assertEquals(expected.getSarAreaData().size(), actual.getSarAreaData().size());
+        for (int i = 0; i < expected.getSarAreaData().size(); i++) {
+            assertEquals(expected.getSarAreaData().get(i).getA(), actual.getSarAreaData().get(i).getA());
+            assertEquals(expected.getSarAreaData().get(i).getD(), actual.getSarAreaData().get(i).getD());
+            assertEquals(expected.getSarAreaData().get(i).getCentre(), actual.getSarAreaData().get(i).getCentre());
+        }
+    }
+
+    /**
+     * Both parsers start from the current time, so only the parsed fields are compared
+     */
+    private static void assertSameTime(DateTime expected, DateTime actual) {
+        assertEquals(expected.withMillisOfSecond(0), actual.withMillisOfSecond(0));
+    }
+}
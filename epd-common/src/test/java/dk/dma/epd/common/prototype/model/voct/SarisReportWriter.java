@@ -0,0 +1,115 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.model.voct;
+
+import java.io.PrintWriter;
+
+/**
+ * Writes synthetic SARIS reports for tests and for the epd-bench benchmarks.
+ * <p>
+ * The output is indented, since the XPath based parser relies on whitespace text nodes when picking angle values.
+ */
+public final class SarisReportWriter {
+
+    private SarisReportWriter() {
+    }
+
+    public static void write(PrintWriter out, int windEntries, int targets) {
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<saris-report>");
+        out.println("  <search-plan-information>");
+        writeTime(out, "    ", "Datum", 14);
+        out.println("    <search-plan-locations>");
+        out.println("      <dsp-information location=\"1\">");
+        writeTime(out, "        ", "Drift Start", 10);
+        writePosition(out, "        ", "D.S.P.", 55.5, 11.25);
+        out.println("      </dsp-information>");
+        out.println("    </search-plan-locations>");
+
+        out.println("    <wind-input>");
+        for (int i = 1; i <= windEntries; i++) {
+            out.println("      <wind-entry index=\"" + i + "\">");
+            writeTime(out, "        ", null, i % 24);
+            out.println("        <wind-value>");
+            out.println("          <speed>" + (5 + i % 20) + "</speed>");
+            out.println("          <angle>");
+            out.println("            <value>" + (i * 7 % 360) + "</value>");
+            out.println("            <unit>deg</unit>");
+            out.println("          </angle>");
+            out.println("        </wind-value>");
+            out.println("      </wind-entry>");
+        }
+        out.println("    </wind-input>");
+
+        out.println("    <leeway-info>");
+        for (int i = 1; i <= targets; i++) {
+            out.println("      <target name=\"Target " + i + "\">");
+            out.println("        <formula>0.011*U+0.07</formula>");
+            out.println("        <divergence>");
+            out.println("          <value>" + (20 + i % 10) + "</value>");
+            out.println("        </divergence>");
+            out.println("        <type>PIW</type>");
+            out.println("      </target>");
+        }
+        out.println("    </leeway-info>");
+        out.println("  </search-plan-information>");
+
+        out.println("  <search-area-coordinates>");
+        for (int i = 1; i <= targets; i++) {
+            double lat = 55.0 + i * 0.01;
+            out.println("    <search-area-target name=\"Target " + i + "\">");
+            out.println("      <search-area name=\"Area\">");
+            writePosition(out, "        ", "A", lat + 0.1, 11.0);
+            writePosition(out, "        ", "B", lat + 0.1, 11.2);
+            writePosition(out, "        ", "C", lat, 11.0);
+            writePosition(out, "        ", "D", lat, 11.2);
+            writePosition(out, "        ", "centre", lat + 0.05, 11.1);
+            out.println("        <distance name=\"Breadth\">" + (5.0 + i) + "</distance>");
+            out.println("        <distance name=\"Length\">" + (7.0 + i) + "</distance>");
+            out.println("      </search-area>");
+            out.println("    </search-area-target>");
+        }
+        out.println("  </search-area-coordinates>");
+        out.println("</saris-report>");
+        out.flush();
+    }
+
+    private static void writeTime(PrintWriter out, String indent, String name, int hour) {
+        out.println(indent + (name != null ? "<time name=\"" + name + "\">" : "<time>"));
+        out.println(indent + "  <day>5</day>");
+        out.println(indent + "  <month>6</month>");
+        out.println(indent + "  <year>2014</year>");
+        out.println(indent + "  <hour>" + hour + "</hour>");
+        out.println(indent + "  <minute>30</minute>");
+        out.println(indent + "  <second>0</second>");
+        out.println(indent + "</time>");
+    }
+
+    private static void writePosition(PrintWriter out, String indent, String name, double lat, double lon) {
+        out.println(indent + "<position name=\"" + name + "\">");
+        writeAngle(out, indent + "  ", "Latitude", lat, "N");
+        writeAngle(out, indent + "  ", "Longitude", lon, "E");
+        out.println(indent + "</position>");
+    }
+
+    private static void writeAngle(PrintWriter out, String indent, String name, double value, String hemisphere) {
+        out.println(indent + "<angle name=\"" + name + "\">");
+        out.println(indent + "  <value>" + value + "</value>");
+        out.println(indent + "  <degrees>" + (int) value + "</degrees>");
+        out.println(indent + "  <minutes>" + (value - (int) value) * 60 + "</minutes>");
+        out.println(indent + "  <hemisphere>" + hemisphere + "</hemisphere>");
+        out.println(indent + "</angle>");
+    }
+}
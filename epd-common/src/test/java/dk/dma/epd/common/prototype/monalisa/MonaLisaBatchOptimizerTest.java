@@ -0,0 +1,199 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.monalisa.sspa.CurrentShipDataType;
+import dk.dma.epd.common.prototype.monalisa.sspa.DraftType;
+import dk.dma.epd.common.prototype.monalisa.sspa.NoGoAreasType;
+import dk.dma.epd.common.prototype.monalisa.sspa.PositionType;
+import dk.dma.epd.common.prototype.monalisa.sspa.RouteType;
+import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
+import dk.dma.epd.common.prototype.monalisa.sspa.WaypointType;
+import dk.dma.epd.common.prototype.monalisa.sspa.WaypointsType;
+
+public class MonaLisaBatchOptimizerTest {
+
+    private final MonaLisaBatchOptimizer optimizer = new MonaLisaBatchOptimizer(4);
+
+    @After
+    public void tearDown() {
+        optimizer.shutdown();
+    }
+
+    @Test
+    public void testVariantsAreOptimizedConcurrently() throws InterruptedException {
+        StubMonaLisaService service = new StubMonaLisaService(0);
+        service.hold();
+        RecordingListener listener = new RecordingListener();
+
+        MonaLisaBatchOptimizer.Batch batch = optimizer.optimize(service, requests(5f, 6f, 7f, 8f), 5000, listener);
+        // Every variant is requested before any of them is answered
+        assertTrue(service.awaitRequests(4, 5, TimeUnit.SECONDS));
+        assertEquals(4, service.getMaxConcurrent());
+        assertTrue(listener.completed.isEmpty());
+
+        service.release();
+        assertTrue(batch.awaitCompletion(5, TimeUnit.SECONDS));
+
+        assertEquals(4, listener.completed.size());
+        assertTrue(listener.failed.isEmpty());
+        assertTrue(listener.batchCompleted.get());
+        assertEquals(95f, listener.completed.get(0).getMonaLisaResponse().getFuelFinal(), 0.001);
+        assertEquals(92f, listener.completed.get(3).getMonaLisaResponse().getFuelFinal(), 0.001);
+        assertEquals(4, service.getRequests());
+        assertEquals(4, service.getMaxConcurrent());
+    }
+
+    @Test
+    public void testRepeatedVariantsAreServedFromCache() throws InterruptedException {
+        StubMonaLisaService service = new StubMonaLisaService(50);
+        assertTrue(optimizer.optimize(service, requests(5f, 6f), 5000, new RecordingListener()).awaitCompletion(5,
+                TimeUnit.SECONDS));
+        assertEquals(2, service.getRequests());
+
+        RecordingListener listener = new RecordingListener();
+        assertTrue(optimizer.optimize(service, requests(6f, 7f), 5000, listener).awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(3, service.getRequests());
+        assertTrue(listener.cached.containsKey(0));
+        assertFalse(listener.cached.containsKey(1));
+        assertEquals(94f, listener.completed.get(0).getMonaLisaResponse().getFuelFinal(), 0.001);
+
+        optimizer.clearCache();
+        assertTrue(optimizer.optimize(service, requests(6f), 5000, new RecordingListener()).awaitCompletion(5,
+                TimeUnit.SECONDS));
+        assertEquals(4, service.getRequests());
+    }
+
+    @Test
+    public void testSlowVariantsTimeOut() throws InterruptedException {
+        StubMonaLisaService service = new StubMonaLisaService(10000);
+        RecordingListener listener = new RecordingListener();
+
+        MonaLisaBatchOptimizer.Batch batch = optimizer.optimize(service, requests(5f, 6f), 100, listener);
+        assertTrue(batch.awaitCompletion(5, TimeUnit.SECONDS));
+
+        assertTrue(listener.completed.isEmpty());
+        assertEquals(2, listener.failed.size());
+        assertTrue(listener.failed.get(0).startsWith("Timed out"));
+        assertEquals(2, service.getAborted());
+        assertTrue(listener.batchCompleted.get());
+    }
+
+    @Test
+    public void testCancelledBatchDeliversNoResults() throws InterruptedException {
+        StubMonaLisaService service = new StubMonaLisaService(10000);
+        RecordingListener listener = new RecordingListener();
+
+        MonaLisaBatchOptimizer.Batch batch = optimizer.optimize(service, requests(5f, 6f, 7f, 8f, 9f, 10f), 20000, listener);
+
+        // The pool has four threads, so the last two variants are still queued
+        assertTrue(service.awaitRequests(4, 5, TimeUnit.SECONDS));
+        batch.cancel();
+        assertTrue(batch.awaitCompletion(5, TimeUnit.SECONDS));
+
+        assertTrue(listener.completed.isEmpty());
+        assertTrue(listener.failed.isEmpty());
+        assertFalse(listener.batchCompleted.get());
+        assertEquals(4, service.getRequests());
+        assertEquals(4, service.getAborted());
+    }
+
+    @Test
+    public void testRequestHash() {
+        assertEquals(MonaLisaBatchOptimizer.requestHash(request(5f)), MonaLisaBatchOptimizer.requestHash(request(5f)));
+        assertFalse(MonaLisaBatchOptimizer.requestHash(request(5f)).equals(MonaLisaBatchOptimizer.requestHash(request(5.5f))));
+
+        RouterequestType withNogo = request(5f);
+        withNogo.setNogoareas(new NoGoAreasType());
+        assertNull(MonaLisaBatchOptimizer.requestHash(withNogo));
+    }
+
+    private static List<RouterequestType> requests(float... drafts) {
+        List<RouterequestType> requests = new ArrayList<>();
+        for (float draft : drafts) {
+            requests.add(request(draft));
+        }
+        return requests;
+    }
+
+    private static RouterequestType request(float draft) {
+        RouterequestType request = new RouterequestType();
+        CurrentShipDataType ship = new CurrentShipDataType();
+        ship.setMmsi("123456789");
+        ship.setUkcrequested(1);
+        DraftType draftType = new DraftType();
+        draftType.setForward(draft);
+        draftType.setAft(draft);
+        ship.setDraft(draftType);
+        request.setCurrentShipData(ship);
+
+        WaypointsType waypoints = new WaypointsType();
+        for (int i = 0; i < 3; i++) {
+            WaypointType wp = new WaypointType();
+            wp.setWptId(i + 1);
+            wp.setWptName("WP " + i);
+            PositionType pos = new PositionType();
+            pos.setLatitude(55 + i * 0.1);
+            pos.setLongitude(11);
+            wp.setPosition(pos);
+            waypoints.getWaypoint().add(wp);
+        }
+        RouteType route = new RouteType();
+        route.setWaypoints(waypoints);
+        request.setRoute(route);
+        return request;
+    }
+
+    private static class RecordingListener implements MonaLisaBatchOptimizer.Listener {
+
+        final Map<Integer, SSPAResponse> completed = new ConcurrentHashMap<>();
+        final Map<Integer, Boolean> cached = new ConcurrentHashMap<>();
+        final Map<Integer, String> failed = new ConcurrentHashMap<>();
+        final AtomicBoolean batchCompleted = new AtomicBoolean();
+
+        @Override
+        public void variantCompleted(int index, SSPAResponse response, boolean fromCache) {
+            completed.put(index, response);
+            if (fromCache) {
+                cached.put(index, true);
+            }
+        }
+
+        @Override
+        public void variantFailed(int index, String error) {
+            failed.put(index, error);
+        }
+
+        @Override
+        public void batchCompleted() {
+            batchCompleted.set(true);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.monalisa;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dk.dma.epd.common.prototype.monalisa.sspa.RouterequestType;
+import dk.dma.epd.common.prototype.monalisa.sspa.RouteresponseType;
+
+/**
+ * Local SSPA service with a configurable latency. Returns the requested route unchanged with a fuel saving proportional
+ * to the forward draft, so the responses of different variants can be told apart. The requests can be held until
+ * released, so tests can observe the requests in flight without depending on timing
+ */
+public class StubMonaLisaService implements MonaLisaService {
+
+    private final long latencyMillis;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger aborted = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean held;
+
+    public StubMonaLisaService(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput) {
+        return makeMonaLisaRouteRequest(monaLisaRoute, timeout, showInput, showOutput, null);
+    }
+
+    /**
+     * Waits for the latency to pass, or until the request is aborted. Unlike the HTTP client, interrupts are ignored
+     */
+    @Override
+    public SSPAResponse makeMonaLisaRouteRequest(RouterequestType monaLisaRoute, int timeout, boolean showInput, boolean showOutput,
+            MonaLisaAbortHandle abortHandle) {
+        final CountDownLatch abort = new CountDownLatch(1);
+        if (abortHandle != null) {
+            abortHandle.setAbortAction(new Runnable() {
+                @Override
+                public void run() {
+                    abort.countDown();
+                }
+            });
+        }
+        int running = concurrent.incrementAndGet();
+        for (int max = maxConcurrent.get(); running > max && !maxConcurrent.compareAndSet(max, running); max = maxConcurrent.get()) {
+            // Retry
+        }
+        synchronized (requests) {
+            requests.incrementAndGet();
+            requests.notifyAll();
+        }
+        try {
+            if (held) {
+                awaitUninterruptibly(released, 10000);
+            }
+            if (awaitUninterruptibly(abort, latencyMillis)) {
+                aborted.incrementAndGet();
+                return new SSPAResponse(null, "Aborted");
+            }
+        } finally {
+            concurrent.decrementAndGet();
+            if (abortHandle != null) {
+                abortHandle.setAbortAction(null);
+            }
+        }
+
+        RouteresponseType response = new RouteresponseType();
+        response.setFuelRequested(100);
+        response.setFuelFinal(100 - monaLisaRoute.getCurrentShipData().getDraft().getForward());
+        response.setUkcActual(monaLisaRoute.getCurrentShipData().getUkcrequested());
+        response.setRoute(monaLisaRoute.getRoute());
+        return new SSPAResponse(response, "Success");
+    }
+
+    /**
+     * Holds the requests received from now on until {@linkplain #release()} is called
+     */
+    public void hold() {
+        held = true;
+    }
+
+    /**
+     * Releases the held requests, and stops holding new ones
+     */
+    public void release() {
+        held = false;
+        released.countDown();
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getAborted() {
+        return aborted.get();
+    }
+
+    /**
+     * Waits until at least the given number of requests have been received
+     * 
+     * @return if the requests were received within the timeout
+     */
+    public boolean awaitRequests(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (requests) {
+            while (requests.get() < count) {
+                long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (wait <= 0) {
+                    return false;
+                }
+                requests.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    private static boolean awaitUninterruptibly(CountDownLatch latch, long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent.get();
+    }
+}
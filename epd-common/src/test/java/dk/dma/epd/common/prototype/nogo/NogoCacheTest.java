@@ -0,0 +1,80 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
+
+public class NogoCacheTest {
+
+    private final DateTime from = new DateTime(2014, 3, 1, 12, 0, 0, 0);
+    private final DateTime to = from.plusHours(2);
+
+    private List<NoGoDataEntry> results(int slices) {
+        List<NoGoDataEntry> results = new ArrayList<>();
+        for (int i = 0; i < slices; i++) {
+            NoGoDataEntry entry = new NoGoDataEntry(from.plusMinutes(30 * i), from.plusMinutes(30 * (i + 1)));
+            entry.setNogoPolygons(new ArrayList<NogoPolygon>());
+            entry.setNoGoMessage("Slice " + i);
+            results.add(entry);
+        }
+        return results;
+    }
+
+    @Test
+    public void testExactAndQuantizedHits() {
+        NogoCache cache = new NogoCache(10, 60000);
+        cache.put(-7.0, Position.create(56, 11), Position.create(55, 12), from, to, 30, results(4));
+
+        List<NoGoDataEntry> hit = cache.get(-7.01, Position.create(56.0001, 11), Position.create(55, 12), from.plusSeconds(20),
+                to, 30);
+        assertNotNull(hit);
+        assertEquals(4, hit.size());
+        assertEquals("Slice 3", hit.get(3).getNoGoMessage());
+
+        assertNull(cache.get(-7.5, Position.create(56, 11), Position.create(55, 12), from, to, 30));
+        assertNull(cache.get(-7.0, Position.create(56, 11), Position.create(55, 12), from, to, 60));
+    }
+
+    @Test
+    public void testContainingHit() {
+        NogoCache cache = new NogoCache(10, 60000);
+        cache.put(-7.0, Position.create(56, 11), Position.create(55, 12), from, to, 0, results(1));
+
+        assertNotNull(cache.get(-7.0, Position.create(55.8, 11.2), Position.create(55.2, 11.8), from, to, 0));
+        assertNull(cache.get(-7.0, Position.create(56.2, 11.2), Position.create(55.2, 11.8), from, to, 0));
+    }
+
+    @Test
+    public void testEviction() {
+        NogoCache cache = new NogoCache(2, 60000);
+        for (int i = 0; i < 3; i++) {
+            cache.put(-7.0, Position.create(56 + i, 11), Position.create(55 + i, 12), from, to, 0, results(1));
+        }
+        assertEquals(2, cache.size());
+        assertNull(cache.get(-7.0, Position.create(56, 11), Position.create(55, 12), from, to, 0));
+        assertNotNull(cache.get(-7.0, Position.create(58, 11), Position.create(57, 12), from, to, 0));
+    }
+}
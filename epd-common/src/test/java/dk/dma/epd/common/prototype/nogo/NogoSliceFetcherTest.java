@@ -0,0 +1,109 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.frv.enav.common.xml.nogo.response.NogoResponse;
+
+public class NogoSliceFetcherTest {
+
+    private final Position northWest = Position.create(56, 11);
+    private final Position southEast = Position.create(55, 12);
+
+    private static List<NoGoDataEntry> slices(int count) {
+        DateTime start = new DateTime(2014, 3, 1, 12, 0, 0, 0);
+        List<NoGoDataEntry> slices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            slices.add(new NoGoDataEntry(start.plusMinutes(30 * i), start.plusMinutes(30 * (i + 1))));
+        }
+        return slices;
+    }
+
+    private static class RecordingListener implements NogoSliceFetcher.Listener {
+        final Set<Integer> completed = new ConcurrentSkipListSet<>();
+        final AtomicBoolean fetchCompleted = new AtomicBoolean();
+
+        @Override
+        public void sliceCompleted(int index, NogoResponse response) {
+            completed.add(index);
+        }
+
+        @Override
+        public void sliceFailed(int index, ShoreServiceException e) {
+        }
+
+        @Override
+        public void fetchCompleted() {
+            fetchCompleted.set(true);
+        }
+    }
+
+    @Test
+    public void testSlicesAreFetchedConcurrently() throws InterruptedException {
+        StubNogoService service = new StubNogoService(0);
+        service.hold();
+        NogoSliceFetcher fetcher = new NogoSliceFetcher(4);
+        RecordingListener listener = new RecordingListener();
+
+        NogoSliceFetcher.Fetch fetch = fetcher.fetch(service, 7.0, northWest, southEast, slices(8), listener);
+        // Every thread has a request in flight before any of them completes
+        assertTrue(service.awaitRequests(4, 10, TimeUnit.SECONDS));
+        assertEquals(4, service.getMaxConcurrent());
+        assertTrue(listener.completed.isEmpty());
+
+        service.release();
+        assertTrue(fetch.awaitCompletion(10, TimeUnit.SECONDS));
+        fetcher.shutdown();
+
+        assertEquals(8, service.getRequests());
+        assertEquals(8, listener.completed.size());
+        assertTrue(listener.fetchCompleted.get());
+        assertEquals(4, service.getMaxConcurrent());
+    }
+
+    @Test
+    public void testCancelSkipsRemainingSlices() throws InterruptedException {
+        StubNogoService service = new StubNogoService(0);
+        service.hold();
+        NogoSliceFetcher fetcher = new NogoSliceFetcher(2);
+        RecordingListener listener = new RecordingListener();
+
+        NogoSliceFetcher.Fetch fetch = fetcher.fetch(service, 7.0, northWest, southEast, slices(8), listener);
+        assertTrue(service.awaitRequests(2, 10, TimeUnit.SECONDS));
+        fetch.cancel();
+        service.release();
+        assertTrue(fetch.awaitCompletion(10, TimeUnit.SECONDS));
+        fetcher.shutdown();
+
+        assertEquals(2, service.getRequests());
+        assertTrue(listener.completed.isEmpty());
+        assertFalse(listener.fetchCompleted.get());
+    }
+}
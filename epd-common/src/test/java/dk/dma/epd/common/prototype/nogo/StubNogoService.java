@@ -0,0 +1,115 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.nogo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.frv.enav.common.xml.nogo.response.NogoResponse;
+import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
+
+/**
+ * Local NoGo service with a configurable latency, returning empty results. Used for measuring the slice fetching offline.
+ * The requests can be held until released, so tests can observe the requests in flight without depending on timing
+ */
+public class StubNogoService implements NogoService {
+
+    private final long latencyMillis;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean held;
+
+    public StubNogoService(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public NogoResponse nogoPoll(double draught, Position northWestPoint, Position southEastPoint, Date startDate, Date endDate)
+            throws ShoreServiceException {
+        int running = concurrent.incrementAndGet();
+        for (int max = maxConcurrent.get(); running > max && !maxConcurrent.compareAndSet(max, running); max = maxConcurrent.get()) {
+            // Retry
+        }
+        synchronized (requests) {
+            requests.incrementAndGet();
+            requests.notifyAll();
+        }
+        try {
+            if (held) {
+                released.await(10, TimeUnit.SECONDS);
+            }
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+        }
+
+        NogoResponse response = new NogoResponse();
+        response.setPolygons(new ArrayList<NogoPolygon>());
+        response.setNoGoErrorCode(0);
+        response.setNoGoMessage("Stub");
+        return response;
+    }
+
+    /**
+     * Holds the requests received from now on until {@linkplain #release()} is called
+     */
+    public void hold() {
+        held = true;
+    }
+
+    /**
+     * Releases the held requests, and stops holding new ones
+     */
+    public void release() {
+        held = false;
+        released.countDown();
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Waits until at least the given number of requests have been received
+     * 
+     * @return if the requests were received within the timeout
+     */
+    public boolean awaitRequests(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (requests) {
+            while (requests.get() < count) {
+                long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (wait <= 0) {
+                    return false;
+                }
+                requests.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent.get();
+    }
+}
@@ -0,0 +1,178 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.notification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.notification.NotificationAlert.AlertType;
+import dk.dma.epd.common.prototype.notification.NotificationAlertScheduler.AlertHandler;
+import dk.dma.epd.common.prototype.notification.NotificationAlertScheduler.ScheduledAlert;
+
+public class NotificationAlertSchedulerTest {
+
+    private static final String OWNER = "panel";
+
+    private static Notification<Object, Object> notification(int id, NotificationAlert... alerts) {
+        Notification<Object, Object> notification = new Notification<Object, Object>(null, id, NotificationType.NOTIFICATION);
+        notification.addAlerts(alerts);
+        return notification;
+    }
+
+    private static NotificationAlertScheduler<String> scheduler() {
+        return new NotificationAlertScheduler<>(new AlertHandler<String>() {
+            @Override
+            public void alertsDue(List<ScheduledAlert<String>> alerts) {
+            }
+        });
+    }
+
+    @Test
+    public void initialAlertsAreDueOnce() {
+        NotificationAlertScheduler<String> scheduler = scheduler();
+        NotificationAlert alert = new NotificationAlert(AlertType.POPUP);
+        Notification<Object, Object> notification = notification(1, alert);
+        scheduler.update(OWNER, Arrays.asList(notification));
+        assertEquals(1, scheduler.getQueueSize());
+
+        List<ScheduledAlert<String>> due = scheduler.pollDue(System.currentTimeMillis());
+        assertEquals(1, due.size());
+        assertSame(alert, due.get(0).getAlert());
+        assertSame(notification, due.get(0).getNotification());
+        assertEquals(OWNER, due.get(0).getOwner());
+
+        alert.flagTriggered();
+        scheduler.triggered(due.get(0));
+        assertEquals(0, scheduler.getQueueSize());
+
+        // Known alerts are not scheduled again by a refresh
+        scheduler.update(OWNER, Arrays.asList(notification));
+        assertEquals(0, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void repeatingAlertIsRequeuedUntilAcknowledged() {
+        NotificationAlertScheduler<String> scheduler = scheduler();
+        NotificationAlert alert = new NotificationAlert(AlertType.POPUP).setRepeatEvery(5);
+        Notification<Object, Object> notification = notification(1, alert);
+        scheduler.update(OWNER, Arrays.asList(notification));
+
+        List<ScheduledAlert<String>> due = scheduler.pollDue(System.currentTimeMillis());
+        assertEquals(1, due.size());
+        alert.flagTriggered();
+        scheduler.triggered(due.get(0));
+
+        // The repetition is queued but not due yet
+        assertEquals(1, scheduler.getQueueSize());
+        assertTrue(scheduler.pollDue(System.currentTimeMillis()).isEmpty());
+        assertTrue(alert.getNextTriggerTime(notification) > System.currentTimeMillis() + 4 * 60 * 1000L);
+
+        notification.setAcknowledged(true);
+        scheduler.reschedule(OWNER, notification);
+        assertEquals(0, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void dueAlertsAreSkippedByTheHandler() {
+        NotificationAlertScheduler<String> scheduler = scheduler();
+        NotificationAlert alert = new NotificationAlert(AlertType.POPUP).setRepeatEvery(5);
+        Notification<Object, Object> notification = notification(1, alert);
+        scheduler.update(OWNER, Arrays.asList(notification));
+        List<ScheduledAlert<String>> due = scheduler.pollDue(System.currentTimeMillis());
+        alert.flagTriggered();
+        scheduler.triggered(due.get(0));
+
+        // Acknowledged without rescheduling. The due alert is still handed out, but not evaluated
+        notification.setAcknowledged(true);
+        due = scheduler.pollDue(System.currentTimeMillis() + 10 * 60 * 1000L);
+        assertEquals(1, due.size());
+        assertEquals(0, scheduler.getQueueSize());
+
+        scheduler.skipped(due.get(0));
+        assertEquals(0, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void addedNotificationsAreScheduledIncrementally() {
+        NotificationAlertScheduler<String> scheduler = scheduler();
+        Notification<Object, Object> n1 = notification(1, new NotificationAlert(AlertType.POPUP));
+        Notification<Object, Object> n2 = notification(2, new NotificationAlert(AlertType.POPUP),
+                new NotificationAlert(AlertType.SYSTEM_TRAY));
+        scheduler.add(OWNER, n1);
+        scheduler.add(OWNER, n2);
+        assertEquals(3, scheduler.getQueueSize());
+
+        // Adding a known notification again does not schedule it twice
+        scheduler.add(OWNER, n1);
+        assertEquals(3, scheduler.getQueueSize());
+
+        scheduler.remove(OWNER, n2);
+        assertEquals(1, scheduler.getQueueSize());
+        scheduler.update(OWNER, Arrays.asList(n1));
+        assertEquals(1, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void removedNotificationsAreCancelled() {
+        NotificationAlertScheduler<String> scheduler = scheduler();
+        Notification<Object, Object> n1 = notification(1, new NotificationAlert(AlertType.POPUP));
+        Notification<Object, Object> n2 = notification(2, new NotificationAlert(AlertType.POPUP),
+                new NotificationAlert(AlertType.SYSTEM_TRAY));
+        Notification<Object, Object> n3 = notification(3, new NotificationAlert(AlertType.POPUP));
+        scheduler.update(OWNER, Arrays.asList(n1, n2, n3));
+        scheduler.update("other", Arrays.asList(notification(4, new NotificationAlert(AlertType.POPUP))));
+        assertEquals(5, scheduler.getQueueSize());
+
+        scheduler.remove(OWNER, n1);
+        assertEquals(4, scheduler.getQueueSize());
+        scheduler.update(OWNER, Arrays.asList(n3));
+        assertEquals(2, scheduler.getQueueSize());
+        scheduler.update(OWNER, Collections.<Notification<?, ?>> emptyList());
+        assertEquals(1, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void dispatchesDueAlertsInBackground() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final NotificationAlertScheduler<String> scheduler = new NotificationAlertScheduler<>(new AlertHandler<String>() {
+            @Override
+            public void alertsDue(List<ScheduledAlert<String>> alerts) {
+                for (ScheduledAlert<String> alert : alerts) {
+                    alert.getAlert().flagTriggered();
+                    latch.countDown();
+                }
+            }
+        });
+        scheduler.start();
+        try {
+            scheduler.update(OWNER, Arrays.asList(notification(1, new NotificationAlert(AlertType.POPUP)),
+                    notification(2, new NotificationAlert(AlertType.POPUP))));
+            Thread.sleep(50);
+            scheduler.update("other", Arrays.asList(notification(3, new NotificationAlert(AlertType.POPUP))));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+    }
+}
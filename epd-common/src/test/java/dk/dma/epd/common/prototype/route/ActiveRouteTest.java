@@ -0,0 +1,189 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.Heading;
+import dk.dma.epd.common.prototype.model.route.ActiveRoute;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.route.Route.EtaCalculationType;
+import dk.dma.epd.common.prototype.model.route.RouteLeg;
+import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
+import dk.dma.epd.common.prototype.sensor.pnt.PntData;
+import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+
+/**
+ * Compares the incrementally updated values of an active route with those of an active route calculated from scratch at
+ * the same position
+ */
+public class ActiveRouteTest {
+
+    private static final int WAYPOINTS = 6;
+    private static final double PLANNED_SPEED = 12.0;
+
+    /** Allowed difference in milliseconds between ETAs read at slightly different times */
+    private static final long ETA_SLACK = 1000L;
+
+    @Before
+    public void setUp() {
+        PntTime.init(false);
+    }
+
+    private static Route createRoute() {
+        Route route = new Route();
+        route.setName("Test route");
+        RouteLeg lastLeg = null;
+        for (int i = 0; i < WAYPOINTS; i++) {
+            RouteWaypoint wp = new RouteWaypoint();
+            wp.setName("WP_" + (i + 1));
+            wp.setPos(Position.create(55.0 + 0.1 * i, 11.0 + (i % 2 == 0 ? 0.0 : 0.1)));
+            wp.setSpeed(PLANNED_SPEED);
+            wp.setTurnRad(0.5);
+            wp.setInLeg(lastLeg);
+            if (lastLeg != null) {
+                lastLeg.setEndWp(wp);
+            }
+            if (i < WAYPOINTS - 1) {
+                RouteLeg outLeg = new RouteLeg();
+                outLeg.setStartWp(wp);
+                outLeg.setSpeed(PLANNED_SPEED);
+                outLeg.setXtdPort(0.1);
+                outLeg.setXtdStarboard(0.1);
+                outLeg.setHeading(Heading.RL);
+                wp.setOutLeg(outLeg);
+                lastLeg = outLeg;
+            }
+            route.getWaypoints().add(wp);
+        }
+        route.setStarttime(new Date(PntTime.getDate().getTime() - 3600000L));
+        route.calcValues(true);
+        return route;
+    }
+
+    /**
+     * Returns a fix the given fraction along the leg ending at the given waypoint
+     */
+    private static PntData fix(Route route, int toWp, double fraction, double sog) {
+        Position from = route.getWaypoints().get(toWp - 1).getPos();
+        Position to = route.getWaypoints().get(toWp).getPos();
+        PntData pntData = new PntData();
+        pntData.setPosition(Position.create(from.getLatitude() + fraction * (to.getLatitude() - from.getLatitude()),
+                from.getLongitude() + fraction * (to.getLongitude() - from.getLongitude())));
+        pntData.setCog(from.rhumbLineBearingTo(to));
+        pntData.setSog(sog);
+        pntData.setLastUpdated(PntTime.getDate());
+        return pntData;
+    }
+
+    /**
+     * Creates an active route with the given active waypoint, calculated from scratch at the fix
+     */
+    private static ActiveRoute recalculated(Route route, EtaCalculationType type, int activeWp, PntData pntData) {
+        Route copy = route.copy();
+        copy.setEtaCalculationType(type);
+        ActiveRoute activeRoute = new ActiveRoute(copy, null);
+        activeRoute.changeActiveWaypoint(activeWp);
+        activeRoute.update(pntData);
+        return activeRoute;
+    }
+
+    private static void assertSameValues(ActiveRoute expected, ActiveRoute actual) {
+        assertEquals(expected.getActiveWaypointIndex(), actual.getActiveWaypointIndex());
+        assertEquals(expected.getRouteDtg(), actual.getRouteDtg(), 1e-9);
+        assertEquals(expected.getRouteTtg(), actual.getRouteTtg());
+
+        List<Date> expectedEtas = expected.getEtas();
+        List<Date> actualEtas = actual.getEtas();
+        int active = actual.getActiveWaypointIndex();
+        long offset = actualEtas.get(active).getTime() - expectedEtas.get(active).getTime();
+        assertTrue(Math.abs(offset) <= ETA_SLACK);
+        for (int i = active; i < WAYPOINTS; i++) {
+            assertEquals(expectedEtas.get(i).getTime() + offset, actualEtas.get(i).getTime());
+        }
+        assertEquals(actualEtas.get(WAYPOINTS - 1), actual.getEta());
+    }
+
+    private void followRoute(EtaCalculationType type) {
+        Route route = createRoute();
+        Route copy = route.copy();
+        copy.setEtaCalculationType(type);
+        ActiveRoute activeRoute = new ActiveRoute(copy, null);
+
+        double[] speeds = { 8.0, 8.0, 14.0, 0.05 };
+        for (int wp = 1; wp < WAYPOINTS; wp++) {
+            activeRoute.changeActiveWaypoint(wp);
+            for (int step = 0; step < speeds.length; step++) {
+                PntData pntData = fix(route, wp, 0.2 * (step + 1), speeds[step]);
+                activeRoute.update(pntData);
+                assertSameValues(recalculated(route, type, wp, pntData), activeRoute);
+            }
+        }
+    }
+
+    @Test
+    public void plannedSpeedMatchesRecalculation() {
+        followRoute(EtaCalculationType.PLANNED_SPEED);
+    }
+
+    @Test
+    public void dynamicSpeedMatchesRecalculation() {
+        followRoute(EtaCalculationType.DYNAMIC_SPEED);
+    }
+
+    @Test
+    public void hybridMatchesRecalculation() {
+        followRoute(EtaCalculationType.HYBRID);
+    }
+
+    @Test
+    public void etaCachedUntilNextFix() {
+        Route route = createRoute();
+        ActiveRoute activeRoute = new ActiveRoute(route.copy(), null);
+        activeRoute.changeActiveWaypoint(1);
+        activeRoute.update(fix(route, 1, 0.5, 10.0));
+
+        Date eta = activeRoute.getEta();
+        assertNotNull(eta);
+        assertSame(eta, activeRoute.getEta());
+        assertSame(eta, activeRoute.getEtas().get(WAYPOINTS - 1));
+
+        activeRoute.update(fix(route, 1, 0.6, 10.0));
+        assertFalse(eta == activeRoute.getEta());
+    }
+
+    @Test
+    public void etaTypeChangeMatchesRecalculation() {
+        Route route = createRoute();
+        ActiveRoute activeRoute = new ActiveRoute(route.copy(), null);
+        activeRoute.changeActiveWaypoint(2);
+        PntData pntData = fix(route, 2, 0.5, 6.0);
+        activeRoute.update(pntData);
+
+        activeRoute.setEtaCalculationType(EtaCalculationType.PLANNED_SPEED);
+        assertSameValues(recalculated(route, EtaCalculationType.PLANNED_SPEED, 2, pntData), activeRoute);
+    }
+}
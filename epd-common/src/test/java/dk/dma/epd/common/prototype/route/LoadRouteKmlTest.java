@@ -36,6 +36,7 @@ public class LoadRouteKmlTest {
         NavSettings navSettings = new NavSettings();
         Route route = RouteLoader.loadKml(file, navSettings);
         Assert.assertNotNull(route);
+        RouteAssert.assertSameRoute(RouteLoader.loadKmlDom(file, navSettings), route);
     }
 
     @Test
@@ -14,9 +14,13 @@
  */
 package dk.dma.epd.common.prototype.route;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -24,6 +28,7 @@ import org.junit.Test;
 import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RouteLoadException;
 import dk.dma.epd.common.prototype.model.route.RouteLoader;
+import dk.dma.epd.common.prototype.model.route.Rt3Parser;
 import dk.dma.epd.common.prototype.settings.NavSettings;
 
 public class LoadRouteRt3Test {
@@ -47,4 +52,23 @@ public class LoadRouteRt3Test {
         Assert.assertTrue(route.getWaypoints().get(0).getOutLeg().getSpeed() == 6.9);
     }
 
+    @Test
+    public void streamingMatchesDom() throws URISyntaxException, RouteLoadException {
+        File file = new File(ClassLoader.getSystemResource("example.rt3").toURI());
+        NavSettings navSettings = new NavSettings();
+        RouteAssert.assertSameRoute(RouteLoader.loadRt3Dom(file, navSettings), RouteLoader.loadRt3(file, navSettings));
+    }
+
+    @Test
+    public void malformedKeepsCause() {
+        String rt3 = "<TSH_Route RtName=\"Broken\"><WayPoints><WayPoint Lat=\"3300.0\"</WayPoints></TSH_Route>";
+        try {
+            new Rt3Parser(new NavSettings()).parse(new ByteArrayInputStream(rt3.getBytes(StandardCharsets.UTF_8)));
+            Assert.fail("Malformed RT3 was parsed");
+        } catch (RouteLoadException e) {
+            Assert.assertTrue(e.getCause() instanceof XMLStreamException);
+            Assert.assertTrue(e.getMessage().contains(e.getCause().getMessage()));
+        }
+    }
+
 }
@@ -0,0 +1,55 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.route;
+
+import org.junit.Assert;
+
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.route.RouteLeg;
+import dk.dma.epd.common.prototype.model.route.RouteWaypoint;
+
+/**
+ * Assertions for comparing routes loaded by different parsers
+ */
+final class RouteAssert {
+
+    private RouteAssert() {
+    }
+
+    static void assertSameRoute(Route expected, Route actual) {
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getWaypoints().size(), actual.getWaypoints().size());
+
+        for (int i = 0; i < expected.getWaypoints().size(); i++) {
+            RouteWaypoint expectedWp = expected.getWaypoints().get(i);
+            RouteWaypoint actualWp = actual.getWaypoints().get(i);
+            Assert.assertEquals(expectedWp.getName(), actualWp.getName());
+            Assert.assertEquals(expectedWp.getPos(), actualWp.getPos());
+            Assert.assertEquals(expectedWp.getTurnRad(), actualWp.getTurnRad());
+
+            RouteLeg expectedLeg = expectedWp.getOutLeg();
+            RouteLeg actualLeg = actualWp.getOutLeg();
+            if (expectedLeg == null) {
+                Assert.assertNull(actualLeg);
+                continue;
+            }
+            Assert.assertEquals(expectedLeg.getSpeed(), actualLeg.getSpeed(), 0.0);
+            Assert.assertEquals(expectedLeg.getHeading(), actualLeg.getHeading());
+            Assert.assertEquals(expectedLeg.getXtdPort(), actualLeg.getXtdPort());
+            Assert.assertEquals(expectedLeg.getXtdStarboard(), actualLeg.getXtdStarboard());
+            Assert.assertSame(actualWp, actualLeg.getStartWp());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import dk.frv.enav.common.xml.metoc.MetocForecastPoint;
+
+public class RouteMetocCacheTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    private static MetocForecastPoint point(double lat, double lon, long time) {
+        MetocForecastPoint point = new MetocForecastPoint();
+        point.setLat(lat);
+        point.setLon(lon);
+        point.setTime(new Date(time));
+        return point;
+    }
+
+    @Test
+    public void findWithinTolerance() {
+        RouteMetocCache cache = new RouteMetocCache(0.05, 15 * MINUTE, 100);
+        long t0 = 1400000000000L;
+        MetocForecastPoint p1 = point(55.51, 11.01, t0);
+        MetocForecastPoint p2 = point(55.51, 11.01, t0 + 60 * MINUTE);
+        cache.addAll(Arrays.asList(p1, p2));
+
+        assertSame(p1, cache.find(55.52, 11.02, t0 + 10 * MINUTE, 20 * MINUTE));
+        assertSame(p2, cache.find(55.52, 11.02, t0 + 50 * MINUTE, 20 * MINUTE));
+        assertNull(cache.find(55.52, 11.02, t0 + 30 * MINUTE, 20 * MINUTE));
+        // Different cell
+        assertNull(cache.find(55.60, 11.02, t0, 20 * MINUTE));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        RouteMetocCache cache = new RouteMetocCache(0.05, 15 * MINUTE, 2);
+        long t0 = 1400000000000L;
+        MetocForecastPoint p1 = point(55.0, 11.0, t0);
+        MetocForecastPoint p2 = point(55.5, 11.0, t0);
+        MetocForecastPoint p3 = point(56.0, 11.0, t0);
+        cache.addAll(Arrays.asList(p1, p2));
+        cache.find(55.0, 11.0, t0, 0);
+        cache.addAll(Arrays.asList(p3));
+
+        assertEquals(2, cache.size());
+        assertSame(p1, cache.find(55.0, 11.0, t0, 0));
+        assertNull(cache.find(55.5, 11.0, t0, 0));
+    }
+
+    /**
+     * Way point ETAs of a three leg route, an hour per leg, shifted by the given time
+     */
+    private static List<Date> etas(long t0, long shift) {
+        List<Date> etas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            etas.add(new Date(t0 + i * 60 * MINUTE + shift));
+        }
+        return etas;
+    }
+
+    private static List<Date> legEtas(List<Date> etas) {
+        List<Date> legEtas = new ArrayList<>();
+        for (int i = 0; i < etas.size() - 1; i++) {
+            legEtas.add(etas.get(i));
+            legEtas.add(etas.get(i + 1));
+        }
+        return legEtas;
+    }
+
+    @Test
+    public void retimeKeepsLegsWithinTolerance() {
+        RouteMetocCache cache = new RouteMetocCache(0.05, 15 * MINUTE, 100);
+        long t0 = 1400000000000L;
+        List<MetocForecastPoint> forecast = Arrays.asList(point(55.0, 11.0, t0), point(55.1, 11.0, t0 + 60 * MINUTE),
+                point(55.2, 11.0, t0 + 120 * MINUTE), point(55.3, 11.0, t0 + 180 * MINUTE));
+        List<Date> fetched = legEtas(etas(t0, 0));
+
+        // Only the last way point drifts beyond the tolerance
+        List<Date> newEtas = etas(t0, 0);
+        newEtas.set(3, new Date(t0 + 200 * MINUTE));
+        RouteMetocCache.Retiming retiming = cache.retime(fetched, newEtas, 0, forecast, 10 * MINUTE);
+
+        assertEquals(forecast.subList(0, 2), retiming.getPoints());
+        assertEquals(1, retiming.getStaleLegs().size());
+        assertEquals(2, retiming.getStaleLegs().get(0)[0]);
+        assertEquals(3, retiming.getStaleLegs().get(0)[1]);
+        assertEquals(fetched.subList(0, 4), retiming.getMetocEtas().subList(0, 4));
+        assertEquals(newEtas.subList(2, 4), retiming.getMetocEtas().subList(4, 6));
+    }
+
+    @Test
+    public void repeatedSmallDriftsAddUp() {
+        RouteMetocCache cache = new RouteMetocCache(0.05, 15 * MINUTE, 100);
+        long t0 = 1400000000000L;
+        long tolerance = 10 * MINUTE;
+        List<MetocForecastPoint> forecast = Arrays.asList(point(55.0, 11.0, t0), point(55.1, 11.0, t0 + 60 * MINUTE),
+                point(55.2, 11.0, t0 + 120 * MINUTE), point(55.3, 11.0, t0 + 180 * MINUTE));
+        List<Date> metocEtas = legEtas(etas(t0, 0));
+
+        // Each shift is within the tolerance of the previous ETAs
+        for (int step = 1; step <= 3; step++) {
+            RouteMetocCache.Retiming retiming = cache.retime(metocEtas, etas(t0, step * 4 * MINUTE), 0, forecast, tolerance);
+            if (step * 4 * MINUTE <= tolerance) {
+                assertTrue(retiming.getStaleLegs().isEmpty());
+                assertEquals(forecast, retiming.getPoints());
+                // The leg times the forecast was fetched for are kept
+                assertEquals(legEtas(etas(t0, 0)), retiming.getMetocEtas());
+            } else {
+                // The total drift exceeds the tolerance, so the forecast must be requested again
+                assertTrue(retiming.isAllStale());
+                return;
+            }
+            forecast = retiming.getPoints();
+            metocEtas = retiming.getMetocEtas();
+        }
+        throw new AssertionError("Drift was never detected");
+    }
+
+    @Test
+    public void retimeFromCache() {
+        RouteMetocCache cache = new RouteMetocCache(0.05, 15 * MINUTE, 100);
+        long t0 = 1400000000000L;
+        long delay = 30 * MINUTE;
+        List<MetocForecastPoint> forecast = Arrays.asList(point(55.0, 11.0, t0), point(55.1, 11.0, t0 + 60 * MINUTE),
+                point(55.2, 11.0, t0 + 120 * MINUTE), point(55.3, 11.0, t0 + 180 * MINUTE));
+        List<MetocForecastPoint> later = Arrays.asList(point(55.0, 11.0, t0 + delay), point(55.1, 11.0, t0 + 60 * MINUTE
+                + delay), point(55.2, 11.0, t0 + 120 * MINUTE + delay), point(55.3, 11.0, t0 + 180 * MINUTE + delay));
+        cache.addAll(later);
+
+        RouteMetocCache.Retiming retiming = cache.retime(legEtas(etas(t0, 0)), etas(t0, delay), 0, forecast, 10 * MINUTE);
+        assertTrue(retiming.getStaleLegs().isEmpty());
+        assertEquals(later, retiming.getPoints());
+        assertEquals(legEtas(etas(t0, delay)), retiming.getMetocEtas());
+    }
+}
@@ -0,0 +1,166 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import net.maritimecloud.core.id.MaritimeId;
+import net.maritimecloud.core.id.MmsiId;
+import net.maritimecloud.util.Timestamp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.service.internal.EPDChatMessage;
+import dma.messaging.MaritimeText;
+import dma.messaging.MaritimeTextingNotificationSeverity;
+
+public class ChatLogTest {
+
+    private static final MaritimeId TARGET = new MmsiId(219000001);
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempDirectory("chatlog").resolve(".chatlog");
+    }
+
+    private static EPDChatMessage message(int i) {
+        MaritimeText text = new MaritimeText();
+        text.setMsg("Message " + i);
+        text.setSeverity(MaritimeTextingNotificationSeverity.WARNING);
+        return new EPDChatMessage(text, i % 2 == 0, Timestamp.create(1000L * i));
+    }
+
+    @Test
+    public void readsBackMessagesAfterReopening() throws Exception {
+        ChatLog log = new ChatLog(file);
+        for (int i = 0; i < 10; i++) {
+            log.appendMessage(TARGET, message(i));
+        }
+        log.appendClear(TARGET);
+        log.close();
+
+        List<ChatLog.Entry> entries = new ChatLog(file).read(0, Long.MAX_VALUE);
+        assertEquals(11, entries.size());
+        ChatLog.Entry entry = entries.get(3);
+        assertEquals(ChatLog.MESSAGE, entry.getType());
+        assertEquals(TARGET, entry.getId());
+        assertEquals("Message 3", entry.getMessage().getMsg());
+        assertEquals(MaritimeTextingNotificationSeverity.WARNING, entry.getMessage().getSeverity());
+        assertEquals(3000L, entry.getMessage().getSendDate().getTime());
+        assertEquals(false, entry.getMessage().isOwnMessage());
+        assertEquals(ChatLog.CLEAR, entries.get(10).getType());
+        assertNull(entries.get(10).getMessage());
+    }
+
+    @Test
+    public void readsTimeRangeThroughIndex() throws Exception {
+        ChatLog log = new ChatLog(file);
+        int count = ChatLog.INDEX_INTERVAL * 5;
+        for (int i = 0; i < count; i++) {
+            log.appendMessage(TARGET, message(i));
+        }
+        List<ChatLog.Entry> all = log.read(0, Long.MAX_VALUE);
+        assertEquals(count, all.size());
+        assertEquals(5 * 16, Files.size(file.resolveSibling(".chatlog.idx")));
+
+        // Log times never decrease, and a range read returns exactly the records within it
+        for (int i = 1; i < count; i++) {
+            assertTrue(all.get(i - 1).getTime() <= all.get(i).getTime());
+        }
+        long from = all.get(200).getTime();
+        long to = all.get(260).getTime();
+        int expected = 0;
+        for (ChatLog.Entry entry : all) {
+            if (entry.getTime() >= from && entry.getTime() <= to) {
+                expected++;
+            }
+        }
+        assertEquals(expected, log.read(from, to).size());
+        assertTrue(log.read(to + 1, Long.MAX_VALUE).size() < count);
+    }
+
+    @Test
+    public void truncatesTornRecordAndRebuildsIndex() throws Exception {
+        ChatLog log = new ChatLog(file);
+        for (int i = 0; i < ChatLog.INDEX_INTERVAL + 1; i++) {
+            log.appendMessage(TARGET, message(i));
+        }
+        log.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        Files.delete(file.resolveSibling(".chatlog.idx"));
+
+        log = new ChatLog(file);
+        assertEquals(ChatLog.INDEX_INTERVAL, log.read(0, Long.MAX_VALUE).size());
+        log.appendMessage(TARGET, message(99));
+        log.close();
+
+        List<ChatLog.Entry> entries = new ChatLog(file).read(0, Long.MAX_VALUE);
+        assertEquals(ChatLog.INDEX_INTERVAL + 1, entries.size());
+        assertEquals("Message 99", entries.get(ChatLog.INDEX_INTERVAL).getMessage().getMsg());
+        assertEquals(2 * 16, Files.size(file.resolveSibling(".chatlog.idx")));
+    }
+
+    @Test
+    public void compactDropsOldRecords() throws Exception {
+        ChatLog log = new ChatLog(file);
+        int count = ChatLog.INDEX_INTERVAL * 3;
+        for (int i = 0; i < count; i++) {
+            log.appendMessage(TARGET, message(i));
+        }
+        List<ChatLog.Entry> all = log.read(0, Long.MAX_VALUE);
+        long size = Files.size(file);
+
+        // Nothing is logged before the first record
+        assertEquals(0, log.compact(all.get(0).getTime()));
+        assertEquals(size, Files.size(file));
+
+        long fromTime = all.get(count / 2).getTime();
+        int kept = 0;
+        for (ChatLog.Entry entry : all) {
+            if (entry.getTime() >= fromTime) {
+                kept++;
+            }
+        }
+        long dropped = log.compact(fromTime);
+        assertTrue(dropped > 0);
+        assertEquals(size - dropped, Files.size(file));
+        assertEquals(kept, log.read(0, Long.MAX_VALUE).size());
+        assertEquals((kept + ChatLog.INDEX_INTERVAL - 1) / ChatLog.INDEX_INTERVAL * 16,
+                Files.size(file.resolveSibling(".chatlog.idx")));
+
+        // The compacted log is appended to and reopened like any other
+        log.appendMessage(TARGET, message(999));
+        log.close();
+        List<ChatLog.Entry> entries = new ChatLog(file).read(fromTime, Long.MAX_VALUE);
+        assertEquals(kept + 1, entries.size());
+        assertEquals("Message " + (count - kept), entries.get(0).getMessage().getMsg());
+        assertEquals("Message 999", entries.get(kept).getMessage().getMsg());
+        assertTrue(entries.get(kept).getTime() >= entries.get(kept - 1).getTime());
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.maritimecloud.core.id.MmsiId;
+import net.maritimecloud.util.Timestamp;
+
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.service.internal.EPDChatMessage;
+import dma.messaging.MaritimeText;
+
+public class ChatServiceDataTest {
+
+    private static EPDChatMessage message(int i, boolean own) {
+        MaritimeText text = new MaritimeText();
+        text.setMsg("Message " + i);
+        return new EPDChatMessage(text, own, Timestamp.create(1000L * i));
+    }
+
+    @Test
+    public void pagesRetainedMessages() {
+        ChatServiceData data = new ChatServiceData(new MmsiId(219000001));
+        assertNull(data.getLatestMessage());
+        for (int i = 0; i < 150; i++) {
+            data.addChatMessage(message(i, true));
+        }
+
+        assertEquals(150, data.getMessageCount());
+        assertEquals("Message 149", data.getLatestMessage().getMsg());
+
+        List<EPDChatMessage> page = data.getMessages(60, 10);
+        assertEquals(10, page.size());
+        assertEquals("Message 60", page.get(0).getMsg());
+        assertEquals("Message 69", page.get(9).getMsg());
+
+        List<EPDChatMessage> latest = data.getLatestMessages(20);
+        assertEquals(20, latest.size());
+        assertEquals("Message 130", latest.get(0).getMsg());
+        assertEquals(150, data.getLatestMessages(500).size());
+        assertTrue(data.getMessages(150, 10).isEmpty());
+    }
+
+    @Test
+    public void dropsOldestSegmentWhenFull() {
+        ChatServiceData data = new ChatServiceData(new MmsiId(219000001));
+        int total = ChatServiceData.MAX_MESSAGES + 10;
+        for (int i = 0; i < total; i++) {
+            data.addChatMessage(message(i, true));
+        }
+
+        assertEquals(ChatServiceData.MAX_MESSAGES - ChatServiceData.SEGMENT_SIZE + 10, data.getMessageCount());
+        assertEquals("Message " + ChatServiceData.SEGMENT_SIZE, data.getMessages(0, 1).get(0).getMsg());
+        assertEquals("Message " + (total - 1), data.getLatestMessage().getMsg());
+
+        List<EPDChatMessage> messages = data.getMessages();
+        for (int i = 1; i < messages.size(); i++) {
+            assertTrue(messages.get(i - 1).getSendDate().getTime() < messages.get(i).getSendDate().getTime());
+        }
+    }
+
+    @Test
+    public void countsUnreadMessages() {
+        ChatServiceData data = new ChatServiceData(new MmsiId(219000001));
+        assertTrue(data.isRead());
+
+        data.addChatMessage(message(0, true));
+        assertTrue(data.isRead());
+        data.addChatMessage(message(1, false));
+        data.addChatMessage(message(2, false));
+        assertFalse(data.isRead());
+        assertEquals(2, data.getUnreadCount());
+
+        data.setRead(true);
+        assertEquals(0, data.getUnreadCount());
+        data.setRead(false);
+        assertEquals(1, data.getUnreadCount());
+
+        data.clear();
+        assertTrue(data.isRead());
+        assertEquals(0, data.getMessageCount());
+        EPDChatMessage message = message(3, false);
+        data.addChatMessage(message);
+        assertSame(message, data.getLatestMessage());
+        assertEquals(1, data.getUnreadCount());
+    }
+}
@@ -0,0 +1,222 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.settings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ObservedSettingsTest {
+
+    private static final int SETTING_COUNT = 12;
+
+    /**
+     * Observer of the test settings
+     */
+    interface CounterObserver extends ISettingsObserver {
+        void counterChanged(int index, int oldValue, int newValue);
+    }
+
+    /**
+     * Settings holding a number of integer counters
+     */
+    static class CounterSettings extends ObservedSettings<CounterObserver> {
+
+        private final int[] counters = new int[SETTING_COUNT];
+
+        public void setCounter(final int index, int value) {
+            this.settingLock.writeLock().lock();
+            try {
+                int oldValue = counters[index];
+                counters[index] = value;
+                this.fireSettingChanged("counter" + index, oldValue, value, new ChangeNotifier<CounterObserver, Integer>() {
+                    @Override
+                    public void fire(CounterObserver obs, Integer oldVal, Integer newVal) {
+                        obs.counterChanged(index, oldVal, newVal);
+                    }
+                });
+            } finally {
+                this.settingLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        protected Properties onSaveSettings() {
+            return new Properties();
+        }
+
+        @Override
+        protected void onLoadSuccess(Properties settings) {
+        }
+
+        @Override
+        protected void onLoadFailure(IOException error) {
+        }
+
+        @Override
+        protected void onSaveFailure(IOException error) {
+        }
+    }
+
+    /**
+     * Observer that recomputes its state once per change set
+     */
+    static class RecomputingObserver implements CounterObserver, ISettingsChangeSetObserver {
+
+        final AtomicInteger recomputations = new AtomicInteger();
+        final List<String> changes = new ArrayList<>();
+        final Set<String> lastKeys = new HashSet<>();
+        volatile Thread notifiedOn;
+
+        @Override
+        public synchronized void counterChanged(int index, int oldValue, int newValue) {
+            changes.add(index + ":" + oldValue + "->" + newValue);
+        }
+
+        @Override
+        public synchronized void settingsChanged(ObservedSettings<?> source, Set<String> changedKeys) {
+            recomputations.incrementAndGet();
+            notifiedOn = Thread.currentThread();
+            lastKeys.clear();
+            lastKeys.addAll(changedKeys);
+        }
+    }
+
+    @Test
+    public void committedUpdateTriggersOneRecomputationPerObserver() {
+        CounterSettings settings = new CounterSettings();
+        RecomputingObserver obs1 = new RecomputingObserver();
+        RecomputingObserver obs2 = new RecomputingObserver();
+        settings.addObserver(obs1);
+        settings.addObserver(obs2);
+
+        settings.beginUpdate();
+        for (int i = 0; i < SETTING_COUNT; i++) {
+            settings.setCounter(i, i + 1);
+        }
+        settings.commitUpdate();
+        ObservedSettings.flushNotifications();
+
+        for (RecomputingObserver obs : Arrays.asList(obs1, obs2)) {
+            assertEquals(1, obs.recomputations.get());
+            assertEquals(SETTING_COUNT, obs.changes.size());
+            assertEquals(SETTING_COUNT, obs.lastKeys.size());
+        }
+    }
+
+    @Test
+    public void repeatedChangesAreMerged() {
+        CounterSettings settings = new CounterSettings();
+        RecomputingObserver obs = new RecomputingObserver();
+        settings.addObserver(obs);
+
+        settings.beginUpdate();
+        settings.setCounter(0, 1);
+        settings.setCounter(0, 2);
+        settings.setCounter(0, 3);
+        settings.setCounter(1, 5);
+        settings.setCounter(1, 0); // Reverted
+        settings.commitUpdate();
+        ObservedSettings.flushNotifications();
+
+        assertEquals(1, obs.recomputations.get());
+        assertEquals(Arrays.asList("0:0->3"), obs.changes);
+        assertEquals(new HashSet<>(Arrays.asList("counter0")), obs.lastKeys);
+
+        // A change set where every setting is reverted is not delivered
+        settings.beginUpdate();
+        settings.setCounter(2, 7);
+        settings.setCounter(2, 0);
+        settings.commitUpdate();
+        ObservedSettings.flushNotifications();
+        assertEquals(1, obs.recomputations.get());
+    }
+
+    @Test
+    public void nestedUpdatesAreDeliveredOnOutermostCommit() {
+        CounterSettings settings = new CounterSettings();
+        RecomputingObserver obs = new RecomputingObserver();
+        settings.addObserver(obs);
+
+        settings.beginUpdate();
+        settings.setCounter(0, 1);
+        settings.beginUpdate();
+        settings.setCounter(1, 1);
+        settings.commitUpdate();
+        ObservedSettings.flushNotifications();
+        assertEquals(0, obs.recomputations.get());
+        settings.commitUpdate();
+        ObservedSettings.flushNotifications();
+        assertEquals(1, obs.recomputations.get());
+        assertEquals(2, obs.changes.size());
+
+        // Changes outside an update are committed one by one
+        settings.setCounter(3, 1);
+        ObservedSettings.flushNotifications();
+        assertEquals(2, obs.recomputations.get());
+    }
+
+    @Test
+    public void commitsAreCoalescedWhileDeliveryIsPending() throws InterruptedException {
+        final CountDownLatch delivering = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        CounterSettings settings = new CounterSettings();
+        RecomputingObserver obs = new RecomputingObserver() {
+            @Override
+            public void settingsChanged(ObservedSettings<?> source, Set<String> changedKeys) {
+                super.settingsChanged(source, changedKeys);
+                // Hold the first delivery until the test has committed the next changes
+                delivering.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        settings.addObserver(obs);
+
+        settings.setCounter(0, 1);
+        assertTrue(delivering.await(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), obs.notifiedOn);
+
+        // The committing thread neither waits for the observer nor holds the lock while it is notified
+        settings.setCounter(1, 1);
+        settings.setCounter(1, 2);
+        settings.setCounter(2, 1);
+        assertEquals(1, obs.recomputations.get());
+        assertTrue(settings.settingLock.readLock().tryLock());
+        settings.settingLock.readLock().unlock();
+
+        release.countDown();
+        ObservedSettings.flushNotifications();
+        assertEquals(2, obs.recomputations.get());
+        assertEquals(Arrays.asList("0:0->1", "1:0->2", "2:0->1"), obs.changes);
+        assertEquals(new HashSet<>(Arrays.asList("counter1", "counter2")), obs.lastKeys);
+    }
+}
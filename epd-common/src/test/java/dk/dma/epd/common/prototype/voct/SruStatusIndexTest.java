@@ -0,0 +1,142 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.prototype.voct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
+import dk.dma.epd.common.prototype.model.voct.sardata.SearchPatternRoute;
+
+public class SruStatusIndexTest {
+
+    private static final int SRU_COUNT = 500;
+
+    private final SruStatusIndex index = new SruStatusIndex();
+    private final List<Route> routes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (long mmsi = 0; mmsi < SRU_COUNT; mmsi++) {
+            EffortAllocationData data = new EffortAllocationData();
+            data.setMmsi(mmsi);
+            if (mmsi % 2 == 0) {
+                SearchPatternRoute route = new SearchPatternRoute(new ArrayList<Position>());
+                data.setSearchPatternRoute(route);
+                routes.add(route);
+            }
+            index.put(mmsi, data);
+        }
+    }
+
+    @Test
+    public void testLookups() {
+        assertEquals(SRU_COUNT, index.size());
+        for (long mmsi = 0; mmsi < SRU_COUNT; mmsi++) {
+            assertEquals(mmsi, index.getAllocation(mmsi).getMmsi());
+            if (mmsi % 2 == 0) {
+                assertSame(routes.get((int) mmsi / 2), index.getRoute(mmsi));
+                assertEquals(Long.valueOf(mmsi), index.getMmsi(index.getRoute(mmsi)));
+            } else {
+                assertNull(index.getRoute(mmsi));
+            }
+        }
+        assertNull(index.getAllocation(SRU_COUNT));
+    }
+
+    @Test
+    public void testReplacedRouteIsUnindexed() {
+        SearchPatternRoute old = index.getRoute(0);
+        SearchPatternRoute replacement = new SearchPatternRoute(new ArrayList<Position>());
+        index.getAllocation(0).setSearchPatternRoute(replacement);
+        index.put(0, index.getAllocation(0));
+
+        assertNull(index.getMmsi(old));
+        assertEquals(Long.valueOf(0), index.getMmsi(replacement));
+
+        index.remove(0);
+        assertNull(index.getMmsi(replacement));
+        assertNull(index.getAllocation(0));
+    }
+
+    @Test
+    public void testRetainRoutesReportsOnlyRemovedRoutes() {
+        assertTrue(index.retainRoutes(routes).isEmpty());
+
+        List<Route> removed = Arrays.asList(routes.get(3), routes.get(100), routes.get(249));
+        routes.removeAll(removed);
+
+        List<Long> changed = index.retainRoutes(routes);
+        assertEquals(Arrays.asList(6L, 200L, 498L), sorted(changed));
+        for (Long mmsi : changed) {
+            assertNull(index.getRoute(mmsi));
+        }
+        assertSame(routes.get(0), index.getRoute(0));
+        assertTrue(index.retainRoutes(routes).isEmpty());
+    }
+
+    @Test
+    public void testReplyStreamReportsOnlyChangedSrus() {
+        Random random = new Random(42);
+        Set<Long> online = new HashSet<>();
+        for (long mmsi = 0; mmsi < SRU_COUNT; mmsi += 3) {
+            online.add(mmsi);
+        }
+        assertEquals(online, index.updateReachable(online));
+
+        // Each endpoint list differs from the previous one by a few SRUs coming online or going offline
+        for (int i = 0; i < 1000; i++) {
+            Set<Long> expected = new HashSet<>();
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                long mmsi = random.nextInt(SRU_COUNT);
+                if (!online.remove(mmsi)) {
+                    online.add(mmsi);
+                }
+                if (!expected.remove(mmsi)) {
+                    expected.add(mmsi);
+                }
+            }
+            assertEquals(expected, index.updateReachable(online));
+        }
+
+        for (long mmsi = 0; mmsi < SRU_COUNT; mmsi++) {
+            assertEquals(online.contains(mmsi), index.isReachable(mmsi));
+        }
+        assertTrue(index.updateReachable(online).isEmpty());
+        assertFalse(index.isReachable(SRU_COUNT));
+    }
+
+    private static List<Long> sorted(List<Long> list) {
+        List<Long> result = new ArrayList<>(list);
+        Collections.sort(result);
+        return result;
+    }
+}
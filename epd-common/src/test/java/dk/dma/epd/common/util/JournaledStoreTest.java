@@ -0,0 +1,126 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournaledStoreTest {
+
+    private Path dir;
+    private Path file;
+    private Path journal;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("store");
+        file = dir.resolve(".records.db");
+        journal = dir.resolve(".records.db.journal");
+    }
+
+    private static List<String> records(int count) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add("Record " + i);
+        }
+        return records;
+    }
+
+    @Test
+    public void savesOnlyChangedRecords() throws Exception {
+        List<String> records = records(100);
+        JournaledStore store = new JournaledStore(file, null);
+        store.save(records);
+        store.flush();
+        long snapshotSize = Files.size(file);
+        long journalSize = Files.size(journal);
+
+        records.set(50, "Changed");
+        records.remove(10);
+        store.save(records);
+        store.flush();
+
+        // The snapshot is untouched and the journal only holds the change and the order
+        assertEquals(snapshotSize, Files.size(file));
+        assertTrue(Files.size(journal) - journalSize < 100 * 8 + 100);
+
+        assertEquals(records, new JournaledStore(file, null).load());
+    }
+
+    @Test
+    public void unchangedSaveWritesNothing() throws Exception {
+        List<String> records = records(10);
+        JournaledStore store = new JournaledStore(file, null);
+        store.save(records);
+        store.flush();
+        long journalSize = Files.size(journal);
+
+        store.save(records(10));
+        store.flush();
+        assertEquals(journalSize, Files.size(journal));
+    }
+
+    @Test
+    public void ignoresIncompleteJournalEntry() throws Exception {
+        JournaledStore store = new JournaledStore(file, null);
+        store.save(records(3));
+        store.save(Arrays.asList("Record 0", "Record 1"));
+        store.flush();
+        long journalSize = Files.size(journal);
+        store.save(Arrays.asList("Record 0"));
+        store.flush();
+
+        // Cut the last entry in half
+        try (RandomAccessFile raf = new RandomAccessFile(journal.toFile(), "rw")) {
+            raf.setLength(journalSize + (raf.length() - journalSize) / 2);
+        }
+        assertEquals(Arrays.asList("Record 0", "Record 1"), new JournaledStore(file, null).load());
+    }
+
+    @Test
+    public void migratesLegacyFile() throws Exception {
+        Path legacy = dir.resolve(".records");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacy.toFile()))) {
+            out.writeObject(records(3));
+        }
+
+        JournaledStore store = new JournaledStore(file, legacy);
+        List<Object> loaded = store.load();
+        assertTrue(store.isLegacy());
+        assertEquals(Arrays.asList((Object) records(3)), loaded);
+
+        store.save(records(3));
+        store.flush();
+        assertFalse(Files.exists(legacy));
+
+        store = new JournaledStore(file, legacy);
+        assertEquals(records(3), store.load());
+        assertFalse(store.isLegacy());
+    }
+}
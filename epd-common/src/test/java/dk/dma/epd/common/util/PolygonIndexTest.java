@@ -0,0 +1,86 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+
+public class PolygonIndexTest {
+
+    private static final PolygonIndex.Outline<double[]> OUTLINE = new PolygonIndex.Outline<double[]>() {
+        @Override
+        public double[] getOutline(double[] value) {
+            return value;
+        }
+    };
+
+    private static double[] square(double lat, double lon, double size) {
+        return new double[] { lat, lon, lat + size, lon, lat + size, lon + size, lat, lon + size };
+    }
+
+    @Test
+    public void testQueryMatchesBruteForce() {
+        Random random = new Random(1);
+        List<double[]> polygons = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            polygons.add(square(50 + random.nextDouble() * 10, random.nextDouble() * 10, 0.05));
+        }
+        PolygonIndex<double[]> index = new PolygonIndex<>(polygons, OUTLINE);
+        assertEquals(polygons.size(), index.size());
+
+        int expected = 0;
+        for (double[] p : polygons) {
+            if (p[2] >= 55 && p[0] <= 56 && p[5] >= 3 && p[1] <= 4) {
+                expected++;
+            }
+        }
+        assertEquals(expected, index.query(55, 3, 56, 4).size());
+        assertEquals(expected, index.query(Position.create(56, 3), Position.create(55, 4)).size());
+    }
+
+    @Test
+    public void testContainingAndIntersecting() {
+        List<double[]> polygons = new ArrayList<>();
+        double[] square = square(55, 11, 0.1);
+        polygons.add(square);
+        polygons.add(square(56, 11, 0.1));
+        PolygonIndex<double[]> index = new PolygonIndex<>(polygons, OUTLINE);
+
+        assertEquals(1, index.containing(Position.create(55.05, 11.05)).size());
+        assertTrue(index.containing(Position.create(55.05, 11.15)).isEmpty());
+
+        // Leg crossing the square
+        assertTrue(index.intersecting(Position.create(54.9, 11.05), Position.create(55.2, 11.05)).contains(square));
+        // Leg inside the square
+        assertTrue(index.intersecting(Position.create(55.02, 11.02), Position.create(55.08, 11.08)).contains(square));
+        // Leg passing the square
+        assertTrue(index.intersecting(Position.create(54.9, 10.95), Position.create(55.2, 10.95)).isEmpty());
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        PolygonIndex<double[]> index = new PolygonIndex<>(new ArrayList<double[]>(), OUTLINE);
+        assertEquals(0, index.size());
+        assertTrue(index.query(-90, -180, 90, 180).isEmpty());
+    }
+}
@@ -14,6 +14,7 @@
  */
 package dk.dma.epd.ship;
 
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -49,9 +50,12 @@ import dk.dma.epd.common.ExceptionHandler;
 import dk.dma.epd.common.graphics.Resources;
 import dk.dma.epd.common.prototype.Bootstrap;
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.StartupOrchestrator;
 import dk.dma.epd.common.prototype.PluginLoader;
 import dk.dma.epd.common.prototype.ais.VesselTarget;
+import dk.dma.epd.common.prototype.areanotice.AreaNoticeHandler;
 import dk.dma.epd.common.prototype.gui.SystemTrayCommon;
+import dk.dma.epd.common.prototype.layers.background.TiledShapeLayer;
 import dk.dma.epd.common.prototype.model.identity.IdentityHandler;
 import dk.dma.epd.common.prototype.model.voyage.VoyageEventDispatcher;
 import dk.dma.epd.common.prototype.sensor.nmea.NmeaFileSensor;
@@ -66,6 +70,7 @@ import dk.dma.epd.common.prototype.sensor.rpnt.MultiSourcePntHandler;
 import dk.dma.epd.common.prototype.service.ChatServiceHandlerCommon;
 import dk.dma.epd.common.prototype.service.MaritimeCloudService;
 import dk.dma.epd.common.prototype.service.MsiNmServiceHandlerCommon;
+import dk.dma.epd.common.prototype.settings.MapSettings;
 import dk.dma.epd.common.prototype.settings.SensorSettings;
 import dk.dma.epd.common.prototype.settings.SensorSettings.PntSourceSetting;
 import dk.dma.epd.common.prototype.shoreservice.ShoreServicesCommon;
@@ -120,6 +125,7 @@ public final class EPDShip extends EPD implements IOwnShipListener {
     private ShoreServicesCommon shoreServices;
     private MonaLisaRouteOptimization monaLisaRouteExchange;
     private NogoHandler nogoHandler;
+    private AreaNoticeHandler areaNoticeHandler;
     private TransponderFrame transponderFrame;
     private VoyageEventDispatcher voyageEventDispatcher;
     private VOCTManager voctManager;
@@ -214,15 +220,19 @@ public final class EPDShip extends EPD implements IOwnShipListener {
         msPntHandler.addPntListener(pntHandler);
         mapHandler.add(msPntHandler);
 
+        // Load the components reading files or opening connections in parallel.
+        // They are added to the bean context below, in a fixed order
+        loadComponents();
+
         // Start AIS target monitoring
-        aisHandler = new AisHandler(settings.getSensorSettings(), settings.getAisSettings());
-        aisHandler.loadView();
         EPD.startThread(aisHandler, "AisHandler");
         mapHandler.add(aisHandler);
 
+        // Create area notice handler, receiving binary messages from the AIS handler
+        areaNoticeHandler = new AreaNoticeHandler();
+        mapHandler.add(areaNoticeHandler);
+
         // Start own-ship handler
-        ownShipHandler = new OwnShipHandler(settings.getAisSettings());
-        ownShipHandler.loadView();
         ownShipHandler.addListener(this);
         mapHandler.add(ownShipHandler);
 
@@ -240,52 +250,38 @@ public final class EPDShip extends EPD implements IOwnShipListener {
             mapHandler.add(dynamicPredictor);
         }
 
-        // Load routeManager and register as GPS data listener
-        routeManager = RouteManager.loadRouteManager();
+        // Register routeManager as GPS data listener
         mapHandler.add(routeManager);
-
-        falManager = FALManager.loadFALManager();
         mapHandler.add(falManager);
-
-        voctManager = VOCTManager.loadVOCTManager();
         mapHandler.add(voctManager);
 
-        // Create shore services
-        shoreServices = new ShoreServices(getSettings().getEnavSettings());
+        // Add shore services
         mapHandler.add(shoreServices);
 
         // Create mona lisa route exchange
         monaLisaRouteExchange = new MonaLisaRouteOptimization();
         mapHandler.add(monaLisaRouteExchange);
 
-        // Create NoGo handler
-        nogoHandler = new NogoHandler();
+        // Add NoGo handler
         mapHandler.add(nogoHandler);
 
-        // Create Maritime Cloud service
-        maritimeCloudService = new MaritimeCloudService();
+        // Start Maritime Cloud service
         mapHandler.add(maritimeCloudService);
         maritimeCloudService.start();
 
         strategicRouteHandler = new StrategicRouteHandler();
         mapHandler.add(strategicRouteHandler);
 
-        // Create intended route handler
-        intendedRouteHandler = new IntendedRouteHandler();
-        intendedRouteHandler.updateSettings(settings.getEnavSettings());
+        // Add intended route handler
         mapHandler.add(intendedRouteHandler);
 
-        // Create the route suggestion handler
-        // routeSuggestionHandler = new RouteSuggestionHandler();
-        routeSuggestionHandler = RouteSuggestionHandler.loadRouteSuggestionHandler();
+        // Add the route suggestion handler
         mapHandler.add(routeSuggestionHandler);
 
-        // Create a new MSI-NM handler
-        msiNmHandler = new MsiNmServiceHandlerCommon();
+        // Add MSI-NM handler
         mapHandler.add(msiNmHandler);
 
-        // Create a chat service handler
-        chatServiceHandler = new ChatServiceHandlerCommon();
+        // Add chat service handler
         mapHandler.add(chatServiceHandler);
 
         // Create voyage event dispatcher
@@ -303,8 +299,8 @@ public final class EPDShip extends EPD implements IOwnShipListener {
         falHandler = new FALHandler();
         mapHandler.add(falHandler);
 
-        // Start sensors
-        startSensors();
+        // Start the sensors created during loading
+        connectSensors();
 
         // Create plugin components
 
@@ -349,6 +345,128 @@ public final class EPDShip extends EPD implements IOwnShipListener {
 
     }
 
+    /**
+     * Creates the components that read files or open connections, running the independent ones in parallel.
+     * <p>
+     * Each component declares the components it hooks into when added to the bean context, so they are always created
+     * first. The components are added to the bean context by the caller, in a fixed order.
+     */
+    private void loadComponents() {
+        StartupOrchestrator startup = new StartupOrchestrator();
+        declareComponents(startup, this);
+        startup.run();
+    }
+
+    /**
+     * Declares the components created by {@linkplain #loadComponents()} with their dependencies
+     * 
+     * @param startup
+     *            the orchestrator to declare the components with
+     * @param epd
+     *            the instance to create the components for
+     */
+    static void declareComponents(StartupOrchestrator startup, final EPDShip epd) {
+        startup.add("AisHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.aisHandler = new AisHandler(epd.getSettings().getSensorSettings(),
+                        epd.getSettings().getAisSettings());
+                epd.aisHandler.loadView();
+            }
+        });
+        // The AIS handler listens for own-ship changes
+        startup.add("OwnShipHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.ownShipHandler = new OwnShipHandler(epd.getSettings().getAisSettings());
+                epd.ownShipHandler.loadView();
+            }
+        }, "AisHandler");
+        startup.add("ShoreServices", new Runnable() {
+            @Override
+            public void run() {
+                epd.shoreServices = new ShoreServices(epd.getSettings().getEnavSettings());
+            }
+        });
+        // Route METOC is requested through the shore services
+        startup.add("RouteManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.routeManager = RouteManager.loadRouteManager();
+            }
+        }, "ShoreServices");
+        startup.add("FALManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.falManager = FALManager.loadFALManager();
+            }
+        });
+        startup.add("VOCTManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.voctManager = VOCTManager.loadVOCTManager();
+            }
+        });
+        startup.add("RouteSuggestionHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.routeSuggestionHandler = RouteSuggestionHandler.loadRouteSuggestionHandler();
+            }
+        });
+        // NoGo areas are requested through the shore services
+        startup.add("NogoHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.nogoHandler = new NogoHandler();
+            }
+        }, "ShoreServices");
+        startup.add("MaritimeCloudService", new Runnable() {
+            @Override
+            public void run() {
+                epd.maritimeCloudService = new MaritimeCloudService();
+            }
+        });
+        // Broadcasts the active route of the route manager
+        startup.add("IntendedRouteHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.intendedRouteHandler = new IntendedRouteHandler();
+                epd.intendedRouteHandler.updateSettings(epd.settings.getEnavSettings());
+                epd.intendedRouteHandler.updateBroadcastSettings(epd.settings.getCloudSettings());
+            }
+        }, "RouteManager", "MaritimeCloudService");
+        // Reads the stored messages and filters them by the routes of the route manager
+        startup.add("MsiNmHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.msiNmHandler = new MsiNmServiceHandlerCommon();
+            }
+        }, "RouteManager", "MaritimeCloudService");
+        // Reads the chat history
+        startup.add("ChatServiceHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.chatServiceHandler = new ChatServiceHandlerCommon();
+            }
+        }, "MaritimeCloudService");
+        // Unpacks the native serial port library if needed. The sensors feed the AIS and own-ship handlers
+        startup.add("Sensors", new Runnable() {
+            @Override
+            public void run() {
+                epd.createSensors();
+            }
+        }, "AisHandler", "OwnShipHandler");
+        // Reads the background tiles of the initial view, so the chart can draw without waiting for the disk
+        startup.add("BackgroundLayer", new Runnable() {
+            @Override
+            public void run() {
+                MapSettings mapSettings = epd.getSettings().getMapSettings();
+                TiledShapeLayer.warmUp("background", epd.getProperties(), mapSettings.getCenter(),
+                        mapSettings.getScale(), Toolkit.getDefaultToolkit().getScreenSize());
+            }
+        });
+    }
+
     /**
      * Returns the current {@code EPDShore} instance
      * 
@@ -396,6 +514,14 @@ public final class EPDShip extends EPD implements IOwnShipListener {
      */
     @Override
     protected void startSensors() {
+        createSensors();
+        connectSensors();
+    }
+
+    /**
+     * Creates the sensors defined in the {@linkplain SensorSettings} without starting them
+     */
+    private void createSensors() {
         EPDSensorSettings sensorSettings = getSettings().getSensorSettings();
         switch (sensorSettings.getAisConnectionType()) {
         case NONE:
@@ -480,6 +606,13 @@ public final class EPDShip extends EPD implements IOwnShipListener {
         } else {
             dynamicPredictorSensor = null;
         }
+    }
+
+    /**
+     * Starts the created sensors and hook up listeners
+     */
+    private void connectSensors() {
+        EPDSensorSettings sensorSettings = getSettings().getSensorSettings();
         if (aisSensor != null) {
             aisSensor.addAisListener(aisHandler);
             aisSensor.addAisListener(ownShipHandler);
@@ -872,6 +1005,10 @@ public final class EPDShip extends EPD implements IOwnShipListener {
         return (AisHandler) aisHandler;
     }
 
+    public IntendedRouteHandler getIntendedRouteHandler() {
+        return intendedRouteHandler;
+    }
+
     public OwnShipHandler getOwnShipHandler() {
         return ownShipHandler;
     }
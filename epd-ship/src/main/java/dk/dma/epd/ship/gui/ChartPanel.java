@@ -49,6 +49,7 @@ import dk.dma.epd.ship.gui.component_panels.DockableComponentPanel;
 import dk.dma.epd.ship.layers.EncLayerFactory;
 import dk.dma.epd.ship.layers.GeneralLayer;
 import dk.dma.epd.ship.layers.ais.AisLayer;
+import dk.dma.epd.ship.layers.areanotice.AreaNoticeLayer;
 import dk.dma.epd.ship.layers.background.CoastalOutlineLayer;
 import dk.dma.epd.ship.layers.intendedroute.IntendedRouteLayer;
 import dk.dma.epd.ship.layers.msi.MsiNmLayer;
@@ -93,6 +94,7 @@ public class ChartPanel extends ChartPanelCommon implements DockableComponentPan
     private CommonRulerLayer rulerLayer;
     private DynamicPredictorLayer dynamicPredictorLayer;
     private IntendedRouteLayer intendedRouteLayer;
+    private AreaNoticeLayer areaNoticeLayer;
 
     private TopPanel topPanel;
     private VOCTManager voctManager;
@@ -230,6 +232,11 @@ public class ChartPanel extends ChartPanelCommon implements DockableComponentPan
         nogoLayer.setVisible(true);
         mapHandler.add(nogoLayer);
 
+        // Create area notice layer
+        areaNoticeLayer = new AreaNoticeLayer();
+        areaNoticeLayer.setVisible(true);
+        mapHandler.add(areaNoticeLayer);
+
         // Create AIS layer
         aisLayer = new AisLayer(EPDShip.getInstance().getSettings().getAisSettings().getMinRedrawInterval() * 1000);
         aisLayer.setVisible(true);
@@ -39,7 +39,10 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.text.NumberFormatter;
 
+import dk.dma.epd.common.prototype.model.route.Route;
+import dk.dma.epd.common.prototype.monalisa.MonaLisaBatchDialog;
 import dk.dma.epd.common.prototype.monalisa.MonaLisaSSPAWPSelection;
+import dk.dma.epd.common.prototype.monalisa.MonaLisaVariant;
 import dk.dma.epd.ship.EPDShip;
 import dk.dma.epd.ship.gui.ChartPanel;
 import dk.dma.epd.ship.gui.MainFrame;
@@ -52,6 +55,7 @@ import dk.dma.epd.ship.route.RouteManager;
 public class MonaLisaSSPAOptionsDialog extends dk.dma.epd.common.prototype.monalisa.MonaLisaSSPAOptionsDialogCommon implements ActionListener {
     private static final long serialVersionUID = 1L;
     private JButton requestOptiBtn;
+    private JButton compareVariantsBtn;
     private JButton cancelButton;
     private JButton selectWpBtn;
     JSpinner spinnerDraught;
@@ -237,6 +241,11 @@ public class MonaLisaSSPAOptionsDialog extends dk.dma.epd.common.prototype.monal
                 buttonPane.add(requestOptiBtn);
                 getRootPane().setDefaultButton(requestOptiBtn);
             }
+            {
+                compareVariantsBtn = new JButton("Variants");
+                compareVariantsBtn.addActionListener(this);
+                buttonPane.add(compareVariantsBtn);
+            }
             {
                 cancelButton = new JButton("Cancel");
                 cancelButton.addActionListener(this);
@@ -334,6 +343,41 @@ public class MonaLisaSSPAOptionsDialog extends dk.dma.epd.common.prototype.monal
             
 
 
+        }
+        if (e.getSource() == compareVariantsBtn) {
+            if (selectWpLbl.getText().equals("0") || selectWpLbl.getText().equals("1")) {
+                JOptionPane.showMessageDialog(this, "You must select some waypoints");
+                return;
+            }
+
+            try {
+                float draft = Float.parseFloat(spinnerDraught.getValue().toString());
+                int ukc = Integer.parseInt(ukctextField.getText());
+                int timeout = Integer.parseInt(timeoutTxTField.getText());
+                Route route = routeManager.getRoute(routeid);
+
+                this.dispose();
+
+                // Compare trim variants and the mean route speed one knot either way
+                List<MonaLisaVariant> variants;
+                if (route.getRouteDtg() != null && route.getRouteTtg() != null && route.getRouteTtg() > 0) {
+                    float speed = (float) (route.getRouteDtg() / (route.getRouteTtg() / 3600000.0));
+                    speed = Math.round(speed * 2) / 2f;
+                    if (speed > 1) {
+                        variants = MonaLisaVariant.createStandardVariants(draft, ukc, speed - 1, speed + 1);
+                    } else {
+                        // Too slow to compare a slower speed
+                        variants = MonaLisaVariant.createStandardVariants(draft, ukc, speed + 1);
+                    }
+                } else {
+                    variants = MonaLisaVariant.createStandardVariants(draft, ukc);
+                }
+
+                new MonaLisaBatchDialog(EPDShip.getInstance().getMainFrame(), EPDShip.getInstance().getMonaLisaRouteExchange(),
+                        route, intermediateETACheckBox.isSelected(), variants, timeout, selectedWp).setVisible(true);
+            } catch (NumberFormatException e2) {
+                JOptionPane.showMessageDialog(this, "Invalid integer input");
+            }
         }
         if (e.getSource() == cancelButton) {
             // Cancel the request
@@ -16,6 +16,8 @@ package dk.dma.epd.ship.gui.setuptabs;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.DefaultComboBoxModel;
@@ -33,6 +35,7 @@ import dk.dma.epd.common.prototype.gui.settings.ISettingsListener.Type;
 import dk.dma.epd.common.prototype.gui.settings.IntendedRouteFilterSettingsPanel;
 import dk.dma.epd.common.prototype.model.route.PartialRouteFilter.FilterType;
 import dk.dma.epd.common.prototype.settings.EnavSettings;
+import dk.dma.epd.common.prototype.settings.ObservedSettings;
 import dk.dma.epd.common.util.Converter;
 import dk.dma.epd.ship.EPDShip;
 import dk.dma.epd.ship.settings.EPDCloudSettings;
@@ -337,6 +340,9 @@ public class ShipServicesSettingsPanel extends BaseSettingsPanel implements Acti
         this.cloudSettings.setBroadcastIntendedRoute(this.chckbxBroadcastIntendedRoute.isSelected());
         this.cloudSettings.setTimeBetweenBroadCast((Integer) this.spinnerTimeBetweenBroadcast.getValue());
         this.cloudSettings.setAdaptionTime((Integer) this.spinnerAdaptionTime.getValue());
+        if (EPDShip.getInstance().getIntendedRouteHandler() != null) {
+            EPDShip.getInstance().getIntendedRouteHandler().updateBroadcastSettings(this.cloudSettings);
+        }
         
         // Save Intended route filter settings.
         this.cloudSettings.getIntendedRouteFilter().setType(this.selectedType);
@@ -361,6 +367,17 @@ public class ShipServicesSettingsPanel extends BaseSettingsPanel implements Acti
         
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<? extends ObservedSettings<?>> getObservedSettings() {
+        if (EPDShip.getInstance().getIntendedRouteHandler() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(EPDShip.getInstance().getIntendedRouteHandler().getBroadcastSettings());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,209 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.ship.layers.areanotice;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bbn.openmap.omGraphics.OMGraphicConstants;
+import com.bbn.openmap.omGraphics.OMGraphicList;
+import com.bbn.openmap.omGraphics.OMPoly;
+import com.bbn.openmap.omGraphics.OMText;
+import com.bbn.openmap.proj.Projection;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.areanotice.AreaNotice;
+import dk.dma.epd.common.prototype.areanotice.AreaNoticeHandler;
+import dk.dma.epd.common.prototype.areanotice.AreaNoticeSubArea;
+import dk.dma.epd.common.prototype.areanotice.IAreaNoticeListener;
+import dk.dma.epd.common.prototype.layers.EPDLayerCommon;
+
+/**
+ * Layer displaying the area notices received by the {@linkplain AreaNoticeHandler}.
+ * <p>
+ * Only the notices that overlap the current view are added to the graphics. They are looked up in the spatial index of the
+ * handler, and the graphics of a notice are kept while it is in view and unchanged.
+ */
+public class AreaNoticeLayer extends EPDLayerCommon implements IAreaNoticeListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private AreaNoticeHandler areaNoticeHandler;
+    private Map<AreaNotice, OMGraphicList> noticeGraphicCache = new IdentityHashMap<>();
+
+    /**
+     * Constructor
+     */
+    public AreaNoticeLayer() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void areaNoticesChanged() {
+        doPrepare();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized OMGraphicList prepare() {
+        updateVisibleGraphics(getProjection());
+        return super.prepare();
+    }
+
+    /**
+     * Fills the graphics with the notices that overlap the view
+     */
+    private void updateVisibleGraphics(Projection projection) {
+        graphics.clear();
+        if (areaNoticeHandler == null || projection == null) {
+            return;
+        }
+
+        Point2D ul = projection.getUpperLeft();
+        Point2D lr = projection.getLowerRight();
+        List<AreaNotice> visible;
+        if (ul.getX() <= lr.getX()) {
+            visible = areaNoticeHandler.getAreaNotices(lr.getY(), ul.getX(), ul.getY(), lr.getX());
+        } else {
+            // The view crosses the date line
+            visible = areaNoticeHandler.getAreaNotices();
+        }
+
+        // Graphics of notices that are out of view or have been replaced are dropped
+        Map<AreaNotice, OMGraphicList> cache = new IdentityHashMap<>();
+        for (AreaNotice notice : visible) {
+            OMGraphicList noticeGraphic = noticeGraphicCache.get(notice);
+            if (noticeGraphic == null) {
+                noticeGraphic = createNoticeGraphic(notice);
+            }
+            cache.put(notice, noticeGraphic);
+            graphics.add(noticeGraphic);
+        }
+        noticeGraphicCache = cache;
+    }
+
+    /**
+     * Creates the graphics of the sub-areas of a notice, and a label with the notice description
+     */
+    private OMGraphicList createNoticeGraphic(AreaNotice notice) {
+        OMGraphicList noticeGraphic = new OMGraphicList();
+        List<Position> polygon = new ArrayList<>();
+        List<AreaNoticeSubArea> subAreas = notice.getSubAreas();
+        for (int i = 0; i < subAreas.size(); i++) {
+            AreaNoticeSubArea subArea = subAreas.get(i);
+
+            // Consecutive polygon parts make up one polygon
+            if (subArea.getShape() != AreaNoticeSubArea.Shape.POLYGON && !polygon.isEmpty()) {
+                noticeGraphic.add(createPoly(polygon, true));
+                polygon.clear();
+            }
+
+            Position pos = subArea.getPos();
+            switch (subArea.getShape()) {
+            case CIRCLE_OR_POINT:
+                // Points are only used as the start of polylines and polygons
+                if (subArea.getRadius() > 0) {
+                    noticeGraphic.add(new ASCircleOrPoint(subArea.getScaleFactor(), subArea.getPrecision(),
+                            pos.getLatitude(), pos.getLongitude(), subArea.getRadius()));
+                }
+                break;
+            case RECTANGLE:
+                ASRectangle rect = new ASRectangle(subArea.getScaleFactor(), subArea.getPrecision(), pos.getLatitude(),
+                        pos.getLongitude(), subArea.getEDimension(), subArea.getNDimension(), subArea.getOrientation(),
+                        new double[10]);
+                rect.setLinePaint(Color.blue);
+                noticeGraphic.add(rect);
+                break;
+            case SECTOR:
+                noticeGraphic.add(new ASArc(subArea.getScaleFactor(), subArea.getPrecision(), pos.getLatitude(), pos
+                        .getLongitude(), subArea.getRadius(), subArea.getLeftBound(), subArea.getRightBound()));
+                break;
+            case POLYLINE:
+                List<Position> points = notice.getPolyPoints(i);
+                if (points.size() > 1) {
+                    noticeGraphic.add(createPoly(points, false));
+                }
+                break;
+            case POLYGON:
+                List<Position> part = notice.getPolyPoints(i);
+                polygon.addAll(polygon.isEmpty() ? part : part.subList(Math.min(1, part.size()), part.size()));
+                break;
+            default:
+                break;
+            }
+        }
+        if (!polygon.isEmpty()) {
+            noticeGraphic.add(createPoly(polygon, true));
+        }
+
+        Position pos = notice.getPos();
+        if (pos != null) {
+            String label = ASNoticeDescription.getDescription(notice.getNoticeType());
+            if (notice.getText() != null) {
+                label += " - " + notice.getText();
+            }
+            OMText text = new OMText(pos.getLatitude(), pos.getLongitude(), 5, -5, label, OMText.JUSTIFY_LEFT);
+            text.setLinePaint(Color.black);
+            noticeGraphic.add(text);
+        }
+        return noticeGraphic;
+    }
+
+    private static OMPoly createPoly(List<Position> points, boolean polygon) {
+        double[] latlon = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            latlon[2 * i] = points.get(i).getLatitude();
+            latlon[2 * i + 1] = points.get(i).getLongitude();
+        }
+        OMPoly poly = new OMPoly(latlon, OMGraphicConstants.DECIMAL_DEGREES, OMGraphicConstants.LINETYPE_STRAIGHT);
+        poly.setIsPolygon(polygon);
+        poly.setLinePaint(polygon ? Color.red : Color.black);
+        return poly;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findAndInit(Object obj) {
+        super.findAndInit(obj);
+
+        if (obj instanceof AreaNoticeHandler) {
+            areaNoticeHandler = (AreaNoticeHandler) obj;
+            areaNoticeHandler.addListener(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findAndUndo(Object obj) {
+        if (obj == areaNoticeHandler) {
+            areaNoticeHandler.removeListener(this);
+            areaNoticeHandler = null;
+        }
+        super.findAndUndo(obj);
+    }
+}
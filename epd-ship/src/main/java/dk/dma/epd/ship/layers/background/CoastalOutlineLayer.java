@@ -19,13 +19,14 @@ import java.awt.Graphics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bbn.openmap.layer.shape.MultiShapeLayer;
 import com.bbn.openmap.omGraphics.OMGraphicList;
 
+import dk.dma.epd.common.prototype.layers.background.TiledShapeLayer;
+
 /**
- * Layer for simple coastal outline background
+ * Layer for simple coastal outline background, drawn from the tiled shape cache
  */
-public class CoastalOutlineLayer extends MultiShapeLayer {
+public class CoastalOutlineLayer extends TiledShapeLayer {
     
     private static final long serialVersionUID = 1L;
     @SuppressWarnings("unused")
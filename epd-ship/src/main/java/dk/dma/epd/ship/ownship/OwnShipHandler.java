@@ -14,13 +14,9 @@
  */
 package dk.dma.epd.ship.ownship;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
@@ -43,6 +39,7 @@ import dk.dma.epd.common.prototype.sensor.pnt.PntData;
 import dk.dma.epd.common.prototype.sensor.pnt.PntHandler;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
 import dk.dma.epd.common.prototype.settings.AisSettings;
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.common.util.Util;
 import net.jcip.annotations.ThreadSafe;
 
@@ -55,8 +52,9 @@ public class OwnShipHandler extends MapHandlerChild implements Runnable,
 
     private static final Logger LOG = LoggerFactory
             .getLogger(OwnShipHandler.class);
-    private static final String OWN_SHIP_FILE = EPD.getInstance().getHomePath()
-            .resolve(".ownship").toString();
+    private static final JournaledStore OWN_SHIP_STORE = new JournaledStore(
+            EPD.getInstance().getHomePath().resolve(".ownship.db"), EPD
+                    .getInstance().getHomePath().resolve(".ownship"));
 
     private final AisSettings aisSettings;
     private PntHandler pntHandler;
@@ -292,9 +290,8 @@ public class OwnShipHandler extends MapHandlerChild implements Runnable,
      * Saves the own-ship object
      */
     public void saveView() {
-        try (FileOutputStream fileOut = new FileOutputStream(OWN_SHIP_FILE);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
-            objectOut.writeObject(aisTarget);
+        try {
+            OWN_SHIP_STORE.save(Collections.singletonList(aisTarget));
         } catch (IOException e) {
             LOG.error("Failed to save own-ship file: " + e.getMessage(), e);
         }
@@ -304,17 +301,17 @@ public class OwnShipHandler extends MapHandlerChild implements Runnable,
      * Loads the own-ship object
      */
     public void loadView() {
-        try (FileInputStream fileIn = new FileInputStream(OWN_SHIP_FILE);
-                ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
-            VesselTarget oldOwnShip = aisTarget;
-            aisTarget = (VesselTarget) objectIn.readObject();
-            publishOwnShipChanged(oldOwnShip, aisTarget);
-        } catch (FileNotFoundException e) {
-            // Not an error
+        try {
+            List<Object> records = OWN_SHIP_STORE.load();
+            if (!records.isEmpty()) {
+                VesselTarget oldOwnShip = aisTarget;
+                aisTarget = (VesselTarget) records.get(0);
+                publishOwnShipChanged(oldOwnShip, aisTarget);
+            }
         } catch (Exception e) {
             LOG.error("Failed to load own-ship file: " + e.getMessage(), e);
             // Delete possible corrupted or old file
-            new File(".ownship").delete();
+            OWN_SHIP_STORE.delete();
         }
 
         if (aisTarget == null) {
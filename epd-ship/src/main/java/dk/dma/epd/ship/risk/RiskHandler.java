@@ -14,20 +14,35 @@
  */
 package dk.dma.epd.ship.risk;
 
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import net.jcip.annotations.Immutable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bbn.openmap.proj.Projection;
+
+import dk.dma.enav.model.geometry.Position;
 import dk.dma.epd.common.prototype.communication.webservice.ShoreServiceException;
+import dk.dma.epd.common.prototype.sensor.pnt.PntData;
 import dk.dma.epd.common.util.Util;
 import dk.dma.epd.ship.EPDShip;
+import dk.dma.epd.ship.gui.MainFrame;
 import dk.frv.enav.common.xml.risk.response.Risk;
 import dk.frv.enav.common.xml.risk.response.RiskList;
 
+/**
+ * Fetches the risk indexes of the vessels around own ship and in the current chart view.
+ * <p>
+ * The area is divided into {@linkplain RiskTiles}, and only tiles that are missing or stale are requested. The risk lists
+ * are cached per MMSI with a time to live, and every update swaps in a new immutable map, so readers never need to lock.
+ */
 public class RiskHandler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(RiskHandler.class);
@@ -36,8 +51,21 @@ public class RiskHandler implements Runnable {
         HIGH, MEDIUM, LOW, UNKNOWN
     };
 
-    private Map<Long, RiskList> riskListMap = new HashMap<>();
-    private static final Object MUTEX = new Object();
+    /** The accident type holding the total risk for all incident types */
+    private static final String TOTAL_RISK_TYPE = "MACHINERYFAILURE";
+
+    private static final long POLL_INTERVAL = 10000;
+    private static final long TILE_TTL = 60000;
+    private static final long RISK_TTL = 3 * 60000;
+
+    /** The range around own ship to fetch risk indexes for */
+    private static final double OWN_SHIP_RANGE = 20.0; // Nautical miles
+
+    /** The chart view is ignored when zoomed further out than this */
+    private static final double MAX_VIEW_SPAN = 3.0; // Degrees
+
+    private final RiskTiles tiles = new RiskTiles(TILE_TTL);
+    private volatile Map<Long, RiskEntry> riskEntries = Collections.emptyMap();
 
     public RiskHandler() {
         super();
@@ -48,21 +76,79 @@ public class RiskHandler implements Runnable {
     public void run() {
 
         while (EPDShip.getInstance().getSettings().getAisSettings().isShowRisk()) {
-            List<RiskList> riskLists = new ArrayList<>();
-            try {
-                riskLists = EPDShip.getInstance().getShoreServices().getRiskIndexes(54.75, 56.0, 10.65, 11.25);
-            } catch (ShoreServiceException e) {
-                LOG.warn("cannot get risk indexes", e);
-            }
-            synchronized (MUTEX) {
-                riskListMap.clear();
-                for (RiskList list : riskLists) {
-                    riskListMap.put(list.getMmsi().longValue(), list);
+            updateRiskIndexes();
+            Util.sleep(POLL_INTERVAL);
+        }
+
+    }
+
+    /**
+     * Fetches the stale tiles of the required areas and swaps in the updated risk lists
+     */
+    private void updateRiskIndexes() {
+        long now = System.currentTimeMillis();
+        Map<Long, RiskEntry> fetched = new HashMap<>();
+
+        for (double[] box : getRequiredAreas()) {
+            for (RiskTiles.Area area : tiles.staleAreas(box[0], box[1], box[2], box[3], now)) {
+                try {
+                    List<RiskList> riskLists = EPDShip.getInstance().getShoreServices()
+                            .getRiskIndexes(area.getMinLat(), area.getMaxLat(), area.getMinLon(), area.getMaxLon());
+                    for (RiskList list : riskLists) {
+                        fetched.put(list.getMmsi().longValue(), new RiskEntry(list, now + RISK_TTL));
+                    }
+                    tiles.markFetched(area, now);
+                } catch (ShoreServiceException e) {
+                    LOG.warn("cannot get risk indexes for " + area, e);
                 }
             }
-            Util.sleep(10000);
         }
 
+        Map<Long, RiskEntry> current = riskEntries;
+        Map<Long, RiskEntry> updated = new HashMap<>(current.size() + fetched.size());
+        for (Map.Entry<Long, RiskEntry> entry : current.entrySet()) {
+            if (entry.getValue().expires > now) {
+                updated.put(entry.getKey(), entry.getValue());
+            }
+        }
+        updated.putAll(fetched);
+        if (fetched.isEmpty() && updated.size() == current.size()) {
+            return;
+        }
+        riskEntries = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Returns the areas to fetch risk indexes for as {@code minLat, minLon, maxLat, maxLon}, i.e. the range around own ship
+     * and the current chart view
+     */
+    private List<double[]> getRequiredAreas() {
+        List<double[]> areas = new ArrayList<>(2);
+
+        PntData pntData = EPDShip.getInstance().getPntHandler() != null ? EPDShip.getInstance().getPntHandler()
+                .getCurrentData() : null;
+        if (pntData != null && !pntData.isBadPosition() && pntData.getPosition() != null) {
+            Position pos = pntData.getPosition();
+            double dLat = OWN_SHIP_RANGE / 60.0;
+            double dLon = dLat / Math.max(Math.cos(Math.toRadians(pos.getLatitude())), 0.1);
+            areas.add(new double[] { pos.getLatitude() - dLat, pos.getLongitude() - dLon, pos.getLatitude() + dLat,
+                    pos.getLongitude() + dLon });
+        }
+
+        MainFrame mainFrame = EPDShip.getInstance().getMainFrame();
+        if (mainFrame != null && mainFrame.getChartPanel() != null && mainFrame.getChartPanel().getMap() != null) {
+            Projection projection = mainFrame.getChartPanel().getMap().getProjection();
+            if (projection != null) {
+                Point2D ul = projection.getUpperLeft();
+                Point2D lr = projection.getLowerRight();
+                // Skip views crossing the date line and views too large to be useful
+                if (ul.getX() < lr.getX() && ul.getY() - lr.getY() <= MAX_VIEW_SPAN
+                        && lr.getX() - ul.getX() <= 2 * MAX_VIEW_SPAN) {
+                    areas.add(new double[] { lr.getY(), ul.getX(), ul.getY(), lr.getX() });
+                }
+            }
+        }
+        return areas;
     }
 
     public void toggleRiskHandler(boolean onOff) {
@@ -74,37 +160,48 @@ public class RiskHandler implements Runnable {
             EPDShip.getInstance().startRiskHandler();
         } else {
             // stopping, clear the index map as it wont be updated any longer.
-            riskListMap.clear();
+            riskEntries = Collections.emptyMap();
+            tiles.clear();
         }
 
     }
 
     public RiskList getRiskList(Long mmsi) {
-        return riskListMap.get(mmsi);
-
+        RiskEntry entry = riskEntries.get(mmsi);
+        return entry != null ? entry.riskList : null;
     }
 
     public Risk getRiskLevel(Long mmsi) {
-        
-        RiskList list = riskListMap.get(mmsi);
-        
-        if (list == null || list.getRisks().isEmpty()) {
-            return null;
+        RiskEntry entry = riskEntries.get(mmsi);
+        return entry != null ? entry.totalRisk : null;
+    }
+
+    /**
+     * The cached risk list of a vessel
+     */
+    @Immutable
+    private static final class RiskEntry {
+
+        final RiskList riskList;
+        final Risk totalRisk;
+        final long expires;
+
+        RiskEntry(RiskList riskList, long expires) {
+            this.riskList = riskList;
+            this.expires = expires;
+            this.totalRisk = findTotalRisk(riskList);
         }
-        /*
-         * get total risk
-         */
-        for (Risk risk : list.getRisks()) {
-            
-            if(risk.getAccidentType().equals("MACHINERYFAILURE")){
-                /*
-                 * MACHINERYFAILURE is total risk for all incident type 
-                 * 
-                 */
-                return risk;
-                
+
+        private static Risk findTotalRisk(RiskList list) {
+            if (list.getRisks() == null) {
+                return null;
+            }
+            for (Risk risk : list.getRisks()) {
+                if (TOTAL_RISK_TYPE.equals(risk.getAccidentType())) {
+                    return risk;
+                }
             }
+            return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,182 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.ship.risk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Keeps track of when the risk indexes of an area were last fetched.
+ * <p>
+ * The chart is divided into tiles of {@link #TILE_SIZE} degrees. Only tiles that have never been fetched, or were fetched
+ * longer ago than the time to live, are returned by {@linkplain #staleAreas}, and adjacent stale tiles in the same row are
+ * merged into a single area, so that a pan of the chart results in a few narrow requests rather than one for the whole
+ * view.
+ * <p>
+ * Stale tiles are dropped when tiles are marked as fetched, once the number of tiles has doubled since the last purge, so
+ * the tiles panned over during a long session are not kept.
+ */
+@ThreadSafe
+public class RiskTiles {
+
+    /** The size of a tile in degrees */
+    public static final double TILE_SIZE = 0.25;
+
+    /** The number of tiles below which stale tiles are not purged */
+    static final int MIN_PURGE_SIZE = 256;
+
+    private final long ttl;
+    private final Map<Long, Long> fetched = new HashMap<>();
+    private int purgeSize = MIN_PURGE_SIZE;
+
+    /**
+     * Constructor
+     *
+     * @param ttl
+     *            the time in milliseconds after which a fetched tile is stale
+     */
+    public RiskTiles(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the areas covering the stale tiles that overlap the given box
+     *
+     * @param now
+     *            the current time in milliseconds
+     * @return the stale areas, at most one per row of tiles between fresh tiles
+     */
+    public synchronized List<Area> staleAreas(double minLat, double minLon, double maxLat, double maxLon, long now) {
+        List<Area> areas = new ArrayList<>();
+        int minRow = index(minLat);
+        int maxRow = index(maxLat);
+        int minCol = index(minLon);
+        int maxCol = index(maxLon);
+        for (int row = minRow; row <= maxRow; row++) {
+            int runStart = Integer.MIN_VALUE;
+            for (int col = minCol; col <= maxCol + 1; col++) {
+                boolean stale = col <= maxCol && isStale(row, col, now);
+                if (stale && runStart == Integer.MIN_VALUE) {
+                    runStart = col;
+                } else if (!stale && runStart != Integer.MIN_VALUE) {
+                    areas.add(new Area(row, runStart, col - 1));
+                    runStart = Integer.MIN_VALUE;
+                }
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Marks the tiles of the area as fetched
+     *
+     * @param area
+     *            the area
+     * @param now
+     *            the time the area was fetched
+     */
+    public synchronized void markFetched(Area area, long now) {
+        for (int col = area.fromCol; col <= area.toCol; col++) {
+            fetched.put(key(area.row, col), now);
+        }
+        if (fetched.size() >= purgeSize) {
+            purgeStale(now);
+            purgeSize = Math.max(MIN_PURGE_SIZE, 2 * fetched.size());
+        }
+    }
+
+    /**
+     * Returns the number of tiles currently tracked
+     *
+     * @return the number of tiles
+     */
+    synchronized int size() {
+        return fetched.size();
+    }
+
+    /**
+     * Forgets all fetched tiles
+     */
+    public synchronized void clear() {
+        fetched.clear();
+    }
+
+    private boolean isStale(int row, int col, long now) {
+        Long time = fetched.get(key(row, col));
+        return time == null || isStale(time, now);
+    }
+
+    private boolean isStale(long time, long now) {
+        return now - time >= ttl;
+    }
+
+    private void purgeStale(long now) {
+        for (Iterator<Long> it = fetched.values().iterator(); it.hasNext();) {
+            if (isStale(it.next(), now)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static int index(double degrees) {
+        return (int) Math.floor(degrees / TILE_SIZE);
+    }
+
+    private static long key(int row, int col) {
+        return (long) row << 32 | col & 0xffffffffL;
+    }
+
+    /**
+     * A run of adjacent tiles in a single row
+     */
+    public static final class Area {
+
+        final int row;
+        final int fromCol;
+        final int toCol;
+
+        Area(int row, int fromCol, int toCol) {
+            this.row = row;
+            this.fromCol = fromCol;
+            this.toCol = toCol;
+        }
+
+        public double getMinLat() {
+            return row * TILE_SIZE;
+        }
+
+        public double getMaxLat() {
+            return (row + 1) * TILE_SIZE;
+        }
+
+        public double getMinLon() {
+            return fromCol * TILE_SIZE;
+        }
+
+        public double getMaxLon() {
+            return (toCol + 1) * TILE_SIZE;
+        }
+
+        @Override
+        public String toString() {
+            return "Area [" + getMinLat() + ", " + getMinLon() + " - " + getMaxLat() + ", " + getMaxLon() + "]";
+        }
+    }
+}
@@ -14,13 +14,7 @@
  */
 package dk.dma.epd.ship.route;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -41,6 +35,7 @@ import dk.dma.epd.common.prototype.sensor.pnt.IPntDataListener;
 import dk.dma.epd.common.prototype.sensor.pnt.PntData;
 import dk.dma.epd.common.prototype.sensor.pnt.PntHandler;
 import dk.dma.epd.common.prototype.sensor.pnt.PntTime;
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.ship.EPDShip;
 import dk.dma.epd.ship.gui.component_panels.ShowDockableDialog;
 import dk.dma.epd.ship.gui.component_panels.ShowDockableDialog.dock_type;
@@ -53,8 +48,9 @@ public class RouteManager extends RouteManagerCommon implements
         IPntDataListener {
 
     private static final long serialVersionUID = -9019124285849351709L;
-    private static final String ROUTES_FILE = EPD.getInstance().getHomePath()
-            .resolve(".routes").toString();
+    private static final JournaledStore ROUTES_STORE = new JournaledStore(EPD
+            .getInstance().getHomePath().resolve(".routes.db"), EPD
+            .getInstance().getHomePath().resolve(".routes"));
     private static final Logger LOG = LoggerFactory
             .getLogger(RouteManager.class);
 
@@ -215,26 +211,31 @@ public class RouteManager extends RouteManagerCommon implements
     public static RouteManager loadRouteManager() {
         RouteManager manager = new RouteManager();
 
-        try (FileInputStream fileIn = new FileInputStream(ROUTES_FILE);
-                ObjectInputStream objectIn = new ObjectInputStream(fileIn);) {
-            RouteStore routeStore = (RouteStore) objectIn.readObject();
-            manager.setRoutes(routeStore.getRoutes());
-            manager.activeRoute = routeStore.getActiveRoute();
-            manager.activeRouteIndex = routeStore.getActiveRouteIndex();
+        try {
+            List<Object> records = ROUTES_STORE.load();
+            if (ROUTES_STORE.isLegacy()) {
+                RouteStore routeStore = (RouteStore) records.get(0);
+                manager.setRoutes(routeStore.getRoutes());
+                manager.activeRoute = routeStore.getActiveRoute();
+                manager.activeRouteIndex = routeStore.getActiveRouteIndex();
 
-            // manager.setTempActiveRouteIndex(routeStore.getActiveRouteIndex());
-            // activeRouteIndex = routeStore.getActiveRouteIndex();
-
-            if (routeStore.getActiveRouteIndex() > -1) {
-                manager.deactivateRoute();
+                if (routeStore.getActiveRouteIndex() > -1) {
+                    manager.deactivateRoute();
+                }
+            } else {
+                // The active route is deactivated on load, so only the
+                // routes are stored
+                List<Route> routes = new LinkedList<>();
+                for (Object record : records) {
+                    routes.add((Route) record);
+                }
+                manager.setRoutes(routes);
             }
 
-        } catch (FileNotFoundException e) {
-            // Not an error
         } catch (Exception e) {
             LOG.error("Failed to load routes file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(ROUTES_FILE).delete();
+            ROUTES_STORE.delete();
         }
 
         return manager;
@@ -245,10 +246,10 @@ public class RouteManager extends RouteManagerCommon implements
      */
     @Override
     public synchronized void saveToFile() {
-        RouteStore routeStore = new RouteStore(this);
-        try (FileOutputStream fileOut = new FileOutputStream(ROUTES_FILE);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-            objectOut.writeObject(routeStore);
+        try {
+            synchronized (routes) {
+                ROUTES_STORE.save(routes);
+            }
         } catch (IOException e) {
             LOG.error("Failed to save routes file: " + e.getMessage());
         }
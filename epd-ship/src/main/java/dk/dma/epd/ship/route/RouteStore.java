@@ -23,7 +23,10 @@ import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RouteSuggestionData;
 
 /**
- * A serializable class for storing route information
+ * A serializable class for storing route information.
+ * <p>
+ * Only used to read the routes file of earlier versions, the routes are now
+ * stored in a {@linkplain dk.dma.epd.common.util.JournaledStore}.
  */
 public class RouteStore implements Serializable {
 
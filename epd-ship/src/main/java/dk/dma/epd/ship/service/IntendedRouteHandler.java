@@ -16,6 +16,7 @@ package dk.dma.epd.ship.service;
 
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.maritimecloud.net.mms.MmsClient;
 
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import dk.dma.epd.common.prototype.model.intendedroute.FilteredIntendedRoute;
 import dk.dma.epd.common.prototype.model.intendedroute.FilteredIntendedRoutes;
+import dk.dma.epd.common.prototype.model.intendedroute.IntendedRouteEncoder;
 import dk.dma.epd.common.prototype.model.intendedroute.IntendedRouteFilterMessage;
 import dk.dma.epd.common.prototype.model.route.ActiveRoute;
 import dk.dma.epd.common.prototype.model.route.IRoutesUpdateListener;
@@ -33,7 +35,10 @@ import dk.dma.epd.common.prototype.model.route.PartialRouteFilter;
 import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
 import dk.dma.epd.common.prototype.service.IntendedRouteHandlerCommon;
+import dk.dma.epd.common.prototype.settings.CloudSettings;
 import dk.dma.epd.common.prototype.settings.EnavSettings;
+import dk.dma.epd.common.prototype.settings.ISettingsChangeSetObserver;
+import dk.dma.epd.common.prototype.settings.ObservedSettings;
 import dk.dma.epd.common.text.Formatter;
 import dk.dma.epd.common.util.Converter;
 import dk.dma.epd.common.util.Util;
@@ -41,12 +46,16 @@ import dk.dma.epd.ship.EPDShip;
 import dk.dma.epd.ship.layers.intendedroute.IntendedRouteLayer;
 import dk.dma.epd.ship.route.RouteManager;
 import dk.dma.epd.ship.settings.handlers.IIntendedRouteHandlerSettingsObserver;
+import dk.dma.epd.ship.settings.handlers.IntendedRouteHandlerSettings;
 import dma.route.IntendedRouteBroadcast;
+import dma.route.IntendedRouteHeartbeat;
 
 /**
  * Ship specific intended route service implementation.
  * <p>
- * Listens for changes to the active route and broadcasts it. Also broadcasts the route periodically.
+ * Listens for changes to the active route and broadcasts it. Also broadcasts the route periodically. While the route
+ * is unchanged, only a heartbeat with the active waypoint and ETA offset is broadcast, see
+ * {@linkplain IntendedRouteEncoder}.
  * <p>
  * Improvements:
  * <ul>
@@ -54,18 +63,22 @@ import dma.route.IntendedRouteBroadcast;
  * </ul>
  */
 public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements IRoutesUpdateListener, Runnable,
-        IIntendedRouteHandlerSettingsObserver {
+        IIntendedRouteHandlerSettingsObserver, ISettingsChangeSetObserver {
 
     private static final Logger LOG = LoggerFactory.getLogger(IntendedRouteHandler.class);
-    private static long BROADCAST_TIME = 60; // Broadcast intended route every
-                                             // minute for now
-    private static long ADAPTIVE_TIME = 60 * 10; // Set to 10 minutes?
     private static final int BROADCAST_RADIUS = Integer.MAX_VALUE;
 
+    private final IntendedRouteHandlerSettings<IIntendedRouteHandlerSettingsObserver> broadcastSettings = new IntendedRouteHandlerSettings<>();
+    // Broadcast state in seconds, kept in sync with the broadcast settings
+    private volatile boolean broadcastEnabled = broadcastSettings.isBroadcastIntendedRoute();
+    private volatile long broadcastTime = broadcastSettings.getTimeBetweenBroadCast() * 60L;
+    private volatile long adaptiveTime = broadcastSettings.getAdaptionTime() * 60L;
+
     private DateTime lastTransmitActiveWp;
     private DateTime lastSend = new DateTime(1);
     private RouteManager routeManager;
     private boolean running;
+    private final IntendedRouteEncoder encoder = new IntendedRouteEncoder();
 
     private IntendedRouteLayer intendedRouteLayer;
 
@@ -74,6 +87,33 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
      */
     public IntendedRouteHandler() {
         super();
+        broadcastSettings.addObserver(this);
+    }
+
+    /**
+     * Returns the observed settings controlling the broadcast of the intended route
+     * 
+     * @return the broadcast settings
+     */
+    public IntendedRouteHandlerSettings<IIntendedRouteHandlerSettingsObserver> getBroadcastSettings() {
+        return broadcastSettings;
+    }
+
+    /**
+     * Updates the broadcast settings from the given cloud settings as a single change set
+     * 
+     * @param cloudSettings
+     *            the cloud settings to apply
+     */
+    public void updateBroadcastSettings(CloudSettings cloudSettings) {
+        broadcastSettings.beginUpdate();
+        try {
+            broadcastSettings.setBroadcastIntendedRoute(cloudSettings.isBroadcastIntendedRoute());
+            broadcastSettings.setTimeBetweenBroadCast(cloudSettings.getTimeBetweenBroadCast());
+            broadcastSettings.setAdaptionTime(cloudSettings.getAdaptionTime());
+        } finally {
+            broadcastSettings.commitUpdate();
+        }
     }
 
     /**
@@ -84,7 +124,8 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
         // Let super hook up for intended route broadcasts from other vessels
         super.cloudConnected(connection);
 
-        // Start broadcasting our own active route
+        // Start broadcasting our own active route, in full first
+        encoder.reset();
         running = true;
         new Thread(this).start();
     }
@@ -125,12 +166,12 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
 
                 // We have no active route, keep sleeping
                 if (routeManager.getActiveRoute() == null) {
-                    Util.sleep(BROADCAST_TIME * 1000L);
+                    Util.sleep(broadcastTime * 1000L);
                 } else {
 
                     // Here we handle the periodical broadcasts
                     DateTime calculatedTimeOfLastSend = new DateTime();
-                    calculatedTimeOfLastSend = calculatedTimeOfLastSend.minus(BROADCAST_TIME * 1000L);
+                    calculatedTimeOfLastSend = calculatedTimeOfLastSend.minus(broadcastTime * 1000L);
 
                     // Do we need to rebroadcast based on the broadcast time
                     // setting
@@ -168,7 +209,7 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
                                 etaTimeChange = currentActiveWaypointETA.plus(lastTransmitActiveWp.getMillis()).getMillis();
                             }
 
-                            if (etaTimeChange > ADAPTIVE_TIME * 1000L) {
+                            if (etaTimeChange > adaptiveTime * 1000L) {
                                 LOG.debug("Broadcast based on adaptive time!");
                                 broadcastIntendedRoute();
                                 lastSend = new DateTime();
@@ -211,6 +252,11 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
             return;
         }
 
+        // Only broadcast the removal of the route when broadcasting is disabled
+        if (!broadcastEnabled) {
+            activeRoute = null;
+        }
+
         // Make intended route message
         IntendedRouteBroadcast message = new IntendedRouteBroadcast();
 
@@ -224,13 +270,18 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
             message.setRoute(new dma.route.Route());
         }
 
-        // send message
-        LOG.debug("Broadcasting intended route");
+        // send message, or just a heartbeat if the route is unchanged
         final IntendedRouteBroadcast broadcast = message;
+        final IntendedRouteHeartbeat heartbeat = encoder.encode(message, System.currentTimeMillis());
+        LOG.debug(heartbeat != null ? "Broadcasting intended route heartbeat" : "Broadcasting intended route");
         Runnable broadcastMessage = new Runnable() {
             @Override
             public void run() {
-                getMmsClient().broadcast(broadcast);
+                if (heartbeat != null) {
+                    getMmsClient().broadcast(heartbeat);
+                } else {
+                    getMmsClient().broadcast(broadcast);
+                }
             }
         };
 
@@ -423,21 +474,40 @@ public class IntendedRouteHandler extends IntendedRouteHandlerCommon implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public void sendIntendedRouteChanged(boolean value) {
-        // TODO Auto-generated method stub
-
+        broadcastEnabled = value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public void broadcastTimeChanged(long value) {
-        BROADCAST_TIME = value;
+        broadcastTime = value * 60L;
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public void adaptiveBroadcastTimeChanged(int value) {
-        // TODO Auto-generated method stub
-        ADAPTIVE_TIME = value;
+        adaptiveTime = value * 60L;
+    }
+
+    /**
+     * Called on the settings notifier thread once the individual broadcast settings of a change set have been applied.
+     * Rebroadcasts the route, or its removal if broadcasting has been disabled.
+     */
+    @Override
+    public void settingsChanged(ObservedSettings<?> source, Set<String> changedKeys) {
+        if (routeManager != null) {
+            lastSend = new DateTime();
+            broadcastIntendedRoute(routeManager.getActiveRoute(), true);
+        }
     }
 
     /**
@@ -14,14 +14,10 @@
  */
 package dk.dma.epd.ship.service.voct;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 
 import javax.swing.JDialog;
@@ -159,18 +155,18 @@ public class VOCTManager extends VOCTManagerCommon {
 
         // Where we load or serialize old VOCTS
         VOCTManager voctManager = new VOCTManager();
-        try (FileInputStream fileIn = new FileInputStream(VOCT_FILE); ObjectInputStream objectIn = new ObjectInputStream(fileIn);) {
-
-            SARData sarDataLoaded = (SARData) objectIn.readObject();
-            voctManager.setLoadSarFromSerialize(true);
-            voctManager.initializeFromSerializedFile(sarDataLoaded);
+        try {
+            List<Object> records = VOCT_STORE.load();
+            if (!records.isEmpty()) {
+                SARData sarDataLoaded = (SARData) records.get(0);
+                voctManager.setLoadSarFromSerialize(true);
+                voctManager.initializeFromSerializedFile(sarDataLoaded);
+            }
 
-        } catch (FileNotFoundException e) {
-            // Not an error
         } catch (Exception e) {
             LOG.error("Failed to load routes file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(VOCT_FILE).delete();
+            VOCT_STORE.delete();
         }
 
         return voctManager;
@@ -182,9 +178,8 @@ public class VOCTManager extends VOCTManagerCommon {
 
         if (hasSar || loadSarFromSerialize) {
 
-            try (FileOutputStream fileOut = new FileOutputStream(VOCT_FILE);
-                    ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-                objectOut.writeObject(sarData);
+            try {
+                VOCT_STORE.save(Collections.singletonList(sarData));
             } catch (IOException e) {
                 LOG.error("Failed to save VOCT data: " + e.getMessage());
             }
@@ -30,6 +30,12 @@ import dk.dma.epd.ship.service.IntendedRouteHandler;
 public class IntendedRouteHandlerSettings<OBSERVER extends IIntendedRouteHandlerSettingsObserver> extends
         IntendedRouteHandlerCommonSettings<OBSERVER> {
 
+    private static final String KEY_BROADCAST_INTENDED_ROUTE = "broadcastIntendedRoute";
+
+    private static final String KEY_TIME_BETWEEN_BROADCAST = "timeBetweenBroadCast";
+
+    private static final String KEY_ADAPTION_TIME = "adaptionTime";
+
     /**
      * Specifies if the ship should broadcast it's intendedroute or not
      */
@@ -58,10 +64,19 @@ public class IntendedRouteHandlerSettings<OBSERVER extends IIntendedRouteHandler
      */
     public void setBroadcastIntendedRoute(boolean broadcastIntendedRoute) {
 
-        this.broadcastIntendedRoute = broadcastIntendedRoute;
-
-        for (OBSERVER obs : this.observers) {
-            obs.sendIntendedRouteChanged(this.broadcastIntendedRoute);
+        this.settingLock.writeLock().lock();
+        try {
+            boolean oldValue = this.broadcastIntendedRoute;
+            this.broadcastIntendedRoute = broadcastIntendedRoute;
+            this.fireSettingChanged(KEY_BROADCAST_INTENDED_ROUTE, oldValue, broadcastIntendedRoute,
+                    new ChangeNotifier<OBSERVER, Boolean>() {
+                        @Override
+                        public void fire(OBSERVER obs, Boolean oldVal, Boolean newVal) {
+                            obs.sendIntendedRouteChanged(newVal);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
 
     }
@@ -78,10 +93,19 @@ public class IntendedRouteHandlerSettings<OBSERVER extends IIntendedRouteHandler
      *            the timeBetweenBroadCast to set
      */
     public void setTimeBetweenBroadCast(int timeBetweenBroadCast) {
-        this.timeBetweenBroadCast = timeBetweenBroadCast;
-
-        for (OBSERVER obs : this.observers) {
-            obs.broadcastTimeChanged(this.timeBetweenBroadCast);
+        this.settingLock.writeLock().lock();
+        try {
+            long oldValue = this.timeBetweenBroadCast;
+            this.timeBetweenBroadCast = timeBetweenBroadCast;
+            this.fireSettingChanged(KEY_TIME_BETWEEN_BROADCAST, oldValue, this.timeBetweenBroadCast,
+                    new ChangeNotifier<OBSERVER, Long>() {
+                        @Override
+                        public void fire(OBSERVER obs, Long oldVal, Long newVal) {
+                            obs.broadcastTimeChanged(newVal);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
     }
 
@@ -97,10 +121,19 @@ public class IntendedRouteHandlerSettings<OBSERVER extends IIntendedRouteHandler
      *            the adaptionTime to set
      */
     public void setAdaptionTime(int adaptionTime) {
-        this.adaptionTime = adaptionTime;
-
-        for (OBSERVER obs : this.observers) {
-            obs.adaptiveBroadcastTimeChanged(this.adaptionTime);
+        this.settingLock.writeLock().lock();
+        try {
+            int oldValue = this.adaptionTime;
+            this.adaptionTime = adaptionTime;
+            this.fireSettingChanged(KEY_ADAPTION_TIME, oldValue, adaptionTime,
+                    new ChangeNotifier<OBSERVER, Integer>() {
+                        @Override
+                        public void fire(OBSERVER obs, Integer oldVal, Integer newVal) {
+                            obs.adaptiveBroadcastTimeChanged(newVal);
+                        }
+                    });
+        } finally {
+            this.settingLock.writeLock().unlock();
         }
     }
 
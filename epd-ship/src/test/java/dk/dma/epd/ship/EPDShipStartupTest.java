@@ -0,0 +1,79 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.ship;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import dk.dma.epd.common.prototype.StartupOrchestrator;
+
+/**
+ * Runs the components declared by {@linkplain EPDShip#declareComponents} through the {@linkplain StartupOrchestrator},
+ * without creating them, so a component declared before its dependencies fails the build
+ */
+public class EPDShipStartupTest {
+
+    private static List<String> run(DryRunOrchestrator startup) {
+        EPDShip.declareComponents(startup, null);
+        startup.run();
+
+        List<String> completed = startup.getCompletionOrder();
+        assertEquals(startup.declared.size(), completed.size());
+        assertTrue(completed.containsAll(startup.declared));
+        return completed;
+    }
+
+    @Test
+    public void sequentialStartupKeepsDeclarationOrder() {
+        DryRunOrchestrator startup = new DryRunOrchestrator(1);
+        List<String> completed = run(startup);
+        assertEquals(startup.declared, completed);
+    }
+
+    @Test
+    public void parallelStartupRespectsDependencies() {
+        List<String> completed = run(new DryRunOrchestrator(4));
+        assertTrue(completed.indexOf("ShoreServices") < completed.indexOf("RouteManager"));
+        assertTrue(completed.indexOf("MaritimeCloudService") < completed.indexOf("ChatServiceHandler"));
+        assertTrue(completed.indexOf("AisHandler") < completed.indexOf("Sensors"));
+    }
+
+    /**
+     * Orchestrator replacing the declared tasks with no-ops
+     */
+    private static final class DryRunOrchestrator extends StartupOrchestrator {
+
+        private final List<String> declared = new ArrayList<>();
+
+        DryRunOrchestrator(int threads) {
+            super(threads);
+        }
+
+        @Override
+        public synchronized void add(String name, Runnable task, String... dependencies) {
+            super.add(name, new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, dependencies);
+            declared.add(name);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.ship.risk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class RiskTilesTest {
+
+    private static final long TTL = 1000L;
+
+    @Test
+    public void staleUntilFetched() {
+        RiskTiles tiles = new RiskTiles(TTL);
+        List<RiskTiles.Area> areas = tiles.staleAreas(55.1, 10.1, 55.6, 10.9, 0);
+
+        // Rows 220 to 222, each merged into a single run of columns 40 to 43
+        assertEquals(3, areas.size());
+        assertEquals(55.0, areas.get(0).getMinLat(), 0.0);
+        assertEquals(10.0, areas.get(0).getMinLon(), 0.0);
+        assertEquals(11.0, areas.get(0).getMaxLon(), 0.0);
+
+        for (RiskTiles.Area area : areas) {
+            tiles.markFetched(area, 0);
+        }
+        assertTrue(tiles.staleAreas(55.1, 10.1, 55.6, 10.9, TTL - 1).isEmpty());
+    }
+
+    @Test
+    public void panOnlyRequestsNewTiles() {
+        RiskTiles tiles = new RiskTiles(TTL);
+        for (RiskTiles.Area area : tiles.staleAreas(55.1, 10.1, 55.6, 10.9, 0)) {
+            tiles.markFetched(area, 0);
+        }
+
+        List<RiskTiles.Area> areas = tiles.staleAreas(55.1, 10.6, 55.6, 11.4, 500);
+        assertEquals(3, areas.size());
+        for (RiskTiles.Area area : areas) {
+            assertEquals(11.0, area.getMinLon(), 0.0);
+            assertEquals(11.5, area.getMaxLon(), 0.0);
+        }
+    }
+
+    @Test
+    public void staleAfterTtl() {
+        RiskTiles tiles = new RiskTiles(TTL);
+        for (RiskTiles.Area area : tiles.staleAreas(55.1, 10.1, 55.2, 10.2, 0)) {
+            tiles.markFetched(area, 0);
+        }
+        assertTrue(tiles.staleAreas(55.1, 10.1, 55.2, 10.2, TTL - 1).isEmpty());
+        assertEquals(1, tiles.staleAreas(55.1, 10.1, 55.2, 10.2, TTL).size());
+    }
+
+    @Test
+    public void staleTilesPurged() {
+        RiskTiles tiles = new RiskTiles(TTL);
+
+        // Pan east along a row, one new tile per step, for longer than the time to live
+        int steps = 4 * RiskTiles.MIN_PURGE_SIZE;
+        for (int i = 0; i < steps; i++) {
+            long now = i * 10L;
+            double lon = i * RiskTiles.TILE_SIZE + 0.1;
+            for (RiskTiles.Area area : tiles.staleAreas(0.1, lon, 0.1, lon, now)) {
+                tiles.markFetched(area, now);
+            }
+        }
+
+        // Only the tiles fetched within the time to live, and up to as many stale ones, are kept
+        int fresh = (int) (TTL / 10L);
+        assertTrue(tiles.size() <= 2 * Math.max(RiskTiles.MIN_PURGE_SIZE, fresh));
+        assertTrue(tiles.size() >= fresh);
+
+        // The recent tiles are still fresh
+        double lastLon = (steps - 1) * RiskTiles.TILE_SIZE + 0.1;
+        assertTrue(tiles.staleAreas(0.1, lastLon, 0.1, lastLon, steps * 10L).isEmpty());
+    }
+}
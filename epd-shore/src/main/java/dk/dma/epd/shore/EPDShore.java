@@ -44,6 +44,7 @@ import dk.dma.epd.common.ExceptionHandler;
 import dk.dma.epd.common.graphics.Resources;
 import dk.dma.epd.common.prototype.Bootstrap;
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.StartupOrchestrator;
 import dk.dma.epd.common.prototype.PluginLoader;
 import dk.dma.epd.common.prototype.gui.SystemTrayCommon;
 import dk.dma.epd.common.prototype.model.identity.IdentityHandler;
@@ -180,41 +181,29 @@ public final class EPDShore extends EPD {
         PntTime.init(settings.getSensorSettings().isUseTimeFromPnt());
         beanHandler.add(PntTime.getInstance());
 
-        // aisHandler = new AisHandlerCommon();
-        aisHandler = new AisHandler(settings.getAisSettings());
-        aisHandler.loadView();
+        // Load the components reading files or opening connections in parallel.
+        // They are added to the bean context below, in a fixed order
+        loadComponents();
+
         EPD.startThread(aisHandler, "AisHandler");
         beanHandler.add(aisHandler);
 
         // Add StaticImages handler
-        staticImages = new StaticImages();
         beanHandler.add(staticImages);
 
-        // Load routeManager
-        routeManager = RouteManager.loadRouteManager();
         beanHandler.add(routeManager);
-
-        falManager = FALManager.loadFALManager();
         beanHandler.add(falManager);
-
-        // To be changed to load similar to routeManager
-        // voyageManager = new VoyageManager();
-        voyageManager = VoyageManager.loadVoyageManager();
         beanHandler.add(voyageManager);
-
-        sruManager = SRUManager.loadSRUManager();
         beanHandler.add(sruManager);
 
-        // Create shore services
-        shoreServicesCommon = new ShoreServices(getSettings().getEnavSettings());
+        // Add shore services
         beanHandler.add(shoreServicesCommon);
 
         // Create mona lisa route exchange
         monaLisaRouteExchange = new MonaLisaRouteOptimization();
         beanHandler.add(monaLisaRouteExchange);
 
-        // Create Maritime Cloud service
-        maritimeCloudService = new MaritimeCloudService();
+        // Start Maritime Cloud service
         beanHandler.add(maritimeCloudService);
         maritimeCloudService.start();
 
@@ -222,29 +211,24 @@ public final class EPDShore extends EPD {
         strategicRouteHandler = new StrategicRouteHandler();
         beanHandler.add(strategicRouteHandler);
 
-        // Create intended route handler
-        intendedRouteHandler = new IntendedRouteHandler();
+        // Add intended route handler
         beanHandler.add(intendedRouteHandler);
 
-        // Create the route suggestion handler
-        // routeSuggestionHandler = new RouteSuggestionHandler();
-        routeSuggestionHandler = RouteSuggestionHandler.loadRouteSuggestionHandler();
+        // Add the route suggestion handler
         beanHandler.add(routeSuggestionHandler);
 
-        // Create a new MSI-NM handler
-        msiNmHandler = new MsiNmServiceHandlerCommon();
+        // Add MSI-NM handler
         beanHandler.add(msiNmHandler);
 
-        // Create a chat service handler
-        chatServiceHandler = new ChatServiceHandlerCommon();
+        // Add chat service handler
         beanHandler.add(chatServiceHandler);
 
         // Create identity handler
         identityHandler = new IdentityHandler();
         beanHandler.add(identityHandler);
 
-        // Start sensors
-        startSensors();
+        // Start the sensors created during loading
+        connectSensors();
 
         pluginLoader = new PluginLoader(getProperties(), getHomePath(), getPropertyFileName());
 
@@ -300,6 +284,113 @@ public final class EPDShore extends EPD {
         }
     }
 
+    /**
+     * Creates the components that read files or open connections, running the independent ones in parallel.
+     * <p>
+     * Each component declares the components it hooks into when added to the bean context, so they are always created
+     * first. The components are added to the bean context by the caller, in a fixed order. The NoGo handlers and layers
+     * belong to the map windows, whose data is loaded when the workspace is restored.
+     */
+    private void loadComponents() {
+        StartupOrchestrator startup = new StartupOrchestrator();
+        declareComponents(startup, this);
+        startup.run();
+    }
+
+    /**
+     * Declares the components created by {@linkplain #loadComponents()} with their dependencies
+     * 
+     * @param startup
+     *            the orchestrator to declare the components with
+     * @param epd
+     *            the instance to create the components for
+     */
+    static void declareComponents(StartupOrchestrator startup, final EPDShore epd) {
+        startup.add("AisHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.aisHandler = new AisHandler(epd.getSettings().getAisSettings());
+                epd.aisHandler.loadView();
+            }
+        });
+        startup.add("StaticImages", new Runnable() {
+            @Override
+            public void run() {
+                epd.staticImages = new StaticImages();
+            }
+        });
+        startup.add("ShoreServices", new Runnable() {
+            @Override
+            public void run() {
+                epd.shoreServicesCommon = new ShoreServices(epd.getSettings().getEnavSettings());
+            }
+        });
+        // Route METOC is requested through the shore services
+        startup.add("RouteManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.routeManager = RouteManager.loadRouteManager();
+            }
+        }, "ShoreServices");
+        startup.add("FALManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.falManager = FALManager.loadFALManager();
+            }
+        });
+        startup.add("VoyageManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.voyageManager = VoyageManager.loadVoyageManager();
+            }
+        });
+        startup.add("SRUManager", new Runnable() {
+            @Override
+            public void run() {
+                epd.sruManager = SRUManager.loadSRUManager();
+            }
+        });
+        startup.add("RouteSuggestionHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.routeSuggestionHandler = RouteSuggestionHandler.loadRouteSuggestionHandler();
+            }
+        });
+        startup.add("MaritimeCloudService", new Runnable() {
+            @Override
+            public void run() {
+                epd.maritimeCloudService = new MaritimeCloudService();
+            }
+        });
+        startup.add("IntendedRouteHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.intendedRouteHandler = new IntendedRouteHandler();
+            }
+        }, "MaritimeCloudService");
+        // Reads the stored messages and filters them by the routes of the route manager
+        startup.add("MsiNmHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.msiNmHandler = new MsiNmServiceHandlerCommon();
+            }
+        }, "RouteManager", "MaritimeCloudService");
+        // Reads the chat history
+        startup.add("ChatServiceHandler", new Runnable() {
+            @Override
+            public void run() {
+                epd.chatServiceHandler = new ChatServiceHandlerCommon();
+            }
+        }, "MaritimeCloudService");
+        // Unpacks the native serial port library if needed. The sensor feeds the AIS handler
+        startup.add("Sensors", new Runnable() {
+            @Override
+            public void run() {
+                epd.createSensors();
+            }
+        }, "AisHandler");
+    }
+
     /**
      * Returns the current {@code EPDShore} instance
      * 
@@ -615,6 +706,14 @@ public final class EPDShore extends EPD {
      */
     @Override
     protected void startSensors() {
+        createSensors();
+        connectSensors();
+    }
+
+    /**
+     * Creates the sensors defined in the {@linkplain SensorSettings} without starting them
+     */
+    private void createSensors() {
         EPDSensorSettings sensorSettings = getSettings().getSensorSettings();
         switch (sensorSettings.getAisConnectionType()) {
         case NONE:
@@ -633,7 +732,12 @@ public final class EPDShore extends EPD {
         default:
             LOG.error("Unknown sensor connection type: " + sensorSettings.getAisConnectionType());
         }
+    }
 
+    /**
+     * Starts the created sensors and hook up listeners
+     */
+    private void connectSensors() {
         if (aisSensor != null) {
             aisSensor.setVessel(false);
             aisSensor.addAisListener(aisHandler);
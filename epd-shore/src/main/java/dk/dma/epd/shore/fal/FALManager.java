@@ -14,13 +14,7 @@
  */
 package dk.dma.epd.shore.fal;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,10 +24,12 @@ import org.slf4j.LoggerFactory;
 import dk.dma.enav.model.fal.FALReport;
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.fal.FALManagerCommon;
+import dk.dma.epd.common.util.JournaledStore;
 
 public class FALManager extends FALManagerCommon {
 
-    private static final String FAL_REPORTS = EPD.getInstance().getHomePath().resolve(".fal").toString();
+    private static final JournaledStore FAL_REPORTS_STORE = new JournaledStore(EPD.getInstance().getHomePath().resolve(".fal.db"),
+            EPD.getInstance().getHomePath().resolve(".fal"));
 
     private static final Logger LOG = LoggerFactory.getLogger(FALManager.class);
 
@@ -53,16 +49,23 @@ public class FALManager extends FALManagerCommon {
         FALManager manager = new FALManager();
 
         // Load all stored fal reports
-        try (FileInputStream fileIn = new FileInputStream(FAL_REPORTS); ObjectInputStream objectIn = new ObjectInputStream(fileIn);) {
-            @SuppressWarnings("unchecked")
-            List<FALReport> falReports = (List<FALReport>) objectIn.readObject();
+        try {
+            List<Object> records = FAL_REPORTS_STORE.load();
+            List<FALReport> falReports = new ArrayList<FALReport>();
+            if (FAL_REPORTS_STORE.isLegacy()) {
+                @SuppressWarnings("unchecked")
+                List<FALReport> legacyReports = (List<FALReport>) records.get(0);
+                falReports.addAll(legacyReports);
+            } else {
+                for (Object record : records) {
+                    falReports.add((FALReport) record);
+                }
+            }
             manager.setFalReports(falReports);
-        } catch (FileNotFoundException e) {
-            // Not an error
         } catch (Exception e) {
             LOG.error("Failed to load stored fal reports: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(FAL_REPORTS).delete();
+            FAL_REPORTS_STORE.delete();
         }
 
         return manager;
@@ -71,9 +74,8 @@ public class FALManager extends FALManagerCommon {
     @Override
     public synchronized void saveToFile() {
 
-        try (FileOutputStream fileOut = new FileOutputStream(FAL_REPORTS);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-            objectOut.writeObject(falReports);
+        try {
+            FAL_REPORTS_STORE.save(falReports);
         } catch (IOException e) {
             LOG.error("Failed to save FAL reports: " + e.getMessage());
         }
@@ -166,6 +166,7 @@ public class RouteSuggestionNotificationPanel extends NotificationPanel<RouteSug
             RouteSuggestionData routeSuggestion = notification.get();
             // NB: routeSuggestionHandler.setRouteSuggestionAcknowledged() will automatically trigger a table refresh
             routeSuggestionHandler.setRouteSuggestionAcknowledged(routeSuggestion.getId());
+            rescheduleAlerts(notification);
             selectFirstUnacknowledgedRow();
             notifyListeners();
         }
@@ -182,6 +183,7 @@ public class RouteSuggestionNotificationPanel extends NotificationPanel<RouteSug
             RouteSuggestionData routeSuggestion = notification.get();
             // NB: routeSuggestionHandler.removeSuggestion() will automatically trigger a table refresh
             routeSuggestionHandler.removeSuggestion(routeSuggestion.getId());
+            removeAlerts(notification);
             setSelectedRow(row - 1);
             notifyListeners();
         }
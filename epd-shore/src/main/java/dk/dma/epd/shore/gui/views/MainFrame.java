@@ -30,6 +30,7 @@ import javax.swing.Action;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
 
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.gui.MainFrameCommon;
@@ -63,6 +64,7 @@ public class MainFrame extends MainFrameCommon {
 
     private BeanContextServicesSupport beanHandler;
     private List<JMapFrame> mapWindows;
+    private transient SwingWorker<Void, Void> workspaceRestore;
     private JMainDesktopPane desktop;
 
     private JScrollPane scrollPane;
@@ -319,6 +321,12 @@ public class MainFrame extends MainFrameCommon {
      */
     public void setWorkSpace(Workspace workspace) {
 
+        // Drop the windows of a workspace that is still being restored
+        if (workspaceRestore != null) {
+            workspaceRestore.cancel(true);
+            workspaceRestore = null;
+        }
+
         getDesktop().getManager().clearToFront();
 
         while (mapWindows.size() != 0) {
@@ -334,27 +342,25 @@ public class MainFrame extends MainFrameCommon {
         mapWindows = new ArrayList<JMapFrame>();
 
         if (workspace.isValidWorkspace()) {
-            for (int i = 0; i < workspace.getName().size(); i++) {
-                addMapWindow(true, workspace.isLocked().get(i), workspace.getAlwaysInFront().get(i), workspace.getCenter().get(i),
-                        workspace.getScale().get(i),
-
-                        workspace.getName().get(i), workspace.getSize().get(i), workspace.getPosition().get(i), workspace
-                                .isMaximized().get(i)
-
-                );
-            }
-
-            // Restore the layer toggling panel settings
-            for (int x = 0; x < workspace.getLayerPanelPosition().size(); x++) {
-                if (x < mapWindows.size()) {
-                    mapWindows.get(x).getLayerTogglingPanel().setLocation(workspace.getLayerPanelPosition().get(x));
-                }
-            }
-            for (int x = 0; x < workspace.getLayerPanelVisible().size(); x++) {
-                if (x < mapWindows.size()) {
-                    mapWindows.get(x).getLayerTogglingPanel().setVisible(workspace.getLayerPanelVisible().get(x));
+            final Workspace restoredWorkspace = workspace;
+            workspaceRestore = ThreadedMapCreator.restoreWorkspace(this, workspace, new Runnable() {
+                @Override
+                public void run() {
+                    // Restore the layer toggling panel settings
+                    for (int x = 0; x < restoredWorkspace.getLayerPanelPosition().size(); x++) {
+                        if (x < mapWindows.size()) {
+                            mapWindows.get(x).getLayerTogglingPanel()
+                                    .setLocation(restoredWorkspace.getLayerPanelPosition().get(x));
+                        }
+                    }
+                    for (int x = 0; x < restoredWorkspace.getLayerPanelVisible().size(); x++) {
+                        if (x < mapWindows.size()) {
+                            mapWindows.get(x).getLayerTogglingPanel()
+                                    .setVisible(restoredWorkspace.getLayerPanelVisible().get(x));
+                        }
+                    }
                 }
-            }
+            });
         }
         statusArea.setLocation(workspace.getStatusPosition());
         statusArea.setVisible(workspace.isStatusVisible());
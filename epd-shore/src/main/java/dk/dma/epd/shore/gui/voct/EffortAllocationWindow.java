@@ -23,6 +23,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -36,6 +38,7 @@ import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
@@ -46,8 +49,12 @@ import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import dk.dma.epd.common.prototype.gui.voct.EffortAllocationWindowCommon;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
+import dk.dma.epd.common.prototype.model.voct.EffortAllocationOptimizer;
 import dk.dma.epd.common.prototype.model.voct.SweepWidthValues;
 import dk.dma.epd.common.prototype.model.voct.WeatherCorrectionFactors;
 import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
@@ -63,6 +70,10 @@ import dk.dma.epd.shore.voct.VOCTManager;
 public class EffortAllocationWindow extends EffortAllocationWindowCommon implements ListSelectionListener, MouseListener,
         TableModelListener, SRUUpdateListener {
     private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(EffortAllocationWindow.class);
+
+    /** Time budget of the effort allocation optimization */
+    private static final long OPTIMIZE_TIME = TimeUnit.SECONDS.toMillis(5);
 
     private final JPanel initPanel = new JPanel();
     private JTextField windspeedField;
@@ -73,6 +84,7 @@ public class EffortAllocationWindow extends EffortAllocationWindowCommon impleme
     // JComboBox<Integer> visibilityDropDown;
 
     private JCheckBox editPoD;
+    private JCheckBox optimizeAreas;
     private JButton calculate;
     private VOCTManager voctManager;
     private SRUManager sruManager;
@@ -381,6 +393,10 @@ public class EffortAllocationWindow extends EffortAllocationWindowCommon impleme
         buttonPane.setLayout(new FlowLayout(FlowLayout.RIGHT));
         getContentPane().add(buttonPane, BorderLayout.SOUTH);
         {
+            optimizeAreas = new JCheckBox("Optimize areas");
+            optimizeAreas.setToolTipText("Place the effective search areas to maximize the probability of success");
+            buttonPane.add(optimizeAreas);
+
             calculate = new JButton("Calculate Effective Area");
             buttonPane.add(calculate);
             getRootPane().setDefaultButton(calculate);
@@ -405,11 +421,47 @@ public class EffortAllocationWindow extends EffortAllocationWindowCommon impleme
                 // Ready to go
                 voctManager.EffortAllocationDataEntered();
                 this.setVisible(false);
+
+                if (optimizeAreas.isSelected()) {
+                    optimizeEffortAllocation();
+                }
             }
         }
 
     }
 
+    /**
+     * Optimizes the effective search areas that were just calculated. The search runs in the background and the best plan
+     * is applied in the Swing event thread once the time budget has expired.
+     */
+    private void optimizeEffortAllocation() {
+        final EffortAllocationOptimizer optimizer = voctManager.startEffortAllocationOptimization(Runtime.getRuntime()
+                .availableProcessors(), OPTIMIZE_TIME);
+        if (optimizer == null) {
+            JOptionPane.showMessageDialog(this, "The effort allocation could not be optimized", "Optimize areas",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                optimizer.awaitCompletion();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    voctManager.applyEffortAllocationPlan(optimizer);
+                } catch (InterruptedException | ExecutionException e) {
+                    LOG.error("Failed optimizing the effort allocation", e);
+                }
+            }
+        }.execute();
+    }
+
     private boolean checkValues() {
 
         SARData sarData = voctManager.getSarData();
@@ -74,6 +74,37 @@ public class VoyageGraphic extends OMGraphicList {
         initGraphics();
     }
 
+    /**
+     * Returns the voyage displayed by this graphic
+     * 
+     * @return the voyage
+     */
+    public Voyage getVoyage() {
+        return voyage;
+    }
+
+    /**
+     * Returns the index of the voyage in the voyage manager
+     * 
+     * @return the index of the voyage
+     */
+    public int getVoyageIndex() {
+        return voyageIndex;
+    }
+
+    /**
+     * Updates the index of the voyage in the voyage manager, e.g. after a preceding voyage has been removed
+     * 
+     * @param voyageIndex
+     *            the index of the voyage
+     */
+    public void setVoyageIndex(int voyageIndex) {
+        this.voyageIndex = voyageIndex;
+        for (VoyageLegGraphic routeLeg : routeLegs) {
+            routeLeg.setVoyageIndex(voyageIndex);
+        }
+    }
+
     public void initGraphics() {
         routeWaypoints = voyage.getRoute().getWaypoints();
         for (RouteWaypoint routeWaypoint : routeWaypoints) {
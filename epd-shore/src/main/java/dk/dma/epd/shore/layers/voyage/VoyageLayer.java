@@ -21,6 +21,7 @@ import java.awt.geom.Point2D;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,7 +37,6 @@ import dk.dma.epd.common.prototype.ais.IAisTargetListener;
 import dk.dma.epd.common.prototype.ais.VesselTarget;
 import dk.dma.epd.common.prototype.gui.util.InfoPanel;
 import dk.dma.epd.common.prototype.layers.EPDLayerCommon;
-import dk.dma.epd.common.prototype.model.route.StrategicRouteNegotiationData;
 import dk.dma.epd.common.prototype.service.StrategicRouteHandlerCommon.StrategicRouteListener;
 import dk.dma.epd.shore.EPDShore;
 import dk.dma.epd.shore.ais.AisHandler;
@@ -55,6 +55,7 @@ public class VoyageLayer extends EPDLayerCommon implements VoyageUpdateListener,
         ProjectionListener {
 
     private static final long serialVersionUID = 1L;
+    private static final Color VOYAGE_COLOR = new Color(0.4f, 0.8f, 0.5f, 0.5f);
 
     private VoyageManager voyageManager;
     private StrategicRouteHandler strategicRouteHandler;
@@ -64,6 +65,9 @@ public class VoyageLayer extends EPDLayerCommon implements VoyageUpdateListener,
     private VoyageInfoPanel voyageInfoPanel = new VoyageInfoPanel();
     private Map<Long, ShipIndicatorPanel> shipIndicatorPanels = new HashMap<>();
 
+    /** The graphics of the visible voyages by voyage id */
+    private Map<Long, VoyageGraphic> voyageGraphics = new HashMap<>();
+
     private boolean windowHandling;
 
     /**
@@ -173,25 +177,63 @@ public class VoyageLayer extends EPDLayerCommon implements VoyageUpdateListener,
      *            the voyage update event
      */
     @Override
-    public void voyagesChanged(VoyageUpdateEvent e) {
+    public synchronized void voyagesChanged(VoyageUpdateEvent e) {
+
+        // The events do not tell which voyage has changed. Events that may change
+        // a voyage in place force all graphics to be rebuilt. Otherwise, the cached
+        // graphics are matched against the voyages by id and only the differences applied.
+        if (e != null && e.is(VoyageUpdateEvent.VOYAGE_CHANGED, VoyageUpdateEvent.VOYAGE_WAYPOINT_DELETED,
+                VoyageUpdateEvent.VOYAGE_WAYPOINT_APPENDED, VoyageUpdateEvent.VOYAGE_WAYPOINT_MOVED)) {
+            graphics.clear();
+            voyageGraphics.clear();
+        }
 
-        graphics.clear();
+        boolean changed = false;
+        Set<Long> visibleIds = new HashSet<>();
+        List<Voyage> voyages = voyageManager.getVoyages();
+        synchronized (voyages) {
+            for (int i = 0; i < voyages.size(); i++) {
+                Voyage voyage = voyages.get(i);
+                if (!voyage.getRoute().isVisible()) {
+                    continue;
+                }
+                visibleIds.add(voyage.getId());
 
-        for (int i = 0; i < voyageManager.getVoyages().size(); i++) {
-            // Route route = voyageManager.getVoyages().get(i).getRoute();
-            Voyage voyage = voyageManager.getVoyages().get(i);
-            // System.out.println(route);
-            if (voyage.getRoute().isVisible()) {
-//                System.out.println("Adding Voyage");
-                VoyageGraphic voyageGraphic = new VoyageGraphic(voyage, i, new Color(0.4f, 0.8f, 0.5f, 0.5f));
+                VoyageGraphic voyageGraphic = voyageGraphics.get(voyage.getId());
+                if (voyageGraphic != null && voyageGraphic.getVoyage() == voyage) {
+                    // Unchanged voyage. Its index shifts when preceding voyages are removed
+                    if (voyageGraphic.getVoyageIndex() != i) {
+                        voyageGraphic.setVoyageIndex(i);
+                    }
+                    continue;
+                }
+
+                if (voyageGraphic != null) {
+                    graphics.remove(voyageGraphic);
+                }
+                voyageGraphic = new VoyageGraphic(voyage, i, VOYAGE_COLOR);
+                if (getProjection() != null) {
+                    voyageGraphic.project(getProjection());
+                }
+                voyageGraphics.put(voyage.getId(), voyageGraphic);
                 graphics.add(voyageGraphic);
+                changed = true;
             }
-
         }
 
-        graphics.project(getProjection(), true);
+        // Remove the graphics of removed or hidden voyages
+        for (Iterator<Map.Entry<Long, VoyageGraphic>> it = voyageGraphics.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Long, VoyageGraphic> entry = it.next();
+            if (!visibleIds.contains(entry.getKey())) {
+                graphics.remove(entry.getValue());
+                it.remove();
+                changed = true;
+            }
+        }
 
-        doPrepare();
+        if (changed || e == null) {
+            doPrepare();
+        }
     }
 
     /**
@@ -273,14 +315,9 @@ public class VoyageLayer extends EPDLayerCommon implements VoyageUpdateListener,
     @Override
     public void targetUpdated(AisTarget aisTarget) {
 
-        if (strategicRouteHandler != null && strategicRouteHandler.getStrategicNegotiationData() != null) {
-            for (StrategicRouteNegotiationData data : strategicRouteHandler.getStrategicNegotiationData().values()) {
-                if (data.getMmsi() == aisTarget.getMmsi()) {
-                    // only run update if this vessel has negotiation data
-                    this.updateDialogLocations();
-                    break;
-                }
-            }
+        // only run update if this vessel has an unhandled transaction
+        if (strategicRouteHandler != null && strategicRouteHandler.hasUnhandledTransaction(aisTarget.getMmsi())) {
+            this.updateDialogLocations();
         }
     }
 
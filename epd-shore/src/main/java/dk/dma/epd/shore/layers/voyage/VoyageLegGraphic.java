@@ -110,6 +110,14 @@ public class VoyageLegGraphic extends OMGraphicList {
         return voyageIndex;
     }
 
+    /**
+     * @param voyageIndex
+     *            the voyageIndex to set
+     */
+    public void setVoyageIndex(int voyageIndex) {
+        this.voyageIndex = voyageIndex;
+    }
+
     public RouteLeg getRouteLeg() {
         return routeLeg;
     }
@@ -17,8 +17,6 @@ package dk.dma.epd.shore.nogo;
 import java.util.Date;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import net.jcip.annotations.ThreadSafe;
 
 import org.joda.time.DateTime;
@@ -28,7 +26,6 @@ import org.slf4j.LoggerFactory;
 import dk.dma.epd.common.prototype.layers.nogo.NogoLayer;
 import dk.dma.epd.common.prototype.nogo.NogoHandlerCommon;
 import dk.dma.epd.common.prototype.shoreservice.ShoreServicesCommon;
-import dk.dma.epd.shore.EPDShore;
 import dk.dma.epd.shore.gui.views.JMapFrame;
 import dk.dma.epd.shore.gui.views.NoGoPanel;
 import dk.frv.enav.common.xml.nogo.types.NogoPolygon;
@@ -46,39 +43,37 @@ public class NogoHandler extends NogoHandlerCommon {
     @Override
     public synchronized void updateNogo(boolean useSlices, int minutesBetween) {
 
+        // A request in progress is cancelled by the new one
         if (requestInProgress) {
-            JOptionPane.showMessageDialog(EPDShore.getInstance().getMainFrame(),
-                    "Please wait for the previous NoGo request to be completed before initiating a new",
-                    "Unable to comply with NoGo request", JOptionPane.WARNING_MESSAGE);
-        } else {
-
-            LOG.info("New NoGo Requested Initiated");
-            requestInProgress = true;
-            // If the dock isn't visible should it show it?
+            LOG.info("Cancelling the NoGo request in progress");
+        }
 
-            this.useSlices = useSlices;
+        LOG.info("New NoGo Requested Initiated");
+        requestInProgress = true;
+        // If the dock isn't visible should it show it?
 
-            resetLayer();
+        this.useSlices = useSlices;
 
-            // Setup the panel
-            if (this.useSlices) {
-                nogoPanel.activateSliderPanel();
-                nogoPanel.newRequestMultiple();
-            } else {
-                nogoPanel.activateSingle();
-                nogoPanel.newRequestSingle();
+        resetLayer();
 
-            }
+        // Setup the panel
+        if (this.useSlices) {
+            nogoPanel.activateSliderPanel();
+            nogoPanel.newRequestMultiple();
+        } else {
+            nogoPanel.activateSingle();
+            nogoPanel.newRequestSingle();
 
-            super.updateNogo(useSlices, minutesBetween);
+        }
 
-            // Calculate slices
-            if (this.useSlices) {
-                nogoPanel.initializeSlider(nogoData.size());
+        super.updateNogo(useSlices, minutesBetween);
 
-            }
+        // Calculate slices
+        if (this.useSlices) {
+            nogoPanel.initializeSlider(nogoData.size());
 
         }
+
     }
 
     /**
@@ -14,20 +14,18 @@
  */
 package dk.dma.epd.shore.route;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
 import dk.dma.epd.common.prototype.route.RouteManagerCommon;
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.shore.EPDShore;
 
 /**
@@ -36,7 +34,8 @@ import dk.dma.epd.shore.EPDShore;
 public class RouteManager extends RouteManagerCommon {
 
     private static final long serialVersionUID = -8815260482774695988L;
-    private static final String ROUTESFILE = EPD.getInstance().getHomePath().resolve(".routes").toString();
+    private static final JournaledStore ROUTES_STORE = new JournaledStore(EPD.getInstance().getHomePath().resolve(".routes.db"),
+            EPD.getInstance().getHomePath().resolve(".routes"));
     private static final Logger LOG = LoggerFactory.getLogger(RouteManager.class);
 
     /**
@@ -58,19 +57,21 @@ public class RouteManager extends RouteManagerCommon {
     public static RouteManager loadRouteManager() {
         RouteManager manager = new RouteManager();
         try {
-            FileInputStream fileIn = new FileInputStream(ROUTESFILE);
-            ObjectInputStream objectIn = new ObjectInputStream(fileIn);
-            RouteStore routeStore = (RouteStore) objectIn.readObject();
-            objectIn.close();
-            fileIn.close();
-            manager.setRoutes(routeStore.getRoutes());
+            List<Object> records = ROUTES_STORE.load();
+            if (ROUTES_STORE.isLegacy()) {
+                manager.setRoutes(((RouteStore) records.get(0)).getRoutes());
+            } else {
+                List<Route> routes = new LinkedList<>();
+                for (Object record : records) {
+                    routes.add((Route) record);
+                }
+                manager.setRoutes(routes);
+            }
 
-        } catch (FileNotFoundException e) {
-            // Not an error
         } catch (Exception e) {
             LOG.error("Failed to load routes file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(ROUTESFILE).delete();
+            ROUTES_STORE.delete();
         }
 
         return manager;
@@ -82,13 +83,8 @@ public class RouteManager extends RouteManagerCommon {
     @Override
     public void saveToFile() {
         synchronized (routes) {
-            RouteStore routeStore = new RouteStore(this);
             try {
-                FileOutputStream fileOut = new FileOutputStream(ROUTESFILE);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);
-                objectOut.writeObject(routeStore);
-                objectOut.close();
-                fileOut.close();
+                ROUTES_STORE.save(routes);
             } catch (IOException e) {
                 LOG.error("Failed to save routes file: " + e.getMessage());
             }
@@ -14,14 +14,9 @@
  */
 package dk.dma.epd.shore.service;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -203,26 +198,12 @@ public class RouteSuggestionHandler extends RouteSuggestionHandlerCommon {
         return irm;
     }
 
-    @SuppressWarnings("unchecked")
     public static RouteSuggestionHandler loadRouteSuggestionHandler() {
 
         // Where we load or serialize old VOCTS
         RouteSuggestionHandler routeSuggestionHandler = new RouteSuggestionHandler();
-        try (FileInputStream fileIn = new FileInputStream(ROUTE_SUGGESTION_PATH);
-                ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
-
-            // routeSuggestions =);
-            routeSuggestionHandler.setRouteSuggestions((Map<Long, RouteSuggestionData>) objectIn.readObject());
+        if (routeSuggestionHandler.loadFromFile()) {
             routeSuggestionHandler.notifyRouteSuggestionListeners();
-            // voctManager.setLoadSarFromSerialize(true);
-            // voctManager.initializeFromSerializedFile(sarDataLoaded);
-            //
-        } catch (FileNotFoundException e) {
-            // Not an error
-        } catch (Exception e) {
-            LOG.error("Failed to load route suggestion file: " + e.getMessage());
-            // Delete possible corrupted or old file
-            new File(ROUTE_SUGGESTION_PATH).delete();
         }
 
         return routeSuggestionHandler;
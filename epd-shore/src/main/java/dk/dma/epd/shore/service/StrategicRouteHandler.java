@@ -26,8 +26,10 @@ import net.maritimecloud.core.id.MaritimeId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -40,6 +42,9 @@ public class StrategicRouteHandler extends StrategicRouteHandlerCommon {
     
     private VoyageManager voyageManager;
 
+    /** MMSI of the ships with unhandled transactions. Replaced whenever the transactions change */
+    private volatile Set<Long> unhandledMmsis = Collections.emptySet();
+
     /**
      * Constructor
      */
@@ -166,6 +171,27 @@ public class StrategicRouteHandler extends StrategicRouteHandlerCommon {
         notifyStrategicRouteListeners();
     }
 
+    /**
+     * Re-builds the index of ships with unhandled transactions before notifying the listeners
+     */
+    @Override
+    protected synchronized void notifyStrategicRouteListeners() {
+        unhandledMmsis = Collections.unmodifiableSet(strategicRouteNegotiationData.values().stream()
+                .filter(value -> !value.isHandled())
+                .map(StrategicRouteNegotiationData::getMmsi)
+                .collect(Collectors.toSet()));
+        super.notifyStrategicRouteListeners();
+    }
+
+    /**
+     * Returns if the ship with the given MMSI has an unhandled transaction
+     * @param mmsi the MMSI of the ship
+     * @return if the ship has an unhandled transaction
+     */
+    public boolean hasUnhandledTransaction(long mmsi) {
+        return unhandledMmsis.contains(mmsi);
+    }
+
     /**
      * Returns the current list of unhandled transactions
      * @return the current list of unhandled transactions
@@ -27,9 +27,9 @@ import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointData;
 import dk.dma.epd.common.prototype.model.voct.sardata.DatumPointDataSARIS;
 import dk.dma.epd.common.prototype.model.voct.sardata.RapidResponseData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
+import dk.dma.epd.common.prototype.service.MaritimeCloudUtils;
 import dk.dma.epd.common.prototype.service.VoctHandlerCommon;
 import dk.dma.epd.common.prototype.voct.VOCTManagerCommon.VoctMsgStatus;
-import dk.dma.epd.common.util.Util;
 import dk.dma.epd.shore.voct.SRUManager;
 import dk.dma.epd.shore.voct.VOCTManager;
 import net.maritimecloud.net.mms.MmsClient;
@@ -37,7 +37,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -53,15 +55,19 @@ import java.util.concurrent.TimeoutException;
  * </ul>
  */
 @SuppressWarnings("unused")
-public class VoctHandler extends VoctHandlerCommon implements Runnable {
+public class VoctHandler extends VoctHandlerCommon {
 
     private boolean listenToSAR;
     /**
      * Network list for various SAR data objects
      */
 
-    private List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> voctMessageList = new ArrayList<>();
-    private boolean running;
+    private volatile List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> voctMessageList = new ArrayList<>();
+
+    /**
+     * The VOCT service endpoints keyed by MMSI
+     */
+    private volatile Map<Long, TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> voctEndpoints = new HashMap<>();
     private static final Logger LOG = LoggerFactory.getLogger(VoctHandlerCommon.class);
     // private IntendedRouteLayerCommon intendedRouteLayerCommon;
 
@@ -129,26 +135,65 @@ public class VoctHandler extends VoctHandlerCommon implements Runnable {
 //            e.printStackTrace();
 ////            System.out.println("Failed to register services?");
 //        }
-//
-//        // Start broadcasting our own active route
-//        running = true;
-//        new Thread(this).start();
-//        // }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cloudDisconnected() {
+        // No SRU can be reached until the next refresh
+        setVoctMessageList(new ArrayList<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>>());
+    }
+
+    /**
+     * Refreshes the list of VOCT service endpoints. Called periodically while connected to the cloud
+     */
     private void fetchVOCTMessageList() {
-// TODO: Maritime Cloud 0.2 re-factoring
-//        // System.out.println("Checking for VOCT message list");
-//        try {
-//
-//            voctMessageList = getMmsClient().serviceLocate(VOCTCommunicationService.INIT).nearest(Integer.MAX_VALUE)
-//                    .get();
-//
-//            sruManager.updateSRUsStatus();
-//        } catch (Exception e) {
-//            LOG.error(e.getMessage());
-//
-//        }
+        try {
+            setVoctMessageList(locateVoctEndpoints());
+        } catch (Exception e) {
+            LOG.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up the ships offering the VOCT service.
+     * <p>
+     * The VOCT service has not been migrated to maritime cloud 0.2 yet, so no ship can be located and the SRUs keep
+     * their status until then. Likewise, SRU replies are not received until the service is registered again in
+     * {@linkplain #cloudConnected(MmsClient)}.
+     * 
+     * @return the VOCT service endpoints
+     */
+    private List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> locateVoctEndpoints()
+            throws InterruptedException, ExecutionException {
+        // TODO: Maritime Cloud 0.2 re-factoring
+        // return getMmsClient().serviceLocate(VOCTCommunicationService.INIT).nearest(Integer.MAX_VALUE).get();
+        return new ArrayList<>();
+    }
+
+    /**
+     * Updates the list of VOCT service endpoints and lets the SRU manager update the status of the SRUs that became
+     * reachable or unreachable
+     * 
+     * @param voctMessageList
+     *            the VOCT service endpoints
+     */
+    void setVoctMessageList(List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> voctMessageList) {
+        Map<Long, TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> endpoints = new HashMap<>();
+        for (TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply> endpoint : voctMessageList) {
+            Long mmsi = MaritimeCloudUtils.toMmsi(endpoint.getId());
+            if (mmsi != null) {
+                endpoints.put(mmsi, endpoint);
+            }
+        }
+        this.voctMessageList = voctMessageList;
+        this.voctEndpoints = endpoints;
+
+        if (sruManager != null) {
+            sruManager.voctEndpointsChanged(endpoints.keySet());
+        }
     }
 
     public List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> getVoctMessageList() {
@@ -159,19 +204,10 @@ public class VoctHandler extends VoctHandlerCommon implements Runnable {
             throws InterruptedException, ExecutionException, TimeoutException {
 
         // System.out.println("Send to : " + mmsi);
-        String mmsiStr = "mmsi://" + mmsi;
 
         // if (sarData instanceof RapidResponseData) {
-        TODO.ServiceEndpoint<VOCTCommunicationService.VOCTCommunicationMessage, VOCTCommunicationService.VOCTCommunicationReply> end = null;
-
-        for (int i = 0; i < voctMessageList.size(); i++) {
-            if (voctMessageList.get(i).getId().toString().equals(mmsiStr)) {
-                end = voctMessageList.get(i);
-
-                break;
-            }
-        }
-        // end = voctMessageList.get(voctMessageList.size() - 1);
+        TODO.ServiceEndpoint<VOCTCommunicationService.VOCTCommunicationMessage, VOCTCommunicationService.VOCTCommunicationReply> end = voctEndpoints
+                .get(mmsi);
 
         VOCTCommunicationMessage voctMessage = null;
 
@@ -229,29 +265,6 @@ public class VoctHandler extends VoctHandlerCommon implements Runnable {
 
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void cloudDisconnected() {
-        running = false;
-    }
-
-    /**
-     * Main thread run method. Broadcasts the intended route
-     */
-    public void run() {
-
-        // Initialize first send
-        // lastSend = new DateTime();
-        // broadcastIntendedRoute();
-
-        while (running) {
-            Util.sleep(1000L);
-        }
-
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -20,11 +20,26 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.beans.PropertyVetoException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bbn.openmap.proj.coords.LatLonPoint;
 
 import dk.dma.epd.common.graphics.GraphicsUtil;
 import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.layers.background.TiledShapeLayer;
 import dk.dma.epd.common.prototype.model.route.Route;
 import dk.dma.epd.common.prototype.settings.MapSettings;
 import dk.dma.epd.shore.EPDShore;
@@ -32,10 +47,16 @@ import dk.dma.epd.shore.gui.views.JMapFrame;
 import dk.dma.epd.shore.gui.views.MainFrame;
 import dk.dma.epd.shore.gui.views.MapFrameType;
 import dk.dma.epd.shore.gui.views.SARFrame;
+import dk.dma.epd.shore.settings.Workspace;
 import dk.dma.epd.shore.voyage.Voyage;
 
 public class ThreadedMapCreator implements Runnable {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ThreadedMapCreator.class);
+
+    /** Maximum number of threads used to prepare the windows of a workspace */
+    private static final int MAX_RESTORE_THREADS = 4;
+
     private boolean workspace;
     private boolean locked;
     private boolean alwaysInFront;
@@ -289,6 +310,100 @@ public class ThreadedMapCreator implements Runnable {
         setupSharedLayers(mapFrame);
     }
 
+    /**
+     * Restores the map windows of a workspace.
+     * <p>
+     * The data shown by the windows is loaded concurrently first in a background worker, i.e. the background shapefile
+     * tiles covering each window and the WMS host lookup. Only the assembly of the frames then takes place in the Swing
+     * thread, where the layers find the data ready. The Swing thread is not blocked while the data is loaded, and the time
+     * of each phase is logged.
+     * 
+     * @param mainFrame
+     *            the main frame
+     * @param workspace
+     *            the workspace to restore
+     * @param restored
+     *            called in the Swing thread once the frames have been assembled
+     * @return the worker, which may be cancelled before the frames are assembled
+     */
+    public static SwingWorker<Void, Void> restoreWorkspace(final MainFrame mainFrame, final Workspace workspace,
+            final Runnable restored) {
+        final int count = workspace.getName().size();
+        final long start = System.currentTimeMillis();
+
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final Properties props = EPD.getInstance().getProperties();
+        for (int i = 0; i < count; i++) {
+            final LatLonPoint center = workspace.getCenter().get(i);
+            final float scale = workspace.getScale().get(i);
+            final Dimension size = workspace.getSize().get(i);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    warmUpBackground(props, center, scale, size);
+                    return null;
+                }
+            });
+        }
+        final MapSettings mapSettings = EPD.getInstance().getSettings().getMapSettings();
+        if (mapSettings.isUseWms() && mapSettings.getWmsQuery() != null) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    // Resolve the WMS host so the first tile requests of the windows do not wait for it
+                    InetAddress.getAllByName(new URL(mapSettings.getWmsQuery()).getHost());
+                    return null;
+                }
+            });
+        }
+
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                int threads = Math.max(1, Math.min(MAX_RESTORE_THREADS, tasks.size()));
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    executor.invokeAll(tasks);
+                } finally {
+                    executor.shutdownNow();
+                }
+                LOG.info("Loaded the data of " + count + " map windows in " + (System.currentTimeMillis() - start) + " ms");
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    LOG.info("Restoring the workspace was cancelled");
+                    return;
+                }
+                long assembleStart = System.currentTimeMillis();
+                for (int i = 0; i < count; i++) {
+                    mainFrame.addMapWindow(true, workspace.isLocked().get(i), workspace.getAlwaysInFront().get(i),
+                            workspace.getCenter().get(i), workspace.getScale().get(i), workspace.getName().get(i),
+                            workspace.getSize().get(i), workspace.getPosition().get(i), workspace.isMaximized().get(i));
+                }
+                if (restored != null) {
+                    restored.run();
+                }
+                LOG.info("Assembled " + count + " map windows in " + (System.currentTimeMillis() - assembleStart) + " ms");
+            }
+        };
+        worker.execute();
+        return worker;
+    }
+
+    /**
+     * Reads the background tiles covering a window of the given size, center and scale
+     */
+    private static void warmUpBackground(Properties props, LatLonPoint center, float scale, Dimension size) {
+        try {
+            TiledShapeLayer.warmUp("background", props, center, scale, size);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to load the background of a map window", e);
+        }
+    }
+
     private void setupSharedLayers(final JMapFrame window) {
         // Perform the update in the main swing thread
         if (!SwingUtilities.isEventDispatchThread()) {
@@ -14,14 +14,10 @@
  */
 package dk.dma.epd.shore.voct;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -38,20 +34,24 @@ import com.bbn.openmap.MapHandlerChild;
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.enavcloud.VOCTCommunicationService.VOCTCommunicationReply;
 import dk.dma.epd.common.prototype.model.route.IntendedRoute;
+import dk.dma.epd.common.prototype.model.voct.SearchUnit;
+import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
+import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
 import dk.dma.epd.common.prototype.service.EnavServiceHandlerCommon.CloudMessageStatus;
 import dk.dma.epd.common.prototype.service.IIntendedRouteListener;
+import dk.dma.epd.common.prototype.voct.SruStatusIndex;
 import dk.dma.epd.common.prototype.voct.VOCTManagerCommon.VoctMsgStatus;
-import dk.dma.epd.shore.EPDShore;
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.shore.layers.voct.VoctLayerTracking;
 import dk.dma.epd.shore.service.IntendedRouteHandler;
 import dk.dma.epd.shore.service.VoctHandler;
 import dk.dma.epd.shore.voct.SRU.sru_status;
 
-public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRouteListener {
+public class SRUManager extends MapHandlerChild implements IIntendedRouteListener {
 
     private VOCTManager voctManager;
-    private VoctHandler voctHandler;
-    private static final String SRU_FILE = EPD.getInstance().getHomePath().resolve(".srus").toString();
+    private static final JournaledStore SRU_STORE = new JournaledStore(EPD.getInstance().getHomePath().resolve(".srus.db"), EPD
+            .getInstance().getHomePath().resolve(".srus"));
     private static final Logger LOG = LoggerFactory.getLogger(SRUManager.class);
 
     // private List<SRU> srus = new LinkedList<SRU>();
@@ -59,11 +59,13 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
     private LinkedHashMap<Long, SRUCommunicationObject> sRUCommunication = new LinkedHashMap<Long, SRUCommunicationObject>();
     private VoctLayerTracking voctLayerTracking;
 
-    private CopyOnWriteArrayList<SRUUpdateListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Index of the effort allocations, search pattern routes and cloud reachability of the SRUs. Status changes are driven
+     * by the periodic refresh of the VOCT endpoints and route events and only recomputed for the SRUs they affect.
+     */
+    private final SruStatusIndex statusIndex = new SruStatusIndex();
 
-    public SRUManager() {
-        EPDShore.startThread(this, "sruManager");
-    }
+    private CopyOnWriteArrayList<SRUUpdateListener> listeners = new CopyOnWriteArrayList<>();
 
     public void setVoctTrackingLayer(VoctLayerTracking layer) {
         this.voctLayerTracking = layer;
@@ -79,9 +81,13 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
     }
 
     public synchronized void saveToFile() {
-        try (FileOutputStream fileOut = new FileOutputStream(SRU_FILE);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);) {
-            objectOut.writeObject(srus);
+        // Each SRU is stored as a separate record, so only the changed SRU's are written
+        List<Entry<Long, SRU>> records = new ArrayList<>(srus.size());
+        for (Entry<Long, SRU> entry : srus.entrySet()) {
+            records.add(new SimpleImmutableEntry<>(entry));
+        }
+        try {
+            SRU_STORE.save(records);
         } catch (IOException e) {
             LOG.error("Failed to save VOCT data: " + e.getMessage());
         }
@@ -95,49 +101,49 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
         listeners.remove(listener);
     }
 
-    @Override
-    public void run() {
-
-        // Maintanaince routines
-
-        // while (true) {
-        // EPDShore.sleep(1000);
-        // updateSRUsStatus();
-        // maintainAvailableSRUs();
-        // Maintain list of available SRUs
-        // }
-
-    }
-
-    public void updateSRUsStatus() {
-
-        for (int i = 0; i < voctHandler.getVoctMessageList().size(); i++) {
-
-            long mmsi = Long.parseLong(voctHandler.getVoctMessageList().get(i).getId().toString().split("//")[1]);
-
-            // System.out.println("Is mmsi " + mmsi + " a SRU?");
-
-            if (srus.containsKey(mmsi)) {
-                SRU sru = srus.get(mmsi);
-
-                // Change the status
-                if (sru.getStatus() != sru_status.ACCEPTED && sru.getStatus() != sru_status.AVAILABLE
-                        && sru.getStatus() != sru_status.INVITED) {
-                    // System.out.println("Updating status WHY");
-                    sru.setStatus(sru_status.AVAILABLE);
+    /**
+     * Called by the {@linkplain VoctHandler} each time the list of ships offering the VOCT service has been refreshed. Only
+     * the SRUs that became reachable or unreachable have their status updated.
+     * 
+     * @param mmsis
+     *            the MMSIs of the ships offering the VOCT service
+     */
+    public void voctEndpointsChanged(Collection<Long> mmsis) {
+        synchronized (srus) {
+            for (Long mmsi : statusIndex.updateReachable(mmsis)) {
+                if (updateSRUStatus(mmsi)) {
+                    notifyListeners(SRUUpdateEvent.SRU_STATUS_CHANGED, mmsi);
                 }
-
             }
-
         }
+    }
 
+    /**
+     * Recomputes the status of a single SRU from its cloud reachability
+     * 
+     * @param mmsi
+     *            the MMSI of the SRU
+     * @return if the status was changed
+     */
+    private boolean updateSRUStatus(long mmsi) {
+        SRU sru = srus.get(mmsi);
+        if (sru != null && statusIndex.isReachable(mmsi)) {
+
+            // Change the status
+            if (sru.getStatus() != sru_status.ACCEPTED && sru.getStatus() != sru_status.AVAILABLE
+                    && sru.getStatus() != sru_status.INVITED) {
+                sru.setStatus(sru_status.AVAILABLE);
+                return true;
+            }
+        }
+        return false;
     }
 
     public void setSRUStatus(long mmsi, sru_status status) {
 
         // What if we remove a SRU
         srus.get(mmsi).setStatus(status);
-        updateSRUsStatus();
+        updateSRUStatus(mmsi);
         notifyListeners(SRUUpdateEvent.SRU_STATUS_CHANGED, mmsi);
     }
 
@@ -146,7 +152,7 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
         if (srus.containsKey(mmsi)) {
             SRU sru = srus.get(mmsi);
             sru.setVoctMsgStatus(status);
-            updateSRUsStatus();
+            updateSRUStatus(mmsi);
             notifyListeners(SRUUpdateEvent.SRU_STATUS_CHANGED, mmsi);
         }
 
@@ -159,12 +165,19 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
 
             sru.setCloudStatus(status);
             sru.setVoctMsgStatus(VoctMsgStatus.UNKNOWN);
-            updateSRUsStatus();
+            updateSRUStatus(mmsi);
             notifyListeners(SRUUpdateEvent.SRU_STATUS_CHANGED, mmsi);
         }
 
     }
 
+    /**
+     * @return the index of the effort allocations, search pattern routes and cloud reachability of the SRUs
+     */
+    public SruStatusIndex getStatusIndex() {
+        return statusIndex;
+    }
+
     public int getAvailableSRUS() {
         return sRUCommunication.size();
     }
@@ -321,9 +334,6 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
             voctManager = (VOCTManager) obj;
         }
 
-        if (obj instanceof VoctHandler) {
-            voctHandler = (VoctHandler) obj;
-        }
         if (obj instanceof IntendedRouteHandler) {
             ((IntendedRouteHandler) obj).addListener(this);
         }
@@ -353,6 +363,7 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
     public void addSRU(SRU sru) {
         synchronized (srus) {
             srus.put(sru.getMmsi(), sru);
+            updateSRUStatus(sru.getMmsi());
             notifyListeners(SRUUpdateEvent.SRU_ADDED, srus.size());
             // saveToFile();
         }
@@ -395,24 +406,47 @@ public class SRUManager extends MapHandlerChild implements Runnable, IIntendedRo
         return getSRUs().get(mmsi);
     }
 
+    /**
+     * Returns the search capabilities of all SRUs that have effort allocation data in the given SAR operation
+     * 
+     * @param sarData
+     *            the SAR data
+     * @return the search units
+     */
+    public List<SearchUnit> getSearchUnits(SARData sarData) {
+        List<SearchUnit> units = new ArrayList<SearchUnit>();
+        synchronized (srus) {
+            for (SRU sru : srus.values()) {
+                EffortAllocationData data = sarData.getEffortAllocationData().get(sru.getMmsi());
+                if (data != null) {
+                    units.add(SearchUnit.fromEffortAllocation(data));
+                }
+            }
+        }
+        return units;
+    }
+
     @SuppressWarnings("unchecked")
     public static SRUManager loadSRUManager() {
         SRUManager manager = new SRUManager();
 
         try {
-            FileInputStream fileIn = new FileInputStream(SRU_FILE);
-            ObjectInputStream objectIn = new ObjectInputStream(fileIn);
-
-            manager.setSrus((Map<Long, SRU>) objectIn.readObject());
-            objectIn.close();
-            fileIn.close();
+            List<Object> records = SRU_STORE.load();
+            if (SRU_STORE.isLegacy()) {
+                manager.setSrus((Map<Long, SRU>) records.get(0));
+            } else if (!records.isEmpty()) {
+                Map<Long, SRU> srus = new HashMap<Long, SRU>();
+                for (Object record : records) {
+                    Entry<Long, SRU> entry = (Entry<Long, SRU>) record;
+                    srus.put(entry.getKey(), entry.getValue());
+                }
+                manager.setSrus(srus);
+            }
 
-        } catch (FileNotFoundException e) {
-            // Not an error
         } catch (Exception e) {
             LOG.error("Failed to load sru file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(SRU_FILE).delete();
+            SRU_STORE.delete();
         }
 
         return manager;
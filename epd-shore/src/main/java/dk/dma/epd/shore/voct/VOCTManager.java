@@ -14,13 +14,12 @@
  */
 package dk.dma.epd.shore.voct;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.swing.JDialog;
@@ -29,8 +28,12 @@ import dk.dma.enav.model.geometry.Position;
 import dk.dma.epd.common.prototype.EPD;
 import dk.dma.epd.common.prototype.model.route.IRoutesUpdateListener;
 import dk.dma.epd.common.prototype.model.route.RoutesUpdateEvent;
+import dk.dma.epd.common.prototype.model.voct.EffortAllocationOptimizer;
+import dk.dma.epd.common.prototype.model.voct.EffortAllocationPlan;
+import dk.dma.epd.common.prototype.model.voct.ProbabilityGrid;
 import dk.dma.epd.common.prototype.model.voct.SAR_TYPE;
 import dk.dma.epd.common.prototype.model.voct.SearchPatternGenerator;
+import dk.dma.epd.common.prototype.model.voct.SearchUnit;
 import dk.dma.epd.common.prototype.model.voct.sardata.EffortAllocationData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SARData;
 import dk.dma.epd.common.prototype.model.voct.sardata.SearchPatternRoute;
@@ -38,7 +41,6 @@ import dk.dma.epd.common.prototype.service.EnavServiceHandlerCommon.CloudMessage
 import dk.dma.epd.common.prototype.voct.VOCTManagerCommon;
 import dk.dma.epd.common.prototype.voct.VOCTUpdateEvent;
 import dk.dma.epd.common.prototype.voct.VOCTUpdateListener;
-import dk.dma.epd.common.util.Util;
 import dk.dma.epd.shore.EPDShore;
 import dk.dma.epd.shore.gui.views.JMenuWorkspaceBar;
 import dk.dma.epd.shore.gui.views.MapFrameType;
@@ -74,7 +76,6 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
     private long voctID = -1;
 
     public VOCTManager() {
-        EPDShore.startThread(this, "VOCTManager");
         LOG.info("Started VOCT Manager");
     }
 
@@ -154,17 +155,6 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
         }
     }
 
-    @Override
-    public void run() {
-
-        // Maintanaince routines
-        while (true) {
-            Util.sleep(10000);
-
-        }
-
-    }
-
     @Override
     protected void checkSRU(SARData sarData) {
         // Check SRU data
@@ -184,6 +174,12 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
 
         List<Long> effortAllocationsToBeRemoved = new ArrayList<>();
 
+        // Look up search pattern routes by name rather than scanning all routes for each effort allocation
+        Map<String, Integer> routeIndexes = new HashMap<>();
+        for (int i = routeManager.getRoutes().size() - 1; i >= 0; i--) {
+            routeIndexes.put(routeManager.getRoute(i).toString(), i);
+        }
+
         Iterator<Entry<Long, EffortAllocationData>> iter = sarData.getEffortAllocationData().entrySet().iterator();
         while (iter.hasNext()) {
             Entry<Long, EffortAllocationData> entry = iter.next();
@@ -194,11 +190,9 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
                 if (entry.getValue().getSearchPatternRoute() != null) {
 
                     SearchPatternRoute searchPattern = entry.getValue().getSearchPatternRoute();
-                    for (int i = 0; i < routeManager.getRoutes().size(); i++) {
-                        if (routeManager.getRoute(i).toString().equals(searchPattern.toString())) {
-                            routeManager.getRoutes().set(i, searchPattern);
-                            break;
-                        }
+                    Integer routeIndex = routeIndexes.get(searchPattern.toString());
+                    if (routeIndex != null) {
+                        routeManager.getRoutes().set(routeIndex, searchPattern);
                     }
                 }
             }
@@ -226,22 +220,15 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
 
         // Where we load or serialize old VOCTS
 
-        try (FileInputStream fileIn = new FileInputStream(VOCT_FILE); ObjectInputStream objectIn = new ObjectInputStream(fileIn);) {
-
-            SARData sarDataLoaded = (SARData) objectIn.readObject();
-            setLoadSarFromSerialize(true);
-            initializeFromSerializedFile(sarDataLoaded);
-            // System.out.println("Loaded");
+        try {
+            List<Object> records = VOCT_STORE.load();
+            if (!records.isEmpty()) {
+                SARData sarDataLoaded = (SARData) records.get(0);
+                setLoadSarFromSerialize(true);
+                initializeFromSerializedFile(sarDataLoaded);
+            }
 
-        } catch (FileNotFoundException e) {
-            // Not an error
-        }
-        // catch (Exception e) {
-        // LOG.error("Failed to load VOCT file: " + e.getMessage());
-        // // Delete possible corrupted or old file
-        // // new File(VOCT_FILE).delete();
-        // }
-        catch (IOException e1) {
+        } catch (IOException e1) {
             // TODO Auto-generated catch block
             e1.printStackTrace();
         } catch (ClassNotFoundException e) {
@@ -277,6 +264,7 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
         }
 
         sarData.getEffortAllocationData().get(id).setSearchPatternRoute(searchRoute);
+        sruManager.getStatusIndex().put(id, sarData.getEffortAllocationData().get(id));
 
         EPDShore.getInstance().getRouteManager().addRoute(searchRoute);
 
@@ -343,6 +331,7 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
                 }
 
                 sarData.getEffortAllocationData().remove(i);
+                sruManager.getStatusIndex().remove(i);
 
                 for (int j = 0; j < voctLayers.size(); j++) {
                     voctLayers.get(j).removeEffortAllocationArea(i);
@@ -361,22 +350,16 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
 
     }
 
+    /**
+     * Clears the search pattern route of the effort allocations whose route has been removed
+     */
     private void checkRoutes() {
 
         if (sarData != null) {
-
-            for (Entry<Long, EffortAllocationData> entry : sarData.getEffortAllocationData().entrySet()) {
-                EffortAllocationData effortAllocationData = entry.getValue();
-
-                if (!routeManager.getRoutes().contains(effortAllocationData.getSearchPatternRoute())) {
-
-//                    System.out.println("Route removed");
-
-                    effortAllocationData.setSearchPatternRoute(null);
-                }
-
+            List<Long> changed = sruManager.getStatusIndex().retainRoutes(routeManager.getRoutes());
+            if (!changed.isEmpty()) {
+                LOG.info("Search pattern routes removed for SRUs " + changed);
             }
-
         }
     }
 
@@ -413,17 +396,63 @@ public class VOCTManager extends VOCTManagerCommon implements IRoutesUpdateListe
         ((JMenuWorkspaceBar) EPD.getInstance().getMainFrame().getTopMenu()).setSarBtnEnabled();
     }
 
+    /**
+     * Starts optimizing the effort allocation areas of all SRUs that have effort allocation data. The effort allocation must
+     * have been calculated first, since the sweep widths are taken from it.
+     * 
+     * @param threads
+     *            the number of worker threads
+     * @param timeBudgetMillis
+     *            the time budget in milliseconds
+     * @return the running optimizer, or null if the SAR operation has no SRUs or no datum to optimize around
+     */
+    public EffortAllocationOptimizer startEffortAllocationOptimization(int threads, long timeBudgetMillis) {
+        if (sarData == null || sarOperation == null) {
+            return null;
+        }
+
+        List<SearchUnit> units = sruManager.getSearchUnits(sarData);
+        ProbabilityGrid grid = sarOperation.createProbabilityGrid(sarData, 40);
+        if (units.isEmpty() || grid == null) {
+            return null;
+        }
+
+        EffortAllocationOptimizer optimizer = new EffortAllocationOptimizer(grid, units);
+        optimizer.start(threads, timeBudgetMillis);
+        return optimizer;
+    }
+
+    /**
+     * Replaces the effort allocation areas with the best plan found by the optimizer so far and redraws them
+     * 
+     * @param optimizer
+     *            the optimizer
+     */
+    public void applyEffortAllocationPlan(EffortAllocationOptimizer optimizer) {
+        EffortAllocationPlan plan = optimizer.getBestPlan();
+        if (sarData == null || plan == null) {
+            return;
+        }
+
+        LOG.info("Applying effort allocation plan with POS " + plan.getProbabilityOfSuccess());
+        plan.applyTo(sarData, optimizer.getGrid());
+        notifyListeners(VOCTUpdateEvent.EFFORT_ALLOCATION_SERIALIZED);
+        saveToFile();
+    }
+
     @Override
     public void EffortAllocationDataEntered() {
         updateEffectiveAreaLocation();
         super.EffortAllocationDataEntered();
 
+        sruManager.getStatusIndex().index(sarData);
         checkRoutes();
     }
 
     @Override
     public void setSarData(SARData sarData) {
         super.setSarData(sarData);
+        sruManager.getStatusIndex().index(sarData);
 
         // Reset all SRU status
         for (Entry<Long, SRU> entry : sruManager.getSRUs().entrySet()) {
@@ -14,13 +14,7 @@
  */
 package dk.dma.epd.shore.voyage;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -32,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import com.bbn.openmap.MapHandlerChild;
 
+import dk.dma.epd.common.util.JournaledStore;
 import dk.dma.epd.shore.EPDShore;
 import dk.dma.epd.shore.ais.AisHandler;
 import dk.dma.epd.shore.services.shore.ShoreServices;
@@ -43,7 +38,8 @@ import dk.dma.epd.shore.services.shore.ShoreServices;
 public class VoyageManager extends MapHandlerChild implements Runnable, Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final String VOYAGESFILE = EPDShore.getInstance().getHomePath().resolve(".voyages").toString();
+    private static final JournaledStore VOYAGES_STORE = new JournaledStore(EPDShore.getInstance().getHomePath().resolve(
+            ".voyages.db"), EPDShore.getInstance().getHomePath().resolve(".voyages"));
     private static final Logger LOG = LoggerFactory.getLogger(VoyageManager.class);
 
     private List<Voyage> voyages = new LinkedList<Voyage>();
@@ -133,19 +129,21 @@ public class VoyageManager extends MapHandlerChild implements Runnable, Serializ
     public static VoyageManager loadVoyageManager() {
         VoyageManager manager = new VoyageManager();
         try {
-            FileInputStream fileIn = new FileInputStream(VOYAGESFILE);
-            ObjectInputStream objectIn = new ObjectInputStream(fileIn);
-            VoyageStore voyageStore = (VoyageStore) objectIn.readObject();
-            objectIn.close();
-            fileIn.close();
-            manager.setVoyages(voyageStore.getVoyages());
-
-        } catch (FileNotFoundException e) {
-            // Not an error
+            List<Object> records = VOYAGES_STORE.load();
+            if (VOYAGES_STORE.isLegacy()) {
+                manager.setVoyages(((VoyageStore) records.get(0)).getVoyages());
+            } else {
+                List<Voyage> voyages = new LinkedList<>();
+                for (Object record : records) {
+                    voyages.add((Voyage) record);
+                }
+                manager.setVoyages(voyages);
+            }
+
         } catch (Exception e) {
             LOG.error("Failed to load routes file: " + e.getMessage());
             // Delete possible corrupted or old file
-            new File(VOYAGESFILE).delete();
+            VOYAGES_STORE.delete();
         }
 
         return manager;
@@ -174,14 +172,8 @@ public class VoyageManager extends MapHandlerChild implements Runnable, Serializ
 
     public void saveToFile() {
         synchronized (voyages) {
-            VoyageStore voyageStore = new VoyageStore(this);
-            
             try {
-                FileOutputStream fileOut = new FileOutputStream(VOYAGESFILE);
-                ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);
-                objectOut.writeObject(voyageStore);
-                objectOut.close();
-                fileOut.close();
+                VOYAGES_STORE.save(voyages);
             } catch (IOException e) {
                 LOG.error("Failed to save routes file: " + e.getMessage());
             }
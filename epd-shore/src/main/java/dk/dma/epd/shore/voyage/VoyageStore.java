@@ -19,7 +19,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 /**
- * A serializable class for storing route information
+ * A serializable class for storing voyage information.
+ * <p>
+ * Only used to read the voyages file of earlier versions, the voyages are now stored in a {@linkplain dk.dma.epd.common.util.JournaledStore}.
  */
 public class VoyageStore implements Serializable {
 
@@ -0,0 +1,201 @@
+/* Copyright (c) 2011 Danish Maritime Authority.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.dma.epd.shore.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.maritimecloud.core.id.MaritimeId;
+import net.maritimecloud.core.id.MmsiId;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import dk.dma.enav.model.geometry.Position;
+import dk.dma.epd.common.prototype.EPD;
+import dk.dma.epd.common.prototype.enavcloud.TODO;
+import dk.dma.epd.common.prototype.enavcloud.VOCTCommunicationService.VOCTCommunicationMessage;
+import dk.dma.epd.common.prototype.enavcloud.VOCTCommunicationService.VOCTCommunicationReply;
+import dk.dma.epd.common.prototype.gui.MainFrameCommon;
+import dk.dma.epd.shore.voct.SRU;
+import dk.dma.epd.shore.voct.SRU.SRU_TYPE;
+import dk.dma.epd.shore.voct.SRU.sru_status;
+import dk.dma.epd.shore.voct.SRUManager;
+import dk.dma.epd.shore.voct.SRUUpdateEvent;
+import dk.dma.epd.shore.voct.SRUUpdateListener;
+
+/**
+ * Tests that refreshing the VOCT endpoints updates the status of the SRUs in the {@linkplain SRUManager}
+ */
+public class VoctHandlerTest {
+
+    private static final long SRU_MMSI = 219000001L;
+    private static final long OTHER_MMSI = 219000002L;
+
+    private VoctHandler voctHandler;
+    private SRUManager sruManager;
+    private final List<Long> statusChanges = new ArrayList<>();
+
+    @BeforeClass
+    public static void createEpd() throws IOException {
+        new TestEPD(Files.createTempDirectory("epd-shore-test"));
+    }
+
+    @Before
+    public void setUp() {
+        sruManager = new SRUManager();
+        sruManager.addSRU(new SRU("Rescue 1", SRU_MMSI, SRU_TYPE.Ship, sru_status.UNKNOWN, 10, 5, 1.0, 2));
+        sruManager.addSRU(new SRU("Rescue 2", OTHER_MMSI, SRU_TYPE.Ship, sru_status.UNKNOWN, 10, 5, 1.0, 2));
+        sruManager.addListener(new SRUUpdateListener() {
+            @Override
+            public void sruUpdated(SRUUpdateEvent e, long mmsi) {
+                if (e == SRUUpdateEvent.SRU_STATUS_CHANGED) {
+                    statusChanges.add(mmsi);
+                }
+            }
+        });
+
+        voctHandler = new VoctHandler();
+        voctHandler.findAndInit(sruManager);
+    }
+
+    @After
+    public void tearDown() {
+        voctHandler.shutdown();
+    }
+
+    @Test
+    public void reachableSruBecomesAvailable() {
+        voctHandler.setVoctMessageList(endpoints(SRU_MMSI));
+
+        assertEquals(sru_status.AVAILABLE, sruManager.getSRUs().get(SRU_MMSI).getStatus());
+        assertEquals(sru_status.UNKNOWN, sruManager.getSRUs().get(OTHER_MMSI).getStatus());
+        assertEquals(Arrays.asList(SRU_MMSI), statusChanges);
+    }
+
+    @Test
+    public void unchangedRefreshNotifiesNothing() {
+        voctHandler.setVoctMessageList(endpoints(SRU_MMSI));
+        statusChanges.clear();
+
+        voctHandler.setVoctMessageList(endpoints(SRU_MMSI));
+        assertEquals(0, statusChanges.size());
+    }
+
+    @Test
+    public void disconnectMakesSrusUnreachable() {
+        voctHandler.setVoctMessageList(endpoints(SRU_MMSI));
+        voctHandler.cloudDisconnected();
+        assertEquals(false, sruManager.getStatusIndex().isReachable(SRU_MMSI));
+
+        // The other SRU becomes available once it is located
+        voctHandler.setVoctMessageList(endpoints(OTHER_MMSI));
+        assertEquals(sru_status.AVAILABLE, sruManager.getSRUs().get(OTHER_MMSI).getStatus());
+        assertEquals(Arrays.asList(SRU_MMSI, OTHER_MMSI), statusChanges);
+    }
+
+    private static List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> endpoints(long... mmsis) {
+        List<TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>> endpoints = new ArrayList<>();
+        for (final long mmsi : mmsis) {
+            endpoints.add(new TODO.ServiceEndpoint<VOCTCommunicationMessage, VOCTCommunicationReply>() {
+                @Override
+                public MaritimeId getId() {
+                    return new MmsiId((int) mmsi);
+                }
+            });
+        }
+        return endpoints;
+    }
+
+    /**
+     * Minimal headless {@linkplain EPD} instance, needed by the SRU manager to find the home path
+     */
+    private static final class TestEPD extends EPD {
+
+        private final Path homePath;
+
+        TestEPD(Path homePath) {
+            this.homePath = homePath;
+        }
+
+        @Override
+        public EPDType getType() {
+            return EPDType.SHORE;
+        }
+
+        @Override
+        public Path getHomePath() {
+            return homePath;
+        }
+
+        @Override
+        protected String getPropertyFileName() {
+            return "epd-shore.properties";
+        }
+
+        @Override
+        protected void propertyLoadError(String msg, IOException e) {
+        }
+
+        @Override
+        protected void startSensors() {
+        }
+
+        @Override
+        protected void stopSensors() {
+        }
+
+        @Override
+        public MainFrameCommon getMainFrame() {
+            return null;
+        }
+
+        @Override
+        public Position getPosition() {
+            return null;
+        }
+
+        @Override
+        public Long getMmsi() {
+            return null;
+        }
+
+        @Override
+        public MaritimeId getMaritimeId() {
+            return null;
+        }
+
+        @Override
+        public String[] getDefaultMouseModeServiceList() {
+            return new String[0];
+        }
+
+        @Override
+        public void closeApp(boolean restart) {
+        }
+
+        @Override
+        public void settingsChanged(Type type) {
+        }
+    }
+}